@@ -0,0 +1,174 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ListIterator;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.component.Destroyable;
+import org.eclipse.jetty.util.compression.Compression;
+import org.eclipse.jetty.util.compression.CompressionPool;
+
+/**
+ * <p>{@link ContentDecoder} for the encoding of a {@link Compression},
+ * for example {@code zstd} or {@code br}.</p>
+ * <p>The {@link Compression} should be started, for example by adding it
+ * as a bean to {@link HttpClient}, so that its decoders are pooled.</p>
+ */
+public class CompressionContentDecoder implements ContentDecoder, Destroyable
+{
+    private final ByteBufferPool byteBufferPool;
+    private final int bufferSize;
+    private CompressionPool<Compression.Decoder>.Entry decoderEntry;
+    private long decodedLength;
+
+    public CompressionContentDecoder(Compression compression, ByteBufferPool byteBufferPool, int bufferSize)
+    {
+        this.byteBufferPool = byteBufferPool;
+        this.bufferSize = bufferSize;
+        this.decoderEntry = compression.acquireDecoder();
+    }
+
+    @Override
+    public void beforeDecoding(HttpExchange exchange)
+    {
+        exchange.getResponse().headers(headers ->
+        {
+            ListIterator<HttpField> iterator = headers.listIterator();
+            while (iterator.hasNext())
+            {
+                HttpField field = iterator.next();
+                HttpHeader header = field.getHeader();
+                if (header == HttpHeader.CONTENT_LENGTH)
+                {
+                    // Content-Length is not valid anymore while we are decoding.
+                    iterator.remove();
+                }
+                else if (header == HttpHeader.CONTENT_ENCODING)
+                {
+                    // Content-Encoding should be removed/modified as the content will be decoded.
+                    String value = field.getValue();
+                    int comma = value.lastIndexOf(",");
+                    if (comma < 0)
+                        iterator.remove();
+                    else
+                        iterator.set(new HttpField(HttpHeader.CONTENT_ENCODING, value.substring(0, comma)));
+                }
+            }
+        });
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer buffer)
+    {
+        Compression.Decoder decoder = decoderEntry.get();
+        if (decoder.finished())
+        {
+            // Ignore the bytes after the end of the compressed stream.
+            buffer.position(buffer.limit());
+            return BufferUtil.EMPTY_BUFFER;
+        }
+
+        ByteBuffer decoded = byteBufferPool == null ? BufferUtil.allocate(bufferSize) : byteBufferPool.acquire(bufferSize, false);
+        try
+        {
+            int pos = BufferUtil.flipToFill(decoded);
+            int length = decoder.decode(buffer, decoded);
+            BufferUtil.flipToFlush(decoded, pos);
+            if (length > 0)
+            {
+                decodedLength += length;
+                return decoded;
+            }
+            release(decoded);
+            return BufferUtil.EMPTY_BUFFER;
+        }
+        catch (IOException x)
+        {
+            release(decoded);
+            throw new RuntimeException(x);
+        }
+    }
+
+    @Override
+    public void release(ByteBuffer decoded)
+    {
+        if (byteBufferPool != null && decoded != BufferUtil.EMPTY_BUFFER)
+            byteBufferPool.release(decoded);
+    }
+
+    @Override
+    public void afterDecoding(HttpExchange exchange)
+    {
+        exchange.getResponse().headers(headers ->
+        {
+            headers.remove(HttpHeader.TRANSFER_ENCODING);
+            headers.putLongField(HttpHeader.CONTENT_LENGTH, decodedLength);
+        });
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (decoderEntry != null)
+        {
+            decoderEntry.release();
+            decoderEntry = null;
+        }
+    }
+
+    /**
+     * Specialized {@link ContentDecoder.Factory} for the encoding of a {@link Compression}.
+     */
+    public static class Factory extends ContentDecoder.Factory
+    {
+        private final Compression compression;
+        private final ByteBufferPool byteBufferPool;
+        private final int bufferSize;
+
+        public Factory(Compression compression)
+        {
+            this(compression, null);
+        }
+
+        public Factory(Compression compression, ByteBufferPool byteBufferPool)
+        {
+            this(compression, byteBufferPool, GZIPContentDecoder.DEFAULT_BUFFER_SIZE);
+        }
+
+        public Factory(Compression compression, ByteBufferPool byteBufferPool, int bufferSize)
+        {
+            super(compression.getEncoding());
+            this.compression = compression;
+            this.byteBufferPool = byteBufferPool;
+            this.bufferSize = bufferSize;
+        }
+
+        public Compression getCompression()
+        {
+            return compression;
+        }
+
+        @Override
+        public ContentDecoder newContentDecoder()
+        {
+            return new CompressionContentDecoder(compression, byteBufferPool, bufferSize);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.servlet.ServletOutputStream;
@@ -40,10 +41,12 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.MappedByteBufferPool;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.compression.DeflateCompression;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -84,6 +87,43 @@ public class HttpClientGZIPTest extends AbstractHttpClientServerTest
         assertEquals(data.length, responseHeaders.getLongField(HttpHeader.CONTENT_LENGTH));
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(ScenarioProvider.class)
+    public void testCompressionContentDecoder(Scenario scenario) throws Exception
+    {
+        byte[] data = new byte[64 * 1024];
+        for (int i = 0; i < data.length; ++i)
+        {
+            data[i] = (byte)('a' + i % 7 + i / 4096);
+        }
+        start(scenario, new EmptyServerHandler()
+        {
+            @Override
+            protected void service(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                assertThat(request.getHeader("Accept-Encoding"), containsString("deflate"));
+                response.setHeader("Content-Encoding", "deflate");
+                DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(response.getOutputStream());
+                deflaterOutput.write(data);
+                deflaterOutput.finish();
+            }
+        });
+        DeflateCompression compression = new DeflateCompression();
+        client.addBean(compression);
+        client.getContentDecoderFactories().add(new CompressionContentDecoder.Factory(compression, client.getByteBufferPool(), 1024));
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .scheme(scenario.getScheme())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(data, response.getContent());
+        HttpFields responseHeaders = response.getHeaders();
+        assertNull(responseHeaders.get(HttpHeader.CONTENT_ENCODING));
+        assertEquals(data.length, responseHeaders.getLongField(HttpHeader.CONTENT_LENGTH));
+    }
+
     @ParameterizedTest
     @ArgumentsSource(ScenarioProvider.class)
     public void testMultipleContentEncodingsFooGZIP(Scenario scenario) throws Exception
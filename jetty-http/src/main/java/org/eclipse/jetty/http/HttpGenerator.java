@@ -603,6 +603,19 @@ public class HttpGenerator
             int n = fields.size();
             for (int f = 0; f < n; f++)
             {
+                // Write the fields of a template with a single copy.
+                PreEncodedHttpFields template = PreEncodedHttpFields.blockAt(fields, f);
+                if (template != null)
+                {
+                    template.putTo(header);
+                    if (template.hasServer())
+                        send = send & ~SEND_SERVER;
+                    if (template.hasContentType())
+                        contentType = true;
+                    f += template.size() - 1;
+                    continue;
+                }
+
                 HttpField field = fields.getField(f);
                 HttpHeader h = field.getHeader();
                 if (h == null)
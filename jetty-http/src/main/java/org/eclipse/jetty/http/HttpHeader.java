@@ -120,6 +120,7 @@ public enum HttpHeader
     HTTP2_SETTINGS("HTTP2-Settings"),
 
     STRICT_TRANSPORT_SECURITY("Strict-Transport-Security"),
+    PRIORITY("Priority"),
 
     /**
      * HTTP2 Fields.
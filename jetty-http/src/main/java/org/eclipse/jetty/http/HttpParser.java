@@ -13,10 +13,15 @@
 
 package org.eclipse.jetty.http;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -74,7 +79,11 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.WHITESPACE_AFTER_F
  * (eg. "Connection: close"), or just header names (eg. "Connection:" ).
  * For headers who's value is not known statically (eg. Host, COOKIE) then a
  * per parser dynamic Trie of {@link HttpFields} from previous parsed messages
- * is used to help the parsing of subsequent messages.
+ * is used to help the parsing of subsequent messages.  Besides some headers that
+ * are always cached, fields are learned when their value is repeated, and when the
+ * Trie is full the fields that have not been recently used are evicted.  The Trie
+ * may be seeded from a {@link SharedFieldCache} of the fields learned by the parsers
+ * of other connections.
  * </p>
  * <p>
  * The parser can work in varying compliance modes:
@@ -85,6 +94,13 @@ import static org.eclipse.jetty.http.HttpCompliance.Violation.WHITESPACE_AFTER_F
  * exact case of header names, bypassing the header caches, which are case insensitive,
  * otherwise equivalent to RFC2616</dd>
  * </dl>
+ * <p>
+ * When {@link #setFastScan(boolean) fast scan} is enabled, the spans of the request URI
+ * and of the header names and values that are not found in the caches are located
+ * 8 bytes at a time, by testing a whole {@code long} for delimiters (CR, LF, colon,
+ * space) or for bytes that need the full per byte validation, which is then done by
+ * the normal parsing of the remaining bytes.
+ * </p>
  *
  * @see <a href="http://tools.ietf.org/html/rfc7230">RFC 7230</a>
  */
@@ -93,6 +109,9 @@ public class HttpParser
     public static final Logger LOG = LoggerFactory.getLogger(HttpParser.class);
     public static final int INITIAL_URI_LENGTH = 256;
     private static final int MAX_CHUNK_LENGTH = Integer.MAX_VALUE / 16 - 16;
+    private static final VarHandle LONG_LE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
 
     /**
      * Cache of common {@link HttpField}s including: <UL>
@@ -247,6 +266,7 @@ public class HttpParser
     private int _chunkPosition;
     private boolean _headResponse;
     private boolean _cr;
+    private boolean _fastScan;
     private ByteBuffer _contentChunk;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
@@ -332,6 +352,51 @@ public class HttpParser
         _fieldCache.setCaseSensitive(headerCacheCaseSensitive);
     }
 
+    /**
+     * @return the number of fields found in the header field cache
+     */
+    public long getHeaderCacheHits()
+    {
+        return _fieldCache.getHitCount();
+    }
+
+    /**
+     * @return the number of fields looked up but not found in the header field cache
+     */
+    public long getHeaderCacheMisses()
+    {
+        return _fieldCache.getMissCount();
+    }
+
+    public SharedFieldCache getSharedFieldCache()
+    {
+        return _fieldCache.getShared();
+    }
+
+    /**
+     * @param sharedFieldCache the cache, shared with the parsers of other connections,
+     * that seeds the header field cache of this parser and to which the fields learned
+     * by this parser are published, or null
+     */
+    public void setSharedFieldCache(SharedFieldCache sharedFieldCache)
+    {
+        _fieldCache.setShared(sharedFieldCache);
+    }
+
+    public boolean isFastScan()
+    {
+        return _fastScan;
+    }
+
+    /**
+     * @param fastScan whether the request URI and the header names and values are scanned
+     * for delimiters 8 bytes at a time, rather than byte by byte
+     */
+    public void setFastScan(boolean fastScan)
+    {
+        _fastScan = fastScan;
+    }
+
     protected void checkViolation(Violation violation) throws BadMessageException
     {
         if (violation.isAllowedBy(_complianceMode))
@@ -718,7 +783,7 @@ public class HttpParser
                                     byte[] array = buffer.array();
                                     int p = buffer.arrayOffset() + buffer.position();
                                     int l = buffer.arrayOffset() + buffer.limit();
-                                    int i = p;
+                                    int i = _fastScan ? buffer.arrayOffset() + scanUri(buffer, buffer.position(), buffer.limit()) : p;
                                     while (i < l && array[i] > HttpTokens.SPACE)
                                     {
                                         i++;
@@ -736,7 +801,11 @@ public class HttpParser
                                     buffer.position(i - buffer.arrayOffset());
                                 }
                                 else
+                                {
                                     _uri.append(t.getByte());
+                                    if (_fastScan)
+                                        fastScanUri(buffer);
+                                }
                             }
                             break;
 
@@ -1078,6 +1147,7 @@ public class HttpParser
                         break;
 
                     default:
+                        addToFieldCache = _field == null && _fieldCache.learnable(_header, _headerString, _valueString);
                         break;
                 }
 
@@ -1090,6 +1160,12 @@ public class HttpParser
                     _fieldCache.add(_field);
                 }
             }
+            else if (_field == null && _fieldCache.learnable(_header, _headerString, _valueString))
+            {
+                // Cache a repeated field that is not a known header.
+                _field = new HttpField(null, _headerString, _valueString);
+                _fieldCache.add(_field);
+            }
             if (LOG.isDebugEnabled())
                 LOG.debug("parsedHeader({}) header={}, headerString=[{}], valueString=[{}]", _field, _header, _headerString, _valueString);
             _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
@@ -1348,6 +1424,8 @@ public class HttpParser
                             _string.setLength(0);
                             _string.append(t.getChar());
                             _length = 1;
+                            if (_fastScan)
+                                fastScanFieldName(buffer);
                             break;
                         }
 
@@ -1400,6 +1478,8 @@ public class HttpParser
                         case TCHAR:
                             _string.append(t.getChar());
                             _length = _string.length();
+                            if (_fastScan)
+                                fastScanFieldName(buffer);
                             break;
 
                         default:
@@ -1457,6 +1537,8 @@ public class HttpParser
                             _string.append(t.getChar());
                             _length = _string.length();
                             setState(FieldState.IN_VALUE);
+                            if (_fastScan)
+                                fastScanFieldValue(buffer);
                             break;
 
                         default:
@@ -1489,6 +1571,8 @@ public class HttpParser
                         case OTEXT: // TODO review? should this be a utf8 string?
                             _string.append(t.getChar());
                             _length = _string.length();
+                            if (_fastScan)
+                                fastScanFieldValue(buffer);
                             break;
 
                         default:
@@ -1504,6 +1588,170 @@ public class HttpParser
         return false;
     }
 
+    /**
+     * @param buffer the buffer to scan
+     * @return the limit of a scan that does not exceed the max header bytes, so that
+     * exceeding them is detected and reported by the per byte parsing
+     */
+    private int scanLimit(ByteBuffer buffer)
+    {
+        int limit = buffer.limit();
+        if (_maxHeaderBytes > 0)
+            limit = Math.min(limit, buffer.position() + Math.max(0, _maxHeaderBytes - _headerBytes));
+        return limit;
+    }
+
+    private void fastScanUri(ByteBuffer buffer)
+    {
+        int pos = buffer.position();
+        int end = scanUri(buffer, pos, scanLimit(buffer));
+        for (int i = pos; i < end; i++)
+        {
+            _uri.append(buffer.get(i));
+        }
+        _headerBytes += end - pos;
+        buffer.position(end);
+    }
+
+    private void fastScanFieldName(ByteBuffer buffer)
+    {
+        int pos = buffer.position();
+        int end = scanFieldName(buffer, pos, scanLimit(buffer));
+        int i = pos;
+        while (i < end)
+        {
+            // The span may contain VCHARs that are not valid in a
+            // field name, which are left to the per byte parsing.
+            HttpTokens.Token t = HttpTokens.TOKENS[0xff & buffer.get(i)];
+            HttpTokens.Type type = t.getType();
+            if (type != HttpTokens.Type.ALPHA && type != HttpTokens.Type.DIGIT && type != HttpTokens.Type.TCHAR)
+                break;
+            _string.append(t.getChar());
+            i++;
+        }
+        if (i > pos)
+        {
+            _length = _string.length();
+            _headerBytes += i - pos;
+            buffer.position(i);
+        }
+    }
+
+    private void fastScanFieldValue(ByteBuffer buffer)
+    {
+        int pos = buffer.position();
+        int end = scanFieldValue(buffer, pos, scanLimit(buffer));
+        if (end == pos)
+            return;
+        int last = pos;
+        for (int i = pos; i < end; i++)
+        {
+            byte b = buffer.get(i);
+            _string.append((char)b);
+            if (b != HttpTokens.SPACE)
+                last = i + 1;
+        }
+        // Trailing spaces are not part of the value.
+        if (last > pos)
+            _length = _string.length() - (end - last);
+        _headerBytes += end - pos;
+        buffer.position(end);
+    }
+
+    /**
+     * @return the index of the first byte in the given range that is
+     * a space, a control character or not US-ASCII, or {@code to}
+     */
+    private static int scanUri(ByteBuffer buffer, int from, int to)
+    {
+        int i = from;
+        while (i + 8 <= to)
+        {
+            long x = (long)LONG_LE.get(buffer, i);
+            long stops = below(x, 0x21) | (x & HIGHS);
+            if (stops != 0)
+                return i + (Long.numberOfTrailingZeros(stops) >>> 3);
+            i += 8;
+        }
+        while (i < to && buffer.get(i) > HttpTokens.SPACE)
+        {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index of the first byte in the given range that is a colon,
+     * a space, a control character, DEL or not US-ASCII, or {@code to}
+     */
+    private static int scanFieldName(ByteBuffer buffer, int from, int to)
+    {
+        int i = from;
+        while (i + 8 <= to)
+        {
+            long x = (long)LONG_LE.get(buffer, i);
+            long stops = below(x, 0x21) | aboveTilde(x) | below(x ^ (HttpTokens.COLON * ONES), 0x01);
+            if (stops != 0)
+                return i + (Long.numberOfTrailingZeros(stops) >>> 3);
+            i += 8;
+        }
+        while (i < to)
+        {
+            byte b = buffer.get(i);
+            if (b <= HttpTokens.SPACE || b >= 0x7F || b == HttpTokens.COLON)
+                break;
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return the index of the first byte in the given range that is
+     * a control character (including CR, LF and HTAB), DEL or not US-ASCII, or {@code to}
+     */
+    private static int scanFieldValue(ByteBuffer buffer, int from, int to)
+    {
+        int i = from;
+        while (i + 8 <= to)
+        {
+            long x = (long)LONG_LE.get(buffer, i);
+            long stops = below(x, HttpTokens.SPACE) | aboveTilde(x);
+            if (stops != 0)
+                return i + (Long.numberOfTrailingZeros(stops) >>> 3);
+            i += 8;
+        }
+        while (i < to)
+        {
+            byte b = buffer.get(i);
+            if (b < HttpTokens.SPACE || b >= 0x7F)
+                break;
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * <p>Flags the bytes of the given {@code long} that are less than {@code n},
+     * which must not be greater than {@code 0x80}, by setting their high bit.</p>
+     * <p>Bytes following a flagged byte may also be flagged, so only the
+     * lowest flagged byte is significant.</p>
+     */
+    private static long below(long x, int n)
+    {
+        return (x - n * ONES) & ~x & HIGHS;
+    }
+
+    /**
+     * <p>Flags the bytes of the given {@code long} that are greater than {@code '~'},
+     * that is DEL and the bytes that are not US-ASCII, by setting their high bit.</p>
+     * <p>Bytes following a flagged byte may also be flagged, so only the
+     * lowest flagged byte is significant.</p>
+     */
+    private static long aboveTilde(long x)
+    {
+        return ((x + ONES) | x) & HIGHS;
+    }
+
     /**
      * Parse until next Event.
      *
@@ -2041,10 +2289,29 @@ public class HttpParser
 
     private static class FieldCache
     {
+        // The max number of field names for which the last value is remembered, to detect repeated values.
+        private static final int MAX_CANDIDATES = 64;
+        // The fields whose value typically changes for every request, so not worth remembering.
+        private static final EnumSet<HttpHeader> UNLEARNABLE_HEADERS = EnumSet.of(
+            HttpHeader.CONTENT_MD5,
+            HttpHeader.DATE,
+            HttpHeader.IF_MATCH,
+            HttpHeader.IF_MODIFIED_SINCE,
+            HttpHeader.IF_NONE_MATCH,
+            HttpHeader.IF_RANGE,
+            HttpHeader.IF_UNMODIFIED_SINCE,
+            HttpHeader.PROXY_AUTHORIZATION,
+            HttpHeader.RANGE);
+
+        private final Map<HttpField, Hits> _hits = new IdentityHashMap<>();
         private int _size = 1024;
         private Index.Mutable<HttpField> _cache;
         private List<HttpField> _cacheableFields;
+        private Map<String, String> _candidates;
         private boolean _caseSensitive;
+        private SharedFieldCache _shared;
+        private long _hitCount;
+        private long _missCount;
 
         public int getCapacity()
         {
@@ -2054,6 +2321,7 @@ public class HttpParser
         public void setCapacity(int size)
         {
             _size = size;
+            _hits.clear();
             if (_size <= 0)
                 _cache = NO_CACHE;
             else
@@ -2070,6 +2338,26 @@ public class HttpParser
             _caseSensitive = caseSensitive;
         }
 
+        public SharedFieldCache getShared()
+        {
+            return _shared;
+        }
+
+        public void setShared(SharedFieldCache shared)
+        {
+            _shared = shared;
+        }
+
+        public long getHitCount()
+        {
+            return _hitCount;
+        }
+
+        public long getMissCount()
+        {
+            return _missCount;
+        }
+
         public boolean isEnabled()
         {
             return _cache != NO_CACHE;
@@ -2083,7 +2371,25 @@ public class HttpParser
         public HttpField getBest(ByteBuffer buffer, int i, int remaining)
         {
             Index.Mutable<HttpField> cache = _cache;
-            return cache == null ? null : _cache.getBest(buffer, i, remaining);
+            if (cache == null || cache == NO_CACHE)
+                return null;
+            HttpField field = cache.getBest(buffer, i, remaining);
+            if (field == null)
+            {
+                _missCount++;
+                if (_shared != null)
+                    _shared.onMiss();
+            }
+            else
+            {
+                _hitCount++;
+                if (_shared != null)
+                    _shared.onHit();
+                Hits hits = _hits.get(field);
+                if (hits != null)
+                    hits._count++;
+            }
+            return field;
         }
 
         public void add(HttpField field)
@@ -2094,11 +2400,18 @@ public class HttpParser
                     _cacheableFields = new ArrayList<>();
                 _cacheableFields.add(field);
             }
-            else if (!_cache.put(field))
+            else if (_cache.put(field))
             {
-                _cache.clear();
-                _cache.put(field);
+                _hits.put(field, new Hits());
             }
+            else
+            {
+                evict();
+                if (_cache.put(field))
+                    _hits.put(field, new Hits());
+            }
+            if (_shared != null)
+                _shared.learn(field);
         }
 
         public boolean cacheable(HttpHeader header, String valueString)
@@ -2106,19 +2419,85 @@ public class HttpParser
             return isEnabled() && header != null && valueString.length() <= _size;
         }
 
+        /**
+         * <p>Fields other than those that are always cached are only cached
+         * when a value is repeated, for example across keep-alive requests.</p>
+         *
+         * @param header the known header of the field, or null
+         * @param name the field name
+         * @param value the field value
+         * @return whether the field has the same value as the previous field with the same name
+         */
+        public boolean learnable(HttpHeader header, String name, String value)
+        {
+            if (!isEnabled() || name == null || value == null || value.isEmpty() || name.length() + value.length() > _size)
+                return false;
+            if (header != null && UNLEARNABLE_HEADERS.contains(header))
+                return false;
+            if (_candidates == null)
+                _candidates = new HashMap<>();
+            else if (value.equals(_candidates.get(name)))
+                return true;
+            String previous = _candidates.put(name, value);
+            if (previous == null && _candidates.size() > MAX_CANDIDATES)
+                _candidates.clear();
+            return false;
+        }
+
+        /**
+         * <p>Makes space in a full cache by keeping only the fields that have been
+         * hit since the last eviction, the most hit first, rather than clearing it.</p>
+         */
+        private void evict()
+        {
+            List<Map.Entry<HttpField, Hits>> entries = new ArrayList<>(_hits.entrySet());
+            entries.sort((e1, e2) -> Integer.compare(e2.getValue()._count, e1.getValue()._count));
+            _cache.clear();
+            _hits.clear();
+            for (Map.Entry<HttpField, Hits> entry : entries)
+            {
+                Hits hits = entry.getValue();
+                if (hits._count == 0 || !_cache.put(entry.getKey()))
+                    break;
+                // Age the hits, so that fields that are no longer hit are eventually evicted.
+                hits._count /= 2;
+                _hits.put(entry.getKey(), hits);
+            }
+        }
+
         private void prepare()
         {
-            if (_cache == null && _cacheableFields != null)
+            if (_cache != null)
+                return;
+            List<HttpField> seed = _shared == null ? List.of() : _shared.getFields();
+            if (_cacheableFields == null && seed.isEmpty())
+                return;
+
+            _cache = Index.buildMutableVisibleAsciiAlphabet(_caseSensitive, _size);
+            if (_cacheableFields != null)
             {
-                _cache = Index.buildMutableVisibleAsciiAlphabet(_caseSensitive, _size);
                 for (HttpField f : _cacheableFields)
                 {
                     if (!_cache.put(f))
                         break;
+                    _hits.put(f, new Hits());
                 }
                 _cacheableFields.clear();
                 _cacheableFields = null;
             }
+            for (HttpField f : seed)
+            {
+                if (_hits.containsKey(f) || _cache.get(f.toString()) != null)
+                    continue;
+                if (!_cache.put(f))
+                    break;
+                _hits.put(f, new Hits());
+            }
         }
     }
+
+    private static class Hits
+    {
+        private int _count;
+    }
 }
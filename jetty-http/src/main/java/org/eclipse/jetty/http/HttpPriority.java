@@ -0,0 +1,181 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import org.eclipse.jetty.util.StringUtil;
+
+/**
+ * <p>The priority of a response, as defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a>, with an
+ * {@link #getUrgency() urgency} and an {@link #isIncremental() incremental} flag.</p>
+ * <p>The priority is carried by the {@code Priority} header of the request,
+ * and may be overridden by the {@code Priority} header of the response.</p>
+ */
+public final class HttpPriority
+{
+    public static final int MIN_URGENCY = 0;
+    public static final int MAX_URGENCY = 7;
+    public static final int DEFAULT_URGENCY = 3;
+    public static final HttpPriority DEFAULT = new HttpPriority(DEFAULT_URGENCY, false);
+
+    private final int urgency;
+    private final boolean incremental;
+
+    /**
+     * @param urgency the urgency, from 0 (most urgent) to 7 (least urgent)
+     * @param incremental whether the response may be processed incrementally
+     */
+    public HttpPriority(int urgency, boolean incremental)
+    {
+        if (urgency < MIN_URGENCY || urgency > MAX_URGENCY)
+            throw new IllegalArgumentException("Invalid urgency: " + urgency);
+        this.urgency = urgency;
+        this.incremental = incremental;
+    }
+
+    /**
+     * @return the urgency, from 0 (most urgent) to 7 (least urgent)
+     */
+    public int getUrgency()
+    {
+        return urgency;
+    }
+
+    /**
+     * @return whether the response may be processed incrementally,
+     * so that it can share the bandwidth with other incremental responses of the same urgency
+     */
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    /**
+     * <p>Returns the priority carried by the {@code Priority} header of the given fields.</p>
+     *
+     * @param fields the fields to get the priority from, may be null
+     * @return the priority, or {@link #DEFAULT} if the fields have no {@code Priority} header
+     */
+    public static HttpPriority from(HttpFields fields)
+    {
+        return from(fields, DEFAULT);
+    }
+
+    /**
+     * <p>Returns the priority carried by the {@code Priority} header of the given fields,
+     * whose parameters override those of the given priority.</p>
+     *
+     * @param fields the fields to get the priority from, may be null
+     * @param priority the priority whose parameters are overridden
+     * @return the resulting priority
+     */
+    public static HttpPriority from(HttpFields fields, HttpPriority priority)
+    {
+        if (fields == null)
+            return priority;
+        for (HttpField field : fields)
+        {
+            if (field.getHeader() == HttpHeader.PRIORITY)
+                priority = parse(field.getValue(), priority);
+        }
+        return priority;
+    }
+
+    /**
+     * <p>Parses the given {@code Priority} header value, a structured field dictionary
+     * such as {@code u=5, i}.</p>
+     * <p>Unknown or invalid members are ignored, as required by RFC 9218.</p>
+     *
+     * @param value the header value
+     * @return the priority, with default parameters for the members not present
+     */
+    public static HttpPriority parse(String value)
+    {
+        return parse(value, DEFAULT);
+    }
+
+    private static HttpPriority parse(String value, HttpPriority priority)
+    {
+        if (value == null)
+            return priority;
+        int urgency = priority.getUrgency();
+        boolean incremental = priority.isIncremental();
+        for (String member : StringUtil.csvSplit(value))
+        {
+            // Member parameters, if any, are ignored.
+            int semicolon = member.indexOf(';');
+            if (semicolon >= 0)
+                member = member.substring(0, semicolon);
+            int equals = member.indexOf('=');
+            String key = (equals < 0 ? member : member.substring(0, equals)).trim();
+            String item = equals < 0 ? null : member.substring(equals + 1).trim();
+            switch (key)
+            {
+                case "u":
+                {
+                    if (item != null && item.length() == 1)
+                    {
+                        int u = item.charAt(0) - '0';
+                        if (u >= MIN_URGENCY && u <= MAX_URGENCY)
+                            urgency = u;
+                    }
+                    break;
+                }
+                case "i":
+                {
+                    if (item == null || "?1".equals(item))
+                        incremental = true;
+                    else if ("?0".equals(item))
+                        incremental = false;
+                    break;
+                }
+                default:
+                {
+                    break;
+                }
+            }
+        }
+        if (urgency == priority.getUrgency() && incremental == priority.isIncremental())
+            return priority;
+        if (urgency == DEFAULT_URGENCY && !incremental)
+            return DEFAULT;
+        return new HttpPriority(urgency, incremental);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof HttpPriority))
+            return false;
+        HttpPriority that = (HttpPriority)obj;
+        return urgency == that.urgency && incremental == that.incremental;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * urgency + (incremental ? 1 : 0);
+    }
+
+    /**
+     * @return the {@code Priority} header value for this priority
+     */
+    @Override
+    public String toString()
+    {
+        return incremental ? "u=" + urgency + ", i" : "u=" + urgency;
+    }
+}
@@ -0,0 +1,200 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>A template of constant fields, for example the security headers that an
+ * application sends with every response, that is created once and then added
+ * to many responses with {@link #addTo(HttpFields.Mutable)}.</p>
+ * <p>Each field is a {@link PreEncodedHttpField}, so that it is pre-encoded for
+ * every version of HTTP, and the HTTP/1 encodings of all the fields are also
+ * concatenated in a single block, that the {@link HttpGenerator} writes with a
+ * single copy when the fields are still contiguous in the response fields.</p>
+ * <p>The fields that determine the framing of the message ({@code Content-Length},
+ * {@code Transfer-Encoding} and {@code Connection}) and the pseudo headers
+ * cannot be part of a template.</p>
+ */
+public class PreEncodedHttpFields implements Iterable<HttpField>
+{
+    private final Field[] _fields;
+    private final byte[] _http1;
+    private final boolean _server;
+    private final boolean _contentType;
+
+    public PreEncodedHttpFields(HttpFields fields)
+    {
+        this(fields.stream().toArray(HttpField[]::new));
+    }
+
+    public PreEncodedHttpFields(HttpField... fields)
+    {
+        _fields = new Field[fields.length];
+        boolean server = false;
+        boolean contentType = false;
+        int length = 0;
+        for (int i = 0; i < fields.length; i++)
+        {
+            HttpField field = fields[i];
+            HttpHeader header = field.getHeader();
+            if (header != null)
+            {
+                switch (header)
+                {
+                    case CONTENT_LENGTH:
+                    case TRANSFER_ENCODING:
+                    case CONNECTION:
+                        throw new IllegalArgumentException("Framing field in template: " + field);
+                    case SERVER:
+                        server = true;
+                        break;
+                    case CONTENT_TYPE:
+                        contentType = true;
+                        break;
+                    default:
+                        if (header.isPseudo())
+                            throw new IllegalArgumentException("Pseudo field in template: " + field);
+                        break;
+                }
+            }
+            String value = field.getValue();
+            _fields[i] = new Field(this, i, header, field.getName(), value == null ? "" : value);
+            length += _fields[i].getEncodedLength(HttpVersion.HTTP_1_1);
+        }
+        _server = server;
+        _contentType = contentType;
+
+        ByteBuffer http1 = ByteBuffer.allocate(length);
+        for (Field field : _fields)
+        {
+            field.putTo(http1, HttpVersion.HTTP_1_1);
+        }
+        _http1 = http1.array();
+    }
+
+    public int size()
+    {
+        return _fields.length;
+    }
+
+    public HttpField getField(int index)
+    {
+        return _fields[index];
+    }
+
+    @Override
+    public Iterator<HttpField> iterator()
+    {
+        return List.<HttpField>of(_fields).iterator();
+    }
+
+    /**
+     * <p>Puts the fields of this template into the given fields, replacing
+     * any existing field with the same name.</p>
+     * <p>The fields are only written as a single block if they are still
+     * contiguous, in order, when the message is generated.</p>
+     *
+     * @param fields the fields to put the fields of this template into
+     */
+    public void addTo(HttpFields.Mutable fields)
+    {
+        for (Field field : _fields)
+        {
+            fields.put(field);
+        }
+    }
+
+    /**
+     * @return whether this template contains a {@code Server} field
+     */
+    boolean hasServer()
+    {
+        return _server;
+    }
+
+    /**
+     * @return whether this template contains a {@code Content-Type} field
+     */
+    boolean hasContentType()
+    {
+        return _contentType;
+    }
+
+    /**
+     * @return the length of the HTTP/1 encoding of all the fields
+     */
+    public int getEncodedLength()
+    {
+        return _http1.length;
+    }
+
+    /**
+     * <p>Puts the HTTP/1 encoding of all the fields into the given buffer.</p>
+     *
+     * @param bufferInFillMode the buffer to put the encoded fields into
+     */
+    public void putTo(ByteBuffer bufferInFillMode)
+    {
+        bufferInFillMode.put(_http1);
+    }
+
+    /**
+     * @param fields the fields of a message
+     * @param index the index of a field
+     * @return the template whose fields are, in order, the fields starting at
+     * the given index, or null if the field at the given index does not start a template
+     */
+    static PreEncodedHttpFields blockAt(HttpFields fields, int index)
+    {
+        HttpField field = fields.getField(index);
+        if (!(field instanceof Field))
+            return null;
+        Field first = (Field)field;
+        if (first._index != 0)
+            return null;
+        PreEncodedHttpFields template = first._template;
+        int size = template._fields.length;
+        if (index + size > fields.size())
+            return null;
+        for (int i = 1; i < size; i++)
+        {
+            if (fields.getField(index + i) != template._fields[i])
+                return null;
+        }
+        return template;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), Arrays.toString(_fields));
+    }
+
+    private static class Field extends PreEncodedHttpField
+    {
+        private final PreEncodedHttpFields _template;
+        private final int _index;
+
+        private Field(PreEncodedHttpFields template, int index, HttpHeader header, String name, String value)
+        {
+            super(header, name, value);
+            _template = template;
+            _index = index;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A cache of the {@link HttpField}s learned by the {@link HttpParser}s of many
+ * connections, typically those of a connector.</p>
+ * <p>Each parser has its own field cache, which is not thread safe and is only used
+ * by the parser of a single connection. The fields learned by a parser are also
+ * published to this cache, so that the fields learned by the most connections are
+ * used to seed the field cache of new connections, whose first requests can then
+ * avoid allocating the {@link HttpField}s and {@link String}s of the fields that
+ * the clients send with every request (for example {@code User-Agent} and {@code Accept}).</p>
+ * <p>Only the fields of well known headers that describe the capabilities of the client,
+ * such as {@code Accept-Encoding}, are learned. Fields that carry credentials or that
+ * identify the client, such as {@code Authorization}, {@code Cookie} and {@code Host},
+ * and fields with unknown names, such as {@code X-Api-Key}, that may carry credentials,
+ * are never learned, so that their values are not retained by this cache and used by
+ * the connections of other clients.</p>
+ * <p>This cache also aggregates the hits and misses of the field caches of the parsers
+ * that use it.</p>
+ *
+ * @see HttpParser#setSharedFieldCache(SharedFieldCache)
+ */
+@ManagedObject("The HTTP fields learned by the parsers of many connections")
+public class SharedFieldCache
+{
+    private static final EnumSet<HttpHeader> SHARED_HEADERS = EnumSet.of(
+        HttpHeader.ACCEPT,
+        HttpHeader.ACCEPT_CHARSET,
+        HttpHeader.ACCEPT_ENCODING,
+        HttpHeader.ACCEPT_LANGUAGE,
+        HttpHeader.CACHE_CONTROL,
+        HttpHeader.CONNECTION,
+        HttpHeader.CONTENT_ENCODING,
+        HttpHeader.CONTENT_TYPE,
+        HttpHeader.PRAGMA,
+        HttpHeader.TE,
+        HttpHeader.UPGRADE,
+        HttpHeader.USER_AGENT);
+
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, Learned> _learned = new ConcurrentHashMap<>();
+    private final AtomicInteger _version = new AtomicInteger();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private volatile Seed _seed = new Seed(-1, List.of());
+    private int _capacity = 256;
+    private int _seedSize = 64;
+
+    @ManagedAttribute("The max number of learned fields")
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    public void setCapacity(int capacity)
+    {
+        _capacity = capacity;
+    }
+
+    @ManagedAttribute("The max number of fields that seed the field cache of a new connection")
+    public int getSeedSize()
+    {
+        return _seedSize;
+    }
+
+    public void setSeedSize(int seedSize)
+    {
+        _seedSize = seedSize;
+    }
+
+    @ManagedAttribute("The number of learned fields")
+    public int getSize()
+    {
+        return _learned.size();
+    }
+
+    @ManagedAttribute("The number of fields found in the field caches")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of fields not found in the field caches")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The number of learned fields forgotten to make space for new fields")
+    public long getEvictions()
+    {
+        return _evictions.longValue();
+    }
+
+    @ManagedAttribute("The ratio of fields found in the field caches")
+    public double getHitRatio()
+    {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+    }
+
+    @ManagedOperation(value = "Forgets the learned fields", impact = "ACTION")
+    public void clear()
+    {
+        _learned.clear();
+        _version.incrementAndGet();
+    }
+
+    /**
+     * <p>Records a field learned by the field cache of a connection.</p>
+     * <p>When this cache is full, the fields learned by the fewest connections
+     * are forgotten to make space for the new field.</p>
+     *
+     * @param field the field learned by a connection
+     */
+    public void learn(HttpField field)
+    {
+        if (!isShareable(field))
+            return;
+        String key = field.toString();
+        Learned learned = _learned.get(key);
+        if (learned != null)
+        {
+            learned._connections.incrementAndGet();
+            return;
+        }
+        if (_learned.size() >= _capacity)
+            evict();
+        if (_learned.putIfAbsent(key, new Learned(field)) == null)
+            _version.incrementAndGet();
+    }
+
+    private static boolean isShareable(HttpField field)
+    {
+        HttpHeader header = field.getHeader();
+        return header != null && SHARED_HEADERS.contains(header);
+    }
+
+    /**
+     * <p>Forgets the half of the fields learned by the fewest connections,
+     * and halves the count of the others, so that the fields that are no
+     * longer learned by new connections are eventually forgotten.</p>
+     */
+    private void evict()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            // Another thread may have already made space.
+            if (_learned.size() < _capacity)
+                return;
+            List<Learned> learned = new ArrayList<>(_learned.values());
+            learned.sort(Comparator.comparingLong(Learned::connections));
+            int evict = (learned.size() + 1) / 2;
+            for (int i = 0; i < learned.size(); ++i)
+            {
+                Learned entry = learned.get(i);
+                if (i < evict)
+                {
+                    if (_learned.remove(entry._field.toString(), entry))
+                        _evictions.increment();
+                }
+                else
+                {
+                    entry._connections.updateAndGet(count -> count / 2);
+                }
+            }
+            _version.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the fields learned by the most connections, at most {@link #getSeedSize()}
+     */
+    public List<HttpField> getFields()
+    {
+        // The seed is only recomputed when new fields have been learned,
+        // which after the first connections is rare, and races only
+        // cause a redundant computation.
+        int version = _version.get();
+        Seed seed = _seed;
+        if (seed._version != version)
+        {
+            List<HttpField> fields = _learned.values().stream()
+                .sorted(Comparator.comparingLong(Learned::connections).reversed())
+                .limit(Math.max(0, _seedSize))
+                .map(learned -> learned._field)
+                .collect(Collectors.toList());
+            seed = new Seed(version, fields);
+            _seed = seed;
+        }
+        return seed._fields;
+    }
+
+    void onHit()
+    {
+        _hits.increment();
+    }
+
+    void onMiss()
+    {
+        _misses.increment();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,hits=%d,misses=%d,evictions=%d}", getClass().getSimpleName(), hashCode(), getSize(), getHits(), getMisses(), getEvictions());
+    }
+
+    private static class Learned
+    {
+        private final HttpField _field;
+        private final AtomicLong _connections = new AtomicLong(1);
+
+        private Learned(HttpField field)
+        {
+            _field = field;
+        }
+
+        private long connections()
+        {
+            return _connections.get();
+        }
+    }
+
+    private static class Seed
+    {
+        private final int _version;
+        private final List<HttpField> _fields;
+
+        private Seed(int version, List<HttpField> fields)
+        {
+            _version = version;
+            _fields = fields;
+        }
+    }
+}
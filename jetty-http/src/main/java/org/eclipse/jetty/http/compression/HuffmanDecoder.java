@@ -26,14 +26,77 @@ import static org.eclipse.jetty.http.compression.Huffman.rowsym;
  *
  * <p>Characters which are illegal field-vchar values are replaced with
  * either ' ' or '?' as described in RFC9110</p>
+ *
+ * <p>The encoded bytes are accumulated in a {@code long}, and decoded with
+ * a table indexed by the next {@value #FAST_BITS} bits, that yields up to
+ * two symbols at a time for the short codes of the most frequent characters.
+ * Longer codes are decoded 8 bits at a time with {@link Huffman#tree}.</p>
  */
 public class HuffmanDecoder
 {
+    private static final int FAST_BITS = 12;
+    private static final int FAST_MASK = (1 << FAST_BITS) - 1;
+    /**
+     * <p>For each value of the next {@value #FAST_BITS} bits, the symbols whose
+     * codes fit in those bits, already sanitized, and the number of bits they use:
+     * bits 0-7 the first symbol, bits 8-15 the second symbol, bits 16-23 the
+     * number of bits used and bits 24-31 the number of symbols, possibly 0 if the
+     * code of the first symbol is longer than {@value #FAST_BITS} bits.</p>
+     */
+    private static final int[] FAST_TABLE = new int[1 << FAST_BITS];
+
+    static
+    {
+        // The first symbol and its code length for each value of the next bits.
+        int[] firstSymbols = new int[FAST_TABLE.length];
+        int[] firstLengths = new int[FAST_TABLE.length];
+        for (int sym = 0; sym < Huffman.CODES.length; sym++)
+        {
+            int code = Huffman.CODES[sym][0];
+            int len = Huffman.CODES[sym][1];
+            if (len > FAST_BITS)
+                continue;
+            int start = code << (FAST_BITS - len);
+            int end = start + (1 << (FAST_BITS - len));
+            for (int i = start; i < end; i++)
+            {
+                firstSymbols[i] = sym;
+                firstLengths[i] = len;
+            }
+        }
+
+        for (int i = 0; i < FAST_TABLE.length; i++)
+        {
+            int len1 = firstLengths[i];
+            if (len1 == 0)
+                continue;
+            int entry = sanitize(firstSymbols[i]);
+            int count = 1;
+            int bits = len1;
+            // The second symbol is decoded from the bits left after the first,
+            // and it is valid only if its code fits in those bits.
+            int next = (i << len1) & FAST_MASK;
+            int len2 = firstLengths[next];
+            if (len2 > 0 && len1 + len2 <= FAST_BITS)
+            {
+                entry |= sanitize(firstSymbols[next]) << 8;
+                ++count;
+                bits += len2;
+            }
+            FAST_TABLE[i] = entry | bits << 16 | count << 24;
+        }
+    }
+
+    private static int sanitize(int sym)
+    {
+        return HttpTokens.sanitizeFieldVchar((char)sym) & 0xFF;
+    }
+
     private final CharsetStringBuilder.Iso88591StringBuilder _builder = new CharsetStringBuilder.Iso88591StringBuilder();
     private int _length = 0;
     private int _count = 0;
     private int _node = 0;
-    private int _current = 0;
+    private long _current = 0;
     private int _bits = 0;
 
     /**
@@ -53,17 +116,40 @@ public class HuffmanDecoder
      */
     public String decode(ByteBuffer buffer) throws EncodingException
     {
-        for (; _count < _length; _count++)
+        while (_count < _length)
         {
             if (!buffer.hasRemaining())
                 return null;
 
-            int b = buffer.get() & 0xFF;
-            _current = (_current << 8) | b;
-            _bits += 8;
-            while (_bits >= 8)
+            // Accumulate as many bytes as fit in the long.
+            int bytes = Math.min(Math.min(buffer.remaining(), _length - _count), (Long.SIZE - _bits) / Byte.SIZE);
+            for (int i = 0; i < bytes; i++)
+            {
+                _current = (_current << 8) | (buffer.get() & 0xFF);
+            }
+            _count += bytes;
+            _bits += bytes * Byte.SIZE;
+
+            while (true)
             {
-                int i = (_current >>> (_bits - 8)) & 0xFF;
+                if (_node == 0 && _bits >= FAST_BITS)
+                {
+                    int entry = FAST_TABLE[(int)(_current >>> (_bits - FAST_BITS)) & FAST_MASK];
+                    int count = entry >>> 24;
+                    if (count > 0)
+                    {
+                        _builder.append((byte)entry);
+                        if (count > 1)
+                            _builder.append((byte)(entry >>> 8));
+                        _bits -= (entry >>> 16) & 0xFF;
+                        continue;
+                    }
+                }
+
+                if (_bits < 8)
+                    break;
+
+                int i = (int)(_current >>> (_bits - 8)) & 0xFF;
                 _node = Huffman.tree[_node * 256 + i];
                 if (rowbits[_node] != 0)
                 {
@@ -90,7 +176,7 @@ public class HuffmanDecoder
 
         while (_bits > 0)
         {
-            int i = (_current << (8 - _bits)) & 0xFF;
+            int i = (int)(_current << (8 - _bits)) & 0xFF;
             int lastNode = _node;
             _node = Huffman.tree[_node * 256 + i];
 
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.http.compression;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.eclipse.jetty.http.HttpTokens;
 
@@ -25,9 +26,27 @@ import static org.eclipse.jetty.http.compression.Huffman.LCCODES;
  *
  * <p>Characters are encoded with ISO-8859-1, if any multi-byte characters or
  * control characters are present the encoder will throw {@link EncodingException}.</p>
+ *
+ * <p>The codes are accumulated in a {@code long} and written 32 bits at a time.</p>
  */
 public class HuffmanEncoder
 {
+    // The codes and their lengths, flattened from the tables for faster access.
+    private static final int[] CODE_VALUES = values(CODES, 0);
+    private static final int[] CODE_LENGTHS = values(CODES, 1);
+    private static final int[] LCCODE_VALUES = values(LCCODES, 0);
+    private static final int[] LCCODE_LENGTHS = values(LCCODES, 1);
+
+    private static int[] values(int[][] table, int index)
+    {
+        int[] values = new int[table.length];
+        for (int i = 0; i < table.length; i++)
+        {
+            values[i] = table[i][index];
+        }
+        return values;
+    }
+
     private HuffmanEncoder()
     {
     }
@@ -38,7 +57,7 @@ public class HuffmanEncoder
      */
     public static int octetsNeeded(String s)
     {
-        return octetsNeeded(CODES, s);
+        return octetsNeeded(CODE_LENGTHS, s);
     }
 
     /**
@@ -51,7 +70,7 @@ public class HuffmanEncoder
         for (byte value : b)
         {
             int c = 0xFF & value;
-            needed += CODES[c][1];
+            needed += CODE_LENGTHS[c];
         }
         return (needed + 7) / 8;
     }
@@ -62,7 +81,7 @@ public class HuffmanEncoder
      */
     public static void encode(ByteBuffer buffer, String s)
     {
-        encode(CODES, buffer, s);
+        encode(CODE_VALUES, CODE_LENGTHS, buffer, s);
     }
 
     /**
@@ -71,7 +90,7 @@ public class HuffmanEncoder
      */
     public static int octetsNeededLowerCase(String s)
     {
-        return octetsNeeded(LCCODES, s);
+        return octetsNeeded(LCCODE_LENGTHS, s);
     }
 
     /**
@@ -80,10 +99,10 @@ public class HuffmanEncoder
      */
     public static void encodeLowerCase(ByteBuffer buffer, String s)
     {
-        encode(LCCODES, buffer, s);
+        encode(LCCODE_VALUES, LCCODE_LENGTHS, buffer, s);
     }
 
-    private static int octetsNeeded(final int[][] table, String s)
+    private static int octetsNeeded(final int[] lengths, String s)
     {
         int needed = 0;
         int len = s.length();
@@ -92,19 +111,21 @@ public class HuffmanEncoder
             char c = s.charAt(i);
             if (HttpTokens.isIllegalFieldVchar(c))
                 return -1;
-            needed += table[c][1];
+            needed += lengths[c];
         }
 
         return (needed + 7) / 8;
     }
 
     /**
-     * @param table The table to encode by
+     * @param values The code values to encode by
+     * @param lengths The code lengths to encode by
      * @param buffer The buffer to encode to
      * @param s The string to encode
      */
-    private static void encode(final int[][] table, ByteBuffer buffer, String s)
+    private static void encode(final int[] values, final int[] lengths, ByteBuffer buffer, String s)
     {
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
         long current = 0;
         int n = 0;
         int len = s.length();
@@ -113,20 +134,37 @@ public class HuffmanEncoder
             char c = s.charAt(i);
             if (HttpTokens.isIllegalFieldVchar(c))
                  throw new IllegalArgumentException();
-            int code = table[c][0];
-            int bits = table[c][1];
+            int bits = lengths[c];
 
-            current <<= bits;
-            current |= code;
+            // Codes are at most 30 bits, so with less
+            // than 32 bits pending they fit in the long.
+            current = (current << bits) | values[c];
             n += bits;
 
-            while (n >= 8)
+            if (n >= 32)
             {
-                n -= 8;
-                buffer.put((byte)(current >> n));
+                n -= 32;
+                int word = (int)(current >>> n);
+                if (bigEndian)
+                {
+                    buffer.putInt(word);
+                }
+                else
+                {
+                    buffer.put((byte)(word >>> 24));
+                    buffer.put((byte)(word >>> 16));
+                    buffer.put((byte)(word >>> 8));
+                    buffer.put((byte)word);
+                }
             }
         }
 
+        while (n >= 8)
+        {
+            n -= 8;
+            buffer.put((byte)(current >>> n));
+        }
+
         if (n > 0)
         {
             current <<= (8 - n);
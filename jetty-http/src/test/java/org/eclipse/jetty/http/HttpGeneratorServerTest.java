@@ -262,6 +262,48 @@ public class HttpGeneratorServerTest
         gen.reset();
     }
 
+    @Test
+    public void testPreEncodedHttpFieldsTemplate() throws Exception
+    {
+        PreEncodedHttpFields template = new PreEncodedHttpFields(
+            new HttpField(HttpHeader.SERVER, "TemplateServer"),
+            new HttpField("X-Frame-Options", "DENY"),
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-store"));
+
+        ByteBuffer header = BufferUtil.allocate(8096);
+        HttpFields.Mutable fields = HttpFields.build();
+        fields.add(HttpHeader.LAST_MODIFIED, DateGenerator.__01Jan1970);
+        template.addTo(fields);
+        fields.add("X-Other", "other");
+        MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 0);
+
+        HttpGenerator gen = new HttpGenerator(true, false);
+        gen.generateResponse(info, false, header, null, null, true);
+        String head = BufferUtil.toString(header);
+        BufferUtil.clear(header);
+        assertThat(head, containsString("Last-Modified: Thu, 01 Jan 1970 00:00:00 GMT\r\n" +
+            "Server: TemplateServer\r\n" +
+            "X-Frame-Options: DENY\r\n" +
+            "Cache-Control: no-store\r\n" +
+            "X-Other: other\r\n"));
+        // The Server field of the template replaces the default one.
+        assertThat(head, not(containsString("Server: Jetty(10.x.x)")));
+
+        // The fields of the template are still individually visible and
+        // are generated one by one if they are no longer contiguous.
+        assertEquals("DENY", fields.get("X-Frame-Options"));
+        fields.remove("X-Frame-Options");
+        info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 0);
+        gen.reset();
+        gen.generateResponse(info, false, header, null, null, true);
+        head = BufferUtil.toString(header);
+        assertThat(head, containsString("Server: TemplateServer\r\nCache-Control: no-store\r\nX-Other: other\r\n"));
+        assertThat(head, not(containsString("X-Frame-Options")));
+        assertThat(head, not(containsString("Server: Jetty(10.x.x)")));
+
+        assertThrows(IllegalArgumentException.class, () -> new PreEncodedHttpFields(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+    }
+
     @Test
     public void testResponseIncorrectContentLength() throws Exception
     {
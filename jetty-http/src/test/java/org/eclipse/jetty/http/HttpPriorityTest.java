@@ -0,0 +1,79 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HttpPriorityTest
+{
+    public static Stream<Arguments> values()
+    {
+        return Stream.of(
+            Arguments.of("", 3, false),
+            Arguments.of("u=5", 5, false),
+            Arguments.of("i", 3, true),
+            Arguments.of("u=0, i", 0, true),
+            Arguments.of("u=1,i=?1", 1, true),
+            Arguments.of("u=1, i=?0", 1, false),
+            Arguments.of("u=6;p=1, foo=bar, i", 6, true),
+            // Invalid members are ignored.
+            Arguments.of("u=8", 3, false),
+            Arguments.of("u=-1", 3, false),
+            Arguments.of("u=a, i=x", 3, false),
+            // The last member wins.
+            Arguments.of("u=1, u=4", 4, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("values")
+    public void testParse(String value, int urgency, boolean incremental)
+    {
+        HttpPriority priority = HttpPriority.parse(value);
+        assertEquals(urgency, priority.getUrgency());
+        assertEquals(incremental, priority.isIncremental());
+    }
+
+    @Test
+    public void testFromFields()
+    {
+        assertSame(HttpPriority.DEFAULT, HttpPriority.from(null));
+        assertSame(HttpPriority.DEFAULT, HttpPriority.from(HttpFields.EMPTY));
+
+        HttpFields fields = HttpFields.build()
+            .add(HttpHeader.PRIORITY, "u=1")
+            .add(HttpHeader.PRIORITY, "i");
+        assertEquals(new HttpPriority(1, true), HttpPriority.from(fields));
+
+        // A response priority overrides only the parameters it has.
+        HttpFields response = HttpFields.build().add(HttpHeader.PRIORITY, "i=?0");
+        assertEquals(new HttpPriority(1, false), HttpPriority.from(response, new HttpPriority(1, true)));
+    }
+
+    @Test
+    public void testToString()
+    {
+        assertEquals("u=3", HttpPriority.DEFAULT.toString());
+        assertEquals("u=0, i", new HttpPriority(0, true).toString());
+        assertEquals(new HttpPriority(0, true), HttpPriority.parse(new HttpPriority(0, true).toString()));
+    }
+}
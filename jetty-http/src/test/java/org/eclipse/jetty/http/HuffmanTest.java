@@ -26,6 +26,7 @@ import org.eclipse.jetty.util.TypeUtil;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -85,6 +86,40 @@ public class HuffmanTest
         assertEquals(hex.length() / 2, HuffmanEncoder.octetsNeeded(expected));
     }
 
+    @ParameterizedTest(name = "[{index}] spec={0}")
+    @MethodSource("data")
+    public void testDecodeByteByByte(String specSection, String hex, String expected) throws Exception
+    {
+        byte[] encoded = TypeUtil.fromHexString(hex);
+        HuffmanDecoder huffmanDecoder = new HuffmanDecoder();
+        huffmanDecoder.setLength(encoded.length);
+        String decoded = null;
+        for (byte b : encoded)
+        {
+            decoded = huffmanDecoder.decode(ByteBuffer.wrap(new byte[]{b}));
+        }
+        assertEquals(expected, decoded, specSection);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "a",
+        "Mozilla/5.0 (X11; Linux x86_64; rv:109.0) Gecko/20100101 Firefox/115.0",
+        "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+        "max-age=31536000; includeSubDomains; preload",
+        "~|{}^`\\<>\u0080\u00FF"
+    })
+    public void testEncodeDecode(String value) throws Exception
+    {
+        ByteBuffer buffer = BufferUtil.allocate(1024);
+        int pos = BufferUtil.flipToFill(buffer);
+        HuffmanEncoder.encode(buffer, value);
+        BufferUtil.flipToFlush(buffer, pos);
+        assertEquals(HuffmanEncoder.octetsNeeded(value), buffer.remaining());
+        assertEquals(value, decode(buffer));
+    }
+
     public static Stream<Arguments> testDecode8859OnlyArguments()
     {
         return Stream.of(
@@ -0,0 +1,229 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.AdaptiveFlowControlStrategy;
+import org.eclipse.jetty.http2.ErrorCode;
+import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.GoAwayFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.http2.parser.WindowRateControl;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FutureCallback;
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveFlowControlStrategyTest extends AbstractTest
+{
+    @Test
+    public void testRecvWindowsGrowWithinCaps() throws Exception
+    {
+        int contentLength = 16 * 1024 * 1024;
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(contentLength), true), Callback.NOOP)));
+                return null;
+            }
+        });
+
+        int sessionRecvWindowCap = 1024 * 1024;
+        int streamRecvWindowCap = 512 * 1024;
+        client.setFlowControlStrategyFactory(() -> new AdaptiveFlowControlStrategy(FlowControlStrategy.DEFAULT_WINDOW_SIZE, 0.5F, sessionRecvWindowCap, streamRecvWindowCap));
+
+        AtomicInteger pings = new AtomicInteger();
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                pings.incrementAndGet();
+            }
+        });
+
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+
+        AdaptiveFlowControlStrategy flowControl = (AdaptiveFlowControlStrategy)((HTTP2Session)session).getFlowControlStrategy();
+        assertThat(flowControl.getRoundTripTime(), greaterThan(0L));
+        assertThat(flowControl.getSessionRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(flowControl.getSessionRecvWindow(), lessThanOrEqualTo(sessionRecvWindowCap));
+        assertThat(flowControl.getInitialStreamRecvWindow(), greaterThan(FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+        assertThat(flowControl.getInitialStreamRecvWindow(), lessThanOrEqualTo(streamRecvWindowCap));
+        // The PING frames used to measure the round-trip time are not notified to the application.
+        assertEquals(0, pings.get());
+    }
+
+    @Test
+    public void testSamplingWithinServerRateControl() throws Exception
+    {
+        int chunks = 150;
+        int chunkSize = 64 * 1024;
+        AtomicInteger serverPings = new AtomicInteger();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.NOOP);
+                // Pace the content, so that the download lasts well over the rate control window.
+                new Thread(() ->
+                {
+                    try
+                    {
+                        for (int i = 0; i < chunks; ++i)
+                        {
+                            FutureCallback callback = new FutureCallback();
+                            stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(chunkSize), i == chunks - 1), callback);
+                            callback.get(5, TimeUnit.SECONDS);
+                            Thread.sleep(10);
+                        }
+                    }
+                    catch (Throwable x)
+                    {
+                        stream.reset(new ResetFrame(stream.getId(), ErrorCode.INTERNAL_ERROR.code), Callback.NOOP);
+                    }
+                }).start();
+                return null;
+            }
+
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                serverPings.incrementAndGet();
+            }
+        }, connectionFactory -> connectionFactory.setRateControlFactory(new WindowRateControl.Factory(30)));
+
+        client.setFlowControlStrategyFactory(AdaptiveFlowControlStrategy::new);
+
+        AtomicReference<GoAwayFrame> goAwayRef = new AtomicReference<>();
+        Session session = newClient(new Session.Listener.Adapter()
+        {
+            @Override
+            public void onGoAway(Session session, GoAwayFrame frame)
+            {
+                goAwayRef.set(frame);
+            }
+        });
+
+        CountDownLatch latch = new CountDownLatch(1);
+        long begin = NanoTime.now();
+        session.newStream(new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        long elapsed = NanoTime.millisSince(begin);
+
+        // The server did not close the connection for exceeding the PING rate.
+        assertNull(goAwayRef.get());
+        // At most one PING per min sample interval was sent.
+        assertThat(serverPings.get(), lessThanOrEqualTo((int)(elapsed / AdaptiveFlowControlStrategy.DEFAULT_MIN_SAMPLE_INTERVAL) + 1));
+    }
+
+    @Test
+    public void testNoSamplingWhenWindowsAtCaps() throws Exception
+    {
+        int contentLength = 1024 * 1024;
+        AtomicInteger serverPings = new AtomicInteger();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, false), Callback.from(() ->
+                    stream.data(new DataFrame(stream.getId(), ByteBuffer.allocate(contentLength), true), Callback.NOOP)));
+                return null;
+            }
+
+            @Override
+            public void onPing(Session session, PingFrame frame)
+            {
+                serverPings.incrementAndGet();
+            }
+        });
+
+        // The windows cannot grow, so there is nothing to sample.
+        client.setFlowControlStrategyFactory(() -> new AdaptiveFlowControlStrategy(FlowControlStrategy.DEFAULT_WINDOW_SIZE, 0.5F, FlowControlStrategy.DEFAULT_WINDOW_SIZE, FlowControlStrategy.DEFAULT_WINDOW_SIZE));
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        session.newStream(new HeadersFrame(newRequest("GET", HttpFields.EMPTY), null, true), new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+
+        AdaptiveFlowControlStrategy flowControl = (AdaptiveFlowControlStrategy)((HTTP2Session)session).getFlowControlStrategy();
+        assertFalse(flowControl.isSampling());
+        assertEquals(0, serverPings.get());
+    }
+}
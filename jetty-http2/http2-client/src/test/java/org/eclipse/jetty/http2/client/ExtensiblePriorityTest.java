@@ -0,0 +1,167 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpPriority;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.ExtensiblePriorityFrameScheduler;
+import org.eclipse.jetty.http2.IStream;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.api.Stream;
+import org.eclipse.jetty.http2.api.server.ServerSessionListener;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ExtensiblePriorityTest extends AbstractTest
+{
+    // Less than half the session flow control window,
+    // so that the content of both streams can be sent.
+    private static final int CONTENT_LENGTH = 30 * 1024;
+
+    @Test
+    public void testMoreUrgentStreamIsSentFirst() throws Exception
+    {
+        List<Integer> dataStreamIds = exchange("u=5", "u=0");
+
+        // The second stream is more urgent, so all its DATA
+        // frames are sent before those of the first stream.
+        assertThat(dataStreamIds.lastIndexOf(3), lessThan(dataStreamIds.indexOf(1)));
+    }
+
+    @Test
+    public void testNonIncrementalStreamsAreSentSequentially() throws Exception
+    {
+        List<Integer> dataStreamIds = exchange("u=2", "u=2");
+
+        // Same urgency, so the first stream is completed before the second.
+        assertThat(dataStreamIds.lastIndexOf(1), lessThan(dataStreamIds.indexOf(3)));
+    }
+
+    @Test
+    public void testIncrementalStreamsAreInterleaved() throws Exception
+    {
+        List<Integer> dataStreamIds = exchange("u=2, i", "u=2, i");
+
+        // Same urgency, both incremental, so the frames are interleaved.
+        assertThat(dataStreamIds.lastIndexOf(1), greaterThan(dataStreamIds.indexOf(3)));
+    }
+
+    @Test
+    public void testResponsePriorityOverridesRequestPriority() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<HttpPriority> priorities = new ArrayList<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                IStream serverStream = (IStream)stream;
+                priorities.add(serverStream.getPriority());
+                HttpFields fields = HttpFields.build().put(HttpHeader.PRIORITY, "i");
+                MetaData.Response response = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, fields);
+                stream.headers(new HeadersFrame(stream.getId(), response, null, true), Callback.from(() ->
+                {
+                    priorities.add(serverStream.getPriority());
+                    latch.countDown();
+                }));
+                return null;
+            }
+        }, connectionFactory -> connectionFactory.setFrameSchedulerFactory(ExtensiblePriorityFrameScheduler::new));
+
+        Session session = newClient(new Session.Listener.Adapter());
+        HttpFields fields = HttpFields.build().put(HttpHeader.PRIORITY, "u=1");
+        session.newStream(new HeadersFrame(newRequest("GET", fields), null, true), new Stream.Listener.Adapter());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(new HttpPriority(1, false), priorities.get(0));
+        assertEquals(new HttpPriority(1, true), priorities.get(1));
+    }
+
+    /**
+     * <p>Makes two concurrent requests with the given priorities,
+     * and returns the stream IDs of the DATA frames received.</p>
+     */
+    private List<Integer> exchange(String priority1, String priority2) throws Exception
+    {
+        List<Stream> serverStreams = new ArrayList<>();
+        start(new ServerSessionListener.Adapter()
+        {
+            @Override
+            public Stream.Listener onNewStream(Stream stream, HeadersFrame frame)
+            {
+                serverStreams.add(stream);
+                if (serverStreams.size() == 2)
+                {
+                    Stream stream1 = serverStreams.get(0);
+                    Stream stream2 = serverStreams.get(1);
+                    MetaData.Response response1 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                    stream1.headers(new HeadersFrame(stream1.getId(), response1, null, false), Callback.NOOP);
+                    MetaData.Response response2 = new MetaData.Response(HttpVersion.HTTP_2, HttpStatus.OK_200, HttpFields.EMPTY);
+                    // Write the content of both streams from within the callback, so that they get queued together.
+                    stream2.headers(new HeadersFrame(stream2.getId(), response2, null, false), Callback.from(() ->
+                    {
+                        stream1.data(new DataFrame(stream1.getId(), ByteBuffer.allocate(CONTENT_LENGTH), true), Callback.NOOP);
+                        stream2.data(new DataFrame(stream2.getId(), ByteBuffer.allocate(CONTENT_LENGTH), true), Callback.NOOP);
+                    }));
+                }
+                return null;
+            }
+        }, connectionFactory -> connectionFactory.setFrameSchedulerFactory(ExtensiblePriorityFrameScheduler::new));
+
+        Session session = newClient(new Session.Listener.Adapter());
+
+        Queue<Integer> dataStreamIds = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(2);
+        Stream.Listener listener = new Stream.Listener.Adapter()
+        {
+            @Override
+            public void onData(Stream stream, DataFrame frame, Callback callback)
+            {
+                dataStreamIds.offer(stream.getId());
+                callback.succeeded();
+                if (frame.isEndStream())
+                    latch.countDown();
+            }
+        };
+
+        HttpFields fields1 = HttpFields.build().put(HttpHeader.PRIORITY, priority1);
+        session.newStream(new HeadersFrame(newRequest("GET", fields1), null, true), listener).get(5, TimeUnit.SECONDS);
+        HttpFields fields2 = HttpFields.build().put(HttpHeader.PRIORITY, priority2);
+        session.newStream(new HeadersFrame(newRequest("GET", fields2), null, true), listener).get(5, TimeUnit.SECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        return new ArrayList<>(dataStreamIds);
+    }
+}
@@ -0,0 +1,268 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.SettingsFrame;
+import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>A {@link BufferingFlowControlStrategy} that grows the receive windows
+ * to the bandwidth-delay product of the connection.</p>
+ * <p>When data is received, a PING frame is sent and the data bytes received
+ * until the PING reply arrives are counted: they are a sample of the
+ * bandwidth-delay product, since the round-trip time is that of the PING.</p>
+ * <p>When the sample is close to the receive windows, the sender is likely
+ * to be limited by the receive windows rather than by the network, so the
+ * windows are grown to twice the sample, within the given caps.
+ * The session receive window is grown with a WINDOW_UPDATE frame,
+ * while the stream receive windows are grown with a SETTINGS frame
+ * that updates the initial stream window.</p>
+ * <p>Windows are never shrunk, and are grown only if the measured bandwidth
+ * increased, so that bursts of data do not grow the windows indefinitely.</p>
+ * <p>Since peers may limit the rate of the PING and SETTINGS frames they
+ * receive, samples are taken at most once per {@link #getMinSampleInterval()
+ * min sample interval}, and sampling stops once the windows have reached their
+ * caps, or when growing the windows did not increase the measured bandwidth
+ * for a few consecutive samples.</p>
+ */
+@ManagedObject
+public class AdaptiveFlowControlStrategy extends BufferingFlowControlStrategy
+{
+    public static final int DEFAULT_SESSION_RECV_WINDOW_CAP = 16 * 1024 * 1024;
+    public static final int DEFAULT_STREAM_RECV_WINDOW_CAP = 8 * 1024 * 1024;
+    public static final long DEFAULT_MIN_SAMPLE_INTERVAL = 100;
+    // The number of consecutive samples limited by the windows without
+    // a bandwidth increase, after which the windows are not grown anymore.
+    private static final int MAX_FLAT_SAMPLES = 3;
+
+    // The PING payload identifies the PING frames sent by this strategy.
+    private final long pingPayload = ThreadLocalRandom.current().nextLong();
+    private int sessionRecvWindowCap;
+    private int streamRecvWindowCap;
+    private long minSampleInterval = DEFAULT_MIN_SAMPLE_INTERVAL;
+    // Fields accessed only by the thread that parses the frames,
+    // as DATA frames and PING replies are notified by that thread.
+    private boolean pinging;
+    private boolean sampled;
+    private long pingNanoTime;
+    private int sampleBytes;
+    private double maxBandwidth;
+    private int flatSamples;
+    // Fields that are also read via JMX.
+    private volatile int sessionRecvWindow;
+    private volatile long roundTripTime;
+    private volatile int bandwidthDelayProduct;
+    private volatile boolean sampling = true;
+
+    public AdaptiveFlowControlStrategy()
+    {
+        this(0.5F);
+    }
+
+    public AdaptiveFlowControlStrategy(float bufferRatio)
+    {
+        this(DEFAULT_WINDOW_SIZE, bufferRatio, DEFAULT_SESSION_RECV_WINDOW_CAP, DEFAULT_STREAM_RECV_WINDOW_CAP);
+    }
+
+    public AdaptiveFlowControlStrategy(int initialStreamSendWindow, float bufferRatio, int sessionRecvWindowCap, int streamRecvWindowCap)
+    {
+        super(initialStreamSendWindow, bufferRatio);
+        this.sessionRecvWindowCap = sessionRecvWindowCap;
+        this.streamRecvWindowCap = streamRecvWindowCap;
+    }
+
+    @ManagedAttribute("The max size the session's flow control receive window can grow to")
+    public int getSessionRecvWindowCap()
+    {
+        return sessionRecvWindowCap;
+    }
+
+    public void setSessionRecvWindowCap(int sessionRecvWindowCap)
+    {
+        this.sessionRecvWindowCap = sessionRecvWindowCap;
+    }
+
+    @ManagedAttribute("The max size the stream's flow control receive window can grow to")
+    public int getStreamRecvWindowCap()
+    {
+        return streamRecvWindowCap;
+    }
+
+    public void setStreamRecvWindowCap(int streamRecvWindowCap)
+    {
+        this.streamRecvWindowCap = streamRecvWindowCap;
+    }
+
+    @ManagedAttribute("The min interval in ms between the samples of the bandwidth-delay product")
+    public long getMinSampleInterval()
+    {
+        return minSampleInterval;
+    }
+
+    /**
+     * <p>Sets the min interval between the PING frames sent to sample the bandwidth-delay product.</p>
+     * <p>The peer may limit the rate of the PING and SETTINGS frames it receives, and close
+     * the connection if that rate is exceeded, for example with Jetty's
+     * {@code WindowRateControl}; the interval must be large enough to stay within that limit.</p>
+     *
+     * @param minSampleInterval the min sample interval in milliseconds
+     */
+    public void setMinSampleInterval(long minSampleInterval)
+    {
+        this.minSampleInterval = minSampleInterval;
+    }
+
+    @ManagedAttribute(value = "Whether the bandwidth-delay product is still sampled to grow the receive windows", readonly = true)
+    public boolean isSampling()
+    {
+        return sampling;
+    }
+
+    @ManagedAttribute(value = "The size of session's flow control receive window", readonly = true)
+    public int getSessionRecvWindow()
+    {
+        return Math.max(sessionRecvWindow, getMaxSessionRecvWindow());
+    }
+
+    @ManagedAttribute(value = "The smoothed round-trip time in ns", readonly = true)
+    public long getRoundTripTime()
+    {
+        return roundTripTime;
+    }
+
+    @ManagedAttribute(value = "The last sample of the bandwidth-delay product in bytes", readonly = true)
+    public int getBandwidthDelayProduct()
+    {
+        return bandwidthDelayProduct;
+    }
+
+    @Override
+    public void onDataReceived(ISession session, IStream stream, int length)
+    {
+        super.onDataReceived(session, stream, length);
+
+        if (pinging)
+        {
+            sampleBytes += length;
+        }
+        else if (sampling && (!sampled || NanoTime.millisSince(pingNanoTime) >= getMinSampleInterval()))
+        {
+            if (isAtCaps(getSessionRecvWindow(), getInitialStreamRecvWindow()))
+            {
+                sampling = false;
+                return;
+            }
+            pinging = true;
+            sampled = true;
+            pingNanoTime = NanoTime.now();
+            sampleBytes = length;
+            session.ping(new PingFrame(pingPayload, false), Callback.NOOP);
+        }
+    }
+
+    @Override
+    public boolean onPingReply(ISession session, PingFrame frame)
+    {
+        if (!pinging || frame.getPayloadAsLong() != pingPayload)
+            return false;
+        pinging = false;
+
+        long rtt = Math.max(1, NanoTime.since(pingNanoTime));
+        long srtt = roundTripTime;
+        roundTripTime = srtt == 0 ? rtt : (7 * srtt + rtt) / 8;
+        int bdp = sampleBytes;
+        bandwidthDelayProduct = bdp;
+
+        double bandwidth = (double)bdp / rtt;
+        boolean increased = bandwidth > maxBandwidth;
+        if (increased)
+            maxBandwidth = bandwidth;
+
+        int sessionWindow = getSessionRecvWindow();
+        int streamWindow = getInitialStreamRecvWindow();
+        // Grow the windows if the sample is at least 2/3 of the smaller window.
+        if (bdp < Math.min(sessionWindow, streamWindow) / 3 * 2)
+            return true;
+
+        if (!increased)
+        {
+            // The sender is limited by the windows, but the bandwidth did not
+            // increase when they were grown, so the network is the bottleneck.
+            if (++flatSamples >= MAX_FLAT_SAMPLES)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Bandwidth leveled off at recv windows session={}/stream={}, bdp={}, rtt={}ns for {}", sessionWindow, streamWindow, bdp, rtt, session);
+                sampling = false;
+            }
+            return true;
+        }
+        flatSamples = 0;
+
+        // Double the sample, taking care of int overflows.
+        int window = (int)Math.min(Integer.MAX_VALUE, 2L * bdp);
+        if (LOG.isDebugEnabled())
+            LOG.debug("Growing recv windows to {}, bdp={}, rtt={}ns for {}", window, bdp, rtt, session);
+
+        int sessionDelta = Math.min(window, getSessionRecvWindowCap()) - sessionWindow;
+        if (sessionDelta > 0)
+        {
+            sessionRecvWindow = sessionWindow + sessionDelta;
+            session.updateRecvWindow(sessionDelta);
+            sendWindowUpdate(null, session, new WindowUpdateFrame(0, sessionDelta));
+        }
+
+        int newStreamWindow = Math.min(window, getStreamRecvWindowCap());
+        if (newStreamWindow > streamWindow)
+        {
+            // The local stream recv windows are updated just before the SETTINGS frame is sent.
+            SettingsFrame settingsFrame = new SettingsFrame(Map.of(SettingsFrame.INITIAL_WINDOW_SIZE, newStreamWindow), false);
+            session.settings(settingsFrame, Callback.NOOP);
+            streamWindow = newStreamWindow;
+        }
+
+        if (isAtCaps(getSessionRecvWindow(), streamWindow))
+            sampling = false;
+
+        return true;
+    }
+
+    private boolean isAtCaps(int sessionWindow, int streamWindow)
+    {
+        return sessionWindow >= getSessionRecvWindowCap() && streamWindow >= getStreamRecvWindowCap();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[ratio=%.2f,sessionRecvWindow=%d,streamRecvWindow=%d,rtt=%dns,bdp=%d,sampling=%b,sessionStallTime=%dms,streamsStallTime=%dms]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getBufferRatio(),
+            getSessionRecvWindow(),
+            getInitialStreamRecvWindow(),
+            getRoundTripTime(),
+            getBandwidthDelayProduct(),
+            isSampling(),
+            getSessionStallTime(),
+            getStreamsStallTime());
+    }
+}
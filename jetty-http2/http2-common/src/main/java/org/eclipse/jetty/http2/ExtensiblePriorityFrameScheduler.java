@@ -0,0 +1,157 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpPriority;
+import org.eclipse.jetty.http2.frames.FrameType;
+
+/**
+ * <p>A {@link FrameScheduler} that schedules the DATA frames according to the
+ * {@link IStream#getPriority() priority} of their streams, as defined by
+ * <a href="https://www.rfc-editor.org/rfc/rfc9218">RFC 9218</a>.</p>
+ * <p>The pending entries are kept sorted as they are queued.
+ * Frames other than DATA frames are generated first, in the order they have been queued,
+ * unless their stream has other frames queued, which they follow (for example, a
+ * RST_STREAM frame does not overtake the DATA frames of its stream).
+ * DATA frames are grouped in buckets by urgency, and only the most urgent bucket that can
+ * generate frames does so, while less urgent buckets wait, unless the most urgent bucket is
+ * stalled by flow control.
+ * Within a bucket, non-incremental streams are served one at a time, in the order they have
+ * been queued, while incremental streams share the bandwidth in round-robin.
+ * An entry stalled by the session flow control window is moved first within its bucket.</p>
+ */
+public class ExtensiblePriorityFrameScheduler implements FrameScheduler
+{
+    private static final int CONTROL_RANK = -1;
+
+    private int urgency;
+    private boolean sequential;
+
+    @Override
+    public boolean isPriorityAware()
+    {
+        return true;
+    }
+
+    @Override
+    public void queue(List<HTTP2Flusher.Entry> entries, HTTP2Flusher.Entry entry)
+    {
+        int index = entries.size();
+        IStream stream = entry.getStream();
+        if (entry.getFrame().getType() == FrameType.DATA)
+        {
+            entry.rank = rank(stream.getPriority());
+        }
+        else
+        {
+            entry.rank = CONTROL_RANK;
+            if (stream != null)
+            {
+                // Follow the last entry queued for the same stream, if any.
+                for (int i = index - 1; i >= 0; --i)
+                {
+                    HTTP2Flusher.Entry other = entries.get(i);
+                    if (other.getStream() == stream)
+                    {
+                        entry.rank = other.rank;
+                        entries.add(i + 1, entry);
+                        return;
+                    }
+                }
+            }
+        }
+
+        // Insert after the entries of the same or lower rank, so that the sort is stable.
+        while (index > 0 && entries.get(index - 1).rank > entry.rank)
+        {
+            --index;
+        }
+        entries.add(index, entry);
+    }
+
+    @Override
+    public void schedule(List<HTTP2Flusher.Entry> entries)
+    {
+        urgency = Integer.MAX_VALUE;
+        sequential = false;
+    }
+
+    @Override
+    public boolean accept(HTTP2Flusher.Entry entry)
+    {
+        HttpPriority priority = priorityOf(entry);
+        if (priority == null)
+            return true;
+        int u = priority.getUrgency();
+        // A more urgent bucket generated frames during this pass.
+        if (u > urgency)
+            return false;
+        // A non-incremental stream of this bucket generated frames during this pass.
+        return u < urgency || !sequential;
+    }
+
+    @Override
+    public void generated(HTTP2Flusher.Entry entry)
+    {
+        HttpPriority priority = priorityOf(entry);
+        if (priority == null)
+            return;
+        urgency = priority.getUrgency();
+        sequential = !priority.isIncremental();
+    }
+
+    @Override
+    public void stalled(List<HTTP2Flusher.Entry> entries, HTTP2Flusher.Entry entry)
+    {
+        int index = entries.indexOf(entry);
+        if (index < 0)
+            return;
+        // Rotate the entries of the bucket, so that the stalled entry is the first.
+        int first = index;
+        while (first > 0 && entries.get(first - 1).rank == entry.rank)
+        {
+            --first;
+        }
+        int last = index + 1;
+        while (last < entries.size() && entries.get(last).rank == entry.rank)
+        {
+            ++last;
+        }
+        if (index > first)
+            Collections.rotate(entries.subList(first, last), first - index);
+    }
+
+    private static int rank(HttpPriority priority)
+    {
+        // Non-incremental streams first within the same urgency.
+        return 2 * priority.getUrgency() + (priority.isIncremental() ? 1 : 0);
+    }
+
+    private static HttpPriority priorityOf(HTTP2Flusher.Entry entry)
+    {
+        IStream stream = entry.getStream();
+        if (stream == null || entry.getFrame().getType() != FrameType.DATA)
+            return null;
+        return stream.getPriority();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x", getClass().getSimpleName(), hashCode());
+    }
+}
@@ -0,0 +1,121 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Decides the order in which {@link HTTP2Flusher} generates the frames of its pending entries.</p>
+ * <p>The flusher keeps its pending entries in a list, and {@link #queue(List, HTTP2Flusher.Entry)}
+ * decides where a new entry is added to the list.
+ * The flusher performs passes over the list, in order, generating at most one frame
+ * for each entry at each pass, until the write threshold is reached or until no frame can
+ * be generated, for example because of flow control.
+ * At the beginning of each pass, {@link #schedule(List)} is called;
+ * then, for each entry in order, {@link #accept(HTTP2Flusher.Entry)} decides whether a frame
+ * is generated for that entry during this pass, and {@link #generated(HTTP2Flusher.Entry)}
+ * is called if a frame has been generated.
+ * When an entry stalls on the session flow control window, {@link #stalled(List, HTTP2Flusher.Entry)}
+ * is called once the frames generated so far have been written.</p>
+ * <p>A FrameScheduler belongs to a single connection, and its methods are never called
+ * concurrently.</p>
+ *
+ * @see ExtensiblePriorityFrameScheduler
+ */
+public interface FrameScheduler
+{
+    /**
+     * <p>A FrameScheduler that generates the frames in the order their entries have been queued.</p>
+     */
+    public static final FrameScheduler FIFO = new FrameScheduler()
+    {
+        @Override
+        public String toString()
+        {
+            return "FIFO";
+        }
+    };
+
+    /**
+     * <p>Returns whether this FrameScheduler uses the {@link IStream#getPriority() priority}
+     * of the streams; if not, the priority is not parsed from the HTTP headers.</p>
+     *
+     * @return whether this FrameScheduler uses the priority of the streams
+     */
+    public default boolean isPriorityAware()
+    {
+        return false;
+    }
+
+    /**
+     * <p>Adds a newly queued entry to the pending entries.</p>
+     * <p>The default implementation appends the entry.</p>
+     *
+     * @param entries the pending entries
+     * @param entry the entry to add
+     */
+    public default void queue(List<HTTP2Flusher.Entry> entries, HTTP2Flusher.Entry entry)
+    {
+        entries.add(entry);
+    }
+
+    /**
+     * <p>Called at the beginning of each pass over the pending entries,
+     * which must not be reordered.</p>
+     *
+     * @param entries the pending entries
+     */
+    public default void schedule(List<HTTP2Flusher.Entry> entries)
+    {
+    }
+
+    /**
+     * @param entry a pending entry
+     * @return whether a frame should be generated for the given entry during the current pass
+     */
+    public default boolean accept(HTTP2Flusher.Entry entry)
+    {
+        return true;
+    }
+
+    /**
+     * <p>Called when a frame has been generated for the given entry during the current pass.</p>
+     *
+     * @param entry the entry that generated a frame
+     */
+    public default void generated(HTTP2Flusher.Entry entry)
+    {
+    }
+
+    /**
+     * <p>Called when the given entry could not generate a frame because the session flow
+     * control window was exhausted, so that it can be given precedence at the next pass.</p>
+     * <p>The default implementation rotates the pending entries so that the given entry is the first.</p>
+     *
+     * @param entries the pending entries
+     * @param entry the entry that stalled
+     */
+    public default void stalled(List<HTTP2Flusher.Entry> entries, HTTP2Flusher.Entry entry)
+    {
+        int index = entries.indexOf(entry);
+        if (index > 0)
+            Collections.rotate(entries, -index);
+    }
+
+    public interface Factory
+    {
+        public FrameScheduler newFrameScheduler();
+    }
+}
@@ -15,15 +15,16 @@ package org.eclipse.jetty.http2;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.FrameType;
@@ -33,8 +34,8 @@ import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.component.Dumpable;
-import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,16 +45,22 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     private static final Logger LOG = LoggerFactory.getLogger(HTTP2Flusher.class);
     private static final ByteBuffer[] EMPTY_BYTE_BUFFERS = new ByteBuffer[0];
 
-    private final AutoLock lock = new AutoLock();
-    private final Queue<WindowEntry> windows = new ArrayDeque<>();
-    private final Deque<Entry> entries = new ArrayDeque<>();
-    private final Queue<Entry> pendingEntries = new ArrayDeque<>();
+    // Entries are queued by application threads and drained by the
+    // single thread that processes them, so the queues are lock-free.
+    private final Queue<WindowEntry> windows = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> priorityEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Throwable> terminated = new AtomicReference<>();
+    private final List<Entry> pendingEntries = new ArrayList<>();
     private final Collection<Entry> processedEntries = new ArrayList<>();
     private final HTTP2Session session;
     private final ByteBufferPool.Lease lease;
     private InvocationType invocationType = InvocationType.NON_BLOCKING;
-    private Throwable terminated;
+    private FrameScheduler frameScheduler = FrameScheduler.FIFO;
     private Entry stalledEntry;
+    private volatile long dataWaitCount;
+    private volatile long dataWaitNanos;
+    private volatile long dataWaitMaxNanos;
 
     public HTTP2Flusher(HTTP2Session session)
     {
@@ -67,91 +74,118 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return invocationType;
     }
 
+    public FrameScheduler getFrameScheduler()
+    {
+        return frameScheduler;
+    }
+
+    /**
+     * <p>Sets the {@link FrameScheduler} that decides the order in which frames are generated.</p>
+     * <p>This method must be called before any frame is flushed.</p>
+     *
+     * @param frameScheduler the FrameScheduler to use
+     */
+    public void setFrameScheduler(FrameScheduler frameScheduler)
+    {
+        this.frameScheduler = Objects.requireNonNull(frameScheduler);
+    }
+
+    /**
+     * @return the number of DATA entries that generated their first frame
+     */
+    public long getDataWaitCount()
+    {
+        return dataWaitCount;
+    }
+
+    /**
+     * <p>Returns the average time DATA entries waited in the queue before generating
+     * their first frame, which grows when they are head-of-line blocked by other entries
+     * or by flow control.</p>
+     *
+     * @return the average wait time of DATA entries, in nanoseconds
+     */
+    public long getDataWaitAverageNanos()
+    {
+        long count = dataWaitCount;
+        return count == 0 ? 0 : dataWaitNanos / count;
+    }
+
+    /**
+     * @return the max time a DATA entry waited in the queue before generating its first frame, in nanoseconds
+     */
+    public long getDataWaitMaxNanos()
+    {
+        return dataWaitMaxNanos;
+    }
+
     public void window(IStream stream, WindowUpdateFrame frame)
     {
-        Throwable closed;
-        try (AutoLock l = lock.lock())
-        {
-            closed = terminated;
-            if (closed == null)
-                windows.offer(new WindowEntry(stream, frame));
-        }
+        if (terminated.get() != null)
+            return;
+        windows.offer(new WindowEntry(stream, frame));
         // Flush stalled data.
-        if (closed == null)
-            iterate();
+        iterate();
     }
 
+    /**
+     * <p>Queues the given entry before the entries queued with {@link #append(Entry)}.</p>
+     *
+     * @param entry the entry to queue
+     * @return whether the entry has been queued, or failed if this flusher is terminated
+     */
     public boolean prepend(Entry entry)
     {
-        Throwable closed;
-        try (AutoLock l = lock.lock())
-        {
-            closed = terminated;
-            if (closed == null)
-            {
-                entries.offerFirst(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Prepended {}, entries={}", entry, entries.size());
-            }
-        }
-        if (closed == null)
-            return true;
-        closed(entry, closed);
-        return false;
+        boolean queued = offer(priorityEntries, entry);
+        if (queued && LOG.isDebugEnabled())
+            LOG.debug("Prepended {}, entries={}", entry, getFrameQueueSize());
+        return queued;
     }
 
     public boolean append(Entry entry)
     {
-        Throwable closed;
-        try (AutoLock l = lock.lock())
-        {
-            closed = terminated;
-            if (closed == null)
-            {
-                entries.offer(entry);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Appended {}, entries={}", entry, entries.size());
-            }
-        }
-        if (closed == null)
-            return true;
-        closed(entry, closed);
-        return false;
+        boolean queued = offer(entries, entry);
+        if (queued && LOG.isDebugEnabled())
+            LOG.debug("Appended {}, entries={}", entry, getFrameQueueSize());
+        return queued;
     }
 
     public boolean append(List<Entry> list)
     {
-        Throwable closed;
-        try (AutoLock l = lock.lock())
+        boolean queued = true;
+        for (Entry entry : list)
         {
-            closed = terminated;
-            if (closed == null)
-            {
-                list.forEach(entries::offer);
-                if (LOG.isDebugEnabled())
-                    LOG.debug("Appended {}, entries={}", list, entries.size());
-            }
+            queued &= offer(entries, entry);
         }
+        if (queued && LOG.isDebugEnabled())
+            LOG.debug("Appended {}, entries={}", list, getFrameQueueSize());
+        return queued;
+    }
+
+    private boolean offer(Queue<Entry> queue, Entry entry)
+    {
+        entry.queued();
+        queue.offer(entry);
+        // The entry is queued before checking the termination, and the termination
+        // is set before draining the queues, so that if the termination is not seen
+        // here, the entry is drained and failed by the termination.
+        Throwable closed = terminated.get();
         if (closed == null)
             return true;
-        list.forEach(entry -> closed(entry, closed));
+        // Fail the entry, unless it has been drained and failed by the termination.
+        if (queue.remove(entry))
+            closed(entry, closed);
         return false;
     }
 
     private int getWindowQueueSize()
     {
-        try (AutoLock l = lock.lock())
-        {
-            return windows.size();
-        }
+        return windows.size();
     }
 
     public int getFrameQueueSize()
     {
-        try (AutoLock l = lock.lock())
-        {
-            return entries.size();
-        }
+        return priorityEntries.size() + entries.size();
     }
 
     @Override
@@ -160,24 +194,21 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         if (LOG.isDebugEnabled())
             LOG.debug("Flushing {}", session);
 
-        try (AutoLock l = lock.lock())
-        {
-            if (terminated != null)
-                throw terminated;
+        Throwable closed = terminated.get();
+        if (closed != null)
+            throw closed;
 
-            WindowEntry windowEntry;
-            while ((windowEntry = windows.poll()) != null)
-            {
-                windowEntry.perform();
-            }
-
-            Entry entry;
-            while ((entry = entries.poll()) != null)
-            {
-                pendingEntries.offer(entry);
-            }
+        WindowEntry windowEntry;
+        while ((windowEntry = windows.poll()) != null)
+        {
+            windowEntry.perform();
         }
 
+        // Drain the queued entries in a batch.
+        FrameScheduler scheduler = frameScheduler;
+        schedule(priorityEntries, scheduler);
+        schedule(entries, scheduler);
+
         if (pendingEntries.isEmpty())
         {
             if (LOG.isDebugEnabled())
@@ -192,10 +223,12 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             if (pendingEntries.isEmpty())
                 break;
 
-            Iterator<Entry> pending = pendingEntries.iterator();
-            while (pending.hasNext())
+            scheduler.schedule(pendingEntries);
+            // Entries are removed in a single sweep at the end of the pass,
+            // as removing them one by one from the list would be quadratic.
+            boolean removed = false;
+            for (Entry entry : pendingEntries)
             {
-                Entry entry = pending.next();
                 if (LOG.isDebugEnabled())
                     LOG.debug("Processing {}", entry);
 
@@ -206,7 +239,15 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                     if (LOG.isDebugEnabled())
                         LOG.debug("Dropped {}", entry);
                     entry.failed(new EofException("dropped"));
-                    pending.remove();
+                    entry.remove();
+                    removed = true;
+                    continue;
+                }
+
+                if (!scheduler.accept(entry))
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Deferred {} by {}", entry, scheduler);
                     continue;
                 }
 
@@ -218,6 +259,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                             LOG.debug("Generated {} frame bytes for {}", entry.getFrameBytesGenerated(), entry);
 
                         progress = true;
+                        scheduler.generated(entry);
+                        if (entry.frame.getType() == FrameType.DATA && entry.started())
+                            recordDataWait(NanoTime.since(entry.queuedNanoTime));
 
                         // We use ArrayList contains() + add() instead of HashSet add()
                         // because that is faster for collections of size up to 250 entries.
@@ -228,7 +272,10 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                         }
 
                         if (entry.getDataBytesRemaining() == 0)
-                            pending.remove();
+                        {
+                            entry.remove();
+                            removed = true;
+                        }
                     }
                     else
                     {
@@ -246,18 +293,23 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
                     if (LOG.isDebugEnabled())
                         LOG.debug("Failure generating {}", entry, failure);
                     entry.failed(failure);
-                    pending.remove();
+                    entry.remove();
+                    removed = true;
                 }
                 catch (Throwable failure)
                 {
                     // Failure to generate the entry is catastrophic.
                     if (LOG.isDebugEnabled())
                         LOG.debug("Failure generating {}", entry, failure);
+                    pendingEntries.removeIf(Entry::isRemoved);
                     failed(failure);
                     return Action.SUCCEEDED;
                 }
             }
 
+            if (removed)
+                pendingEntries.removeIf(Entry::isRemoved);
+
             if (!progress)
                 break;
 
@@ -293,6 +345,33 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
         return Action.SCHEDULED;
     }
 
+    private void recordDataWait(long nanos)
+    {
+        // Only called by the thread that processes the entries.
+        dataWaitCount = dataWaitCount + 1;
+        dataWaitNanos = dataWaitNanos + nanos;
+        if (nanos > dataWaitMaxNanos)
+            dataWaitMaxNanos = nanos;
+    }
+
+    private void schedule(Queue<Entry> queue, FrameScheduler scheduler)
+    {
+        Entry entry;
+        while ((entry = queue.poll()) != null)
+        {
+            scheduler.queue(pendingEntries, entry);
+        }
+    }
+
+    private static void drain(Queue<Entry> queue, Collection<Entry> collection)
+    {
+        Entry entry;
+        while ((entry = queue.poll()) != null)
+        {
+            collection.add(entry);
+        }
+    }
+
     void onFlushed(long bytes) throws IOException
     {
         // A single EndPoint write may be flushed multiple times (for example with SSL).
@@ -326,15 +405,7 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
         if (stalledEntry != null)
         {
-            int size = pendingEntries.size();
-            for (int i = 0; i < size; ++i)
-            {
-                Entry entry = pendingEntries.peek();
-                if (entry == stalledEntry)
-                    break;
-                pendingEntries.poll();
-                pendingEntries.offer(entry);
-            }
+            frameScheduler.stalled(pendingEntries, stalledEntry);
             stalledEntry = null;
         }
     }
@@ -350,21 +421,17 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     {
         lease.recycle();
 
-        Throwable closed;
-        Set<Entry> allEntries;
-        try (AutoLock l = lock.lock())
-        {
-            closed = terminated;
-            terminated = x;
-            if (LOG.isDebugEnabled())
-                LOG.debug(String.format("%s, entries processed/pending/queued=%d/%d/%d",
-                    closed != null ? "Closing" : "Failing",
-                    processedEntries.size(),
-                    pendingEntries.size(),
-                    entries.size()), x);
-            allEntries = new HashSet<>(entries);
-            entries.clear();
-        }
+        Throwable closed = terminated.getAndSet(x);
+        if (LOG.isDebugEnabled())
+            LOG.debug(String.format("%s, entries processed/pending/queued=%d/%d/%d",
+                closed != null ? "Closing" : "Failing",
+                processedEntries.size(),
+                pendingEntries.size(),
+                getFrameQueueSize()), x);
+        Set<Entry> allEntries = new HashSet<>();
+        drain(priorityEntries, allEntries);
+        drain(entries, allEntries);
+        windows.clear();
 
         allEntries.addAll(processedEntries);
         processedEntries.clear();
@@ -380,14 +447,9 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
 
     void terminate(Throwable cause)
     {
-        Throwable closed;
-        try (AutoLock l = lock.lock())
-        {
-            closed = terminated;
-            terminated = cause;
-            if (LOG.isDebugEnabled())
-                LOG.debug("{} {}", closed != null ? "Terminated" : "Terminating", this);
-        }
+        Throwable closed = terminated.getAndSet(cause);
+        if (LOG.isDebugEnabled())
+            LOG.debug("{} {}", closed != null ? "Terminated" : "Terminating", this);
         if (closed == null)
             iterate();
     }
@@ -412,18 +474,27 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
     @Override
     public String toString()
     {
-        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d]",
+        return String.format("%s[window_queue=%d,frame_queue=%d,processed/pending=%d/%d,scheduler=%s,data_wait=%d/%dus/%dus]",
             super.toString(),
             getWindowQueueSize(),
             getFrameQueueSize(),
             processedEntries.size(),
-            pendingEntries.size());
+            pendingEntries.size(),
+            frameScheduler,
+            getDataWaitCount(),
+            TimeUnit.NANOSECONDS.toMicros(getDataWaitAverageNanos()),
+            TimeUnit.NANOSECONDS.toMicros(getDataWaitMaxNanos()));
     }
 
     public abstract static class Entry extends Callback.Nested
     {
         protected final Frame frame;
         protected final IStream stream;
+        // The rank of this entry, maintained by ExtensiblePriorityFrameScheduler.
+        int rank;
+        private long queuedNanoTime;
+        private boolean started;
+        private boolean removed;
 
         protected Entry(Frame frame, IStream stream, Callback callback)
         {
@@ -432,6 +503,16 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             this.stream = stream;
         }
 
+        public Frame getFrame()
+        {
+            return frame;
+        }
+
+        public IStream getStream()
+        {
+            return stream;
+        }
+
         public abstract int getFrameBytesGenerated();
 
         public int getDataBytesRemaining()
@@ -448,6 +529,32 @@ public class HTTP2Flusher extends IteratingCallback implements Dumpable
             return false;
         }
 
+        private void queued()
+        {
+            queuedNanoTime = NanoTime.now();
+        }
+
+        private void remove()
+        {
+            removed = true;
+        }
+
+        private boolean isRemoved()
+        {
+            return removed;
+        }
+
+        /**
+         * @return whether this is the first time a frame is generated for this entry
+         */
+        private boolean started()
+        {
+            if (started)
+                return false;
+            started = true;
+            return true;
+        }
+
         @Override
         public void failed(Throwable x)
         {
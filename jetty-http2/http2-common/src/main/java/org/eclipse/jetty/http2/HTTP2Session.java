@@ -210,6 +210,30 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
         this.writeThreshold = writeThreshold;
     }
 
+    @Override
+    @ManagedAttribute(value = "The scheduler of the frames to write", readonly = true)
+    public FrameScheduler getFrameScheduler()
+    {
+        return flusher.getFrameScheduler();
+    }
+
+    public void setFrameScheduler(FrameScheduler frameScheduler)
+    {
+        flusher.setFrameScheduler(frameScheduler);
+    }
+
+    @ManagedAttribute(value = "The average time in ns DATA frames waited before being written", readonly = true)
+    public long getDataWaitAverageNanos()
+    {
+        return flusher.getDataWaitAverageNanos();
+    }
+
+    @ManagedAttribute(value = "The max time in ns DATA frames waited before being written", readonly = true)
+    public long getDataWaitMaxNanos()
+    {
+        return flusher.getDataWaitMaxNanos();
+    }
+
     @ManagedAttribute("The HPACK encoder dynamic table maximum capacity")
     public int getMaxEncoderTableCapacity()
     {
@@ -473,7 +497,8 @@ public abstract class HTTP2Session extends ContainerLifeCycle implements ISessio
 
         if (frame.isReply())
         {
-            notifyPing(this, frame);
+            if (!flowControl.onPingReply(this, frame))
+                notifyPing(this, frame);
         }
         else
         {
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.nio.channels.WritePendingException;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +29,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http.MetaData;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
@@ -36,6 +38,7 @@ import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.HeadersFrame;
 import org.eclipse.jetty.http2.frames.PushPromiseFrame;
 import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.http2.frames.StreamFrame;
 import org.eclipse.jetty.http2.frames.WindowUpdateFrame;
 import org.eclipse.jetty.io.CyclicTimeouts;
 import org.eclipse.jetty.io.EofException;
@@ -77,6 +80,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     private boolean committed;
     private long idleTimeout;
     private long expireNanoTime = Long.MAX_VALUE;
+    private volatile HttpPriority priority;
 
     public HTTP2Stream(ISession session, int streamId, MetaData.Request request, boolean local)
     {
@@ -86,6 +90,9 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         this.local = local;
         this.dataLength = Long.MIN_VALUE;
         this.dataInitial = true;
+        // Only parse the priority if it is used to schedule the frames.
+        boolean priorityAware = session.getFrameScheduler().isPriorityAware();
+        this.priority = request == null || !priorityAware ? HttpPriority.DEFAULT : HttpPriority.from(request.getFields());
     }
 
     @Deprecated
@@ -134,7 +141,19 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     public void send(FrameList frameList, Callback callback)
     {
         if (startWrite(callback))
+        {
+            StreamFrame frame = frameList.getFrames().get(0);
+            if (frame instanceof HeadersFrame)
+                updatePriority(((HeadersFrame)frame).getMetaData());
             session.frames(this, frameList.getFrames(), this);
+        }
+    }
+
+    private void updatePriority(MetaData metaData)
+    {
+        // The Priority header of a response overrides that of the request.
+        if (metaData != null && metaData.isResponse() && session.getFrameScheduler().isPriorityAware())
+            priority = HttpPriority.from(metaData.getFields(), priority);
     }
 
     @Override
@@ -294,6 +313,18 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
         }
     }
 
+    @Override
+    public HttpPriority getPriority()
+    {
+        return priority;
+    }
+
+    @Override
+    public void setPriority(HttpPriority priority)
+    {
+        this.priority = Objects.requireNonNull(priority);
+    }
+
     public boolean isOpen()
     {
         return !isClosed();
@@ -931,7 +962,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
     @Override
     public String toString()
     {
-        return String.format("%s@%x#%d@%x{sendWindow=%s,recvWindow=%s,queue=%d,demand=%d,reset=%b/%b,%s,age=%d,attachment=%s}",
+        return String.format("%s@%x#%d@%x{sendWindow=%s,recvWindow=%s,queue=%d,demand=%d,reset=%b/%b,%s,priority=%s,age=%d,attachment=%s}",
             getClass().getSimpleName(),
             hashCode(),
             getId(),
@@ -943,6 +974,7 @@ public class HTTP2Stream implements IStream, Callback, Dumpable, CyclicTimeouts.
             localReset,
             remoteReset,
             closeState,
+            priority,
             NanoTime.millisSince(creationNanoTime),
             attachment);
     }
@@ -36,6 +36,14 @@ public interface ISession extends Session
     @Override
     public IStream getStream(int streamId);
 
+    /**
+     * @return the scheduler of the frames written by this session
+     */
+    public default FrameScheduler getFrameScheduler()
+    {
+        return FrameScheduler.FIFO;
+    }
+
     /**
      * <p>Removes the given {@code stream}.</p>
      *
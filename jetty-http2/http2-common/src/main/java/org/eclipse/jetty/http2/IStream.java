@@ -19,6 +19,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http2.api.Stream;
 import org.eclipse.jetty.http2.frames.DataFrame;
 import org.eclipse.jetty.http2.frames.Frame;
@@ -147,6 +148,21 @@ public interface IStream extends Stream, Attachable, Closeable
      */
     int dataSize();
 
+    /**
+     * @return the priority of this stream, initially the priority of the request if the
+     * {@link FrameScheduler#isPriorityAware() frame scheduler uses it}, or the default priority
+     * @see #setPriority(HttpPriority)
+     */
+    HttpPriority getPriority();
+
+    /**
+     * <p>Sets the priority of this stream, used to schedule its DATA frames
+     * with respect to those of the other streams.</p>
+     *
+     * @param priority the priority of this stream
+     */
+    void setPriority(HttpPriority priority);
+
     /**
      * <p>An ordered list of frames belonging to the same stream.</p>
      */
@@ -0,0 +1,164 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.http.HttpPriority;
+import org.eclipse.jetty.http2.frames.DataFrame;
+import org.eclipse.jetty.http2.frames.Frame;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.ResetFrame;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class ExtensiblePriorityFrameSchedulerTest
+{
+    @Test
+    public void testEntriesAreSortedWhenQueued()
+    {
+        ExtensiblePriorityFrameScheduler scheduler = new ExtensiblePriorityFrameScheduler();
+        List<HTTP2Flusher.Entry> entries = new ArrayList<>();
+        IStream stream1 = newStream(1, new HttpPriority(3, false));
+        IStream stream3 = newStream(3, new HttpPriority(0, false));
+        IStream stream5 = newStream(5, new HttpPriority(3, false));
+
+        TestEntry data1 = new TestEntry(new DataFrame(1, BufferUtil.EMPTY_BUFFER, false), stream1);
+        TestEntry data3 = new TestEntry(new DataFrame(3, BufferUtil.EMPTY_BUFFER, false), stream3);
+        TestEntry data5 = new TestEntry(new DataFrame(5, BufferUtil.EMPTY_BUFFER, false), stream5);
+        TestEntry ping = new TestEntry(new PingFrame(false), null);
+        scheduler.queue(entries, data1);
+        scheduler.queue(entries, data3);
+        scheduler.queue(entries, data5);
+        scheduler.queue(entries, ping);
+
+        assertThat(entries, contains(ping, data3, data1, data5));
+    }
+
+    @Test
+    public void testControlFramesDoNotOvertakeTheirStream()
+    {
+        ExtensiblePriorityFrameScheduler scheduler = new ExtensiblePriorityFrameScheduler();
+        List<HTTP2Flusher.Entry> entries = new ArrayList<>();
+        IStream stream1 = newStream(1, new HttpPriority(3, false));
+        IStream stream3 = newStream(3, new HttpPriority(5, false));
+
+        TestEntry data1 = new TestEntry(new DataFrame(1, BufferUtil.EMPTY_BUFFER, false), stream1);
+        TestEntry data3 = new TestEntry(new DataFrame(3, BufferUtil.EMPTY_BUFFER, false), stream3);
+        TestEntry reset1 = new TestEntry(new ResetFrame(1, ErrorCode.CANCEL_STREAM_ERROR.code), stream1);
+        TestEntry headers5 = new TestEntry(new HeadersFrame(5, null, null, false), newStream(5, HttpPriority.DEFAULT));
+        scheduler.queue(entries, data1);
+        scheduler.queue(entries, data3);
+        scheduler.queue(entries, reset1);
+        scheduler.queue(entries, headers5);
+
+        // The RST_STREAM frame follows the DATA frames of its stream.
+        assertThat(entries, contains(headers5, data1, reset1, data3));
+
+        // Entries queued later keep the order.
+        TestEntry data7 = new TestEntry(new DataFrame(7, BufferUtil.EMPTY_BUFFER, false), newStream(7, new HttpPriority(3, false)));
+        scheduler.queue(entries, data7);
+        assertThat(entries, contains(headers5, data1, reset1, data7, data3));
+    }
+
+    @Test
+    public void testStalledEntryIsRotatedWithinItsBucket()
+    {
+        ExtensiblePriorityFrameScheduler scheduler = new ExtensiblePriorityFrameScheduler();
+        List<HTTP2Flusher.Entry> entries = new ArrayList<>();
+        HttpPriority incremental = new HttpPriority(3, true);
+        TestEntry data1 = new TestEntry(new DataFrame(1, BufferUtil.EMPTY_BUFFER, false), newStream(1, new HttpPriority(0, false)));
+        TestEntry data3 = new TestEntry(new DataFrame(3, BufferUtil.EMPTY_BUFFER, false), newStream(3, incremental));
+        TestEntry data5 = new TestEntry(new DataFrame(5, BufferUtil.EMPTY_BUFFER, false), newStream(5, incremental));
+        TestEntry data7 = new TestEntry(new DataFrame(7, BufferUtil.EMPTY_BUFFER, false), newStream(7, incremental));
+        TestEntry data9 = new TestEntry(new DataFrame(9, BufferUtil.EMPTY_BUFFER, false), newStream(9, new HttpPriority(7, false)));
+        scheduler.queue(entries, data9);
+        scheduler.queue(entries, data3);
+        scheduler.queue(entries, data5);
+        scheduler.queue(entries, data7);
+        scheduler.queue(entries, data1);
+        assertThat(entries, contains(data1, data3, data5, data7, data9));
+
+        scheduler.stalled(entries, data5);
+
+        // The more and less urgent buckets are not rotated.
+        assertThat(entries, contains(data1, data5, data7, data3, data9));
+
+        // The order survives the next passes.
+        scheduler.schedule(entries);
+        assertThat(entries, contains(data1, data5, data7, data3, data9));
+    }
+
+    private static IStream newStream(int streamId, HttpPriority priority)
+    {
+        return (IStream)Proxy.newProxyInstance(IStream.class.getClassLoader(), new Class<?>[]{IStream.class}, (proxy, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "getId":
+                    return streamId;
+                case "getPriority":
+                    return priority;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "stream#" + streamId;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static class TestEntry extends HTTP2Flusher.Entry
+    {
+        private TestEntry(Frame frame, IStream stream)
+        {
+            super(frame, stream, Callback.NOOP);
+        }
+
+        @Override
+        public int getFrameBytesGenerated()
+        {
+            return 0;
+        }
+
+        @Override
+        protected boolean generate(ByteBufferPool.Lease lease)
+        {
+            return true;
+        }
+
+        @Override
+        public long onFlushed(long bytes)
+        {
+            return bytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return frame.toString();
+        }
+    }
+}
@@ -99,6 +99,7 @@ public class HpackEncoder
     private int _maxHeaderListSize;
     private int _headerListSize;
     private boolean _validateEncoding = true;
+    private HpackFieldCache _fieldCache;
 
     public HpackEncoder()
     {
@@ -184,6 +185,24 @@ public class HpackEncoder
         _validateEncoding = validateEncoding;
     }
 
+    public HpackFieldCache getFieldCache()
+    {
+        return _fieldCache;
+    }
+
+    /**
+     * <p>Sets the cache of the encoded field values, typically shared
+     * by the encoders of many connections, or null to disable caching.</p>
+     * <p>With a cache, the fields that are frequently sent literally
+     * are also added to the dynamic table.</p>
+     *
+     * @param fieldCache the cache of the encoded field values, or null
+     */
+    public void setFieldCache(HpackFieldCache fieldCache)
+    {
+        _fieldCache = fieldCache;
+    }
+
     public void encode(ByteBuffer buffer, MetaData metadata) throws HpackException
     {
         try
@@ -344,6 +363,7 @@ public class HpackEncoder
         {
             // Unknown field entry, so we will have to send literally, but perhaps add an index.
             final boolean indexed;
+            HpackFieldCache.CachedField cached = _fieldCache == null ? null : _fieldCache.get(field);
 
             // Do we know its name?
             HttpHeader header = field.getHeader();
@@ -370,17 +390,26 @@ public class HpackEncoder
                     // custom field.  Unless the name is once only, this is worthwhile
                     indexed = true;
                     encodeName(buffer, (byte)0x40, 6, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeValue(buffer, true, field.getValue(), cached);
                     if (_debug)
                         encoding = "LitHuffNHuffVIdx";
                 }
+                else if (promote(field, fieldSize))
+                {
+                    // Known name, but a value that is frequently sent, so let's index.
+                    indexed = true;
+                    encodeName(buffer, (byte)0x40, 6, field.getName(), null);
+                    encodeValue(buffer, true, field.getValue(), cached);
+                    if (_debug)
+                        encoding = "LitHuffNHuffVIdxPromoted";
+                }
                 else
                 {
                     // Known name, but different value.
                     // This is probably a custom field with changing value, so don't index.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, field.getName(), null);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeValue(buffer, true, field.getValue(), cached);
                     if (_debug)
                         encoding = "LitHuffNHuffV!Idx";
                 }
@@ -400,14 +429,14 @@ public class HpackEncoder
                     if (_debug)
                         encoding = indexed ? "PreEncodedIdx" : "PreEncoded";
                 }
-                else if (DO_NOT_INDEX.contains(header))
+                else if (DO_NOT_INDEX.contains(header) && !promote(field, fieldSize))
                 {
                     // Non indexed field
                     indexed = false;
                     boolean neverIndex = NEVER_INDEX.contains(header);
                     boolean huffman = !DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, neverIndex ? (byte)0x10 : (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    encodeValue(buffer, huffman, field.getValue(), cached);
 
                     if (_debug)
                         encoding = "Lit" +
@@ -420,7 +449,7 @@ public class HpackEncoder
                     // The field is too large or a non-zero content length, so do not index.
                     indexed = false;
                     encodeName(buffer, (byte)0x00, 4, header.asString(), name);
-                    encodeValue(buffer, true, field.getValue());
+                    encodeValue(buffer, true, field.getValue(), cached);
                     if (_debug)
                         encoding = "Lit" +
                             ((name == null) ? "HuffN" : "IdxNS" + (1 + NBitIntegerEncoder.octetsNeeded(4, _context.index(name)))) +
@@ -432,7 +461,7 @@ public class HpackEncoder
                     indexed = true;
                     boolean huffman = !DO_NOT_HUFFMAN.contains(header);
                     encodeName(buffer, (byte)0x40, 6, header.asString(), name);
-                    encodeValue(buffer, huffman, field.getValue());
+                    encodeValue(buffer, huffman, field.getValue(), cached);
                     if (_debug)
                         encoding = ((name == null) ? "LitHuffN" : ("LitIdxN" + (name.isStatic() ? "S" : "") + (1 + NBitIntegerEncoder.octetsNeeded(6, _context.index(name))))) +
                             (huffman ? "HuffVIdx" : "LitVIdx");
@@ -468,6 +497,23 @@ public class HpackEncoder
         }
     }
 
+    /**
+     * @return whether the field is frequently sent literally and can be added to the dynamic table
+     */
+    private boolean promote(HttpField field, int fieldSize)
+    {
+        return _fieldCache != null && fieldSize < _context.getMaxDynamicTableSize() && _fieldCache.promote(field);
+    }
+
+    private void encodeValue(ByteBuffer buffer, boolean huffman, String value, HpackFieldCache.CachedField cached)
+    {
+        // Cached values are always Huffman encoded.
+        if (huffman && cached != null)
+            cached.putEncodedValue(buffer);
+        else
+            encodeValue(buffer, huffman, value);
+    }
+
     static void encodeValue(ByteBuffer buffer, boolean huffman, String value)
     {
         NBitStringEncoder.encode(buffer, 8, value, huffman);
@@ -0,0 +1,318 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.compression.NBitStringEncoder;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A cache of the Huffman encoded values of {@link HttpField}s,
+ * shared by the {@link HpackEncoder}s of many connections.</p>
+ * <p>This class counts how many times each field is sent literally, because
+ * it is not in the dynamic table of a connection.
+ * Fields that are sent literally more than once have their value Huffman
+ * encoded only once and then copied from this cache, so that fields with
+ * a value that is rarely repeated do not evict the cached fields.
+ * Fields that are frequently sent literally, for example those with a
+ * header name in the dynamic table but a different value, are added to the
+ * dynamic table by {@link HpackEncoder}, as they are likely to be sent
+ * again on the same connection.</p>
+ * <p>Sensitive fields, such as {@code Authorization}, and fields whose value
+ * typically changes for every request or response are never cached.</p>
+ * <p>When the cache is full, the fields that have not been used recently
+ * are evicted, using the CLOCK algorithm.
+ * The counts are kept for up to twice as many fields as the cache; when
+ * there are too many, they are halved and the fields seen only once are
+ * forgotten, so that the counts adapt to the fields currently in use.</p>
+ */
+@ManagedObject
+public class HpackFieldCache
+{
+    private static final EnumSet<HttpHeader> UNCACHED_HEADERS = EnumSet.of(
+        HttpHeader.C_PATH,
+        HttpHeader.CONTENT_LENGTH,
+        HttpHeader.DATE);
+
+    private final AutoLock lock = new AutoLock();
+    private final Map<HttpField, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final Map<HttpField, CachedField> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final int maxEntries;
+    private final int maxValueLength;
+    private final int promotionThreshold;
+    private Iterator<CachedField> clockHand;
+
+    public HpackFieldCache()
+    {
+        this(1024, 256, 16);
+    }
+
+    /**
+     * @param maxEntries the max number of fields cached
+     * @param maxValueLength the max length of the values of the fields cached
+     * @param promotionThreshold the number of times a field must be sent
+     * literally before it is added to the dynamic table of a connection
+     */
+    public HpackFieldCache(int maxEntries, int maxValueLength, int promotionThreshold)
+    {
+        this.maxEntries = maxEntries;
+        this.maxValueLength = maxValueLength;
+        this.promotionThreshold = promotionThreshold;
+    }
+
+    @ManagedAttribute("The max number of fields cached")
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    @ManagedAttribute("The max length of the values of the fields cached")
+    public int getMaxValueLength()
+    {
+        return maxValueLength;
+    }
+
+    @ManagedAttribute("The number of times a field is sent literally before being indexed")
+    public int getPromotionThreshold()
+    {
+        return promotionThreshold;
+    }
+
+    @ManagedAttribute("The number of fields cached")
+    public int getSize()
+    {
+        return cache.size();
+    }
+
+    @ManagedAttribute("The number of field values copied from the cache")
+    public long getHits()
+    {
+        return hits.longValue();
+    }
+
+    @ManagedAttribute("The number of field values sent literally but not found in the cache")
+    public long getMisses()
+    {
+        return misses.longValue();
+    }
+
+    @ManagedAttribute("The number of encoded bytes copied from the cache rather than encoded")
+    public long getBytesSaved()
+    {
+        return bytesSaved.longValue();
+    }
+
+    @ManagedAttribute("The number of fields added to a dynamic table because frequently sent")
+    public long getPromotions()
+    {
+        return promotions.longValue();
+    }
+
+    @ManagedOperation(value = "Clears the cache and resets the statistics", impact = "ACTION")
+    public void clear()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            counts.clear();
+            cache.clear();
+            clockHand = null;
+        }
+        hits.reset();
+        misses.reset();
+        bytesSaved.reset();
+        promotions.reset();
+    }
+
+    /**
+     * <p>Counts that the given field is being sent literally, and returns
+     * its cached value, caching it if it has been sent literally before.</p>
+     *
+     * @param field the field to send literally
+     * @return the cached field, or null if the field is not cached
+     */
+    CachedField get(HttpField field)
+    {
+        if (!isCacheable(field))
+            return null;
+
+        int count = sentLiterally(field);
+        CachedField cached = cache.get(field);
+        if (cached != null)
+        {
+            hits.increment();
+            bytesSaved.add(cached.encodedValue.length);
+            cached.referenced();
+            return cached;
+        }
+
+        misses.increment();
+        // Only cache the fields that are sent literally more than once.
+        if (count < 2)
+            return null;
+        CachedField newCached = new CachedField(field);
+        cached = cache.putIfAbsent(field, newCached);
+        if (cached != null)
+            return cached;
+        if (cache.size() > maxEntries)
+            evict(newCached);
+        return newCached;
+    }
+
+    /**
+     * @param field the field to send literally
+     * @return whether the field should be added to the dynamic table
+     */
+    boolean promote(HttpField field)
+    {
+        AtomicInteger count = counts.get(field);
+        if (count == null || count.get() < promotionThreshold)
+            return false;
+        promotions.increment();
+        return true;
+    }
+
+    private int sentLiterally(HttpField field)
+    {
+        AtomicInteger count = counts.get(field);
+        if (count == null)
+        {
+            if (counts.size() >= 2 * maxEntries)
+                age();
+            count = counts.computeIfAbsent(field, f -> new AtomicInteger());
+        }
+        // Stop counting once the field can be promoted and cached, to avoid contention.
+        int value = count.get();
+        if (value < Math.max(2, promotionThreshold))
+            value = count.incrementAndGet();
+        return value;
+    }
+
+    private void age()
+    {
+        try (AutoLock l = lock.lock())
+        {
+            // Halve the counts until there is room, forgetting the fields whose count drops to zero.
+            while (!counts.isEmpty() && counts.size() >= 2 * maxEntries)
+            {
+                counts.entrySet().removeIf(entry -> entry.getValue().updateAndGet(c -> c >> 1) == 0);
+            }
+        }
+    }
+
+    private void evict(CachedField added)
+    {
+        try (AutoLock l = lock.lock())
+        {
+            while (cache.size() > maxEntries)
+            {
+                if (clockHand == null || !clockHand.hasNext())
+                    clockHand = cache.values().iterator();
+                if (!clockHand.hasNext())
+                    break;
+                CachedField cached = clockHand.next();
+                // Give a second chance to the fields used since the last sweep.
+                if (cached != added && !cached.unreference())
+                    cache.remove(cached.field, cached);
+            }
+        }
+    }
+
+    private boolean isCacheable(HttpField field)
+    {
+        if (field instanceof PreEncodedHttpField)
+            return false;
+        HttpHeader header = field.getHeader();
+        if (header != null)
+        {
+            // Sensitive fields must not be retained in a shared cache.
+            if (HpackEncoder.NEVER_INDEX.contains(header) || HpackEncoder.DO_NOT_HUFFMAN.contains(header))
+                return false;
+            if (UNCACHED_HEADERS.contains(header))
+                return false;
+        }
+        return field.getValue().length() <= maxValueLength;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x[size=%d,hits=%d,misses=%d,saved=%d,promotions=%d]",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSize(),
+            getHits(),
+            getMisses(),
+            getBytesSaved(),
+            getPromotions());
+    }
+
+    static class CachedField
+    {
+        private final HttpField field;
+        private final byte[] encodedValue;
+        private volatile boolean referenced;
+
+        private CachedField(HttpField field)
+        {
+            this.field = field;
+            String value = field.getValue();
+            ByteBuffer buffer = ByteBuffer.allocate(NBitStringEncoder.octetsNeeded(8, value, true));
+            NBitStringEncoder.encode(buffer, 8, value, true);
+            this.encodedValue = buffer.array();
+        }
+
+        private void referenced()
+        {
+            // Avoid writing the volatile field if it is already set.
+            if (!referenced)
+                referenced = true;
+        }
+
+        private boolean unreference()
+        {
+            boolean result = referenced;
+            if (result)
+                referenced = false;
+            return result;
+        }
+
+        /**
+         * <p>Puts the Huffman encoded value of this field in the given buffer,
+         * as {@link HpackEncoder#encodeValue(ByteBuffer, boolean, String)} does.</p>
+         *
+         * @param buffer the buffer to put the encoded value into
+         */
+        void putEncodedValue(ByteBuffer buffer)
+        {
+            buffer.put(encodedValue);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.hpack;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HpackFieldCacheTest
+{
+    private static final MetaData.Response RESPONSE = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.build()
+        .put(HttpHeader.CONTENT_TYPE, "application/json")
+        .put(HttpHeader.CACHE_CONTROL, "no-cache")
+        .put(HttpHeader.ETAG, "\"1234567890\"")
+        .put(HttpHeader.AUTHORIZATION, "secret")
+        .put("x-api-version", "2"));
+
+    @Test
+    public void testCachedEncodingIsSameAsEncoding() throws Exception
+    {
+        // Never promote, so that the encodings must be the same.
+        HpackFieldCache cache = new HpackFieldCache(1024, 256, Integer.MAX_VALUE);
+        for (int connection = 0; connection < 3; connection++)
+        {
+            HpackEncoder encoder = new HpackEncoder();
+            HpackEncoder cachingEncoder = new HpackEncoder();
+            cachingEncoder.setFieldCache(cache);
+            for (int response = 0; response < 3; response++)
+            {
+                assertEquals(encode(encoder, RESPONSE), encode(cachingEncoder, RESPONSE));
+            }
+        }
+
+        // Authorization is never cached, and the other fields are cached the second time they are sent.
+        assertEquals(4, cache.getSize());
+        assertEquals(8, cache.getMisses());
+        assertThat(cache.getHits(), greaterThan(0L));
+        assertThat(cache.getBytesSaved(), greaterThan(0L));
+        assertEquals(0, cache.getPromotions());
+    }
+
+    @Test
+    public void testFrequentFieldsArePromoted() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache(1024, 256, 3);
+
+        // Send the ETag literally on enough connections.
+        for (int connection = 0; connection < 2; connection++)
+        {
+            HpackEncoder encoder = new HpackEncoder();
+            encoder.setFieldCache(cache);
+            encode(encoder, RESPONSE);
+        }
+        assertEquals(0, cache.getPromotions());
+
+        // The ETag is now added to the dynamic table, so the next responses are smaller.
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setFieldCache(cache);
+        ByteBuffer first = encode(encoder, RESPONSE);
+        assertEquals(1, cache.getPromotions());
+        HpackEncoder plainEncoder = new HpackEncoder();
+        encode(plainEncoder, RESPONSE);
+        assertThat(encode(encoder, RESPONSE).remaining(), lessThan(encode(plainEncoder, RESPONSE).remaining()));
+
+        HpackDecoder decoder = new HpackDecoder(8192);
+        assertEquals(RESPONSE.getFields(), decoder.decode(first).getFields());
+    }
+
+    @Test
+    public void testFieldsSentOnceAreNotCached() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache(2, 256, Integer.MAX_VALUE);
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setFieldCache(cache);
+        // Do not index the fields, so that they are always sent literally.
+        encoder.setTableCapacity(0);
+        for (int i = 0; i < 3; i++)
+        {
+            encode(encoder, newResponse("x-request-id", String.valueOf(i)));
+        }
+        assertEquals(0, cache.getSize());
+        assertEquals(3, cache.getMisses());
+
+        // The second time a field is sent, it is cached.
+        encode(encoder, newResponse("x-request-id", "0"));
+        assertEquals(1, cache.getSize());
+        encode(encoder, newResponse("x-request-id", "0"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testUnusedFieldsAreEvictedWhenFull() throws Exception
+    {
+        HpackFieldCache cache = new HpackFieldCache(2, 256, Integer.MAX_VALUE);
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setFieldCache(cache);
+        // Do not index the fields, so that they are always sent literally.
+        encoder.setTableCapacity(0);
+        MetaData.Response response0 = newResponse("x-field-0", "value");
+        MetaData.Response response1 = newResponse("x-field-1", "value");
+        MetaData.Response response2 = newResponse("x-field-2", "value");
+        for (int i = 0; i < 2; i++)
+        {
+            encode(encoder, response0);
+            encode(encoder, response1);
+        }
+        assertEquals(2, cache.getSize());
+
+        // Use the first field, so that the second is evicted.
+        encode(encoder, response0);
+        assertEquals(1, cache.getHits());
+        encode(encoder, response2);
+        encode(encoder, response2);
+        assertEquals(2, cache.getSize());
+
+        encode(encoder, response0);
+        encode(encoder, response2);
+        assertEquals(3, cache.getHits());
+        encode(encoder, response1);
+        assertEquals(3, cache.getHits());
+    }
+
+    private static MetaData.Response newResponse(String name, String value)
+    {
+        return new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.build().put(name, value));
+    }
+
+    private static ByteBuffer encode(HpackEncoder encoder, MetaData metaData) throws Exception
+    {
+        ByteBuffer buffer = BufferUtil.allocate(4096);
+        int pos = BufferUtil.flipToFill(buffer);
+        encoder.encode(buffer, metaData);
+        BufferUtil.flipToFlush(buffer, pos);
+        return buffer;
+    }
+}
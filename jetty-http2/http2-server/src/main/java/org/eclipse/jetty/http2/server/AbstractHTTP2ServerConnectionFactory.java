@@ -24,7 +24,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.http2.BufferingFlowControlStrategy;
+import org.eclipse.jetty.http2.ExtensiblePriorityFrameScheduler;
 import org.eclipse.jetty.http2.FlowControlStrategy;
+import org.eclipse.jetty.http2.FrameScheduler;
 import org.eclipse.jetty.http2.HTTP2Connection;
 import org.eclipse.jetty.http2.ISession;
 import org.eclipse.jetty.http2.api.Session;
@@ -33,6 +35,7 @@ import org.eclipse.jetty.http2.frames.Frame;
 import org.eclipse.jetty.http2.frames.SettingsFrame;
 import org.eclipse.jetty.http2.generator.Generator;
 import org.eclipse.jetty.http2.hpack.HpackContext;
+import org.eclipse.jetty.http2.hpack.HpackFieldCache;
 import org.eclipse.jetty.http2.parser.RateControl;
 import org.eclipse.jetty.http2.parser.ServerParser;
 import org.eclipse.jetty.http2.parser.WindowRateControl;
@@ -65,6 +68,8 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
     private boolean connectProtocolEnabled = true;
     private RateControl.Factory rateControlFactory = new WindowRateControl.Factory(128);
     private FlowControlStrategy.Factory flowControlStrategyFactory = () -> new BufferingFlowControlStrategy(0.5F);
+    private FrameScheduler.Factory frameSchedulerFactory = () -> FrameScheduler.FIFO;
+    private HpackFieldCache hpackFieldCache;
     private long streamIdleTimeout;
     private boolean useInputDirectByteBuffers;
     private boolean useOutputDirectByteBuffers;
@@ -118,6 +123,25 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.maxDecoderTableCapacity = maxDecoderTableCapacity;
     }
 
+    @ManagedAttribute("The cache of HPACK encoded fields shared by the connections")
+    public HpackFieldCache getHpackFieldCache()
+    {
+        return hpackFieldCache;
+    }
+
+    /**
+     * <p>Sets the cache of HPACK encoded fields shared by the HPACK encoders
+     * of the connections, so that the fields sent by many connections are
+     * encoded only once, or null to disable the cache.</p>
+     *
+     * @param hpackFieldCache the cache of HPACK encoded fields, or null
+     */
+    public void setHpackFieldCache(HpackFieldCache hpackFieldCache)
+    {
+        updateBean(this.hpackFieldCache, hpackFieldCache);
+        this.hpackFieldCache = hpackFieldCache;
+    }
+
     /**
      * @return the max decoder table size
      * @deprecated use {@link #getMaxDecoderTableCapacity()} instead
@@ -192,6 +216,24 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         this.flowControlStrategyFactory = flowControlStrategyFactory;
     }
 
+    public FrameScheduler.Factory getFrameSchedulerFactory()
+    {
+        return frameSchedulerFactory;
+    }
+
+    /**
+     * <p>Sets the factory of the {@link FrameScheduler} of each connection.</p>
+     * <p>By default frames are written in the order they are queued;
+     * {@link ExtensiblePriorityFrameScheduler} schedules the responses according
+     * to the RFC 9218 priority of their requests.</p>
+     *
+     * @param frameSchedulerFactory the factory of the FrameScheduler of each connection
+     */
+    public void setFrameSchedulerFactory(FrameScheduler.Factory frameSchedulerFactory)
+    {
+        this.frameSchedulerFactory = frameSchedulerFactory;
+    }
+
     @ManagedAttribute("The stream idle timeout in milliseconds")
     public long getStreamIdleTimeout()
     {
@@ -325,6 +367,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         ServerSessionListener listener = newSessionListener(connector, endPoint);
 
         Generator generator = new Generator(connector.getByteBufferPool(), isUseOutputDirectByteBuffers(), getMaxHeaderBlockFragment());
+        generator.getHpackEncoder().setFieldCache(getHpackFieldCache());
         FlowControlStrategy flowControl = getFlowControlStrategyFactory().newFlowControlStrategy();
 
         ServerParser parser = newServerParser(connector, getRateControlFactory().newRateControl(endPoint));
@@ -346,6 +389,7 @@ public abstract class AbstractHTTP2ServerConnectionFactory extends AbstractConne
         session.setInitialSessionRecvWindow(getInitialSessionRecvWindow());
         session.setWriteThreshold(getHttpConfiguration().getOutputBufferSize());
         session.setConnectProtocolEnabled(isConnectProtocolEnabled());
+        session.setFrameScheduler(getFrameSchedulerFactory().newFrameScheduler());
 
         RetainableByteBufferPool retainableByteBufferPool = connector.getByteBufferPool().asRetainableByteBufferPool();
         HTTP2Connection connection = new HTTP2ServerConnection(retainableByteBufferPool, connector.getExecutor(),
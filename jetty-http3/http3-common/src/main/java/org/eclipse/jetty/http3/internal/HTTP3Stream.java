@@ -14,10 +14,12 @@
 package org.eclipse.jetty.http3.internal;
 
 import java.util.EnumSet;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http3.api.Stream;
 import org.eclipse.jetty.http3.frames.DataFrame;
 import org.eclipse.jetty.http3.frames.Frame;
@@ -44,6 +46,7 @@ public abstract class HTTP3Stream implements Stream, CyclicTimeouts.Expirable, A
     private long idleTimeout;
     private long expireNanoTime = Long.MAX_VALUE;
     private Object attachment;
+    private volatile HttpPriority priority = HttpPriority.DEFAULT;
 
     public HTTP3Stream(HTTP3Session session, QuicStreamEndPoint endPoint, boolean local)
     {
@@ -86,6 +89,19 @@ public abstract class HTTP3Stream implements Stream, CyclicTimeouts.Expirable, A
         return local;
     }
 
+    /**
+     * @return the RFC 9218 priority of this stream
+     */
+    public HttpPriority getPriority()
+    {
+        return priority;
+    }
+
+    public void setPriority(HttpPriority priority)
+    {
+        this.priority = Objects.requireNonNull(priority);
+    }
+
     public long getIdleTimeout()
     {
         return idleTimeout;
@@ -15,9 +15,11 @@ package org.eclipse.jetty.http3.internal;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http3.frames.Frame;
 import org.eclipse.jetty.http3.internal.generator.MessageGenerator;
 import org.eclipse.jetty.http3.qpack.QpackEncoder;
@@ -29,12 +31,18 @@ import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>Writes the frames of the message streams one at a time.</p>
+ * <p>Queued frames are written in order of {@link HttpPriority#getUrgency() urgency}
+ * of their streams, as defined by RFC 9218, and in the order they have been queued
+ * for the same urgency.</p>
+ */
 public class MessageFlusher extends IteratingCallback
 {
     private static final Logger LOG = LoggerFactory.getLogger(MessageFlusher.class);
 
     private final AutoLock lock = new AutoLock();
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    private final List<Queue<Entry>> entries = new ArrayList<>(HttpPriority.MAX_URGENCY + 1);
     private final ByteBufferPool.Lease lease;
     private final MessageGenerator generator;
     private Entry entry;
@@ -43,23 +51,50 @@ public class MessageFlusher extends IteratingCallback
     {
         this.lease = new ByteBufferPool.Lease(byteBufferPool);
         this.generator = new MessageGenerator(encoder, useDirectByteBuffers);
+        for (int i = HttpPriority.MIN_URGENCY; i <= HttpPriority.MAX_URGENCY; ++i)
+        {
+            entries.add(new ArrayDeque<>());
+        }
     }
 
     public boolean offer(QuicStreamEndPoint endPoint, Frame frame, Callback callback)
+    {
+        return offer(endPoint, frame, HttpPriority.DEFAULT_URGENCY, callback);
+    }
+
+    /**
+     * @param endPoint the stream endPoint to write the frame to
+     * @param frame the frame to write
+     * @param urgency the urgency of the stream, the frames of more urgent streams being written first
+     * @param callback the callback notified when the frame has been written
+     * @return whether the frame has been queued
+     */
+    public boolean offer(QuicStreamEndPoint endPoint, Frame frame, int urgency, Callback callback)
     {
         try (AutoLock l = lock.lock())
         {
-            entries.offer(new Entry(endPoint, frame, callback));
+            entries.get(urgency).offer(new Entry(endPoint, frame, callback));
         }
         return true;
     }
 
+    private Entry poll()
+    {
+        for (Queue<Entry> queue : entries)
+        {
+            Entry entry = queue.poll();
+            if (entry != null)
+                return entry;
+        }
+        return null;
+    }
+
     @Override
     protected Action process()
     {
         try (AutoLock l = lock.lock())
         {
-            entry = entries.poll();
+            entry = poll();
             if (entry == null)
                 return Action.IDLE;
         }
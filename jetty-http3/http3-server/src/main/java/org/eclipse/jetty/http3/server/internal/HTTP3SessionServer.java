@@ -13,12 +13,14 @@
 
 package org.eclipse.jetty.http3.server.internal;
 
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http3.api.Session;
 import org.eclipse.jetty.http3.frames.Frame;
 import org.eclipse.jetty.http3.frames.GoAwayFrame;
 import org.eclipse.jetty.http3.frames.HeadersFrame;
 import org.eclipse.jetty.http3.frames.SettingsFrame;
 import org.eclipse.jetty.http3.internal.HTTP3Session;
+import org.eclipse.jetty.http3.internal.HTTP3Stream;
 import org.eclipse.jetty.quic.common.QuicStreamEndPoint;
 import org.eclipse.jetty.util.Callback;
 import org.slf4j.Logger;
@@ -94,7 +96,9 @@ public class HTTP3SessionServer extends HTTP3Session implements Session.Server
     @Override
     public void writeMessageFrame(long streamId, Frame frame, Callback callback)
     {
-        getProtocolSession().writeMessageFrame(streamId, frame, callback);
+        HTTP3Stream stream = getStream(streamId);
+        HttpPriority priority = stream == null ? HttpPriority.DEFAULT : stream.getPriority();
+        getProtocolSession().writeMessageFrame(streamId, frame, priority.getUrgency(), callback);
     }
 
     @Override
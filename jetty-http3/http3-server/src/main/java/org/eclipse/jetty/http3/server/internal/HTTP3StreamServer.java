@@ -17,6 +17,7 @@ import java.util.EnumSet;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeoutException;
 
+import org.eclipse.jetty.http.HttpPriority;
 import org.eclipse.jetty.http3.api.Session;
 import org.eclipse.jetty.http3.api.Stream;
 import org.eclipse.jetty.http3.frames.HeadersFrame;
@@ -46,6 +47,7 @@ public class HTTP3StreamServer extends HTTP3Stream implements Stream.Server
         if (validateAndUpdate(EnumSet.of(FrameState.INITIAL), FrameState.HEADER))
         {
             notIdle();
+            setPriority(HttpPriority.from(frame.getMetaData().getFields()));
             Listener listener = this.listener = notifyRequest(frame);
             if (listener == null)
             {
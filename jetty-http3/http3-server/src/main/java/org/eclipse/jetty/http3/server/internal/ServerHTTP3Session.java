@@ -274,10 +274,10 @@ public class ServerHTTP3Session extends ServerProtocolSession
             controlFlusher.iterate();
     }
 
-    void writeMessageFrame(long streamId, Frame frame, Callback callback)
+    void writeMessageFrame(long streamId, Frame frame, int urgency, Callback callback)
     {
         QuicStreamEndPoint endPoint = getOrCreateStreamEndPoint(streamId, this::openProtocolEndPoint);
-        if (messageFlusher.offer(endPoint, frame, callback))
+        if (messageFlusher.offer(endPoint, frame, urgency, callback))
             messageFlusher.iterate();
     }
 
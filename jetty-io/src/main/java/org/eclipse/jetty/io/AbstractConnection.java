@@ -121,6 +121,17 @@ public abstract class AbstractConnection implements Connection
         }
     }
 
+    /**
+     * <p>Returns the invocation type of {@link #onFillable()}, that is whether it
+     * may block the thread that calls it, which is the case by default.</p>
+     *
+     * @return the invocation type of {@link #onFillable()}
+     */
+    protected Invocable.InvocationType getFillableInvocationType()
+    {
+        return Invocable.InvocationType.BLOCKING;
+    }
+
     /**
      * <p>Utility method to be called to register read interest.</p>
      * <p>After a call to this method, {@link #onFillable()} or {@link #onFillInterestedFailed(Throwable)}
@@ -320,6 +331,12 @@ public abstract class AbstractConnection implements Connection
             onFillInterestedFailed(x);
         }
 
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return getFillableInvocationType();
+        }
+
         @Override
         public String toString()
         {
@@ -19,12 +19,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
 import org.slf4j.Logger;
@@ -37,6 +39,8 @@ import org.slf4j.LoggerFactory;
  * 8192, and so on.</p>
  * <p>The {@code maxHeapMemory} and {@code maxDirectMemory} default heuristic is to use {@link Runtime#maxMemory()}
  * divided by 4.</p>
+ * <p>When an {@link #setIdleTimeout(long) idle timeout} is configured, buckets that have not been
+ * used for the idle timeout are trimmed.</p>
  */
 @ManagedObject
 public class ArrayByteBufferPool extends AbstractByteBufferPool implements Dumpable
@@ -48,6 +52,8 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool implements Dumpa
     private final Bucket[] _direct;
     private final Bucket[] _indirect;
     private boolean _detailedDump = false;
+    private final AtomicLong _lastTrim = new AtomicLong(NanoTime.now());
+    private volatile long _idleTimeout = -1;
 
     /**
      * Creates a new ArrayByteBufferPool with a default configuration.
@@ -180,6 +186,94 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool implements Dumpa
         {
             bucket.release(buffer);
             releaseExcessMemory(direct, this::releaseMemory);
+            trimBucketsIfDue();
+        }
+    }
+
+    /**
+     * @return the time in ms after which unused buckets are trimmed, or a non-positive value if buckets are never trimmed
+     */
+    @ManagedAttribute("The time in ms after which unused buckets are trimmed")
+    public long getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    /**
+     * <p>Sets the time after which the buffers of unused buckets are trimmed.</p>
+     * <p>The idle timeout is also applied to the {@link #asRetainableByteBufferPool() retainable pool}
+     * if it is an {@link ArrayRetainableByteBufferPool}.</p>
+     * <p>The idle timeout must be set before the connectors using this pool are started,
+     * so that they periodically call {@link #trimIfDue()}.</p>
+     *
+     * @param idleTimeout the time in ms after which unused buckets are trimmed,
+     * or a non-positive value to never trim buckets
+     * @see ArrayRetainableByteBufferPool#setIdleTimeout(long)
+     */
+    public void setIdleTimeout(long idleTimeout)
+    {
+        _idleTimeout = idleTimeout;
+        RetainableByteBufferPool retainable = asRetainableByteBufferPool();
+        if (retainable instanceof ArrayRetainableByteBufferPool)
+            ((ArrayRetainableByteBufferPool)retainable).setIdleTimeout(idleTimeout);
+    }
+
+    /**
+     * <p>Trims the buffers of the buckets that have not been used for the idle timeout.</p>
+     */
+    @ManagedOperation(value = "Trims the unused buckets", impact = "ACTION")
+    public void trim()
+    {
+        long now = NanoTime.now();
+        _lastTrim.set(now);
+        trim(now, _idleTimeout);
+    }
+
+    /**
+     * <p>Trims the buffers of the unused buckets if the idle timeout has elapsed since the
+     * previous trim, and does the same for the {@link #asRetainableByteBufferPool() retainable pool}
+     * if it is an {@link ArrayRetainableByteBufferPool}.</p>
+     * <p>Releasing a buffer also checks whether a trim is due, so a pool that is no longer
+     * used must have this method called periodically to release its buffers;
+     * connectors do so on their {@link org.eclipse.jetty.util.thread.Scheduler}.</p>
+     */
+    public void trimIfDue()
+    {
+        trimBucketsIfDue();
+        RetainableByteBufferPool retainable = asRetainableByteBufferPool();
+        if (retainable instanceof ArrayRetainableByteBufferPool)
+            ((ArrayRetainableByteBufferPool)retainable).trimIfDue();
+    }
+
+    private void trimBucketsIfDue()
+    {
+        long idleTimeout = _idleTimeout;
+        if (idleTimeout <= 0)
+            return;
+        long now = NanoTime.now();
+        long lastTrim = _lastTrim.get();
+        if (NanoTime.millisElapsed(lastTrim, now) >= idleTimeout && _lastTrim.compareAndSet(lastTrim, now))
+            trim(now, idleTimeout);
+    }
+
+    private void trim(long now, long idleTimeout)
+    {
+        if (idleTimeout <= 0)
+            return;
+        trimBuckets(_direct, now, idleTimeout);
+        trimBuckets(_indirect, now, idleTimeout);
+    }
+
+    private void trimBuckets(Bucket[] buckets, long now, long idleTimeout)
+    {
+        for (Bucket bucket : buckets)
+        {
+            if (!bucket.isEmpty() && NanoTime.millisElapsed(bucket.getLastUpdate(), now) >= idleTimeout)
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("trimming bucket idle for {} ms {}", idleTimeout, bucket);
+                bucket.clear();
+            }
         }
     }
 
@@ -15,8 +15,15 @@ package org.eclipse.jetty.io;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntUnaryOperator;
@@ -29,6 +36,7 @@ import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +48,14 @@ import org.slf4j.LoggerFactory;
  * 2048, and so on.</p>
  * <p>The {@code maxHeapMemory} and {@code maxDirectMemory} default heuristic is to use {@link Runtime#maxMemory()}
  * divided by 4.</p>
+ * <p>When a {@code directSlabSize} is configured, pooled direct ByteBuffers are not allocated individually,
+ * but carved out of larger direct memory slabs, each slab holding buffers of a single bucket capacity.
+ * This reduces the fragmentation of direct memory; slabs whose buffers have all been removed from the
+ * pool are discarded so that their memory can be returned to the system.</p>
+ * <p>When an {@link #setIdleTimeout(long) idle timeout} is configured, the pool adapts to the traffic:
+ * it counts the acquires of each bucket, periodically trims the buffers that have not been used
+ * for the idle timeout, and evicts buffers from the least used buckets first when the max memory
+ * is exceeded.</p>
  */
 @SuppressWarnings("resource")
 @ManagedObject
@@ -56,6 +72,10 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
     private final AtomicLong _currentHeapMemory = new AtomicLong();
     private final AtomicLong _currentDirectMemory = new AtomicLong();
     private final IntUnaryOperator _bucketIndexFor;
+    private final int _directSlabSize;
+    private final AtomicLong _lastTrim = new AtomicLong(NanoTime.now());
+    private final AtomicLong _trimmed = new AtomicLong();
+    private volatile long _idleTimeout = -1;
 
     /**
      * Creates a new ArrayRetainableByteBufferPool with a default configuration.
@@ -116,6 +136,23 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         this(minCapacity, factor, maxCapacity, maxBucketSize, bucketIndexFor::apply, bucketCapacity::apply, maxHeapMemory, maxDirectMemory);
     }
 
+    /**
+     * Creates a new ArrayRetainableByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxBucketSize the maximum number of ByteBuffers for each bucket
+     * @param maxHeapMemory the max heap memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param directSlabSize the size in bytes of the slabs pooled direct ByteBuffers are carved from,
+     * or 0 to allocate each direct ByteBuffer individually
+     */
+    public ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, long maxHeapMemory, long maxDirectMemory, int directSlabSize)
+    {
+        this(minCapacity, factor, maxCapacity, maxBucketSize, null, null, maxHeapMemory, maxDirectMemory, directSlabSize);
+    }
+
     /**
      * Creates a new ArrayRetainableByteBufferPool with the given configuration.
      *
@@ -129,6 +166,25 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
      * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
      */
     protected ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, IntUnaryOperator bucketIndexFor, IntUnaryOperator bucketCapacity, long maxHeapMemory, long maxDirectMemory)
+    {
+        this(minCapacity, factor, maxCapacity, maxBucketSize, bucketIndexFor, bucketCapacity, maxHeapMemory, maxDirectMemory, 0);
+    }
+
+    /**
+     * Creates a new ArrayRetainableByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxBucketSize the maximum number of ByteBuffers for each bucket
+     * @param bucketIndexFor a {@link IntUnaryOperator} that takes a capacity and returns a bucket index
+     * @param bucketCapacity a {@link IntUnaryOperator} that takes a bucket index and returns a capacity
+     * @param maxHeapMemory the max heap memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param maxDirectMemory the max direct memory in bytes, -1 for unlimited memory or 0 to use default heuristic
+     * @param directSlabSize the size in bytes of the slabs pooled direct ByteBuffers are carved from,
+     * or 0 to allocate each direct ByteBuffer individually
+     */
+    protected ArrayRetainableByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxBucketSize, IntUnaryOperator bucketIndexFor, IntUnaryOperator bucketCapacity, long maxHeapMemory, long maxDirectMemory, int directSlabSize)
     {
         if (minCapacity <= 0)
             minCapacity = 0;
@@ -150,8 +206,8 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         for (int i = 0; i < directArray.length; i++)
         {
             int capacity = Math.min(bucketCapacity.applyAsInt(i), maxCapacity);
-            directArray[i] = new RetainedBucket(capacity, maxBucketSize);
-            indirectArray[i] = new RetainedBucket(capacity, maxBucketSize);
+            directArray[i] = new RetainedBucket(capacity, maxBucketSize, directSlabSize > 0 ? new Slabs(capacity, directSlabSize) : null);
+            indirectArray[i] = new RetainedBucket(capacity, maxBucketSize, null);
         }
 
         _minCapacity = minCapacity;
@@ -161,6 +217,7 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         _maxHeapMemory = AbstractByteBufferPool.retainedSize(maxHeapMemory);
         _maxDirectMemory = AbstractByteBufferPool.retainedSize(maxDirectMemory);
         _bucketIndexFor = bucketIndexFor;
+        _directSlabSize = Math.max(0, directSlabSize);
     }
 
     @ManagedAttribute("The minimum pooled buffer capacity")
@@ -175,12 +232,81 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         return _maxCapacity;
     }
 
+    @ManagedAttribute("The size of the slabs pooled direct buffers are carved from, 0 if slabs are not used")
+    public int getDirectSlabSize()
+    {
+        return _directSlabSize;
+    }
+
+    @ManagedAttribute("The number of direct memory slabs")
+    public long getDirectSlabCount()
+    {
+        long count = 0;
+        for (RetainedBucket bucket : _direct)
+        {
+            if (bucket._slabs != null)
+                count += bucket._slabs.getSlabCount();
+        }
+        return count;
+    }
+
+    @ManagedAttribute("The bytes allocated by direct memory slabs")
+    public long getDirectSlabMemory()
+    {
+        long memory = 0;
+        for (RetainedBucket bucket : _direct)
+        {
+            if (bucket._slabs != null)
+                memory += bucket._slabs.getMemory();
+        }
+        return memory;
+    }
+
+    /**
+     * @return the time in ms after which unused pooled buffers are trimmed, or a non-positive value if buffers are never trimmed
+     */
+    @ManagedAttribute("The time in ms after which unused pooled buffers are trimmed")
+    public long getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    /**
+     * <p>Sets the time after which unused pooled buffers are trimmed.</p>
+     * <p>A positive value enables the adaptive behavior of this pool: acquires are
+     * counted per bucket, buffers not used for the idle timeout are trimmed (checked
+     * at most once per idle timeout), and buffers are evicted from the least
+     * used buckets first when the max memory is exceeded.</p>
+     * <p>The idle timeout must be set before the connectors using this pool are started,
+     * so that they periodically call {@link #trimIfDue()}.</p>
+     *
+     * @param idleTimeout the time in ms after which unused pooled buffers are trimmed,
+     * or a non-positive value to never trim buffers
+     */
+    public void setIdleTimeout(long idleTimeout)
+    {
+        _idleTimeout = idleTimeout;
+    }
+
+    @ManagedAttribute("The number of pooled ByteBuffers trimmed because they were unused")
+    public long getTrimmedByteBufferCount()
+    {
+        return _trimmed.get();
+    }
+
     @Override
     public RetainableByteBuffer acquire(int size, boolean direct)
     {
         RetainedBucket bucket = bucketFor(size, direct);
         if (bucket == null)
             return newRetainableByteBuffer(size, direct, this::removed);
+
+        if (_idleTimeout > 0)
+        {
+            bucket._acquires.increment();
+            trimIfDue();
+        }
+
         RetainedBucket.Entry entry = bucket.acquire();
 
         RetainableByteBuffer buffer;
@@ -189,11 +315,26 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
             RetainedBucket.Entry reservedEntry = bucket.reserve();
             if (reservedEntry != null)
             {
-                buffer = newRetainableByteBuffer(bucket._capacity, direct, retainedBuffer ->
+                Slabs slabs = bucket._slabs;
+                if (slabs == null)
+                {
+                    buffer = newRetainableByteBuffer(bucket._capacity, direct, retainedBuffer ->
+                    {
+                        BufferUtil.reset(retainedBuffer.getBuffer());
+                        reservedEntry.release();
+                    });
+                }
+                else
                 {
-                    BufferUtil.reset(retainedBuffer.getBuffer());
-                    reservedEntry.release();
-                });
+                    buffer = slabs.allocate(retainedBuffer ->
+                    {
+                        BufferUtil.reset(retainedBuffer.getBuffer());
+                        // If the entry has been removed while the buffer was in use,
+                        // the slab memory can only be reclaimed now that it is released.
+                        if (!reservedEntry.release() && retainedBuffer.tryAcquire())
+                            slabs.reclaim(retainedBuffer);
+                    });
+                }
                 reservedEntry.enable(buffer, true);
                 if (direct)
                     _currentDirectMemory.addAndGet(buffer.capacity());
@@ -209,7 +350,17 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
         else
         {
             buffer = entry.getPooled();
-            buffer.acquire();
+            if (bucket._slabs == null)
+            {
+                buffer.acquire();
+            }
+            else if (!buffer.tryAcquire())
+            {
+                // The entry has been concurrently removed and its slab memory reclaimed,
+                // so give up the acquired entry, as its buffer cannot be used anymore.
+                entry.remove();
+                buffer = newRetainableByteBuffer(size, direct, this::removed);
+            }
         }
         return buffer;
     }
@@ -349,12 +500,81 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
                 if (entry.remove())
                 {
                     memoryCounter.addAndGet(-entry.getPooled().capacity());
+                    pool.removed(entry.getPooled());
                     removed(entry.getPooled());
                 }
             }
         }
     }
 
+    /**
+     * <p>Trims the pooled buffers that have not been used for the idle timeout,
+     * and records the number of acquires of each bucket since the previous trim.</p>
+     */
+    @ManagedOperation(value = "Trims the unused pooled buffers", impact = "ACTION")
+    public void trim()
+    {
+        long now = NanoTime.now();
+        _lastTrim.set(now);
+        trim(now, _idleTimeout);
+    }
+
+    /**
+     * <p>Trims the unused pooled buffers if the idle timeout has elapsed since the previous trim.</p>
+     * <p>Acquiring a buffer also checks whether a trim is due, so a pool that is no longer
+     * used must have this method called periodically to release its buffers;
+     * connectors do so on their {@link org.eclipse.jetty.util.thread.Scheduler}.</p>
+     */
+    public void trimIfDue()
+    {
+        long idleTimeout = _idleTimeout;
+        if (idleTimeout <= 0)
+            return;
+        long now = NanoTime.now();
+        long lastTrim = _lastTrim.get();
+        if (NanoTime.millisElapsed(lastTrim, now) >= idleTimeout && _lastTrim.compareAndSet(lastTrim, now))
+            trim(now, idleTimeout);
+    }
+
+    private void trim(long now, long idleTimeout)
+    {
+        int trimmed = trimArray(_direct, _currentDirectMemory, now, idleTimeout) + trimArray(_indirect, _currentHeapMemory, now, idleTimeout);
+        _trimmed.addAndGet(trimmed);
+        if (LOG.isDebugEnabled())
+            LOG.debug("trimmed {} buffers idle for {} ms from {}", trimmed, idleTimeout, this);
+    }
+
+    private int trimArray(RetainedBucket[] buckets, AtomicLong memoryCounter, long now, long idleTimeout)
+    {
+        int total = 0;
+        for (RetainedBucket bucket : buckets)
+        {
+            int trimmed = 0;
+            if (idleTimeout > 0)
+            {
+                long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+                for (RetainedBucket.Entry entry : bucket.values())
+                {
+                    RetainableByteBuffer buffer = entry.getPooled();
+                    // A null buffer means the entry is reserved but not acquired yet.
+                    if (buffer == null || !entry.isIdle() || NanoTime.elapsed(buffer.getLastUpdate(), now) < idleNanos)
+                        continue;
+                    if (entry.remove())
+                    {
+                        memoryCounter.addAndGet(-buffer.capacity());
+                        bucket.removed(buffer);
+                        removed(buffer);
+                        trimmed++;
+                    }
+                }
+            }
+            bucket._lastAcquires = bucket._acquires.sumThenReset();
+            bucket._lastTrimmed = trimmed;
+            total += trimmed;
+        }
+        return total;
+    }
+
     private void releaseExcessMemory(boolean direct)
     {
         long maxMemory = direct ? _maxDirectMemory : _maxHeapMemory;
@@ -380,6 +600,24 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
 
         RetainedBucket[] buckets = direct ? _direct : _indirect;
 
+        if (_idleTimeout > 0)
+        {
+            // Evict from the least used buckets first, so
+            // that the most used buckets keep their buffers.
+            buckets = buckets.clone();
+            Arrays.sort(buckets, Comparator.comparingLong(bucket -> bucket._lastAcquires));
+            for (RetainedBucket bucket : buckets)
+            {
+                while (totalClearedCapacity < excess)
+                {
+                    RetainedBucket.Entry oldestEntry = findOldestEntry(now, bucket);
+                    if (oldestEntry == null)
+                        break;
+                    totalClearedCapacity += evict(direct, bucket, oldestEntry);
+                }
+            }
+        }
+
         while (totalClearedCapacity < excess)
         {
             // Run through all the buckets to avoid removing
@@ -389,19 +627,7 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
                 RetainedBucket.Entry oldestEntry = findOldestEntry(now, bucket);
                 if (oldestEntry == null)
                     continue;
-
-                if (oldestEntry.remove())
-                {
-                    RetainableByteBuffer buffer = oldestEntry.getPooled();
-                    int clearedCapacity = buffer.capacity();
-                    if (direct)
-                        _currentDirectMemory.addAndGet(-clearedCapacity);
-                    else
-                        _currentHeapMemory.addAndGet(-clearedCapacity);
-                    totalClearedCapacity += clearedCapacity;
-                    removed(buffer);
-                }
-                // else a concurrent thread evicted the same entry -> do not account for its capacity.
+                totalClearedCapacity += evict(direct, bucket, oldestEntry);
             }
         }
 
@@ -409,6 +635,24 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
             LOG.debug("eviction done, cleared {} bytes from {} pools", totalClearedCapacity, (direct ? "direct" : "heap"));
     }
 
+    private int evict(boolean direct, RetainedBucket bucket, RetainedBucket.Entry entry)
+    {
+        if (!entry.remove())
+        {
+            // A concurrent thread evicted the same entry -> do not account for its capacity.
+            return 0;
+        }
+        RetainableByteBuffer buffer = entry.getPooled();
+        int clearedCapacity = buffer.capacity();
+        if (direct)
+            _currentDirectMemory.addAndGet(-clearedCapacity);
+        else
+            _currentHeapMemory.addAndGet(-clearedCapacity);
+        bucket.removed(buffer);
+        removed(buffer);
+        return clearedCapacity;
+    }
+
     @Override
     public String toString()
     {
@@ -460,11 +704,33 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
     private static class RetainedBucket extends Pool<RetainableByteBuffer>
     {
         private final int _capacity;
+        private final Slabs _slabs;
+        private final LongAdder _acquires = new LongAdder();
+        private volatile long _lastAcquires;
+        private volatile int _lastTrimmed;
 
-        RetainedBucket(int capacity, int size)
+        RetainedBucket(int capacity, int size, Slabs slabs)
         {
             super(Pool.StrategyType.THREAD_ID, size, true);
             _capacity = capacity;
+            _slabs = slabs;
+        }
+
+        private void removed(RetainableByteBuffer buffer)
+        {
+            // Only reclaim the slab memory if the buffer is not in use,
+            // otherwise it is reclaimed when the buffer is released.
+            if (_slabs != null && buffer.tryAcquire())
+                _slabs.reclaim(buffer);
+        }
+
+        @Override
+        public void dump(Appendable out, String indent) throws IOException
+        {
+            if (_slabs == null)
+                super.dump(out, indent);
+            else
+                Dumpable.dumpObjects(out, indent, this, new DumpableCollection("entries", values()), _slabs);
         }
 
         @Override
@@ -479,11 +745,183 @@ public class ArrayRetainableByteBufferPool implements RetainableByteBufferPool,
                     inUse++;
             }
 
-            return String.format("%s{capacity=%d,inuse=%d(%d%%)}",
+            return String.format("%s{capacity=%d,inuse=%d(%d%%),acquires=%d,trimmed=%d}",
                 super.toString(),
                 _capacity,
                 inUse,
-                entries > 0 ? (inUse * 100) / entries : 0);
+                entries > 0 ? (inUse * 100) / entries : 0,
+                _lastAcquires,
+                _lastTrimmed);
+        }
+    }
+
+    /**
+     * <p>The direct memory slabs buffers of a single capacity are carved from.</p>
+     * <p>Slabs are only allocated and reclaimed when buffers are added to or removed
+     * from the pool; acquiring and releasing pooled buffers does not involve slabs.</p>
+     */
+    private static class Slabs implements Dumpable
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final List<Slab> _slabs = new ArrayList<>();
+        private final Deque<Slab> _available = new ArrayDeque<>();
+        private final int _capacity;
+        private final int _slots;
+
+        private Slabs(int capacity, int slabSize)
+        {
+            _capacity = capacity;
+            _slots = Math.max(1, slabSize / capacity);
+        }
+
+        private RetainableByteBuffer allocate(Consumer<RetainableByteBuffer> releaser)
+        {
+            ByteBuffer buffer;
+            Slab slab;
+            int slot;
+            try (AutoLock l = _lock.lock())
+            {
+                slab = _available.peekFirst();
+                if (slab == null)
+                {
+                    slab = new Slab(ByteBuffer.allocateDirect(_capacity * _slots), _slots);
+                    _slabs.add(slab);
+                    _available.addFirst(slab);
+                }
+                slot = slab.take();
+                if (slab.isFull())
+                    _available.pollFirst();
+                buffer = slab.slice(slot, _capacity);
+            }
+            BufferUtil.clear(buffer);
+            SlabByteBuffer retainableByteBuffer = new SlabByteBuffer(buffer, releaser, slab, slot);
+            retainableByteBuffer.acquire();
+            return retainableByteBuffer;
+        }
+
+        private void reclaim(RetainableByteBuffer buffer)
+        {
+            SlabByteBuffer slabBuffer = (SlabByteBuffer)buffer;
+            Slab slab = slabBuffer._slab;
+            try (AutoLock l = _lock.lock())
+            {
+                boolean wasFull = slab.isFull();
+                slab.put(slabBuffer._slot);
+                if (slab.isEmpty())
+                {
+                    // Drop all references to the slab so that its memory can be freed.
+                    _slabs.remove(slab);
+                    if (!wasFull)
+                        _available.remove(slab);
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Discarded empty slab {}", slab);
+                }
+                else if (wasFull)
+                {
+                    _available.addLast(slab);
+                }
+            }
+        }
+
+        private int getSlabCount()
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                return _slabs.size();
+            }
+        }
+
+        private long getMemory()
+        {
+            return (long)getSlabCount() * _capacity * _slots;
+        }
+
+        @Override
+        public void dump(Appendable out, String indent) throws IOException
+        {
+            List<Slab> slabs;
+            try (AutoLock l = _lock.lock())
+            {
+                slabs = new ArrayList<>(_slabs);
+            }
+            Dumpable.dumpObjects(out, indent, this, new DumpableCollection("slabs", slabs));
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{capacity=%d,slots=%d,slabs=%d}", getClass().getSimpleName(), hashCode(), _capacity, _slots, getSlabCount());
+        }
+    }
+
+    /**
+     * <p>A direct memory region divided in slots, with a stack of the free slots.</p>
+     * <p>Instances are guarded by the lock of the owning {@link Slabs}.</p>
+     */
+    private static class Slab
+    {
+        private final ByteBuffer _region;
+        private final int[] _free;
+        private int _top;
+
+        private Slab(ByteBuffer region, int slots)
+        {
+            _region = region;
+            _free = new int[slots];
+            for (int i = 0; i < slots; ++i)
+            {
+                _free[i] = slots - 1 - i;
+            }
+            _top = slots;
+        }
+
+        private int take()
+        {
+            return _free[--_top];
+        }
+
+        private void put(int slot)
+        {
+            _free[_top++] = slot;
+        }
+
+        private boolean isFull()
+        {
+            return _top == 0;
+        }
+
+        private boolean isEmpty()
+        {
+            return _top == _free.length;
+        }
+
+        private ByteBuffer slice(int slot, int capacity)
+        {
+            ByteBuffer buffer = _region.duplicate();
+            int offset = slot * capacity;
+            buffer.limit(offset + capacity).position(offset);
+            return buffer.slice();
+        }
+
+        @Override
+        public String toString()
+        {
+            int slots = _free.length;
+            int inUse = slots - _top;
+            return String.format("%s@%x{inuse=%d/%d(%d%%)}", getClass().getSimpleName(), hashCode(), inUse, slots, (inUse * 100) / slots);
+        }
+    }
+
+    private static class SlabByteBuffer extends RetainableByteBuffer
+    {
+        private final Slab _slab;
+        private final int _slot;
+
+        private SlabByteBuffer(ByteBuffer buffer, Consumer<RetainableByteBuffer> releaser, Slab slab, int slot)
+        {
+            super(buffer, releaser);
+            _slab = slab;
+            _slot = slot;
         }
     }
 }
@@ -0,0 +1,283 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.component.Dumpable;
+
+/**
+ * <p>A {@link RetainableByteBufferPool} that caches released buffers in small
+ * per-thread magazines in front of a shared delegate pool.</p>
+ * <p>Threads are mapped to magazines by their thread id, so that the acquire/release
+ * traffic of a thread is absorbed by its own magazine and does not contend
+ * with the other threads on the shared buckets of the delegate pool.
+ * When a magazine is empty, buffers are acquired from the delegate pool;
+ * when a magazine is full, released buffers spill back to the delegate pool.</p>
+ * <p>Buffers cached in magazines are not available to the delegate pool,
+ * so the number and size of the magazines should be kept small.</p>
+ */
+@ManagedObject
+public class CachingRetainableByteBufferPool implements RetainableByteBufferPool, Dumpable
+{
+    private final RetainableByteBufferPool _delegate;
+    private final Magazine[] _direct;
+    private final Magazine[] _indirect;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _spills = new LongAdder();
+
+    /**
+     * Creates a new CachingRetainableByteBufferPool with one magazine
+     * of 8 buffers per available processor.
+     *
+     * @param delegate the shared pool to acquire buffers from and to spill buffers to
+     */
+    public CachingRetainableByteBufferPool(RetainableByteBufferPool delegate)
+    {
+        this(delegate, -1, 8);
+    }
+
+    /**
+     * @param delegate the shared pool to acquire buffers from and to spill buffers to
+     * @param magazines the number of magazines, or -1 for one per available processor
+     * @param magazineSize the max number of buffers cached by each magazine
+     */
+    public CachingRetainableByteBufferPool(RetainableByteBufferPool delegate, int magazines, int magazineSize)
+    {
+        if (magazines <= 0)
+            magazines = ProcessorUtils.availableProcessors();
+        if (magazineSize <= 0)
+            throw new IllegalArgumentException("Invalid magazine size " + magazineSize);
+        _delegate = delegate;
+        _direct = new Magazine[magazines];
+        _indirect = new Magazine[magazines];
+        for (int i = 0; i < magazines; ++i)
+        {
+            _direct[i] = new Magazine(magazineSize);
+            _indirect[i] = new Magazine(magazineSize);
+        }
+    }
+
+    public RetainableByteBufferPool getDelegate()
+    {
+        return _delegate;
+    }
+
+    @Override
+    public RetainableByteBuffer acquire(int size, boolean direct)
+    {
+        Cached cached = magazineFor(direct).take(size);
+        if (cached != null)
+        {
+            _hits.increment();
+        }
+        else
+        {
+            _misses.increment();
+            cached = new Cached(_delegate.acquire(size, direct));
+        }
+        cached.acquire();
+        return cached;
+    }
+
+    private void release(RetainableByteBuffer buffer)
+    {
+        Cached cached = (Cached)buffer;
+        BufferUtil.reset(cached.getBuffer());
+        if (!magazineFor(cached.isDirect()).put(cached))
+        {
+            _spills.increment();
+            cached._pooled.release();
+        }
+    }
+
+    private Magazine magazineFor(boolean direct)
+    {
+        Magazine[] magazines = direct ? _direct : _indirect;
+        return magazines[(int)(Thread.currentThread().getId() % magazines.length)];
+    }
+
+    @ManagedAttribute("The number of magazines")
+    public int getMagazines()
+    {
+        return _direct.length;
+    }
+
+    @ManagedAttribute("The max number of buffers cached by each magazine")
+    public int getMagazineSize()
+    {
+        return _direct[0].length();
+    }
+
+    @ManagedAttribute("The number of acquires served by a magazine")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of acquires served by the delegate pool")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The number of releases spilled to the delegate pool")
+    public long getSpills()
+    {
+        return _spills.longValue();
+    }
+
+    @ManagedAttribute("The number of buffers cached by the magazines")
+    public long getCachedByteBufferCount()
+    {
+        long count = 0;
+        for (Magazine magazine : _direct)
+        {
+            count += magazine.count();
+        }
+        for (Magazine magazine : _indirect)
+        {
+            count += magazine.count();
+        }
+        return count;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _spills.reset();
+    }
+
+    @Override
+    @ManagedOperation(value = "Clears this RetainableByteBufferPool", impact = "ACTION")
+    public void clear()
+    {
+        drain(_direct);
+        drain(_indirect);
+        _delegate.clear();
+    }
+
+    private void drain(Magazine[] magazines)
+    {
+        for (Magazine magazine : magazines)
+        {
+            for (int i = 0; i < magazine.length(); ++i)
+            {
+                Cached cached = magazine.getAndSet(i, null);
+                if (cached != null)
+                    cached._pooled.release();
+            }
+        }
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Dumpable.dumpObjects(out, indent, this, _delegate);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{magazines=%dx%d,cached=%d,hits=%d,misses=%d,spills=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getMagazines(),
+            getMagazineSize(),
+            getCachedByteBufferCount(),
+            getHits(),
+            getMisses(),
+            getSpills());
+    }
+
+    /**
+     * <p>A fixed number of slots holding released buffers.</p>
+     */
+    private static class Magazine extends AtomicReferenceArray<Cached>
+    {
+        private Magazine(int length)
+        {
+            super(length);
+        }
+
+        private Cached take(int size)
+        {
+            // Pick the smallest buffer with enough capacity.
+            while (true)
+            {
+                int index = -1;
+                Cached best = null;
+                for (int i = 0; i < length(); ++i)
+                {
+                    Cached cached = get(i);
+                    if (cached != null && cached.capacity() >= size && (best == null || cached.capacity() < best.capacity()))
+                    {
+                        index = i;
+                        best = cached;
+                    }
+                }
+                if (best == null)
+                    return null;
+                if (compareAndSet(index, best, null))
+                    return best;
+            }
+        }
+
+        private boolean put(Cached cached)
+        {
+            for (int i = 0; i < length(); ++i)
+            {
+                if (get(i) == null && compareAndSet(i, null, cached))
+                    return true;
+            }
+            return false;
+        }
+
+        private int count()
+        {
+            int count = 0;
+            for (int i = 0; i < length(); ++i)
+            {
+                if (get(i) != null)
+                    ++count;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * <p>A buffer handed out by this pool, that holds
+     * the buffer acquired from the delegate pool.</p>
+     */
+    private class Cached extends RetainableByteBuffer
+    {
+        private final RetainableByteBuffer _pooled;
+
+        private Cached(RetainableByteBuffer pooled)
+        {
+            super(pooled.getBuffer(), CachingRetainableByteBufferPool.this::release);
+            _pooled = pooled;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.nio.channels.NetworkChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Map;
@@ -98,6 +99,7 @@ public class ClientConnector extends ContainerLifeCycle
     private SslContextFactory.Client sslContextFactory;
     private SelectorManager selectorManager;
     private int selectors = 1;
+    private SelectorProvider selectorProvider = SelectorProvider.provider();
     private boolean connectBlocking;
     private Duration connectTimeout = Duration.ofSeconds(5);
     private Duration idleTimeout = Duration.ofSeconds(30);
@@ -198,6 +200,27 @@ public class ClientConnector extends ContainerLifeCycle
         this.selectors = selectors;
     }
 
+    /**
+     * @return the {@link SelectorProvider} used to open selectors and channels
+     */
+    @ManagedAttribute("The SelectorProvider")
+    public SelectorProvider getSelectorProvider()
+    {
+        return selectorProvider;
+    }
+
+    /**
+     * @param selectorProvider the {@link SelectorProvider} used to open selectors and channels,
+     * or null to use the JVM default provider
+     * @see SelectorManager#setSelectorProvider(SelectorProvider)
+     */
+    public void setSelectorProvider(SelectorProvider selectorProvider)
+    {
+        if (isStarted())
+            throw new IllegalStateException();
+        this.selectorProvider = SelectorManager.resolveSelectorProvider(selectorProvider);
+    }
+
     /**
      * @return whether {@link #connect(SocketAddress, Map)} operations are performed in blocking mode
      */
@@ -372,6 +395,7 @@ public class ClientConnector extends ContainerLifeCycle
         if (sslContextFactory == null)
             setSslContextFactory(newSslContextFactory());
         selectorManager = newSelectorManager();
+        selectorManager.setSelectorProvider(getSelectorProvider());
         selectorManager.setConnectTimeout(getConnectTimeout().toMillis());
         addBean(selectorManager);
         super.doStart();
@@ -633,7 +657,7 @@ public class ClientConnector extends ContainerLifeCycle
          */
         public ChannelWithAddress newChannelWithAddress(ClientConnector clientConnector, SocketAddress address, Map<String, Object> context) throws IOException
         {
-            return new ChannelWithAddress(SocketChannel.open(), address);
+            return new ChannelWithAddress(clientConnector.getSelectorProvider().openSocketChannel(), address);
         }
 
         public EndPoint newEndPoint(ClientConnector clientConnector, SocketAddress address, SelectableChannel selectable, ManagedSelector selector, SelectionKey selectionKey)
@@ -67,6 +67,13 @@ public class NetworkTrafficSocketChannelEndPoint extends SocketChannelEndPoint
         return flushed;
     }
 
+    @Override
+    public boolean isTransferFromSupported()
+    {
+        // Transferred bytes would not be notified to the listener.
+        return false;
+    }
+
     @Override
     public void onOpen()
     {
@@ -88,6 +88,15 @@ public class RetainableByteBuffer implements Retainable
             throw new IllegalStateException("re-pooled while still used " + this);
     }
 
+    /**
+     * Atomically acquires this buffer if it is not in use.
+     * @return true if this buffer was acquired, false if it was already in use
+     */
+    boolean tryAcquire()
+    {
+        return references.compareAndSet(0, 1);
+    }
+
     /**
      * Increments the retained counter of this buffer.
      */
@@ -22,6 +22,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
 import java.util.Arrays;
 import java.util.EventListener;
 import java.util.List;
@@ -63,6 +64,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final List<AcceptListener> _acceptListeners = new CopyOnWriteArrayList<>();
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private ThreadPoolBudget.Lease _lease;
+    private SelectorProvider _selectorProvider = SelectorProvider.provider();
 
     private static int defaultSelectors(Executor executor)
     {
@@ -129,6 +131,53 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         _connectTimeout = milliseconds;
     }
 
+    /**
+     * @return the {@link SelectorProvider} used to open {@link Selector}s and channels
+     */
+    @ManagedAttribute("The SelectorProvider")
+    public SelectorProvider getSelectorProvider()
+    {
+        return _selectorProvider;
+    }
+
+    /**
+     * <p>Sets the {@link SelectorProvider} used to open {@link Selector}s and channels.</p>
+     * <p>This allows to plug alternative I/O backends, for example a completion-based
+     * provider available only on some platforms.
+     * If the given provider cannot open a {@link Selector}, the JVM default provider
+     * is used instead.</p>
+     * <p>Channels registered with this SelectorManager must be opened with the
+     * provider returned by {@link #getSelectorProvider()}.</p>
+     *
+     * @param selectorProvider the SelectorProvider, or null to use the JVM default provider
+     */
+    public void setSelectorProvider(SelectorProvider selectorProvider)
+    {
+        if (isStarted())
+            throw new IllegalStateException();
+        _selectorProvider = resolveSelectorProvider(selectorProvider);
+    }
+
+    static SelectorProvider resolveSelectorProvider(SelectorProvider selectorProvider)
+    {
+        SelectorProvider defaultProvider = SelectorProvider.provider();
+        if (selectorProvider == null || selectorProvider == defaultProvider)
+            return defaultProvider;
+        try
+        {
+            // Verify that the provider is actually usable on this platform.
+            selectorProvider.openSelector().close();
+            return selectorProvider;
+        }
+        catch (Throwable x)
+        {
+            LOG.info("Unavailable {}, falling back to {}: {}", selectorProvider, defaultProvider, x.toString());
+            if (LOG.isDebugEnabled())
+                LOG.debug("", x);
+            return defaultProvider;
+        }
+    }
+
     /**
      * Executes the given task in a different thread.
      *
@@ -269,7 +318,7 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
 
     protected Selector newSelector() throws IOException
     {
-        return Selector.open();
+        return getSelectorProvider().openSelector();
     }
 
     @Override
@@ -16,10 +16,14 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.WritePendingException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +35,8 @@ public class SocketChannelEndPoint extends SelectableChannelEndPoint
 {
     private static final Logger LOG = LoggerFactory.getLogger(SocketChannelEndPoint.class);
 
+    private final AtomicReference<Transfer> _transfer = new AtomicReference<>();
+
     public SocketChannelEndPoint(SocketChannel channel, ManagedSelector selector, SelectionKey key, Scheduler scheduler)
     {
         super(scheduler, channel, selector, key);
@@ -125,6 +131,123 @@ public class SocketChannelEndPoint extends SelectableChannelEndPoint
                 return false;
         }
 
+        Transfer transfer = _transfer.get();
+        return transfer == null || !transfer.isFlushedBy(buffers) || transfer(transfer);
+    }
+
+    /**
+     * @return whether {@link #transferFrom(Callback, FileChannel, long, long)} is supported by this EndPoint
+     */
+    public boolean isTransferFromSupported()
+    {
         return true;
     }
+
+    /**
+     * <p>Writes {@code count} bytes of the given file, starting at the given file position,
+     * using {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * so that, where supported by the platform, the file bytes are sent to the network
+     * without being copied to user space.</p>
+     * <p>Like {@link #write(Callback, ByteBuffer...)}, this method is non-blocking and the
+     * callback is notified when all the bytes have been written, or when the write fails.
+     * The file is not closed by this method.</p>
+     *
+     * @param callback the callback to notify when the transfer is complete
+     * @param file the file to read the bytes from
+     * @param position the file position of the first byte to write
+     * @param count the number of bytes to write
+     * @throws WritePendingException if another write operation is pending
+     */
+    public void transferFrom(Callback callback, FileChannel file, long position, long count) throws WritePendingException
+    {
+        if (count <= 0)
+        {
+            callback.succeeded();
+            return;
+        }
+        Transfer transfer = new Transfer(file, position, count);
+        if (!_transfer.compareAndSet(null, transfer))
+            throw new WritePendingException();
+        try
+        {
+            // The transfer only starts when its marker buffer is flushed,
+            // so that a pending write that rejects this one does not perform it.
+            write(new Callback.Nested(callback)
+            {
+                @Override
+                public void failed(Throwable x)
+                {
+                    _transfer.compareAndSet(transfer, null);
+                    super.failed(x);
+                }
+            }, transfer._marker);
+        }
+        catch (WritePendingException x)
+        {
+            _transfer.compareAndSet(transfer, null);
+            throw x;
+        }
+    }
+
+    private boolean transfer(Transfer transfer) throws IOException
+    {
+        FileChannel file = transfer._file;
+        try
+        {
+            while (transfer._remaining > 0)
+            {
+                long transferred = file.transferTo(transfer._position, transfer._remaining, getChannel());
+                if (LOG.isDebugEnabled())
+                    LOG.debug("transferred {}/{} {}", transferred, transfer._remaining, this);
+                if (transferred == 0)
+                {
+                    if (transfer._position >= file.size())
+                        throw new IOException("Unexpected end of file " + file);
+                    return false;
+                }
+                notIdle();
+                transfer._position += transferred;
+                transfer._remaining -= transferred;
+                Connection connection = getConnection();
+                if (connection instanceof WriteFlusher.Listener)
+                    ((WriteFlusher.Listener)connection).onFlushed(transferred);
+            }
+            _transfer.compareAndSet(transfer, null);
+            return true;
+        }
+        catch (IOException x)
+        {
+            _transfer.compareAndSet(transfer, null);
+            throw new EofException(x);
+        }
+    }
+
+    /**
+     * <p>The state of a file transfer, which may be flushed by different
+     * threads as the network becomes writable.</p>
+     */
+    private static class Transfer
+    {
+        private final ByteBuffer _marker = ByteBuffer.allocate(0);
+        private final FileChannel _file;
+        private volatile long _position;
+        private volatile long _remaining;
+        private volatile boolean _started;
+
+        private Transfer(FileChannel file, long position, long count)
+        {
+            _file = file;
+            _position = position;
+            _remaining = count;
+        }
+
+        private boolean isFlushedBy(ByteBuffer[] buffers)
+        {
+            // The marker identifies the write of this transfer, but it is
+            // not passed again to flush() once it has been consumed.
+            if (!_started)
+                _started = buffers.length == 1 && buffers[0] == _marker;
+            return _started;
+        }
+    }
 }
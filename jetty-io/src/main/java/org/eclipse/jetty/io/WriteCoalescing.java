@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>Coalesces the small buffers of a gathering write into pooled aggregate buffers,
+ * before they are flushed by a {@link WriteFlusher}.</p>
+ * <p>A write of many small buffers, for example the header, chunk and content buffers
+ * of a HTTP/1.1 response, is copied into fewer buffers, so that each flush, including
+ * those that complete a partial write, passes fewer buffers to the operating system.
+ * Only runs of at least two adjacent buffers, each with less than {@link #getThreshold()}
+ * bytes, are coalesced, so large buffers are never copied.</p>
+ * <p>A single instance is typically shared by all the endpoints of a connector,
+ * and records the number of writes and flushes of these endpoints.</p>
+ *
+ * @see WriteFlusher#setWriteCoalescing(WriteCoalescing)
+ */
+@ManagedObject("Coalesces the small buffers of gathering writes")
+public class WriteCoalescing
+{
+    private final LongAdder _writes = new LongAdder();
+    private final LongAdder _flushes = new LongAdder();
+    private final LongAdder _coalescedBuffers = new LongAdder();
+    private final LongAdder _coalescedBytes = new LongAdder();
+    private final ByteBufferPool _bufferPool;
+    private int _threshold = 1024;
+    private int _bufferSize = 4096;
+    private boolean _useDirectByteBuffers = true;
+
+    public WriteCoalescing()
+    {
+        this(null);
+    }
+
+    public WriteCoalescing(ByteBufferPool bufferPool)
+    {
+        _bufferPool = bufferPool == null ? new NullByteBufferPool() : bufferPool;
+    }
+
+    public ByteBufferPool getByteBufferPool()
+    {
+        return _bufferPool;
+    }
+
+    @ManagedAttribute("The size under which a buffer is coalesced with adjacent small buffers")
+    public int getThreshold()
+    {
+        return _threshold;
+    }
+
+    public void setThreshold(int threshold)
+    {
+        _threshold = threshold;
+    }
+
+    @ManagedAttribute("The size of the aggregate buffers")
+    public int getBufferSize()
+    {
+        return _bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize)
+    {
+        _bufferSize = bufferSize;
+    }
+
+    @ManagedAttribute("Whether the aggregate buffers are direct")
+    public boolean isUseDirectByteBuffers()
+    {
+        return _useDirectByteBuffers;
+    }
+
+    public void setUseDirectByteBuffers(boolean useDirectByteBuffers)
+    {
+        _useDirectByteBuffers = useDirectByteBuffers;
+    }
+
+    @ManagedAttribute("The number of writes")
+    public long getWrites()
+    {
+        return _writes.longValue();
+    }
+
+    @ManagedAttribute("The number of flushes to the operating system")
+    public long getFlushes()
+    {
+        return _flushes.longValue();
+    }
+
+    @ManagedAttribute("The average number of flushes to the operating system per write")
+    public double getFlushesPerWrite()
+    {
+        long writes = getWrites();
+        return writes == 0 ? 0.0 : (double)getFlushes() / writes;
+    }
+
+    @ManagedAttribute("The number of buffers copied into aggregate buffers")
+    public long getCoalescedBuffers()
+    {
+        return _coalescedBuffers.longValue();
+    }
+
+    @ManagedAttribute("The number of bytes copied into aggregate buffers")
+    public long getCoalescedBytes()
+    {
+        return _coalescedBytes.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _writes.reset();
+        _flushes.reset();
+        _coalescedBuffers.reset();
+        _coalescedBytes.reset();
+    }
+
+    /**
+     * <p>Coalesces the runs of adjacent small buffers into aggregate buffers.</p>
+     * <p>The bytes of the coalesced buffers are consumed, and the aggregate buffers
+     * are added to the given list, so that they can be {@link #release(List) released}
+     * once they have been written.</p>
+     *
+     * @param buffers the buffers to write
+     * @param aggregates the list to add the aggregate buffers to
+     * @return the buffers to flush, which are the given buffers if none has been coalesced
+     */
+    public ByteBuffer[] coalesce(ByteBuffer[] buffers, List<ByteBuffer> aggregates)
+    {
+        _writes.increment();
+
+        int length = buffers.length;
+        if (length < 2)
+            return buffers;
+
+        ByteBuffer[] result = null;
+        int count = 0;
+        int index = 0;
+        while (index < length)
+        {
+            int run = run(buffers, index);
+            if (run < 2)
+            {
+                if (result != null)
+                    result[count++] = buffers[index];
+                ++index;
+                continue;
+            }
+
+            if (result == null)
+            {
+                result = new ByteBuffer[length];
+                System.arraycopy(buffers, 0, result, 0, index);
+                count = index;
+            }
+
+            ByteBuffer aggregate = _bufferPool.acquire(_bufferSize, _useDirectByteBuffers);
+            int position = BufferUtil.flipToFill(aggregate);
+            for (int i = index; i < index + run; ++i)
+            {
+                _coalescedBytes.add(buffers[i].remaining());
+                aggregate.put(buffers[i]);
+            }
+            BufferUtil.flipToFlush(aggregate, position);
+            _coalescedBuffers.add(run);
+            aggregates.add(aggregate);
+            result[count++] = aggregate;
+            index += run;
+        }
+
+        return result == null ? buffers : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @param buffers the buffers to write
+     * @param index the index of the first buffer of the run
+     * @return the number of adjacent small buffers, starting at the given index, that fit an aggregate buffer
+     */
+    private int run(ByteBuffer[] buffers, int index)
+    {
+        int run = 0;
+        int size = 0;
+        for (int i = index; i < buffers.length; ++i)
+        {
+            int remaining = buffers[i].remaining();
+            if (remaining >= _threshold || size + remaining > _bufferSize)
+                break;
+            size += remaining;
+            ++run;
+        }
+        return run;
+    }
+
+    /**
+     * <p>Releases the aggregate buffers, once they have been written.</p>
+     *
+     * @param aggregates the aggregate buffers to release
+     */
+    public void release(List<ByteBuffer> aggregates)
+    {
+        for (ByteBuffer aggregate : aggregates)
+        {
+            _bufferPool.release(aggregate);
+        }
+        aggregates.clear();
+    }
+
+    void onFlush()
+    {
+        _flushes.increment();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{threshold=%d,size=%d,writes=%d,flushes=%d}", getClass().getSimpleName(), hashCode(), getThreshold(), getBufferSize(), getWrites(), getFlushes());
+    }
+}
@@ -18,9 +18,11 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.WritePendingException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
@@ -50,6 +52,8 @@ public abstract class WriteFlusher
     private static final State __COMPLETING = new CompletingState();
     private final EndPoint _endPoint;
     private final AtomicReference<State> _state = new AtomicReference<>();
+    private WriteCoalescing _coalescing;
+    private List<ByteBuffer> _coalesced;
 
     static
     {
@@ -198,6 +202,26 @@ public abstract class WriteFlusher
         }
     }
 
+    /**
+     * @return the coalescing of the small buffers of the writes, or null if the buffers are not coalesced
+     */
+    public WriteCoalescing getWriteCoalescing()
+    {
+        return _coalescing;
+    }
+
+    /**
+     * <p>Sets the coalescing of the small buffers of the writes.</p>
+     * <p>This method must be called before the first write.</p>
+     *
+     * @param coalescing the coalescing of the small buffers of the writes, or null to not coalesce the buffers
+     */
+    public void setWriteCoalescing(WriteCoalescing coalescing)
+    {
+        _coalesced = coalescing == null ? null : new ArrayList<>(2);
+        _coalescing = coalescing;
+    }
+
     /**
      * In PendingState not all buffers could be written in one go. Then write() will switch to PendingState() and
      * preserve the state by creating a new PendingState object with the given parameters.
@@ -272,6 +296,11 @@ public abstract class WriteFlusher
 
         try
         {
+            // Datagrams are not coalesced, as their boundaries must be preserved.
+            WriteCoalescing coalescing = _coalescing;
+            if (coalescing != null && address == null)
+                buffers = coalescing.coalesce(buffers, _coalesced);
+
             buffers = flush(address, buffers);
 
             if (buffers != null)
@@ -282,11 +311,15 @@ public abstract class WriteFlusher
                 if (updateState(__WRITING, pending))
                     onIncompleteFlush();
                 else
+                {
+                    releaseCoalesced();
                     fail(callback);
+                }
 
                 return;
             }
 
+            releaseCoalesced();
             if (updateState(__WRITING, __IDLE))
                 callback.succeeded();
             else
@@ -296,6 +329,7 @@ public abstract class WriteFlusher
         {
             if (DEBUG)
                 LOG.debug("write exception", e);
+            releaseCoalesced();
             if (updateState(__WRITING, new FailedState(e)))
                 callback.failed(e);
             else
@@ -303,6 +337,15 @@ public abstract class WriteFlusher
         }
     }
 
+    private void releaseCoalesced()
+    {
+        // Only the thread that owns the aggregate buffers releases them: the
+        // writing or completing thread, or the thread failing a pending write.
+        List<ByteBuffer> coalesced = _coalesced;
+        if (coalesced != null && !coalesced.isEmpty())
+            _coalescing.release(coalesced);
+    }
+
     private void fail(Callback callback, Throwable... suppressed)
     {
         Throwable cause;
@@ -385,10 +428,14 @@ public abstract class WriteFlusher
                 if (updateState(__COMPLETING, pending))
                     onIncompleteFlush();
                 else
+                {
+                    releaseCoalesced();
                     fail(callback);
+                }
                 return;
             }
 
+            releaseCoalesced();
             if (updateState(__COMPLETING, __IDLE))
                 callback.succeeded();
             else
@@ -398,6 +445,7 @@ public abstract class WriteFlusher
         {
             if (DEBUG)
                 LOG.debug("completeWrite exception", e);
+            releaseCoalesced();
             if (updateState(__COMPLETING, new FailedState(e)))
                 callback.failed(e);
             else
@@ -419,6 +467,8 @@ public abstract class WriteFlusher
         while (progress && buffers != null)
         {
             long before = BufferUtil.remaining(buffers);
+            if (_coalescing != null)
+                _coalescing.onFlush();
             boolean flushed = address == null ? _endPoint.flush(buffers) : ((DatagramChannelEndPoint)_endPoint).send(address, buffers);
             long after = BufferUtil.remaining(buffers);
             long written = before - after;
@@ -500,6 +550,8 @@ public abstract class WriteFlusher
                     PendingState pending = (PendingState)current;
                     if (updateState(pending, new FailedState(cause)))
                     {
+                        // No other thread can flush the pending buffers anymore.
+                        releaseCoalesced();
                         pending._callback.failed(cause);
                         return true;
                     }
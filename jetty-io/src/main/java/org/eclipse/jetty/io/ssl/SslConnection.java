@@ -952,6 +952,13 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             }
         }
 
+        private boolean isSessionResumed(SSLEngine sslEngine)
+        {
+            // A resumed session was created by a previous connection,
+            // while a full handshake creates a new session.
+            return sslEngine.getSession().getCreationTime() < SslConnection.this.getCreatedTimeStamp();
+        }
+
         private Throwable handshakeFailed(Throwable failure)
         {
             if (_handshake.compareAndSet(HandshakeState.HANDSHAKE, HandshakeState.FAILED))
@@ -1466,7 +1473,7 @@ public class SslConnection extends AbstractConnection implements Connection.Upgr
             for (SslHandshakeListener listener : handshakeListeners)
             {
                 if (event == null)
-                    event = new SslHandshakeListener.Event(sslEngine);
+                    event = new SslHandshakeListener.Event(sslEngine, isSessionResumed(sslEngine));
                 try
                 {
                     listener.handshakeSucceeded(event);
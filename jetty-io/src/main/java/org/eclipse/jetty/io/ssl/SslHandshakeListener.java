@@ -51,9 +51,17 @@ public interface SslHandshakeListener extends EventListener
      */
     public static class Event extends EventObject
     {
+        private final boolean sessionResumed;
+
         public Event(Object source)
+        {
+            this(source, false);
+        }
+
+        public Event(Object source, boolean sessionResumed)
         {
             super(source);
+            this.sessionResumed = sessionResumed;
         }
 
         /**
@@ -63,5 +71,14 @@ public interface SslHandshakeListener extends EventListener
         {
             return (SSLEngine)getSource();
         }
+
+        /**
+         * @return whether the TLS handshake resumed a previous session,
+         * rather than performing a full handshake
+         */
+        public boolean isSessionResumed()
+        {
+            return sessionResumed;
+        }
     }
 }
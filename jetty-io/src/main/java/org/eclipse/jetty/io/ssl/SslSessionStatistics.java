@@ -0,0 +1,237 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.ssl;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+
+/**
+ * <p>A {@link SslHandshakeListener} that tracks the TLS session resumptions, and
+ * manages the TLS session cache of a {@link SslContextFactory}.</p>
+ * <p>Adding an instance of this class as a bean to a ServerConnector or to
+ * a SslConnectionFactory (for the server) or to HttpClient (for the client)
+ * will count the full and the resumed TLS handshakes of all the connections.</p>
+ * <p>Resumed handshakes avoid the key exchange and the certificate verification
+ * of full handshakes, so a low resumption ratio for reconnecting clients may be
+ * improved by tuning {@link SslContextFactory#setSslSessionCacheSize(int) the size}
+ * and {@link SslContextFactory#setSslSessionTimeout(int) the timeout} of the session
+ * cache, which bounds the stateful sessions cached by the {@link SSLSessionContext}.</p>
+ * <p>Stateless session tickets are encrypted with keys that the JDK generates and
+ * rotates itself, per {@link SSLContext}; they are configured with the
+ * {@code jdk.tls.server.enableSessionTicketExtension} and
+ * {@code jdk.tls.server.statelessKeyTimeout} system properties, whose values are
+ * reported by this class.</p>
+ */
+@ManagedObject("Tracks statistics on TLS session resumptions")
+public class SslSessionStatistics extends AbstractLifeCycle implements SslHandshakeListener, Dumpable
+{
+    private static final int DEFAULT_TICKET_KEY_TIMEOUT = 3600;
+
+    private final LongAdder _fullHandshakes = new LongAdder();
+    private final LongAdder _resumedHandshakes = new LongAdder();
+    private final LongAdder _failedHandshakes = new LongAdder();
+    private final SslContextFactory _sslContextFactory;
+
+    public SslSessionStatistics(@Name("sslContextFactory") SslContextFactory sslContextFactory)
+    {
+        _sslContextFactory = sslContextFactory;
+    }
+
+    public SslContextFactory getSslContextFactory()
+    {
+        return _sslContextFactory;
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void reset()
+    {
+        _fullHandshakes.reset();
+        _resumedHandshakes.reset();
+        _failedHandshakes.reset();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        reset();
+    }
+
+    @Override
+    public void handshakeSucceeded(Event event)
+    {
+        if (!isStarted())
+            return;
+        if (event.isSessionResumed())
+            _resumedHandshakes.increment();
+        else
+            _fullHandshakes.increment();
+    }
+
+    @Override
+    public void handshakeFailed(Event event, Throwable failure)
+    {
+        if (!isStarted())
+            return;
+        _failedHandshakes.increment();
+    }
+
+    @ManagedAttribute("The number of full TLS handshakes")
+    public long getFullHandshakes()
+    {
+        return _fullHandshakes.sum();
+    }
+
+    @ManagedAttribute("The number of TLS handshakes that resumed a session")
+    public long getResumedHandshakes()
+    {
+        return _resumedHandshakes.sum();
+    }
+
+    @ManagedAttribute("The number of failed TLS handshakes")
+    public long getFailedHandshakes()
+    {
+        return _failedHandshakes.sum();
+    }
+
+    @ManagedAttribute("The ratio of the successful TLS handshakes that resumed a session")
+    public double getResumptionRatio()
+    {
+        long resumed = getResumedHandshakes();
+        long total = resumed + getFullHandshakes();
+        return total > 0 ? (double)resumed / total : 0.0D;
+    }
+
+    /**
+     * @return the number of sessions in the session cache, or -1 if the SslContextFactory is not started
+     */
+    @ManagedAttribute("The number of sessions in the session cache")
+    public int getCachedSessions()
+    {
+        SSLSessionContext sessionContext = getSessionContext();
+        if (sessionContext == null)
+            return -1;
+        return Collections.list(sessionContext.getIds()).size();
+    }
+
+    /**
+     * @return the max number of sessions in the session cache, 0 for no limit,
+     * or -1 if the SslContextFactory is not started
+     */
+    @ManagedAttribute("The max number of sessions in the session cache, 0 for no limit")
+    public int getSessionCacheSize()
+    {
+        SSLSessionContext sessionContext = getSessionContext();
+        return sessionContext == null ? -1 : sessionContext.getSessionCacheSize();
+    }
+
+    /**
+     * @return the timeout in seconds of the sessions in the session cache, 0 for no timeout,
+     * or -1 if the SslContextFactory is not started
+     */
+    @ManagedAttribute("The timeout in seconds of the sessions in the session cache, 0 for no timeout")
+    public int getSessionTimeout()
+    {
+        SSLSessionContext sessionContext = getSessionContext();
+        return sessionContext == null ? -1 : sessionContext.getSessionTimeout();
+    }
+
+    @ManagedAttribute("Whether stateless session tickets are enabled")
+    public boolean isSessionTicketsEnabled()
+    {
+        String side = _sslContextFactory instanceof SslContextFactory.Client ? "client" : "server";
+        return Boolean.parseBoolean(System.getProperty("jdk.tls." + side + ".enableSessionTicketExtension", "true"));
+    }
+
+    @ManagedAttribute("The period in seconds after which the keys that encrypt the session tickets are rotated")
+    public int getTicketKeyTimeout()
+    {
+        try
+        {
+            return Integer.parseInt(System.getProperty("jdk.tls.server.statelessKeyTimeout", String.valueOf(DEFAULT_TICKET_KEY_TIMEOUT)));
+        }
+        catch (NumberFormatException x)
+        {
+            return DEFAULT_TICKET_KEY_TIMEOUT;
+        }
+    }
+
+    /**
+     * <p>Invalidates all the sessions in the session cache, so that the next
+     * connections of their clients perform a full handshake.</p>
+     * <p>Stateless session tickets remain valid until their key expires.</p>
+     *
+     * @return the number of sessions invalidated
+     */
+    @ManagedOperation(value = "Invalidates all the sessions in the session cache", impact = "ACTION")
+    public int invalidateSessions()
+    {
+        SSLSessionContext sessionContext = getSessionContext();
+        if (sessionContext == null)
+            return 0;
+        int invalidated = 0;
+        Enumeration<byte[]> ids = sessionContext.getIds();
+        while (ids.hasMoreElements())
+        {
+            SSLSession session = sessionContext.getSession(ids.nextElement());
+            if (session != null)
+            {
+                session.invalidate();
+                ++invalidated;
+            }
+        }
+        return invalidated;
+    }
+
+    private SSLSessionContext getSessionContext()
+    {
+        SSLContext sslContext = _sslContextFactory.isStarted() ? _sslContextFactory.getSslContext() : null;
+        if (sslContext == null)
+            return null;
+        return _sslContextFactory instanceof SslContextFactory.Client ? sslContext.getClientSessionContext() : sslContext.getServerSessionContext();
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Dumpable.dumpObjects(out, indent, this,
+            String.format("handshakes full=%d resumed=%d failed=%d", getFullHandshakes(), getResumedHandshakes(), getFailedHandshakes()),
+            String.format("sessions cached=%d max=%d timeout=%ds", getCachedSessions(), getSessionCacheSize(), getSessionTimeout()),
+            String.format("tickets enabled=%b keyTimeout=%ds", isSessionTicketsEnabled(), getTicketKeyTimeout()));
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,full=%d,resumed=%d}", getClass().getSimpleName(), hashCode(), getState(), getFullHandshakes(), getResumedHandshakes());
+    }
+}
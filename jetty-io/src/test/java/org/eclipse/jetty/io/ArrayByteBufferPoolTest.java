@@ -252,4 +252,55 @@ public class ArrayByteBufferPoolTest
         bufferPool.release(buffer);
         assertThat(buffer.order(), is(ByteOrder.BIG_ENDIAN));
     }
+
+    @Test
+    public void testIdleBucketsAreTrimmed() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(10, 100, 1000);
+        Bucket[] buckets = bufferPool.bucketsFor(true);
+
+        bufferPool.release(bufferPool.acquire(100, true));
+        bufferPool.release(bufferPool.acquire(200, true));
+        assertThat(bufferPool.getMemory(true), equalTo(300L));
+
+        // Not idle long enough.
+        bufferPool.setIdleTimeout(60_000);
+        bufferPool.trim();
+        assertThat(bufferPool.getMemory(true), equalTo(300L));
+
+        bufferPool.setIdleTimeout(500);
+        Thread.sleep(1000);
+        // Releasing triggers the trimming, but only of the idle bucket.
+        bufferPool.release(bufferPool.acquire(200, true));
+
+        assertThat(buckets[1].size(), equalTo(0));
+        assertThat(buckets[2].size(), equalTo(1));
+        assertThat(bufferPool.getMemory(true), equalTo(200L));
+        assertThat(((ArrayRetainableByteBufferPool)bufferPool.asRetainableByteBufferPool()).getIdleTimeout(), equalTo(500L));
+    }
+
+    @Test
+    public void testIdlePoolIsTrimmedWhenDue() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(10, 100, 1000);
+        bufferPool.setIdleTimeout(100);
+        ArrayRetainableByteBufferPool retainable = (ArrayRetainableByteBufferPool)bufferPool.asRetainableByteBufferPool();
+        retainable.acquire(100, true).release();
+        bufferPool.release(bufferPool.acquire(200, true));
+
+        // Not due yet.
+        bufferPool.trimIfDue();
+        assertThat(bufferPool.getMemory(true), equalTo(200L));
+        assertThat(retainable.getDirectMemory(), equalTo(100L));
+
+        // The pools are not used anymore, but both are trimmed once due.
+        Thread.sleep(250);
+        bufferPool.trimIfDue();
+        assertThat(retainable.getDirectMemory(), equalTo(0L));
+        // The buffer trimmed from the retainable pool is released to this pool, and trimmed at the next due trim.
+        assertThat(bufferPool.getMemory(true), equalTo(100L));
+        Thread.sleep(250);
+        bufferPool.trimIfDue();
+        assertThat(bufferPool.getMemory(true), equalTo(0L));
+    }
 }
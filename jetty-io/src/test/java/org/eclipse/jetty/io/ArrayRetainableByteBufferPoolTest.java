@@ -19,6 +19,7 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
@@ -420,4 +421,157 @@ public class ArrayRetainableByteBufferPoolTest
         assertThat(retain9, not(sameInstance(retain5)));
         retain9.release();
     }
+
+    @Test
+    public void testDirectSlabs() throws IOException
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE, -1, -1, 40);
+
+        List<RetainableByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            RetainableByteBuffer buffer = pool.acquire(10, true);
+            assertThat(buffer.isDirect(), is(true));
+            assertThat(buffer.capacity(), is(10));
+            buffers.add(buffer);
+        }
+        // 4 buffers per slab.
+        assertThat(pool.getDirectSlabCount(), is(2L));
+        assertThat(pool.getDirectSlabMemory(), is(80L));
+        assertThat(pool.dump(), containsString("inuse=4/4"));
+
+        // Buffers carved from the same slab must not overlap.
+        for (int i = 0; i < buffers.size(); i++)
+        {
+            ByteBuffer byteBuffer = buffers.get(i).getBuffer();
+            BufferUtil.clearToFill(byteBuffer);
+            while (byteBuffer.hasRemaining())
+            {
+                byteBuffer.put((byte)i);
+            }
+        }
+        for (int i = 0; i < buffers.size(); i++)
+        {
+            ByteBuffer byteBuffer = buffers.get(i).getBuffer();
+            for (int j = 0; j < byteBuffer.capacity(); j++)
+            {
+                assertThat(byteBuffer.get(j), is((byte)i));
+            }
+        }
+
+        // Releasing the buffers re-pools them, the slabs are retained.
+        buffers.forEach(RetainableByteBuffer::release);
+        assertThat(pool.getAvailableDirectByteBufferCount(), is(5L));
+        assertThat(pool.getDirectSlabCount(), is(2L));
+
+        // Re-acquiring does not allocate more slabs.
+        RetainableByteBuffer buffer = pool.acquire(10, true);
+        assertThat(pool.getDirectSlabCount(), is(2L));
+        buffer.release();
+
+        // Removing the buffers from the pool discards the slabs.
+        pool.clear();
+        assertThat(pool.getDirectSlabCount(), is(0L));
+        assertThat(pool.getDirectSlabMemory(), is(0L));
+
+        // Heap buffers are not affected.
+        RetainableByteBuffer heap = pool.acquire(10, false);
+        assertThat(heap.isDirect(), is(false));
+        heap.release();
+    }
+
+    @Test
+    public void testDirectSlabReclaimedWhenInUseBufferReleased()
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE, -1, -1, 40);
+
+        RetainableByteBuffer buffer = pool.acquire(10, true);
+        assertThat(pool.getDirectSlabCount(), is(1L));
+
+        // The buffer is in use, so its slab cannot be discarded yet.
+        pool.clear();
+        assertThat(pool.getDirectSlabCount(), is(1L));
+
+        assertThat(buffer.release(), is(true));
+        assertThat(pool.getDirectSlabCount(), is(0L));
+    }
+
+    @Test
+    public void testIdleBuffersAreTrimmed() throws Exception
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE);
+        pool.setIdleTimeout(1000);
+
+        RetainableByteBuffer buffer1 = pool.acquire(10, true);
+        RetainableByteBuffer buffer2 = pool.acquire(20, false);
+        buffer1.release();
+
+        // Not idle long enough.
+        pool.trim();
+        assertThat(pool.getTrimmedByteBufferCount(), is(0L));
+        assertThat(pool.dump(), containsString("acquires=1,trimmed=0"));
+
+        pool.setIdleTimeout(1);
+        Thread.sleep(10);
+        pool.trim();
+
+        // Only the idle buffer is trimmed.
+        assertThat(pool.getTrimmedByteBufferCount(), is(1L));
+        assertThat(pool.getDirectByteBufferCount(), is(0L));
+        assertThat(pool.getDirectMemory(), is(0L));
+        assertThat(pool.getHeapByteBufferCount(), is(1L));
+        assertThat(pool.dump(), containsString("acquires=0,trimmed=1"));
+
+        buffer2.release();
+    }
+
+    @Test
+    public void testIdlePoolIsTrimmedWhenDue() throws Exception
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE);
+        pool.setIdleTimeout(100);
+        pool.acquire(10, true).release();
+        pool.acquire(20, true).release();
+
+        // Not due yet.
+        pool.trimIfDue();
+        assertThat(pool.getDirectByteBufferCount(), is(2L));
+
+        // The pool is not used anymore, but its buffers are trimmed once due.
+        Thread.sleep(250);
+        pool.trimIfDue();
+        assertThat(pool.getTrimmedByteBufferCount(), is(2L));
+        assertThat(pool.getDirectMemory(), is(0L));
+    }
+
+    @Test
+    public void testAdaptiveEvictionPrefersLeastUsedBuckets()
+    {
+        ArrayRetainableByteBufferPool pool = new ArrayRetainableByteBufferPool(0, 10, 20, Integer.MAX_VALUE, -1, 40);
+        pool.setIdleTimeout(60_000);
+
+        RetainableByteBuffer small1 = pool.acquire(10, true);
+        RetainableByteBuffer small2 = pool.acquire(10, true);
+        small1.release();
+        small2.release();
+        for (int i = 0; i < 10; i++)
+        {
+            pool.acquire(10, true).release();
+        }
+        pool.acquire(20, true).release();
+        assertThat(pool.getDirectMemory(), is(40L));
+
+        // Record the acquires of each bucket.
+        pool.trim();
+
+        RetainableByteBuffer large1 = pool.acquire(20, true);
+        RetainableByteBuffer large2 = pool.acquire(20, true);
+
+        // The buffers of the most used bucket have been retained.
+        assertThat(pool.getDirectMemory(), is(40L));
+        assertThat(pool.getAvailableDirectMemory(), is(20L));
+
+        large1.release();
+        large2.release();
+    }
 }
@@ -0,0 +1,102 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingRetainableByteBufferPoolTest
+{
+    @Test
+    public void testReleasedBufferIsCached()
+    {
+        ArrayRetainableByteBufferPool delegate = new ArrayRetainableByteBufferPool(0, 10, 100, Integer.MAX_VALUE);
+        CachingRetainableByteBufferPool pool = new CachingRetainableByteBufferPool(delegate, 1, 2);
+
+        RetainableByteBuffer buffer1 = pool.acquire(10, true);
+        assertThat(pool.getMisses(), is(1L));
+        buffer1.getBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(buffer1.release(), is(true));
+        assertThat(pool.getCachedByteBufferCount(), is(1L));
+        // The buffer is still in use for the delegate pool.
+        assertThat(delegate.getAvailableDirectByteBufferCount(), is(0L));
+
+        RetainableByteBuffer buffer2 = pool.acquire(5, true);
+        assertThat(buffer2, sameInstance(buffer1));
+        assertThat(buffer2.getBuffer().order(), is(ByteOrder.BIG_ENDIAN));
+        assertThat(buffer2.remaining(), is(0));
+        assertThat(pool.getHits(), is(1L));
+        assertThat(pool.getCachedByteBufferCount(), is(0L));
+
+        // Heap and direct buffers are cached separately.
+        RetainableByteBuffer heap = pool.acquire(10, false);
+        assertThat(heap.isDirect(), is(false));
+        assertThat(pool.getMisses(), is(2L));
+
+        buffer2.release();
+        heap.release();
+        assertThrows(IllegalStateException.class, buffer2::release);
+    }
+
+    @Test
+    public void testBestFit()
+    {
+        CachingRetainableByteBufferPool pool = new CachingRetainableByteBufferPool(new ArrayRetainableByteBufferPool(0, 10, 100, Integer.MAX_VALUE), 1, 4);
+
+        RetainableByteBuffer big = pool.acquire(50, true);
+        RetainableByteBuffer small = pool.acquire(10, true);
+        big.release();
+        small.release();
+
+        RetainableByteBuffer buffer = pool.acquire(20, true);
+        assertThat(buffer, sameInstance(big));
+        RetainableByteBuffer other = pool.acquire(60, true);
+        assertThat(other, not(sameInstance(small)));
+        assertThat(other.capacity(), greaterThanOrEqualTo(60));
+        buffer.release();
+        other.release();
+    }
+
+    @Test
+    public void testFullMagazineSpills()
+    {
+        ArrayRetainableByteBufferPool delegate = new ArrayRetainableByteBufferPool(0, 10, 100, Integer.MAX_VALUE);
+        CachingRetainableByteBufferPool pool = new CachingRetainableByteBufferPool(delegate, 1, 2);
+
+        List<RetainableByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            buffers.add(pool.acquire(10, true));
+        }
+        buffers.forEach(RetainableByteBuffer::release);
+
+        assertThat(pool.getCachedByteBufferCount(), is(2L));
+        assertThat(pool.getSpills(), is(3L));
+        assertThat(delegate.getAvailableDirectByteBufferCount(), is(3L));
+
+        pool.clear();
+        assertThat(pool.getCachedByteBufferCount(), is(0L));
+        assertThat(delegate.getDirectByteBufferCount(), is(0L));
+    }
+}
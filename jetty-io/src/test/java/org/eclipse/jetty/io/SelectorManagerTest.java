@@ -15,11 +15,16 @@ package org.eclipse.jetty.io;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
 import java.net.SocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Pipe;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -31,6 +36,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SelectorManagerTest
@@ -152,4 +158,89 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testUnavailableSelectorProviderFallsBackToDefault()
+    {
+        SelectorManager selectorManager = new TestSelectorManager();
+
+        SelectorProvider available = new DelegatingSelectorProvider();
+        selectorManager.setSelectorProvider(available);
+        assertSame(available, selectorManager.getSelectorProvider());
+
+        SelectorProvider unavailable = new DelegatingSelectorProvider()
+        {
+            @Override
+            public AbstractSelector openSelector() throws IOException
+            {
+                throw new IOException("unavailable");
+            }
+        };
+        selectorManager.setSelectorProvider(unavailable);
+        assertSame(SelectorProvider.provider(), selectorManager.getSelectorProvider());
+
+        selectorManager.setSelectorProvider(null);
+        assertSame(SelectorProvider.provider(), selectorManager.getSelectorProvider());
+    }
+
+    private class TestSelectorManager extends SelectorManager
+    {
+        private TestSelectorManager()
+        {
+            super(executor, scheduler);
+        }
+
+        @Override
+        protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+        {
+            return new SocketChannelEndPoint((SocketChannel)channel, selector, key, getScheduler());
+        }
+
+        @Override
+        public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class DelegatingSelectorProvider extends SelectorProvider
+    {
+        private final SelectorProvider delegate = SelectorProvider.provider();
+
+        @Override
+        public DatagramChannel openDatagramChannel() throws IOException
+        {
+            return delegate.openDatagramChannel();
+        }
+
+        @Override
+        public DatagramChannel openDatagramChannel(ProtocolFamily family) throws IOException
+        {
+            return delegate.openDatagramChannel(family);
+        }
+
+        @Override
+        public Pipe openPipe() throws IOException
+        {
+            return delegate.openPipe();
+        }
+
+        @Override
+        public AbstractSelector openSelector() throws IOException
+        {
+            return delegate.openSelector();
+        }
+
+        @Override
+        public ServerSocketChannel openServerSocketChannel() throws IOException
+        {
+            return delegate.openServerSocketChannel();
+        }
+
+        @Override
+        public SocketChannel openSocketChannel() throws IOException
+        {
+            return delegate.openSocketChannel();
+        }
+    }
 }
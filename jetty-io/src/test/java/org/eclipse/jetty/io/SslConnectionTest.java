@@ -34,6 +34,7 @@ import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocket;
 
 import org.eclipse.jetty.io.ssl.SslConnection;
+import org.eclipse.jetty.io.ssl.SslSessionStatistics;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.FutureCallback;
@@ -65,6 +66,7 @@ public class SslConnectionTest
     protected volatile EndPoint _lastEndp;
     private volatile boolean _testFill = true;
     private volatile boolean _onXWriteThenShutdown = false;
+    private final SslSessionStatistics _sessionStatistics = new SslSessionStatistics(_sslCtxFactory);
 
     private volatile FutureCallback _writeCallback;
     protected ServerSocketChannel _connector;
@@ -89,6 +91,7 @@ public class SslConnectionTest
             SslConnection sslConnection = new SslConnection(__byteBufferPool, getExecutor(), endpoint, engine);
             sslConnection.setRenegotiationAllowed(_sslCtxFactory.isRenegotiationAllowed());
             sslConnection.setRenegotiationLimit(_sslCtxFactory.getRenegotiationLimit());
+            sslConnection.addHandshakeListener(_sessionStatistics);
             Connection appConnection = new TestConnection(sslConnection.getDecryptedEndPoint());
             sslConnection.getDecryptedEndPoint().setConnection(appConnection);
             return sslConnection;
@@ -561,4 +564,35 @@ public class SslConnectionTest
             }
         }
     }
+
+    @Test
+    public void testSessionResumption() throws Exception
+    {
+        startSSL();
+        _sessionStatistics.start();
+
+        // The second connection resumes the session of the first.
+        for (int i = 0; i < 2; i++)
+        {
+            try (SSLSocket client = newClient())
+            {
+                client.setSoTimeout(TIMEOUT);
+                try (SocketChannel server = _connector.accept())
+                {
+                    server.configureBlocking(false);
+                    _manager.accept(server);
+
+                    client.getOutputStream().write("Hello".getBytes(StandardCharsets.UTF_8));
+                    byte[] buffer = new byte[1024];
+                    int len = client.getInputStream().read(buffer);
+                    assertEquals("Hello", new String(buffer, 0, len, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        assertEquals(1, _sessionStatistics.getFullHandshakes());
+        assertEquals(1, _sessionStatistics.getResumedHandshakes());
+        assertEquals(0, _sessionStatistics.getFailedHandshakes());
+        _sessionStatistics.stop();
+    }
 }
@@ -18,7 +18,9 @@ import java.io.InterruptedIOException;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -467,6 +469,115 @@ public class WriteFlusherTest
         }
     }
 
+    @Test
+    public void testCoalescing() throws Exception
+    {
+        List<Integer> flushed = new ArrayList<>();
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint(new byte[0], 16)
+        {
+            @Override
+            public boolean flush(ByteBuffer... buffers) throws IOException
+            {
+                flushed.add(buffers.length);
+                return super.flush(buffers);
+            }
+        };
+        endPoint.setGrowOutput(true);
+
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+        WriteCoalescing coalescing = new WriteCoalescing(bufferPool);
+        coalescing.setThreshold(64);
+        coalescing.setUseDirectByteBuffers(false);
+        WriteFlusher flusher = new WriteFlusher(endPoint)
+        {
+            @Override
+            protected void onIncompleteFlush()
+            {
+            }
+        };
+        flusher.setWriteCoalescing(coalescing);
+
+        String large = "x".repeat(100);
+        FutureCallback callback = new FutureCallback();
+        flusher.write(callback,
+            BufferUtil.toBuffer("HTTP/1.1 200 OK\r\n\r\n"),
+            BufferUtil.toBuffer("64\r\n"),
+            BufferUtil.toBuffer(large),
+            BufferUtil.toBuffer("\r\n"),
+            BufferUtil.toBuffer("0\r\n\r\n"));
+        callback.get(1, TimeUnit.SECONDS);
+
+        assertEquals("HTTP/1.1 200 OK\r\n\r\n64\r\n" + large + "\r\n0\r\n\r\n", endPoint.getOutputString());
+        // The two runs of small buffers are flushed as two aggregates, around the large buffer.
+        assertEquals(List.of(3), flushed);
+        assertEquals(1, coalescing.getWrites());
+        assertEquals(1, coalescing.getFlushes());
+        assertEquals(4, coalescing.getCoalescedBuffers());
+        // The aggregates are released to the pool.
+        assertEquals(2, bufferPool.getHeapByteBufferCount());
+
+        // A single buffer is not coalesced.
+        flushed.clear();
+        callback = new FutureCallback();
+        flusher.write(callback, BufferUtil.toBuffer("small"));
+        callback.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of(1), flushed);
+        assertEquals(4, coalescing.getCoalescedBuffers());
+    }
+
+    @Test
+    public void testCoalescedBuffersReleasedOnFailure() throws Exception
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool();
+        WriteCoalescing coalescing = new WriteCoalescing(bufferPool);
+        coalescing.setThreshold(64);
+        coalescing.setUseDirectByteBuffers(false);
+
+        // A write that fails while pending.
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint(new byte[0], 4);
+        WriteFlusher flusher = new WriteFlusher(endPoint)
+        {
+            @Override
+            protected void onIncompleteFlush()
+            {
+            }
+        };
+        flusher.setWriteCoalescing(coalescing);
+
+        FutureCallback callback = new FutureCallback();
+        flusher.write(callback, BufferUtil.toBuffer("HTTP/1.1 200 OK\r\n"), BufferUtil.toBuffer("\r\n"));
+        assertFalse(callback.isDone());
+        assertEquals(0, bufferPool.getHeapByteBufferCount());
+
+        assertTrue(flusher.onFail(new IOException("pending")));
+        assertThrows(ExecutionException.class, () -> callback.get(1, TimeUnit.SECONDS));
+        assertEquals(1, bufferPool.getHeapByteBufferCount());
+
+        // A write whose flush throws.
+        endPoint = new ByteArrayEndPoint(new byte[0], 16)
+        {
+            @Override
+            public boolean flush(ByteBuffer... buffers) throws IOException
+            {
+                throw new IOException("flush");
+            }
+        };
+        flusher = new WriteFlusher(endPoint)
+        {
+            @Override
+            protected void onIncompleteFlush()
+            {
+            }
+        };
+        flusher.setWriteCoalescing(coalescing);
+
+        FutureCallback failed = new FutureCallback();
+        flusher.write(failed, BufferUtil.toBuffer("HTTP/1.1 200 OK\r\n"), BufferUtil.toBuffer("\r\n"));
+        assertThrows(ExecutionException.class, () -> failed.get(1, TimeUnit.SECONDS));
+        // The aggregate is released and reused from the pool.
+        assertEquals(1, bufferPool.getHeapByteBufferCount());
+    }
+
     private static class ConcurrentWriteFlusher extends WriteFlusher implements Runnable
     {
         private final ByteArrayEndPoint endPoint;
@@ -285,7 +285,7 @@ public class ConnectHandler extends HandlerWrapper
         SocketChannel channel = null;
         try
         {
-            channel = SocketChannel.open();
+            channel = selector.getSelectorProvider().openSocketChannel();
             channel.socket().setTcpNoDelay(true);
             channel.configureBlocking(false);
             InetSocketAddress address = newConnectAddress(host, port);
@@ -57,6 +57,16 @@ etc/jetty.xml
 ## Max per-connection header cache size (in nodes)
 # jetty.httpConfig.headerCacheSize=1024
 
+## Whether the header fields learned by connections seed the header cache of new connections
+# jetty.httpConfig.headerCacheShared=false
+
+## Whether the request parser scans for delimiters 8 bytes at a time
+# jetty.httpConfig.parserFastScan=false
+
+## Max number and bytes of responses to pipelined requests aggregated in a single write (0 to disable)
+# jetty.httpConfig.pipelineDepth=0
+# jetty.httpConfig.pipelineBufferSize=16384
+
 ## Whether, for requests with content, delay dispatch until some content has arrived
 # jetty.httpConfig.delayDispatchUntilContent=true
 
@@ -69,6 +79,12 @@ etc/jetty.xml
 ## Whether to use direct ByteBuffers for reading or writing
 # jetty.httpConfig.useInputDirectByteBuffers=true
 # jetty.httpConfig.useOutputDirectByteBuffers=true
+
+## Whether to write file content of HTTP/1.1 cleartext responses with FileChannel.transferTo()
+# jetty.httpConfig.useFileChannelTransfer=false
+
+## Whether to handle HTTP/1.1 requests in virtual threads
+# jetty.httpConfig.useVirtualThreads=false
 # end::documentation-http-config[]
 
 # tag::documentation-server-compliance[]
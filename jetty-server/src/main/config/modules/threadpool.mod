@@ -34,6 +34,10 @@ etc/jetty-threadpool.xml
 ## The max number of idle threads that are evicted in one idleTimeout period.
 #jetty.threadPool.maxEvictCount=1
 
+## Whether to use a lock-free job queue, which may reduce contention
+## when many threads, such as selector threads, submit jobs.
+#jetty.threadPool.lockFreeQueue=false
+
 ## Whether to output a detailed dump.
 #jetty.threadPool.detailedDump=false
 # end::documentation[]
@@ -28,10 +28,12 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.io.ArrayByteBufferPool;
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.LogarithmicArrayByteBufferPool;
@@ -160,6 +162,7 @@ public abstract class AbstractConnector extends ContainerLifeCycle implements Co
     private int _acceptorPriorityDelta = -2;
     private boolean _accepting = true;
     private ThreadPoolBudget.Lease _lease;
+    private volatile Scheduler.Task _trimTask;
 
     /**
      * @param server The server this connector will be added to. Must not be null.
@@ -373,9 +376,33 @@ public abstract class AbstractConnector extends ContainerLifeCycle implements Co
             getExecutor().execute(a);
         }
 
+        scheduleByteBufferPoolTrim();
+
         LOG.info("Started {}", this);
     }
 
+    private void scheduleByteBufferPoolTrim()
+    {
+        // Pools only check whether to trim when buffers are used, so
+        // trim them periodically to release the buffers of idle pools.
+        long idleTimeout = -1;
+        if (_byteBufferPool instanceof ArrayByteBufferPool)
+            idleTimeout = ((ArrayByteBufferPool)_byteBufferPool).getIdleTimeout();
+        else if (_byteBufferPool.asRetainableByteBufferPool() instanceof ArrayRetainableByteBufferPool)
+            idleTimeout = ((ArrayRetainableByteBufferPool)_byteBufferPool.asRetainableByteBufferPool()).getIdleTimeout();
+        if (idleTimeout > 0 && isRunning())
+            _trimTask = _scheduler.schedule(this::trimByteBufferPool, idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    private void trimByteBufferPool()
+    {
+        if (_byteBufferPool instanceof ArrayByteBufferPool)
+            ((ArrayByteBufferPool)_byteBufferPool).trimIfDue();
+        else if (_byteBufferPool.asRetainableByteBufferPool() instanceof ArrayRetainableByteBufferPool)
+            ((ArrayRetainableByteBufferPool)_byteBufferPool.asRetainableByteBufferPool()).trimIfDue();
+        scheduleByteBufferPoolTrim();
+    }
+
     protected void interruptAcceptors()
     {
         try (AutoLock lock = _lock.lock())
@@ -420,6 +447,11 @@ public abstract class AbstractConnector extends ContainerLifeCycle implements Co
         if (_lease != null)
             _lease.close();
 
+        Scheduler.Task trimTask = _trimTask;
+        if (trimTask != null)
+            trimTask.cancel();
+        _trimTask = null;
+
         // Tell the acceptors we are stopping
         interruptAcceptors();
         super.doStop();
@@ -18,8 +18,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -27,6 +31,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.DateGenerator;
@@ -39,11 +44,16 @@ import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.PrecompressedHttpContent;
 import org.eclipse.jetty.http.ResourceHttpContent;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.resource.Resource;
 import org.eclipse.jetty.util.resource.ResourceFactory;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@ManagedObject("Cache of static content")
 public class CachedContentFactory implements HttpContent.ContentFactory
 {
     private static final Logger LOG = LoggerFactory.getLogger(CachedContentFactory.class);
@@ -62,6 +72,34 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     private int _maxCachedFileSize = 128 * 1024 * 1024;
     private int _maxCachedFiles = 2048;
     private int _maxCacheSize = 256 * 1024 * 1024;
+    private volatile TinyLfu _tinyLfu;
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _hitBytes = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _missBytes = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final LongAdder _admissionRejections = new LongAdder();
+
+    /**
+     * <p>The policies used to evict content from the cache.</p>
+     */
+    public enum EvictionPolicy
+    {
+        /**
+         * <p>All content is admitted to the cache, and when the cache is full
+         * the least recently accessed content is evicted.</p>
+         */
+        LRU,
+        /**
+         * <p>W-TinyLFU: new content enters a small LRU window; content leaving
+         * the window is admitted to the main segmented LRU only if it has been
+         * accessed more frequently than the content it would evict, as estimated
+         * by a frequency sketch that ages over time.
+         * This keeps frequently accessed content cached when the cache is
+         * scanned, for example by crawlers.</p>
+         */
+        TINY_LFU
+    }
 
     /**
      * Constructor.
@@ -86,16 +124,19 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         _precompressedFormats = precompressedFormats;
     }
 
+    @ManagedAttribute("The size in bytes of the cached content buffers")
     public int getCachedSize()
     {
         return _cachedSize.get();
     }
 
+    @ManagedAttribute("The number of cached files")
     public int getCachedFiles()
     {
         return _cachedFiles.get();
     }
 
+    @ManagedAttribute("The max size in bytes of a cached file")
     public int getMaxCachedFileSize()
     {
         return _maxCachedFileSize;
@@ -107,6 +148,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         shrinkCache();
     }
 
+    @ManagedAttribute("The max size in bytes of the cache")
     public int getMaxCacheSize()
     {
         return _maxCacheSize;
@@ -121,6 +163,7 @@ public class CachedContentFactory implements HttpContent.ContentFactory
     /**
      * @return the max number of cached files.
      */
+    @ManagedAttribute("The max number of cached files")
     public int getMaxCachedFiles()
     {
         return _maxCachedFiles;
@@ -140,6 +183,85 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return _useFileMappedBuffer;
     }
 
+    /**
+     * @return the policy used to evict content from the cache
+     */
+    @ManagedAttribute("The policy used to evict content from the cache")
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return _tinyLfu == null ? EvictionPolicy.LRU : EvictionPolicy.TINY_LFU;
+    }
+
+    /**
+     * <p>Sets the policy used to evict content from the cache.</p>
+     * <p>Changing the policy flushes the cache.</p>
+     * <p>With {@link EvictionPolicy#TINY_LFU} the size of the cache is measured
+     * by the length of the cached files, also when file mapped buffers are used.</p>
+     *
+     * @param policy the policy used to evict content from the cache
+     */
+    public void setEvictionPolicy(EvictionPolicy policy)
+    {
+        if (policy == getEvictionPolicy())
+            return;
+        _tinyLfu = policy == EvictionPolicy.TINY_LFU ? new TinyLfu() : null;
+        flushCache();
+    }
+
+    @ManagedAttribute("The number of requests for content found in the cache")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of requests for content not found in the cache")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The ratio of requests for content found in the cache")
+    public double getHitRatio()
+    {
+        return ratio(getHits(), getMisses());
+    }
+
+    @ManagedAttribute("The ratio of requested bytes found in the cache")
+    public double getByteHitRatio()
+    {
+        return ratio(_hitBytes.longValue(), _missBytes.longValue());
+    }
+
+    @ManagedAttribute("The number of contents evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.longValue();
+    }
+
+    @ManagedAttribute("The number of contents not admitted to the cache by the eviction policy")
+    public long getAdmissionRejections()
+    {
+        return _admissionRejections.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _hitBytes.reset();
+        _misses.reset();
+        _missBytes.reset();
+        _evictions.reset();
+        _admissionRejections.reset();
+    }
+
+    private static double ratio(long hits, long misses)
+    {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
     public void flushCache()
     {
         while (_cache.size() > 0)
@@ -171,13 +293,24 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         // Is the content in this cache?
         CachedHttpContent content = _cache.get(pathInContext);
         if (content != null && (content).isValid())
+        {
+            _hits.increment();
+            _hitBytes.add(content.getContentLengthValue());
+            TinyLfu tinyLfu = _tinyLfu;
+            if (tinyLfu != null)
+                tinyLfu.onAccess(content);
             return content;
+        }
 
         // try loading the content from our factory.
         Resource resource = _factory.getResource(pathInContext);
         HttpContent loaded = load(pathInContext, resource, maxBufferSize);
         if (loaded != null)
+        {
+            _misses.increment();
+            _missBytes.add(Math.max(0, loaded.getContentLengthValue()));
             return loaded;
+        }
 
         // Is the content in the parent cache?
         if (_parent != null)
@@ -233,13 +366,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                         if (compressedResource.exists() && compressedResource.lastModified() >= resource.lastModified() &&
                             compressedResource.length() < resource.length())
                         {
-                            compressedContent = new CachedHttpContent(compressedPathInContext, compressedResource, null);
-                            CachedHttpContent added = _cache.putIfAbsent(compressedPathInContext, compressedContent);
-                            if (added != null)
-                            {
-                                compressedContent.invalidate();
-                                compressedContent = added;
-                            }
+                            // If rejected by the eviction policy, the precompressed content is not cached.
+                            compressedContent = cache(new CachedHttpContent(compressedPathInContext, compressedResource, null));
                         }
                     }
                     if (compressedContent != null)
@@ -250,15 +378,11 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             else
                 content = new CachedHttpContent(pathInContext, resource, null);
 
-            // Add it to the cache.
-            CachedHttpContent added = _cache.putIfAbsent(pathInContext, content);
-            if (added != null)
-            {
-                content.invalidate();
-                content = added;
-            }
-
-            return content;
+            // Add it to the cache, unless rejected by the eviction policy,
+            // in which case it is served as non cacheable content below.
+            CachedHttpContent cached = cache(content);
+            if (cached != null)
+                return cached;
         }
 
         // Look for non Cacheable precompressed resource or content
@@ -288,8 +412,55 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return new ResourceHttpContent(resource, mt, maxBufferSize);
     }
 
+    /**
+     * @param content the content to add to the cache
+     * @return the cached content, or null if the content has been rejected by the eviction policy
+     */
+    private CachedHttpContent cache(CachedHttpContent content)
+    {
+        CachedHttpContent added = _cache.putIfAbsent(content.getKey(), content);
+        if (added != null)
+        {
+            content.invalidate();
+            return added;
+        }
+
+        TinyLfu tinyLfu = _tinyLfu;
+        if (tinyLfu != null)
+        {
+            boolean rejected = false;
+            for (CachedHttpContent evicted : tinyLfu.onAdd(content))
+            {
+                if (evicted == _cache.remove(evicted.getKey()))
+                    evicted.invalidate();
+                if (evicted == content)
+                    rejected = true;
+            }
+            // The rejected content must not be used, as its buffers
+            // would be accounted in the cache size and never released.
+            if (rejected)
+                return null;
+        }
+        return content;
+    }
+
     private void shrinkCache()
     {
+        TinyLfu tinyLfu = _tinyLfu;
+        if (tinyLfu != null)
+        {
+            while (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize)
+            {
+                CachedHttpContent victim = tinyLfu.victim();
+                if (victim == null)
+                    break;
+                _evictions.increment();
+                if (victim == _cache.remove(victim.getKey()))
+                    victim.invalidate();
+            }
+            return;
+        }
+
         // While we need to shrink
         while (_cache.size() > 0 && (_cachedFiles.get() > _maxCachedFiles || _cachedSize.get() > _maxCacheSize))
         {
@@ -315,7 +486,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
                 if (_cachedFiles.get() <= _maxCachedFiles && _cachedSize.get() <= _maxCacheSize)
                     break;
                 if (content == _cache.remove(content.getKey()))
+                {
+                    _evictions.increment();
                     content.invalidate();
+                }
             }
         }
     }
@@ -371,6 +545,267 @@ public class CachedContentFactory implements HttpContent.ContentFactory
         return "ResourceCache[" + _parent + "," + _factory + "]@" + hashCode();
     }
 
+    /**
+     * <p>The W-TinyLFU eviction policy.</p>
+     * <p>New content enters a window LRU that holds about 1% of the cache size.
+     * Content evicted from the window is a candidate for the main segmented LRU,
+     * made of a probation segment and of a protected segment for content that
+     * has been accessed again while in probation.
+     * If the main segment is full, the candidate is admitted only if its estimated
+     * access frequency is greater than the frequency of each of the victims that
+     * must be evicted to make room for it, otherwise the candidate is evicted.</p>
+     * <p>The weight of a content is its length, so that large content
+     * needs to be more popular than the small content it displaces.</p>
+     */
+    private class TinyLfu
+    {
+        private final AutoLock _lock = new AutoLock();
+        private final FrequencySketch _sketch = new FrequencySketch();
+        private final LinkedHashSet<CachedHttpContent> _window = new LinkedHashSet<>();
+        private final LinkedHashSet<CachedHttpContent> _probation = new LinkedHashSet<>();
+        private final LinkedHashSet<CachedHttpContent> _protected = new LinkedHashSet<>();
+        private long _windowWeight;
+        private long _probationWeight;
+        private long _protectedWeight;
+
+        private void onAccess(CachedHttpContent content)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                _sketch.increment(content.getKey(), _maxCachedFiles);
+                if (_window.remove(content))
+                {
+                    _window.add(content);
+                }
+                else if (_probation.remove(content))
+                {
+                    long weight = content.getContentLengthValue();
+                    _probationWeight -= weight;
+                    _protected.add(content);
+                    _protectedWeight += weight;
+                    // Demote the least recently used protected content.
+                    long maxProtectedWeight = (_maxCacheSize - maxWindowWeight()) * 4 / 5;
+                    while (_protectedWeight > maxProtectedWeight && _protected.size() > 1)
+                    {
+                        CachedHttpContent demoted = removeFirst(_protected);
+                        _protectedWeight -= demoted.getContentLengthValue();
+                        _probation.add(demoted);
+                        _probationWeight += demoted.getContentLengthValue();
+                    }
+                }
+                else if (_protected.remove(content))
+                {
+                    _protected.add(content);
+                }
+            }
+        }
+
+        /**
+         * @param content the content added to the cache
+         * @return the contents to evict from the cache, possibly including the added content
+         */
+        private List<CachedHttpContent> onAdd(CachedHttpContent content)
+        {
+            List<CachedHttpContent> evicted = new ArrayList<>();
+            try (AutoLock l = _lock.lock())
+            {
+                _sketch.increment(content.getKey(), _maxCachedFiles);
+                _window.add(content);
+                _windowWeight += content.getContentLengthValue();
+
+                long maxWindowWeight = maxWindowWeight();
+                int maxWindowSize = Math.max(1, _maxCachedFiles / 100);
+                while (!_window.isEmpty() && (_windowWeight > maxWindowWeight || _window.size() > maxWindowSize))
+                {
+                    CachedHttpContent candidate = removeFirst(_window);
+                    _windowWeight -= candidate.getContentLengthValue();
+                    admit(candidate, evicted);
+                }
+            }
+            return evicted;
+        }
+
+        private void admit(CachedHttpContent candidate, List<CachedHttpContent> evicted)
+        {
+            long weight = candidate.getContentLengthValue();
+            if (weight > _maxCacheSize)
+            {
+                _admissionRejections.increment();
+                evicted.add(candidate);
+                return;
+            }
+
+            // Select the victims to make room for the candidate, in LRU order.
+            List<CachedHttpContent> victims = new ArrayList<>();
+            long excessWeight = _windowWeight + _probationWeight + _protectedWeight + weight - _maxCacheSize;
+            int excessSize = _window.size() + _probation.size() + _protected.size() + 1 - _maxCachedFiles;
+            int frequency = _sketch.frequency(candidate.getKey());
+            Iterator<CachedHttpContent> probationIterator = _probation.iterator();
+            Iterator<CachedHttpContent> protectedIterator = _protected.iterator();
+            while (excessWeight > 0 || excessSize > 0)
+            {
+                CachedHttpContent victim = probationIterator.hasNext() ? probationIterator.next()
+                    : protectedIterator.hasNext() ? protectedIterator.next() : null;
+                if (victim == null || _sketch.frequency(victim.getKey()) >= frequency)
+                {
+                    _admissionRejections.increment();
+                    evicted.add(candidate);
+                    return;
+                }
+                victims.add(victim);
+                excessWeight -= victim.getContentLengthValue();
+                --excessSize;
+            }
+
+            for (CachedHttpContent victim : victims)
+            {
+                _evictions.increment();
+                remove(victim);
+                evicted.add(victim);
+            }
+            _probation.add(candidate);
+            _probationWeight += weight;
+        }
+
+        private void onRemove(CachedHttpContent content)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                remove(content);
+            }
+        }
+
+        /**
+         * @return the content to evict when the cache is over its limits,
+         * or null if no content is left
+         */
+        private CachedHttpContent victim()
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                CachedHttpContent victim = null;
+                if (!_probation.isEmpty())
+                    victim = _probation.iterator().next();
+                else if (!_window.isEmpty())
+                    victim = _window.iterator().next();
+                else if (!_protected.isEmpty())
+                    victim = _protected.iterator().next();
+                if (victim != null)
+                    remove(victim);
+                return victim;
+            }
+        }
+
+        private void remove(CachedHttpContent content)
+        {
+            long weight = content.getContentLengthValue();
+            if (_window.remove(content))
+                _windowWeight -= weight;
+            else if (_probation.remove(content))
+                _probationWeight -= weight;
+            else if (_protected.remove(content))
+                _protectedWeight -= weight;
+        }
+
+        private long maxWindowWeight()
+        {
+            return Math.max(1, _maxCacheSize / 100);
+        }
+
+        private CachedHttpContent removeFirst(LinkedHashSet<CachedHttpContent> segment)
+        {
+            Iterator<CachedHttpContent> iterator = segment.iterator();
+            CachedHttpContent first = iterator.next();
+            iterator.remove();
+            return first;
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4-bit counters that estimates
+     * the access frequency of keys.</p>
+     * <p>The counters are halved when the number of increments
+     * reaches 10 times the number of counters per row, so that
+     * the frequencies of old accesses decay over time.</p>
+     */
+    private static class FrequencySketch
+    {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private long[] _table = new long[0];
+        private int _additions;
+        private int _sampleSize;
+
+        private int frequency(String key)
+        {
+            if (_table.length == 0)
+                return 0;
+            int hash = spread(key.hashCode());
+            int frequency = 15;
+            for (int row = 0; row < SEEDS.length; ++row)
+            {
+                int index = indexOf(hash, row);
+                int shift = (index & 15) << 2;
+                int count = (int)((_table[(index >>> 4) & (_table.length - 1)] >>> shift) & 15);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        private void increment(String key, int capacity)
+        {
+            ensureCapacity(capacity);
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int row = 0; row < SEEDS.length; ++row)
+            {
+                int index = indexOf(hash, row);
+                int slot = (index >>> 4) & (_table.length - 1);
+                int shift = (index & 15) << 2;
+                if (((_table[slot] >>> shift) & 15) < 15)
+                {
+                    _table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++_additions >= _sampleSize)
+                reset();
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            int length = Integer.highestOneBit(Math.max(16, Math.min(capacity, 1 << 24)) - 1) << 1;
+            if (_table.length >= length)
+                return;
+            _table = new long[length];
+            _sampleSize = 10 * length;
+            _additions = 0;
+        }
+
+        private void reset()
+        {
+            for (int i = 0; i < _table.length; ++i)
+            {
+                _table[i] = (_table[i] >>> 1) & RESET_MASK;
+            }
+            _additions /= 2;
+        }
+
+        private static int spread(int hash)
+        {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int indexOf(int hash, int row)
+        {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            h += h >>> 32;
+            return (int)h;
+        }
+    }
+
     /**
      * MetaData associated with a context Resource.
      */
@@ -410,7 +845,8 @@ public class CachedContentFactory implements HttpContent.ContentFactory
             _contentLengthValue = exists ? resource.length() : 0;
             _contentLength = new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Long.toString(_contentLengthValue));
 
-            if (_cachedFiles.incrementAndGet() > _maxCachedFiles)
+            // The TinyLfu policy limits the number of files when the content is added to the cache.
+            if (_cachedFiles.incrementAndGet() > _maxCachedFiles && _tinyLfu == null)
                 shrinkCache();
 
             _lastAccessed = System.currentTimeMillis();
@@ -484,6 +920,10 @@ public class CachedContentFactory implements HttpContent.ContentFactory
 
             _mappedBuffer.getAndSet(null);
 
+            TinyLfu tinyLfu = _tinyLfu;
+            if (tinyLfu != null)
+                tinyLfu.onRemove(this);
+
             _cachedFiles.decrementAndGet();
             _resource.close();
         }
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.EventListener;
 import java.util.List;
@@ -1057,6 +1058,40 @@ public abstract class HttpChannel implements Runnable, HttpOutput.Interceptor
         return committing;
     }
 
+    /**
+     * @return whether there are {@link Listener}s to notify of the events of this channel
+     */
+    boolean hasListeners()
+    {
+        return _combinedListener != NOOP_LISTENER;
+    }
+
+    /**
+     * <p>Writes file content of a committed response with
+     * {@link HttpConnection#transferFrom(FileChannel, long, long, Callback)},
+     * accounting for the bytes written like the other response writes.</p>
+     * <p>The file bytes are not seen by this channel, so {@link Listener}s are
+     * not notified of the response content: this method must only be used
+     * when there are no listeners.</p>
+     *
+     * @param file the file to read the content from
+     * @param position the file position of the first byte to write
+     * @param count the number of bytes to write
+     * @param callback the callback to notify when the content has been written
+     */
+    void transferFrom(FileChannel file, long position, long count, Callback callback)
+    {
+        ((HttpConnection)_transport).transferFrom(file, position, count, new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                _written += count;
+                super.succeeded();
+            }
+        });
+    }
+
     public boolean sendResponse(MetaData.Response info, ByteBuffer content, boolean complete) throws IOException
     {
         try (Blocker blocker = _response.getHttpOutput().acquireWriteBlockingCallback())
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.eclipse.jetty.http.BadMessageException;
 import org.eclipse.jetty.http.ComplianceViolation;
@@ -105,6 +106,16 @@ public class HttpChannelOverHttp extends HttpChannel implements HttpParser.Reque
         return false;
     }
 
+    @Override
+    protected void execute(Runnable task)
+    {
+        Executor executor = _httpConnection.getVirtualThreadsExecutor();
+        if (executor == null)
+            super.execute(task);
+        else
+            executor.execute(task);
+    }
+
     @Override
     public HttpInput.Content produceContent()
     {
@@ -58,6 +58,10 @@ public class HttpConfiguration implements Dumpable
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
     private boolean _headerCacheCaseSensitive = false;
+    private boolean _headerCacheShared = false;
+    private boolean _parserFastScan = false;
+    private int _pipelineDepth = 0;
+    private int _pipelineBufferSize = 16 * 1024;
     private int _securePort;
     private long _idleTimeout = -1;
     private String _secureScheme = HttpScheme.HTTPS.asString();
@@ -69,6 +73,8 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useFileChannelTransfer;
+    private boolean _useVirtualThreads;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -131,6 +137,10 @@ public class HttpConfiguration implements Dumpable
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
+        _headerCacheShared = config._headerCacheShared;
+        _parserFastScan = config._parserFastScan;
+        _pipelineDepth = config._pipelineDepth;
+        _pipelineBufferSize = config._pipelineBufferSize;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
         _idleTimeout = config._idleTimeout;
@@ -142,6 +152,8 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useFileChannelTransfer = config._useFileChannelTransfer;
+        _useVirtualThreads = config._useVirtualThreads;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -218,6 +230,30 @@ public class HttpConfiguration implements Dumpable
         return _headerCacheCaseSensitive;
     }
 
+    @ManagedAttribute("True if the header field caches of the connections are seeded from a per connector cache")
+    public boolean isHeaderCacheShared()
+    {
+        return _headerCacheShared;
+    }
+
+    @ManagedAttribute("True if the HTTP/1.1 parser scans for delimiters 8 bytes at a time")
+    public boolean isParserFastScan()
+    {
+        return _parserFastScan;
+    }
+
+    @ManagedAttribute("The max number of responses to pipelined requests that are aggregated in a single write, 0 if disabled")
+    public int getPipelineDepth()
+    {
+        return _pipelineDepth;
+    }
+
+    @ManagedAttribute("The max number of bytes of the responses to pipelined requests that are aggregated in a single write")
+    public int getPipelineBufferSize()
+    {
+        return _pipelineBufferSize;
+    }
+
     @ManagedAttribute("The port to which Integral or Confidential security constraints are redirected")
     public int getSecurePort()
     {
@@ -365,6 +401,52 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether file content is written to the network with
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so that the file bytes are not copied to user space.</p>
+     * <p>The file transfer is only used for HTTP/1.1 responses over cleartext
+     * connections, when the content length is known and no
+     * {@link HttpOutput.Interceptor} (for example the one installed by the
+     * {@code GzipHandler}) is in the chain; otherwise the file content is
+     * written using ByteBuffers as usual.</p>
+     *
+     * @param useFileChannelTransfer whether to use file channel transfers to write file content
+     */
+    public void setUseFileChannelTransfer(boolean useFileChannelTransfer)
+    {
+        _useFileChannelTransfer = useFileChannelTransfer;
+    }
+
+    @ManagedAttribute("Whether to use file channel transfers to write file content")
+    public boolean isUseFileChannelTransfer()
+    {
+        return _useFileChannelTransfer;
+    }
+
+    /**
+     * <p>Sets whether HTTP/1.1 requests are handled in virtual threads.</p>
+     * <p>When enabled, the selector threads only hand off the connections that
+     * have bytes to read to virtual threads, which parse and handle the requests,
+     * including asynchronous dispatches, without taking reserved threads.
+     * The virtual threads executor is the one configured on the thread pool,
+     * see {@link org.eclipse.jetty.util.VirtualThreads.Configurable}, or the
+     * default one of the runtime; if the runtime does not support virtual threads,
+     * the requests are handled by the thread pool as usual.</p>
+     *
+     * @param useVirtualThreads whether to handle the requests in virtual threads
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads)
+    {
+        _useVirtualThreads = useVirtualThreads;
+    }
+
+    @ManagedAttribute("Whether to handle HTTP/1.1 requests in virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _useVirtualThreads;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -445,6 +527,55 @@ public class HttpConfiguration implements Dumpable
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    /**
+     * @param headerCacheShared whether the header fields learned by the connections of a connector
+     * are shared, so that the header field cache of new connections is seeded with them
+     * @see org.eclipse.jetty.http.SharedFieldCache
+     */
+    public void setHeaderCacheShared(boolean headerCacheShared)
+    {
+        _headerCacheShared = headerCacheShared;
+    }
+
+    /**
+     * @param parserFastScan whether the HTTP/1.1 parser scans the request URI and the header
+     * names and values for delimiters 8 bytes at a time
+     * @see org.eclipse.jetty.http.HttpParser#setFastScan(boolean)
+     */
+    public void setParserFastScan(boolean parserFastScan)
+    {
+        _parserFastScan = parserFastScan;
+    }
+
+    /**
+     * <p>Sets the max number of responses to HTTP/1.1 pipelined requests that are
+     * aggregated in a single write.</p>
+     * <p>When a response is complete and the next request has already been received,
+     * the response is not written but copied in a per connection buffer and written,
+     * with a single gathering write, together with the responses of the following requests.
+     * The aggregated responses are written when no more requests have been received,
+     * or when either this depth or the {@link #setPipelineBufferSize(int) pipeline buffer size}
+     * is reached.</p>
+     * <p>Note that the aggregated responses are delayed until the response of a following
+     * request is written, so a pipelined request that is handled asynchronously also delays
+     * the responses of the requests that preceded it.</p>
+     *
+     * @param pipelineDepth the max number of aggregated responses, or 0 to write every response on its own
+     */
+    public void setPipelineDepth(int pipelineDepth)
+    {
+        _pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * @param pipelineBufferSize the max number of bytes of the aggregated responses to pipelined requests
+     * @see #setPipelineDepth(int)
+     */
+    public void setPipelineBufferSize(int pipelineBufferSize)
+    {
+        _pipelineBufferSize = pipelineBufferSize;
+    }
+
     /**
      * <p>Sets the TCP/IP port used for CONFIDENTIAL and INTEGRAL redirections.</p>
      *
@@ -15,7 +15,9 @@ package org.eclipse.jetty.server;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritePendingException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -36,10 +38,13 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.io.RetainableByteBuffer;
 import org.eclipse.jetty.io.RetainableByteBufferPool;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.io.WriteFlusher;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingCallback;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,8 +73,10 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
     private final boolean _recordHttpComplianceViolations;
     private final LongAdder bytesIn = new LongAdder();
     private final LongAdder bytesOut = new LongAdder();
+    private final HttpConnectionFactory _factory;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
+    private Executor _virtualThreadsExecutor;
 
     /**
      * Get the current connection that this thread is dispatched to.
@@ -103,6 +110,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _input = _channel.getRequest().getHttpInput();
         _parser = newHttpParser(config.getHttpCompliance());
         _recordHttpComplianceViolations = recordComplianceViolations;
+        _factory = connector.getConnectionFactory(HttpConnectionFactory.class);
         if (LOG.isDebugEnabled())
             LOG.debug("New HTTP Connection {}", this);
     }
@@ -137,6 +145,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
         parser.setHeaderCacheSize(getHttpConfiguration().getHeaderCacheSize());
         parser.setHeaderCacheCaseSensitive(getHttpConfiguration().isHeaderCacheCaseSensitive());
+        parser.setFastScan(getHttpConfiguration().isParserFastScan());
         return parser;
     }
 
@@ -165,6 +174,22 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         return _parser;
     }
 
+    /**
+     * @return the number of request fields found in the header field cache of this connection
+     */
+    public long getHeaderCacheHits()
+    {
+        return _parser.getHeaderCacheHits();
+    }
+
+    /**
+     * @return the number of request fields not found in the header field cache of this connection
+     */
+    public long getHeaderCacheMisses()
+    {
+        return _parser.getHeaderCacheMisses();
+    }
+
     public HttpGenerator getGenerator()
     {
         return _generator;
@@ -202,6 +227,35 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the executor of the virtual threads that parse and handle the requests,
+     * or null if the requests are parsed and handled by the thread that reads them
+     */
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualThreadsExecutor;
+    }
+
+    /**
+     * <p>Sets the executor of the virtual threads that parse and handle the requests.</p>
+     * <p>The thread that is notified that the connection is fillable only hands off the
+     * connection to a virtual thread, so it does not block, and the asynchronous dispatches
+     * of the requests are also executed in virtual threads.</p>
+     *
+     * @param virtualThreadsExecutor the executor of the virtual threads, or null
+     * @see HttpConfiguration#setUseVirtualThreads(boolean)
+     */
+    public void setVirtualThreadsExecutor(Executor virtualThreadsExecutor)
+    {
+        _virtualThreadsExecutor = virtualThreadsExecutor;
+    }
+
+    @Override
+    protected Invocable.InvocationType getFillableInvocationType()
+    {
+        return _virtualThreadsExecutor == null ? Invocable.InvocationType.BLOCKING : Invocable.InvocationType.NON_BLOCKING;
+    }
+
     @Override
     public ByteBuffer onUpgradeFrom()
     {
@@ -257,6 +311,28 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
 
     @Override
     public void onFillable()
+    {
+        if (_virtualThreadsExecutor == null)
+        {
+            fillAndHandle();
+            return;
+        }
+
+        try
+        {
+            _virtualThreadsExecutor.execute(this);
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (getConnector().isRunning())
+                LOG.warn("Failed dispatch of {}", this, e);
+            else
+                LOG.trace("IGNORED", e);
+            getEndPoint().close();
+        }
+    }
+
+    private void fillAndHandle()
     {
         if (LOG.isDebugEnabled())
             LOG.debug("{} onFillable enter {} {}", this, _channel.getState(), _retainableByteBuffer);
@@ -284,6 +360,11 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 // Handle channel event
                 if (handle)
                 {
+                    // The client may wait for the responses to its previous requests before
+                    // sending the content of this request, so write them before handling it.
+                    if (isRequestContentPending() && _sendCallback.flushPipelined(this::onPipelinedFlushed))
+                        break;
+
                     boolean suspended = !_channel.handle();
 
                     // We should break iteration if we have suspended or upgraded the connection.
@@ -292,12 +373,13 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 }
                 else if (filled == 0)
                 {
-                    fillInterested();
+                    if (!_sendCallback.flushPipelined(this::fillInterested))
+                        fillInterested();
                     break;
                 }
                 else if (filled < 0)
                 {
-                    if (_channel.getState().isIdle())
+                    if (_channel.getState().isIdle() && !_sendCallback.flushPipelined(getEndPoint()::shutdownOutput))
                         getEndPoint().shutdownOutput();
                     break;
                 }
@@ -305,20 +387,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         }
         catch (Throwable x)
         {
-            try
-            {
-                if (LOG.isDebugEnabled())
-                    LOG.debug("{} caught exception {}", this, _channel.getState(), x);
-                if (_retainableByteBuffer != null)
-                {
-                    _retainableByteBuffer.clear();
-                    releaseRequestBuffer();
-                }
-            }
-            finally
-            {
-                getEndPoint().close(x);
-            }
+            handleFailed(x);
         }
         finally
         {
@@ -328,6 +397,74 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         }
     }
 
+    private void handleFailed(Throwable x)
+    {
+        try
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("{} caught exception {}", this, _channel.getState(), x);
+            if (_retainableByteBuffer != null)
+            {
+                _retainableByteBuffer.clear();
+                releaseRequestBuffer();
+            }
+        }
+        finally
+        {
+            getEndPoint().close(x);
+        }
+    }
+
+    /**
+     * @return whether the content of the request being handled has not been entirely received
+     */
+    private boolean isRequestContentPending()
+    {
+        if (_parser.isChunking())
+            return true;
+        long pending = _parser.getContentLength() - _parser.getContentRead();
+        return pending > 0 && pending > (isRequestBufferEmpty() ? 0 : _retainableByteBuffer.remaining());
+    }
+
+    private void onPipelinedFlushed()
+    {
+        try
+        {
+            dispatch(this::handleAfterPipelinedFlush);
+        }
+        catch (RejectedExecutionException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Failed dispatch of {}", this, x);
+            getEndPoint().close(x);
+        }
+    }
+
+    /**
+     * <p>Handles the request parsed before the aggregated responses to the previous
+     * requests were written, then carries on filling and handling as usual.</p>
+     */
+    private void handleAfterPipelinedFlush()
+    {
+        HttpConnection last = setCurrentConnection(this);
+        try
+        {
+            boolean suspended = !_channel.handle();
+            if (suspended || getEndPoint().getConnection() != this)
+                return;
+        }
+        catch (Throwable x)
+        {
+            handleFailed(x);
+            return;
+        }
+        finally
+        {
+            setCurrentConnection(last);
+        }
+        fillAndHandle();
+    }
+
     /**
      * Parse and fill data, looking for content.
      * We do parse first, and only fill if we're out of bytes to avoid unnecessary system calls.
@@ -474,6 +611,10 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             _channel.abort(new IOException("unconsumed input"));
         }
 
+        // Count the requests received before the response to this request was complete
+        if (_factory != null && _generator.isPersistent() && _parser.isState(HttpParser.State.END) && !isRequestBufferEmpty())
+            _factory.onPipelinedRequest();
+
         // Reset the channel, parsers and generator
         _channel.recycle();
         if (!_parser.isClosed())
@@ -496,7 +637,8 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 if (isRequestBufferEmpty())
                 {
                     // look for more data
-                    fillInterested();
+                    if (!_sendCallback.flushPipelined(this::fillInterested))
+                        fillInterested();
                 }
                 // else if we are still running
                 else if (getConnector().isRunning())
@@ -504,7 +646,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                     // Dispatched to handle a pipelined request
                     try
                     {
-                        getExecutor().execute(this);
+                        dispatch();
                     }
                     catch (RejectedExecutionException e)
                     {
@@ -546,23 +688,40 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         if (isRequestBufferEmpty())
             fillInterested();
         else
-            getExecutor().execute(this);
+            dispatch();
     }
 
     @Override
     public void onClose(Throwable cause)
     {
-        if (cause == null)
-            _sendCallback.close();
-        else
+        if (cause != null)
             _sendCallback.failed(cause);
+        // Closing releases the aggregated pipelined responses, also when the callback is idle
+        _sendCallback.close();
         super.onClose(cause);
     }
 
     @Override
     public void run()
     {
-        onFillable();
+        // In virtual threads, this connection is already dispatched.
+        if (_virtualThreadsExecutor == null)
+            onFillable();
+        else
+            fillAndHandle();
+    }
+
+    private void dispatch()
+    {
+        dispatch(this);
+    }
+
+    private void dispatch(Runnable task)
+    {
+        Executor executor = _virtualThreadsExecutor;
+        if (executor == null)
+            executor = getExecutor();
+        executor.execute(task);
     }
 
     @Override
@@ -590,6 +749,44 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         }
     }
 
+    /**
+     * @return whether file content can be written with {@link #transferFrom(FileChannel, long, long, Callback)}
+     */
+    boolean isFileChannelTransferSupported()
+    {
+        EndPoint endPoint = getEndPoint();
+        return endPoint instanceof SocketChannelEndPoint && ((SocketChannelEndPoint)endPoint).isTransferFromSupported();
+    }
+
+    /**
+     * <p>Writes file content directly to the {@link SocketChannelEndPoint}.</p>
+     * <p>The response must have already been committed, and the file content
+     * is written as is, so the response must not be chunked.</p>
+     *
+     * @param file the file to read the content from
+     * @param position the file position of the first byte to write
+     * @param count the number of bytes to write
+     * @param callback the callback to notify when the content has been written
+     * @see SocketChannelEndPoint#transferFrom(Callback, FileChannel, long, long)
+     */
+    void transferFrom(FileChannel file, long position, long count, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("transferFrom {} {}/{} {}", file, position, count, this);
+        bytesOut.add(count);
+        HttpConnectionFactory factory = _connector == null ? null : _connector.getConnectionFactory(HttpConnectionFactory.class);
+        ((SocketChannelEndPoint)getEndPoint()).transferFrom(new Callback.Nested(callback)
+        {
+            @Override
+            public void succeeded()
+            {
+                if (factory != null)
+                    factory.onFileChannelTransfer(count);
+                super.succeeded();
+            }
+        }, file, position, count);
+    }
+
     HttpInput.Content newContent(ByteBuffer c)
     {
         return new Content(c);
@@ -672,19 +869,30 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         public void succeeded()
         {
             if (_channel.getRequest().getHttpInput().onContentProducible())
-                _channel.handle();
+                handle();
         }
 
         @Override
         public void failed(Throwable x)
         {
             if (_channel.failed(x))
+                handle();
+        }
+
+        private void handle()
+        {
+            Executor executor = _virtualThreadsExecutor;
+            if (executor == null)
                 _channel.handle();
+            else
+                executor.execute(_channel::handle);
         }
 
         @Override
         public InvocationType getInvocationType()
         {
+            if (_virtualThreadsExecutor != null)
+                return InvocationType.NON_BLOCKING;
             // This callback does not block when the HttpInput is in blocking mode,
             // rather it wakes up the thread that is blocked waiting on the read;
             // but it can if it is in async mode, hence the varying InvocationType.
@@ -702,6 +910,12 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         private ByteBuffer _header;
         private ByteBuffer _chunk;
         private boolean _shutdownOut;
+        private final AutoLock _pipelinedLock = new AutoLock();
+        private ByteBuffer _pipelined;
+        private int _pipelinedFlushes;
+        private int _pipelinedResponses;
+        private boolean _aggregated;
+        private boolean _flushPipelined;
 
         private SendCallback()
         {
@@ -725,6 +939,8 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 _callback = callback;
                 _header = null;
                 _shutdownOut = false;
+                if (info != null)
+                    _aggregated = false;
 
                 if (getConnector().isShutdown())
                     _generator.setPersistent(false);
@@ -739,12 +955,112 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             return false;
         }
 
+        /**
+         * <p>Writes the aggregated responses to pipelined requests, if any,
+         * typically before the connection waits for more requests.</p>
+         *
+         * @param then the task to run once the aggregated responses are written
+         * @return whether there were aggregated responses to write, in which
+         * case the task is run only once they are written
+         */
+        private boolean flushPipelined(Runnable then)
+        {
+            if (BufferUtil.isEmpty(_pipelined) || !reset())
+                return false;
+            _flushPipelined = true;
+            _callback = Callback.from(InvocationType.NON_BLOCKING, then, x -> getEndPoint().close(x));
+            iterate();
+            return true;
+        }
+
+        /**
+         * <p>Aggregates the bytes to flush, if they are the last bytes of a persistent response
+         * and the next request has already been received, so that they are written together
+         * with the response of the next request.</p>
+         *
+         * @param bytes the number of bytes to flush
+         * @return whether the bytes to flush have been aggregated
+         */
+        private boolean aggregate(long bytes)
+        {
+            int depth = _config.getPipelineDepth();
+            if (depth <= 0 || !_lastContent || _pipelinedResponses >= depth)
+                return false;
+            int bufferSize = _config.getPipelineBufferSize();
+            if (BufferUtil.length(_pipelined) + bytes > bufferSize)
+                return false;
+            if (_shutdownOut || !_generator.isPersistent() || !_parser.isState(HttpParser.State.END) || isRequestBufferEmpty())
+                return false;
+            if (_channel.getRequest().getAttribute(UPGRADE_CONNECTION_ATTRIBUTE) != null)
+                return false;
+
+            if (_pipelined == null)
+                _pipelined = _bufferPool.acquire(bufferSize, isUseOutputDirectByteBuffers());
+            int position = BufferUtil.flipToFill(_pipelined);
+            if (_header != null)
+                BufferUtil.put(_header, _pipelined);
+            if (_chunk != null)
+                BufferUtil.put(_chunk, _pipelined);
+            if (_content != null)
+                BufferUtil.put(_content, _pipelined);
+            BufferUtil.flipToFlush(_pipelined, position);
+            _pipelinedFlushes++;
+            if (!_aggregated)
+                _pipelinedResponses++;
+            _aggregated = true;
+            return true;
+        }
+
+        private void writePipelined(byte gatherWrite)
+        {
+            if (_factory != null)
+                _factory.onPipelineWritesSaved(_pipelinedFlushes);
+            _pipelinedFlushes = 0;
+            _pipelinedResponses = 0;
+            switch (gatherWrite)
+            {
+                case 7:
+                    getEndPoint().write(this, _pipelined, _header, _chunk, _content);
+                    break;
+                case 6:
+                    getEndPoint().write(this, _pipelined, _header, _chunk);
+                    break;
+                case 5:
+                    getEndPoint().write(this, _pipelined, _header, _content);
+                    break;
+                case 4:
+                    getEndPoint().write(this, _pipelined, _header);
+                    break;
+                case 3:
+                    getEndPoint().write(this, _pipelined, _chunk, _content);
+                    break;
+                case 2:
+                    getEndPoint().write(this, _pipelined, _chunk);
+                    break;
+                case 1:
+                    getEndPoint().write(this, _pipelined, _content);
+                    break;
+                default:
+                    getEndPoint().write(this, _pipelined);
+            }
+        }
+
         @Override
         public Action process() throws Exception
         {
             if (_callback == null)
                 throw new IllegalStateException();
 
+            if (_flushPipelined)
+            {
+                if (BufferUtil.isEmpty(_pipelined))
+                    return Action.SUCCEEDED;
+                // The aggregated responses are written on their own, so one write is not saved.
+                _pipelinedFlushes--;
+                writePipelined((byte)0);
+                return Action.SCHEDULED;
+            }
+
             boolean useDirectByteBuffers = isUseOutputDirectByteBuffers();
             while (true)
             {
@@ -814,6 +1130,18 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                             bytes += _content.remaining();
                         }
                         HttpConnection.this.bytesOut.add(bytes);
+
+                        if (aggregate(bytes))
+                        {
+                            succeeded();
+                            return Action.SCHEDULED;
+                        }
+                        if (BufferUtil.hasContent(_pipelined))
+                        {
+                            writePipelined(gatherWrite);
+                            return Action.SCHEDULED;
+                        }
+
                         switch (gatherWrite)
                         {
                             case 7:
@@ -876,11 +1204,29 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
             _callback = null;
             _info = null;
             _content = null;
+            _flushPipelined = false;
             releaseHeader();
             releaseChunk();
+            if (BufferUtil.isEmpty(_pipelined))
+                releasePipelined();
             return complete;
         }
 
+        private void releasePipelined()
+        {
+            // May race with onClosed() when the connection is closed while completing
+            ByteBuffer pipelined;
+            try (AutoLock ignored = _pipelinedLock.lock())
+            {
+                pipelined = _pipelined;
+                _pipelined = null;
+                _pipelinedFlushes = 0;
+                _pipelinedResponses = 0;
+            }
+            if (pipelined != null)
+                _bufferPool.release(pipelined);
+        }
+
         private void releaseHeader()
         {
             if (_header != null)
@@ -905,9 +1251,17 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
                 getEndPoint().shutdownOutput();
         }
 
+        @Override
+        protected void onClosed()
+        {
+            // Neither onCompleteSuccess() nor onCompleteFailure() will release the aggregated responses
+            releasePipelined();
+        }
+
         @Override
         public void onCompleteFailure(final Throwable x)
         {
+            releasePipelined();
             failedCallback(release(), x);
             if (_shutdownOut)
                 getEndPoint().shutdownOutput();
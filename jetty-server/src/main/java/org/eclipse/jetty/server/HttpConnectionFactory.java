@@ -14,11 +14,21 @@
 package org.eclipse.jetty.server;
 
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.SharedFieldCache;
 import org.eclipse.jetty.io.Connection;
 import org.eclipse.jetty.io.EndPoint;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.annotation.Name;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A Connection Factory for HTTP Connections.
@@ -26,12 +36,21 @@ import org.eclipse.jetty.util.annotation.Name;
  * {@link HttpConnection}s are configured by a {@link HttpConfiguration} instance that is either created by
  * default or passed in to the constructor.
  */
+@ManagedObject("HTTP/1.1 Connection Factory")
 public class HttpConnectionFactory extends AbstractConnectionFactory implements HttpConfiguration.ConnectionFactory
 {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpConnectionFactory.class);
+
     private final HttpConfiguration _config;
     private boolean _recordHttpComplianceViolations;
     private boolean _useInputDirectByteBuffers;
     private boolean _useOutputDirectByteBuffers;
+    private final LongAdder _fileChannelTransfers = new LongAdder();
+    private final LongAdder _fileChannelTransferBytes = new LongAdder();
+    private final LongAdder _pipelinedRequests = new LongAdder();
+    private final LongAdder _pipelineWritesSaved = new LongAdder();
+    private final SharedFieldCache _sharedFieldCache = new SharedFieldCache();
+    private final AtomicBoolean _virtualThreadsUnsupported = new AtomicBoolean();
 
     public HttpConnectionFactory()
     {
@@ -43,6 +62,7 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         super(HttpVersion.HTTP_1_1.asString());
         _config = Objects.requireNonNull(config);
         addBean(_config);
+        addBean(_sharedFieldCache);
         setUseInputDirectByteBuffers(_config.isUseInputDirectByteBuffers());
         setUseOutputDirectByteBuffers(_config.isUseOutputDirectByteBuffers());
     }
@@ -83,12 +103,84 @@ public class HttpConnectionFactory extends AbstractConnectionFactory implements
         _useOutputDirectByteBuffers = useOutputDirectByteBuffers;
     }
 
+    /**
+     * @return the cache of the header fields learned by the connections, that is used
+     * when {@link HttpConfiguration#isHeaderCacheShared()} is true
+     */
+    public SharedFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
+    @ManagedAttribute("The number of file contents written with file channel transfers")
+    public long getFileChannelTransfers()
+    {
+        return _fileChannelTransfers.longValue();
+    }
+
+    @ManagedAttribute("The number of bytes written with file channel transfers")
+    public long getFileChannelTransferBytes()
+    {
+        return _fileChannelTransferBytes.longValue();
+    }
+
+    @ManagedAttribute("The number of requests received before the response to the previous request was complete")
+    public long getPipelinedRequests()
+    {
+        return _pipelinedRequests.longValue();
+    }
+
+    @ManagedAttribute("The number of writes saved by aggregating the responses to pipelined requests")
+    public long getPipelineWritesSaved()
+    {
+        return _pipelineWritesSaved.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _fileChannelTransfers.reset();
+        _fileChannelTransferBytes.reset();
+        _pipelinedRequests.reset();
+        _pipelineWritesSaved.reset();
+    }
+
+    void onFileChannelTransfer(long bytes)
+    {
+        _fileChannelTransfers.increment();
+        _fileChannelTransferBytes.add(bytes);
+    }
+
+    private Executor getVirtualThreadsExecutor(Connector connector)
+    {
+        Executor executor = VirtualThreads.getVirtualThreadsExecutor(connector.getExecutor());
+        if (executor == null)
+            executor = VirtualThreads.getDefaultVirtualThreadsExecutor();
+        if (executor == null && _virtualThreadsUnsupported.compareAndSet(false, true))
+            LOG.warn("Virtual threads are not supported by the runtime, requests are handled by {}", connector.getExecutor());
+        return executor;
+    }
+
+    void onPipelinedRequest()
+    {
+        _pipelinedRequests.increment();
+    }
+
+    void onPipelineWritesSaved(int writes)
+    {
+        _pipelineWritesSaved.add(writes);
+    }
+
     @Override
     public Connection newConnection(Connector connector, EndPoint endPoint)
     {
         HttpConnection connection = new HttpConnection(_config, connector, endPoint, isRecordHttpComplianceViolations());
         connection.setUseInputDirectByteBuffers(isUseInputDirectByteBuffers());
         connection.setUseOutputDirectByteBuffers(isUseOutputDirectByteBuffers());
+        if (_config.isHeaderCacheShared())
+            connection.getParser().setSharedFieldCache(_sharedFieldCache);
+        if (_config.isUseVirtualThreads())
+            connection.setVirtualThreadsExecutor(getVirtualThreadsExecutor(connector));
         return configure(connection, connector, endPoint);
     }
 }
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
@@ -32,6 +33,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.util.BufferUtil;
@@ -1325,6 +1327,13 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
         if (rbc != null)
         {
+            if (rbc instanceof FileChannel && isFileChannelTransferPossible((FileChannel)rbc))
+            {
+                if (prepareSendContent(0, callback))
+                    new FileChannelTransferCB((FileChannel)rbc, _channel.getResponse().getLongContentLength(), callback).iterate();
+                return;
+            }
+
             // Close of the rbc is done by the async sendContent
             sendContent(rbc, callback);
             return;
@@ -1351,6 +1360,46 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         callback.failed(cause);
     }
 
+    /**
+     * <p>Returns whether the given file can be written with a file channel transfer,
+     * that writes the file bytes to the network as they are.</p>
+     * <p>This is only possible for HTTP/1.1 cleartext connections where no
+     * {@link Interceptor} nor {@link HttpChannel.Listener} needs to see the bytes,
+     * and where the response has a content length that matches the file.</p>
+     *
+     * @param file the file to write
+     * @return whether the file can be written with a file channel transfer
+     */
+    private boolean isFileChannelTransferPossible(FileChannel file)
+    {
+        if (!_channel.getHttpConfiguration().isUseFileChannelTransfer())
+            return false;
+        if (_interceptor != _channel)
+            return false;
+        // Listeners cannot be notified of the file bytes, that are not seen.
+        if (_channel.hasListeners())
+            return false;
+        HttpTransport transport = _channel.getHttpTransport();
+        if (!(transport instanceof HttpConnection) || !((HttpConnection)transport).isFileChannelTransferSupported())
+            return false;
+        if (_channel.getRequest().isHead())
+            return false;
+        Response response = _channel.getResponse();
+        if (response.getHttpFields().contains(HttpHeader.TRANSFER_ENCODING))
+            return false;
+        try
+        {
+            long length = response.getLongContentLength();
+            return length > 0 && length == file.size() - file.position();
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to access size of {}", file, x);
+            return false;
+        }
+    }
+
     public int getBufferSize()
     {
         return _bufferSize;
@@ -1868,6 +1917,63 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * <p>An iterating callback that commits the response, then writes the file
+     * content with {@link HttpChannel#transferFrom(FileChannel, long, long, Callback)}
+     * and finally completes the response.</p>
+     */
+    private class FileChannelTransferCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _file;
+        private final long _count;
+        private boolean _committed;
+        private boolean _transferred;
+        private boolean _completed;
+
+        private FileChannelTransferCB(FileChannel file, long count, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _count = count;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (!_committed)
+            {
+                _committed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            if (!_transferred)
+            {
+                _transferred = true;
+                _written += _count;
+                _channel.transferFrom(_file, _file.position(), _count, this);
+                return Action.SCHEDULED;
+            }
+
+            if (!_completed)
+            {
+                _completed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            IO.close(_file);
+            return Action.SUCCEEDED;
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
@@ -67,6 +67,13 @@ public class ResourceService
     private static final Logger LOG = LoggerFactory.getLogger(ResourceService.class);
 
     private static final PreEncodedHttpField ACCEPT_RANGES = new PreEncodedHttpField(HttpHeader.ACCEPT_RANGES, "bytes");
+    private static final PreEncodedHttpField VARY_ACCEPT_ENCODING = new PreEncodedHttpField(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING.asString());
+
+    /**
+     * The name of the request attribute set to a {@link CompressedContentProvider}
+     * by a handler that would compress the response, such as the GzipHandler.
+     */
+    public static final String COMPRESSED_CONTENT_PROVIDER = "org.eclipse.jetty.server.ResourceService.compressedContentProvider";
 
     private HttpContent.ContentFactory _contentFactory;
     private WelcomeFactory _welcomeFactory;
@@ -231,6 +238,7 @@ public class ResourceService
 
         boolean endsWithSlash = (pathInfo == null ? (_pathInfoOnly ? "" : servletPath) : pathInfo).endsWith(URIUtil.SLASH);
         boolean checkPrecompressedVariants = _precompressedFormats.length > 0 && !endsWithSlash && !included && reqRanges == null;
+        boolean checkCompressedContentCache = !endsWithSlash && !included && reqRanges == null;
 
         HttpContent content = null;
         boolean releaseContent = true;
@@ -291,6 +299,23 @@ public class ResourceService
                 }
             }
 
+            // Compressed variant cached by a compressing handler?
+            Object provider = checkCompressedContentCache ? request.getAttribute(COMPRESSED_CONTENT_PROVIDER) : null;
+            Request baseRequest = Request.getBaseRequest(request);
+            if (provider instanceof CompressedContentProvider && baseRequest != null && content.getContentEncoding() == null && !isGzippedContent(pathInContext))
+            {
+                HttpContent compressedContent = ((CompressedContentProvider)provider).getCompressedContent(baseRequest, content);
+                if (compressedContent != null)
+                {
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("compressed={}", compressedContent);
+                    content = compressedContent;
+                    // Tell caches that response may vary by accept-encoding
+                    baseRequest.getResponse().getHttpFields().ensureField(VARY_ACCEPT_ENCODING);
+                    response.setHeader(HttpHeader.CONTENT_ENCODING.asString(), compressedContent.getContentEncodingValue());
+                }
+            }
+
             // TODO this should be done by HttpContent#getContentEncoding
             if (isGzippedContent(pathInContext))
                 response.setHeader(HttpHeader.CONTENT_ENCODING.asString(), "gzip");
@@ -900,6 +925,23 @@ public class ResourceService
         }
     }
 
+    /**
+     * <p>A provider of compressed variants of static content, typically backed by a cache,
+     * so that static content is not compressed again for every request.</p>
+     *
+     * @see #COMPRESSED_CONTENT_PROVIDER
+     */
+    public interface CompressedContentProvider
+    {
+        /**
+         * @param request the request for the content
+         * @param content the static content to compress
+         * @return the compressed variant of the content, with its content encoding,
+         * or null if the content should not be compressed for the request
+         */
+        HttpContent getCompressedContent(Request request, HttpContent content);
+    }
+
     public interface WelcomeFactory
     {
 
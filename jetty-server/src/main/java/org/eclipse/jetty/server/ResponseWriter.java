@@ -23,6 +23,7 @@ import javax.servlet.ServletResponse;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.io.RuntimeIOException;
 import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.AutoLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,6 +41,11 @@ public class ResponseWriter extends PrintWriter
 {
     private static final Logger LOG = LoggerFactory.getLogger(ResponseWriter.class);
 
+    // A ReentrantLock, rather than the monitor of PrintWriter.lock, so that a
+    // virtual thread blocked in a write does not pin its carrier thread.
+    // All the public methods of PrintWriter are overridden, so that they
+    // all use this lock and never the monitor of PrintWriter.lock.
+    private final AutoLock _lock = new AutoLock();
     private final HttpWriter _httpWriter;
     private final Locale _locale;
     private final String _encoding;
@@ -66,7 +72,7 @@ public class ResponseWriter extends PrintWriter
 
     protected void reopen()
     {
-        synchronized (lock)
+        try (AutoLock l = _lock.lock())
         {
             _isClosed = false;
             clearError();
@@ -77,7 +83,7 @@ public class ResponseWriter extends PrintWriter
     @Override
     protected void clearError()
     {
-        synchronized (lock)
+        try (AutoLock l = _lock.lock())
         {
             _ioException = null;
             super.clearError();
@@ -87,7 +93,7 @@ public class ResponseWriter extends PrintWriter
     @Override
     public boolean checkError()
     {
-        synchronized (lock)
+        try (AutoLock l = _lock.lock())
         {
             return _ioException != null || super.checkError();
         }
@@ -135,7 +141,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.flush();
@@ -152,7 +158,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 out.close();
                 _isClosed = true;
@@ -166,7 +172,7 @@ public class ResponseWriter extends PrintWriter
 
     public void complete(Callback callback)
     {
-        synchronized (lock)
+        try (AutoLock l = _lock.lock())
         {
             _isClosed = true;
         }
@@ -178,7 +184,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(c);
@@ -201,7 +207,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(buf, off, len);
@@ -230,7 +236,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(s, off, len);
@@ -315,7 +321,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(System.lineSeparator());
@@ -344,7 +350,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(c);
@@ -392,7 +398,7 @@ public class ResponseWriter extends PrintWriter
     {
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(s, 0, s.length);
@@ -419,7 +425,7 @@ public class ResponseWriter extends PrintWriter
 
         try
         {
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
                 out.write(s, 0, s.length());
@@ -473,7 +479,7 @@ public class ResponseWriter extends PrintWriter
             if (locale == null)
                 locale = _locale;
 
-            synchronized (lock)
+            try (AutoLock l = _lock.lock())
             {
                 isOpen();
 
@@ -501,4 +507,27 @@ public class ResponseWriter extends PrintWriter
         }
         return this;
     }
+
+    @Override
+    public PrintWriter append(CharSequence csq)
+    {
+        this.write(String.valueOf(csq));
+        return this;
+    }
+
+    @Override
+    public PrintWriter append(CharSequence csq, int start, int end)
+    {
+        if (csq == null)
+            csq = "null";
+        this.write(csq.subSequence(start, end).toString());
+        return this;
+    }
+
+    @Override
+    public PrintWriter append(char c)
+    {
+        this.write(c);
+        return this;
+    }
 }
@@ -35,6 +35,7 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.io.WriteCoalescing;
 import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -82,6 +83,7 @@ public class ServerConnector extends AbstractNetworkConnector
     private volatile boolean _acceptedTcpNoDelay = true;
     private volatile int _acceptedReceiveBufferSize = -1;
     private volatile int _acceptedSendBufferSize = -1;
+    private volatile WriteCoalescing _writeCoalescing;
 
     /**
      * <p>Construct a ServerConnector with a private instance of {@link HttpConnectionFactory} as the only factory.</p>
@@ -331,7 +333,7 @@ public class ServerConnector extends AbstractNetworkConnector
         if (serverChannel == null)
         {
             InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
-            serverChannel = ServerSocketChannel.open();
+            serverChannel = _manager.getSelectorProvider().openServerSocketChannel();
             setSocketOption(serverChannel, StandardSocketOptions.SO_REUSEADDR, getReuseAddress());
             setSocketOption(serverChannel, StandardSocketOptions.SO_REUSEPORT, isReusePort());
             try
@@ -445,6 +447,9 @@ public class ServerConnector extends AbstractNetworkConnector
     {
         SocketChannelEndPoint endpoint = new SocketChannelEndPoint(channel, selectSet, key, getScheduler());
         endpoint.setIdleTimeout(getIdleTimeout());
+        WriteCoalescing writeCoalescing = getWriteCoalescing();
+        if (writeCoalescing != null)
+            endpoint.getWriteFlusher().setWriteCoalescing(writeCoalescing);
         return endpoint;
     }
 
@@ -562,6 +567,27 @@ public class ServerConnector extends AbstractNetworkConnector
         this._acceptedSendBufferSize = sendBufferSize;
     }
 
+    /**
+     * @return the coalescing of the small buffers written to the accepted sockets, or null if they are not coalesced
+     */
+    @ManagedAttribute("The coalescing of the small buffers written to the accepted sockets")
+    public WriteCoalescing getWriteCoalescing()
+    {
+        return _writeCoalescing;
+    }
+
+    /**
+     * <p>Sets the coalescing of the small buffers written to the accepted sockets,
+     * which applies to the sockets accepted after this call.</p>
+     *
+     * @param writeCoalescing the coalescing of the small buffers, or null to not coalesce them
+     */
+    public void setWriteCoalescing(WriteCoalescing writeCoalescing)
+    {
+        updateBean(_writeCoalescing, writeCoalescing);
+        _writeCoalescing = writeCoalescing;
+    }
+
     @Override
     public void setAccepting(boolean accepting)
     {
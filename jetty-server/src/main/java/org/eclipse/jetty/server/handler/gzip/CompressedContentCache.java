@@ -0,0 +1,483 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler.gzip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PrecompressedHttpContent;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.compression.DeflaterPool;
+import org.eclipse.jetty.util.resource.Resource;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A cache of the gzip compressed variants of static content.</p>
+ * <p>When set on a {@link GzipHandler}, requests for static content served by the
+ * {@link org.eclipse.jetty.server.ResourceService} (for example by the
+ * {@code DefaultServlet} or the {@code ResourceHandler}) that would be compressed
+ * by the {@link GzipHandler} are instead served with the compressed bytes stored
+ * in this cache, as if the content had a precompressed variant, so that the
+ * same content is not compressed again for every request.</p>
+ * <p>Compressed variants are keyed by the resource and its ETag, so that a
+ * modified resource is compressed again.
+ * The compressed bytes are stored in heap or direct ByteBuffers, and the least
+ * recently used variants are evicted when the cache exceeds its maximum size.</p>
+ */
+@ManagedObject("Cache of compressed content")
+public class CompressedContentCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(CompressedContentCache.class);
+    private static final byte[] GZIP_HEADER = new byte[]{(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final AutoLock _lock = new AutoLock();
+    private final Map<String, Variant> _cache = new LinkedHashMap<>(16, 0.75F, true);
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private long _cachedSize;
+    private int _maxCacheSize = 32 * 1024 * 1024;
+    private int _maxCachedFileSize = 2 * 1024 * 1024;
+    private int _maxCachedFiles = 1024;
+    private boolean _useDirectByteBuffers;
+
+    @ManagedAttribute("The max size in bytes of the compressed content in the cache")
+    public int getMaxCacheSize()
+    {
+        return _maxCacheSize;
+    }
+
+    public void setMaxCacheSize(int maxCacheSize)
+    {
+        _maxCacheSize = maxCacheSize;
+        shrink();
+    }
+
+    @ManagedAttribute("The max size in bytes of an uncompressed content to cache")
+    public int getMaxCachedFileSize()
+    {
+        return _maxCachedFileSize;
+    }
+
+    public void setMaxCachedFileSize(int maxCachedFileSize)
+    {
+        _maxCachedFileSize = maxCachedFileSize;
+    }
+
+    @ManagedAttribute("The max number of cached compressed contents")
+    public int getMaxCachedFiles()
+    {
+        return _maxCachedFiles;
+    }
+
+    public void setMaxCachedFiles(int maxCachedFiles)
+    {
+        _maxCachedFiles = maxCachedFiles;
+        shrink();
+    }
+
+    @ManagedAttribute("Whether the compressed content is stored in direct ByteBuffers")
+    public boolean isUseDirectByteBuffers()
+    {
+        return _useDirectByteBuffers;
+    }
+
+    public void setUseDirectByteBuffers(boolean useDirectByteBuffers)
+    {
+        _useDirectByteBuffers = useDirectByteBuffers;
+    }
+
+    @ManagedAttribute("The size in bytes of the compressed content in the cache")
+    public long getCachedSize()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cachedSize;
+        }
+    }
+
+    @ManagedAttribute("The number of cached compressed contents")
+    public int getCachedFiles()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _cache.size();
+        }
+    }
+
+    @ManagedAttribute("The number of requests served with a cached compressed content")
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    @ManagedAttribute("The number of requests for which the content was compressed")
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedAttribute("The number of compressed contents evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _evictions.reset();
+    }
+
+    @ManagedOperation(value = "Flushes the cache", impact = "ACTION")
+    public void flushCache()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _cache.clear();
+            _cachedSize = 0;
+        }
+    }
+
+    /**
+     * <p>Returns the gzip compressed variant of the given content, compressing
+     * and caching it if necessary.</p>
+     *
+     * @param request the request for the content
+     * @param content the uncompressed content
+     * @param factory the factory used to check whether the request accepts compressed content
+     * and to obtain a {@link Deflater} to compress the content
+     * @return the compressed variant of the content, or null if the content
+     * cannot or should not be compressed
+     */
+    public HttpContent getGzipContent(Request request, HttpContent content, GzipFactory factory)
+    {
+        long length = content.getContentLengthValue();
+        if (length <= 0 || length > _maxCachedFileSize || content.getContentEncoding() != null)
+            return null;
+        if (!isGzipAccepted(request))
+            return null;
+        String mimeType = content.getContentTypeValue();
+        if (mimeType != null && !factory.isMimeTypeGzipable(MimeTypes.getContentTypeWithoutCharset(mimeType)))
+            return null;
+
+        Resource resource = content.getResource();
+        String key = resource.toString();
+        HttpField etag = content.getETag();
+        String validator = etag == null ? resource.getWeakETag() : etag.getValue();
+
+        Variant variant;
+        try (AutoLock l = _lock.lock())
+        {
+            variant = _cache.get(key);
+        }
+        if (variant != null && variant._validator.equals(validator))
+        {
+            _hits.increment();
+            return variant.newHttpContent(content);
+        }
+
+        DeflaterPool.Entry entry = factory.getDeflaterEntry(request, length);
+        if (entry == null)
+            return null;
+        _misses.increment();
+        try
+        {
+            variant = new Variant(validator, compress(content, entry.get()));
+        }
+        catch (IOException x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Unable to compress {}", content, x);
+            return null;
+        }
+        finally
+        {
+            entry.release();
+        }
+
+        // Also remember the content that does not compress well, so it is not compressed again.
+        if (variant._buffer != null && variant._buffer.remaining() >= length)
+            variant = new Variant(validator, null);
+
+        try (AutoLock l = _lock.lock())
+        {
+            Variant old = _cache.put(key, variant);
+            if (old != null)
+                _cachedSize -= old.size();
+            _cachedSize += variant.size();
+        }
+        shrink();
+        return variant.newHttpContent(content);
+    }
+
+    private static boolean isGzipAccepted(Request request)
+    {
+        // The quality values are negotiated, so that gzip;q=0 is not accepted.
+        for (String encoding : request.getHttpFields().getQualityCSV(HttpHeader.ACCEPT_ENCODING))
+        {
+            if (CompressedContentFormat.GZIP.getEncoding().equalsIgnoreCase(encoding))
+                return true;
+        }
+        return false;
+    }
+
+    private ByteBuffer compress(HttpContent content, Deflater deflater) throws IOException
+    {
+        CRC32 crc = new CRC32();
+        byte[] input = new byte[8192];
+        byte[] output = new byte[8192];
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int)Math.min(content.getContentLengthValue() / 2 + 64, Integer.MAX_VALUE));
+        out.write(GZIP_HEADER);
+        try (InputStream in = content.getInputStream())
+        {
+            int read;
+            while ((read = in.read(input)) >= 0)
+            {
+                crc.update(input, 0, read);
+                deflater.setInput(input, 0, read);
+                while (!deflater.needsInput())
+                {
+                    out.write(output, 0, deflater.deflate(output));
+                }
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished())
+        {
+            out.write(output, 0, deflater.deflate(output));
+        }
+        int value = (int)crc.getValue();
+        int total = (int)deflater.getBytesRead();
+        out.write(new byte[]{(byte)value, (byte)(value >>> 8), (byte)(value >>> 16), (byte)(value >>> 24),
+            (byte)total, (byte)(total >>> 8), (byte)(total >>> 16), (byte)(total >>> 24)});
+
+        byte[] bytes = out.toByteArray();
+        if (!_useDirectByteBuffers)
+            return ByteBuffer.wrap(bytes);
+        ByteBuffer buffer = BufferUtil.allocateDirect(bytes.length);
+        BufferUtil.append(buffer, bytes, 0, bytes.length);
+        return buffer;
+    }
+
+    private void shrink()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Iterator<Variant> iterator = _cache.values().iterator();
+            while (iterator.hasNext() && (_cachedSize > _maxCacheSize || _cache.size() > _maxCachedFiles))
+            {
+                Variant eldest = iterator.next();
+                iterator.remove();
+                _cachedSize -= eldest.size();
+                _evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{files=%d,size=%d,hits=%d,misses=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getCachedFiles(),
+            getCachedSize(),
+            getHits(),
+            getMisses());
+    }
+
+    private static class Variant
+    {
+        private final String _validator;
+        private final ByteBuffer _buffer;
+        private final HttpField _contentLength;
+
+        private Variant(String validator, ByteBuffer buffer)
+        {
+            _validator = validator;
+            _buffer = buffer;
+            _contentLength = buffer == null ? null : new PreEncodedHttpField(HttpHeader.CONTENT_LENGTH, Long.toString(buffer.remaining()));
+        }
+
+        private long size()
+        {
+            return _buffer == null ? 0 : _buffer.remaining();
+        }
+
+        private HttpContent newHttpContent(HttpContent content)
+        {
+            if (_buffer == null)
+                return null;
+            return new PrecompressedHttpContent(content, new CompressedHttpContent(content, this), CompressedContentFormat.GZIP);
+        }
+    }
+
+    /**
+     * <p>The compressed bytes of a content, used as the precompressed
+     * content of a {@link PrecompressedHttpContent}.</p>
+     */
+    private static class CompressedHttpContent implements HttpContent
+    {
+        private final HttpContent _content;
+        private final Variant _variant;
+
+        private CompressedHttpContent(HttpContent content, Variant variant)
+        {
+            _content = content;
+            _variant = variant;
+        }
+
+        @Override
+        public HttpField getContentType()
+        {
+            return _content.getContentType();
+        }
+
+        @Override
+        public String getContentTypeValue()
+        {
+            return _content.getContentTypeValue();
+        }
+
+        @Override
+        public String getCharacterEncoding()
+        {
+            return _content.getCharacterEncoding();
+        }
+
+        @Override
+        public MimeTypes.Type getMimeType()
+        {
+            return _content.getMimeType();
+        }
+
+        @Override
+        public HttpField getContentEncoding()
+        {
+            return CompressedContentFormat.GZIP.getContentEncoding();
+        }
+
+        @Override
+        public String getContentEncodingValue()
+        {
+            return CompressedContentFormat.GZIP.getEncoding();
+        }
+
+        @Override
+        public HttpField getContentLength()
+        {
+            return _variant._contentLength;
+        }
+
+        @Override
+        public long getContentLengthValue()
+        {
+            return _variant._buffer.remaining();
+        }
+
+        @Override
+        public HttpField getLastModified()
+        {
+            return _content.getLastModified();
+        }
+
+        @Override
+        public String getLastModifiedValue()
+        {
+            return _content.getLastModifiedValue();
+        }
+
+        @Override
+        public HttpField getETag()
+        {
+            return null;
+        }
+
+        @Override
+        public String getETagValue()
+        {
+            return null;
+        }
+
+        @Override
+        public ByteBuffer getIndirectBuffer()
+        {
+            return _variant._buffer.isDirect() ? null : _variant._buffer.asReadOnlyBuffer();
+        }
+
+        @Override
+        public ByteBuffer getDirectBuffer()
+        {
+            return _variant._buffer.isDirect() ? _variant._buffer.asReadOnlyBuffer() : null;
+        }
+
+        @Override
+        public Resource getResource()
+        {
+            return _content.getResource();
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            ByteBuffer buffer = _variant._buffer;
+            if (buffer.hasArray())
+                return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return new ByteArrayInputStream(BufferUtil.toArray(buffer));
+        }
+
+        @Override
+        public ReadableByteChannel getReadableByteChannel()
+        {
+            return Channels.newChannel(getInputStream());
+        }
+
+        @Override
+        public void release()
+        {
+        }
+
+        @Override
+        public Map<CompressedContentFormat, ? extends HttpContent> getPrecompressedContents()
+        {
+            return null;
+        }
+    }
+}
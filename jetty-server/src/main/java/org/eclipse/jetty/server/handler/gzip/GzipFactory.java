@@ -14,11 +14,18 @@
 package org.eclipse.jetty.server.handler.gzip;
 
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.compression.Compression;
+import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 
 public interface GzipFactory
 {
     DeflaterPool.Entry getDeflaterEntry(Request request, long contentLength);
 
+    default CompressionPool<Compression.Encoder>.Entry getEncoderEntry(Compression compression, Request request, long contentLength)
+    {
+        return null;
+    }
+
     boolean isMimeTypeGzipable(String mimetype);
 }
@@ -14,9 +14,12 @@
 package org.eclipse.jetty.server.handler.gzip;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.ToIntFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,6 +31,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -35,13 +39,16 @@ import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.MimeTypes;
 import org.eclipse.jetty.http.PreEncodedHttpField;
 import org.eclipse.jetty.http.pathmap.PathSpecSet;
+import org.eclipse.jetty.server.HttpChannel;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.ResourceService;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.util.AsciiLowerCaseSet;
 import org.eclipse.jetty.util.IncludeExclude;
 import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.compression.Compression;
 import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.eclipse.jetty.util.compression.InflaterPool;
@@ -122,6 +129,13 @@ import org.slf4j.LoggerFactory;
  * Note that the suffix used is determined by {@link CompressedContentFormat#ETAG_SEPARATOR}
  * </p>
  * <p>
+ * Other content codings, such as {@code zstd} or {@code br}, can be provided by {@link Compression}
+ * implementations, either added with {@link #addCompression(Compression)} or discovered with the
+ * {@link java.util.ServiceLoader} when the handler is started.
+ * The coding of a response is negotiated with the quality values of the {@code Accept-Encoding} header;
+ * codings with equal quality are preferred in the order the compressions are added, and before {@code gzip}.
+ * </p>
+ * <p>
  * This implementation relies on an Jetty internal {@link org.eclipse.jetty.server.HttpOutput.Interceptor}
  * mechanism to allow for effective and efficient compression of the response on all Output API usages:
  * </p>
@@ -161,6 +175,14 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
     private InflaterPool _inflaterPool;
     private DeflaterPool _deflaterPool;
+    private CompressedContentCache _compressedContentCache;
+    private final ResourceService.CompressedContentProvider _compressedContentProvider = this::getCompressedContent;
+    private final List<Compression> _compressions = new ArrayList<>();
+    private final List<Compression> _discoveredCompressions = new ArrayList<>();
+    private boolean _discoverCompressions = true;
+    private Compression[] _activeCompressions = new Compression[0];
+    private CompressedContentFormat[] _compressedFormats = new CompressedContentFormat[0];
+    private ToIntFunction<String> _encodingOrdering;
     private int _minGzipSize = DEFAULT_MIN_GZIP_SIZE;
     private boolean _syncFlush = false;
     private int _inflateBufferSize = -1;
@@ -218,6 +240,37 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             addBean(_deflaterPool);
         }
 
+        if (_compressions.isEmpty() && _discoverCompressions)
+        {
+            for (Compression compression : Compression.discover())
+            {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} discovered {}", this, compression);
+                _discoveredCompressions.add(compression);
+                addBean(compression, true);
+            }
+        }
+        List<Compression> compressions = _compressions.isEmpty() ? _discoveredCompressions : _compressions;
+        _activeCompressions = compressions.toArray(new Compression[0]);
+        _compressedFormats = new CompressedContentFormat[_activeCompressions.length];
+        String[] preferredOrder = new String[_activeCompressions.length + 1];
+        for (int i = 0; i < _activeCompressions.length; ++i)
+        {
+            String encoding = _activeCompressions[i].getEncoding();
+            _compressedFormats[i] = new CompressedContentFormat(encoding, "." + encoding);
+            preferredOrder[i] = encoding;
+        }
+        preferredOrder[_activeCompressions.length] = GZIP;
+        _encodingOrdering = encoding ->
+        {
+            for (int i = 0; i < preferredOrder.length; ++i)
+            {
+                if (preferredOrder[i].equalsIgnoreCase(encoding))
+                    return preferredOrder.length - i;
+            }
+            return 0;
+        };
+
         super.doStart();
     }
 
@@ -231,6 +284,66 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
 
         removeBean(_deflaterPool);
         _deflaterPool = null;
+
+        _discoveredCompressions.forEach(this::removeBean);
+        _discoveredCompressions.clear();
+        _activeCompressions = new Compression[0];
+        _compressedFormats = new CompressedContentFormat[0];
+        _encodingOrdering = null;
+    }
+
+    /**
+     * @return the compressions added with {@link #addCompression(Compression)}
+     */
+    public List<Compression> getCompressions()
+    {
+        return List.copyOf(_compressions);
+    }
+
+    /**
+     * <p>Adds a compression, that is used in preference to the compressions added after it
+     * and to {@code gzip} when the client accepts them with the same quality.</p>
+     * <p>When compressions are added, no compressions are discovered.</p>
+     *
+     * @param compression the compression to add
+     */
+    public void addCompression(Compression compression)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _compressions.add(compression);
+        addBean(compression, true);
+    }
+
+    /**
+     * @param compression the compression to remove
+     */
+    public void removeCompression(Compression compression)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        if (_compressions.remove(compression))
+            removeBean(compression);
+    }
+
+    /**
+     * @return whether the compressions are discovered with the {@link java.util.ServiceLoader}
+     * when none are added
+     */
+    public boolean isDiscoverCompressions()
+    {
+        return _discoverCompressions;
+    }
+
+    /**
+     * @param discover whether the compressions are discovered with the {@link java.util.ServiceLoader}
+     * when none are added
+     */
+    public void setDiscoverCompressions(boolean discover)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _discoverCompressions = discover;
     }
 
     /**
@@ -527,6 +640,38 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         return _deflaterPool.acquire();
     }
 
+    @Override
+    public CompressionPool<Compression.Encoder>.Entry getEncoderEntry(Compression compression, Request request, long contentLength)
+    {
+        if (contentLength >= 0 && contentLength < _minGzipSize)
+        {
+            LOG.debug("{} excluded minGzipSize {}", this, request);
+            return null;
+        }
+
+        return compression.acquireEncoder();
+    }
+
+    /**
+     * @param fields the request headers
+     * @return the index of the compression preferred by the {@code Accept-Encoding} header,
+     * or -1 if {@code gzip} is preferred or no compression is acceptable
+     */
+    private int getPreferredCompression(HttpFields fields)
+    {
+        for (String encoding : fields.getQualityCSV(HttpHeader.ACCEPT_ENCODING, _encodingOrdering))
+        {
+            if (GZIP.equalsIgnoreCase(encoding))
+                return -1;
+            for (int i = 0; i < _activeCompressions.length; ++i)
+            {
+                if (_activeCompressions[i].getEncoding().equalsIgnoreCase(encoding))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Get the current filter list of excluded HTTP methods
      *
@@ -736,6 +881,10 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
                     {
                         String etags = field.getValue();
                         String etagsNoSuffix = CompressedContentFormat.GZIP.stripSuffixes(etags);
+                        for (CompressedContentFormat format : _compressedFormats)
+                        {
+                            etagsNoSuffix = format.stripSuffixes(etagsNoSuffix);
+                        }
                         if (etagsNoSuffix.equals(etags))
                             newFields.add(field);
                         else
@@ -814,11 +963,23 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             }
         }
 
+        int compression = _activeCompressions.length == 0 ? -1 : getPreferredCompression(baseRequest.getHttpFields());
+
+        // The cache only holds gzip variants.
+        boolean compressedContentCache = _compressedContentCache != null && compression < 0;
+        if (compressedContentCache)
+            baseRequest.setAttribute(ResourceService.COMPRESSED_CONTENT_PROVIDER, _compressedContentProvider);
+
         HttpOutput.Interceptor origInterceptor = out.getInterceptor();
         try
         {
             // install interceptor and handle
-            out.setInterceptor(new GzipHttpOutputInterceptor(this, getVaryField(), baseRequest.getHttpChannel(), origInterceptor, isSyncFlush()));
+            HttpChannel channel = baseRequest.getHttpChannel();
+            if (compression < 0)
+                out.setInterceptor(new GzipHttpOutputInterceptor(this, getVaryField(), channel, origInterceptor, isSyncFlush()));
+            else
+                out.setInterceptor(new GzipHttpOutputInterceptor(this, _activeCompressions[compression], _compressedFormats[compression], getVaryField(),
+                    channel.getHttpConfiguration().getOutputBufferSize(), channel, origInterceptor, isSyncFlush()));
             super.handle(target, baseRequest, request, response);
         }
         finally
@@ -826,6 +987,8 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
             // reset interceptor if request not handled
             if (!baseRequest.isHandled() && !baseRequest.isAsyncStarted())
                 out.setInterceptor(origInterceptor);
+            if (compressedContentCache)
+                baseRequest.removeAttribute(ResourceService.COMPRESSED_CONTENT_PROVIDER);
         }
     }
 
@@ -1068,6 +1231,41 @@ public class GzipHandler extends HandlerWrapper implements GzipFactory
         return String.join(",", getExcludedMethods());
     }
 
+    /**
+     * @return the cache of compressed static content, or null if static content is compressed for every request
+     */
+    public CompressedContentCache getCompressedContentCache()
+    {
+        return _compressedContentCache;
+    }
+
+    /**
+     * <p>Sets the cache of compressed static content.</p>
+     * <p>When set, static content served by the {@link ResourceService}
+     * is compressed once and then served from the cache, rather than being compressed for
+     * every request by the {@link GzipHttpOutputInterceptor}.</p>
+     *
+     * @param cache the cache of compressed static content, or null to compress static content for every request
+     */
+    public void setCompressedContentCache(CompressedContentCache cache)
+    {
+        updateBean(_compressedContentCache, cache);
+        _compressedContentCache = cache;
+    }
+
+    /**
+     * @param request the request for the content
+     * @param content the static content to compress
+     * @return the compressed variant of the content from the cache,
+     * or null if no cache is set or the content should not be compressed
+     * @see #setCompressedContentCache(CompressedContentCache)
+     */
+    public HttpContent getCompressedContent(Request request, HttpContent content)
+    {
+        CompressedContentCache cache = _compressedContentCache;
+        return cache == null ? null : cache.getGzipContent(request, content, this);
+    }
+
     /**
      * Get the DeflaterPool being used. The default value of this is null before starting, but after starting if it is null
      * it will be set to the default DeflaterPool which is stored as a bean on the server.
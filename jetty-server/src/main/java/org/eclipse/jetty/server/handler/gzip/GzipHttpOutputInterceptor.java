@@ -13,12 +13,14 @@
 
 package org.eclipse.jetty.server.handler.gzip;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritePendingException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 
+import org.eclipse.jetty.http.CompressedContentFormat;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpHeader;
@@ -30,6 +32,8 @@ import org.eclipse.jetty.server.Response;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IteratingNestedCallback;
+import org.eclipse.jetty.util.compression.Compression;
+import org.eclipse.jetty.util.compression.CompressionPool;
 import org.eclipse.jetty.util.compression.DeflaterPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +56,8 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final CRC32 _crc = new CRC32();
 
     private final GzipFactory _factory;
+    private final Compression _compression;
+    private final CompressedContentFormat _format;
     private final HttpOutput.Interceptor _interceptor;
     private final HttpChannel _channel;
     private final HttpField _vary;
@@ -59,6 +65,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private final boolean _syncFlush;
 
     private DeflaterPool.Entry _deflaterEntry;
+    private CompressionPool<Compression.Encoder>.Entry _encoderEntry;
     private ByteBuffer _buffer;
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
@@ -72,8 +79,25 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     }
 
     public GzipHttpOutputInterceptor(GzipFactory factory, HttpField vary, int bufferSize, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
+    {
+        this(factory, null, GZIP, vary, bufferSize, channel, next, syncFlush);
+    }
+
+    /**
+     * @param factory the factory of deflaters and encoders
+     * @param compression the compression to use, or null to use gzip
+     * @param format the format of the compressed content, used for the Content-Encoding header and the ETag suffix
+     * @param vary the VARY field to add to compressed responses
+     * @param bufferSize the size of the buffers for the compressed content
+     * @param channel the channel of the response
+     * @param next the next interceptor
+     * @param syncFlush whether to flush the compressed bytes of each write
+     */
+    public GzipHttpOutputInterceptor(GzipFactory factory, Compression compression, CompressedContentFormat format, HttpField vary, int bufferSize, HttpChannel channel, HttpOutput.Interceptor next, boolean syncFlush)
     {
         _factory = factory;
+        _compression = compression;
+        _format = format;
         _channel = channel;
         _interceptor = next;
         _vary = vary;
@@ -123,9 +147,16 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
     private void gzip(ByteBuffer content, boolean complete, final Callback callback)
     {
         if (content.hasRemaining() || complete)
-            new GzipBufferCB(content, complete, callback).iterate();
+        {
+            if (_compression == null)
+                new GzipBufferCB(content, complete, callback).iterate();
+            else
+                new EncoderBufferCB(content, complete, callback).iterate();
+        }
         else
+        {
             callback.succeeded();
+        }
     }
 
     protected void commit(ByteBuffer content, boolean complete, Callback callback)
@@ -192,8 +223,11 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (contentLength < 0 && complete)
                 contentLength = content.remaining();
 
-            _deflaterEntry = _factory.getDeflaterEntry(_channel.getRequest(), contentLength);
-            if (_deflaterEntry == null)
+            if (_compression == null)
+                _deflaterEntry = _factory.getDeflaterEntry(_channel.getRequest(), contentLength);
+            else
+                _encoderEntry = _factory.getEncoderEntry(_compression, _channel.getRequest(), contentLength);
+            if (_deflaterEntry == null && _encoderEntry == null)
             {
                 LOG.debug("{} exclude no deflater", this);
                 _state.set(GZState.NOT_COMPRESSING);
@@ -201,7 +235,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 return;
             }
 
-            fields.put(GZIP.getContentEncoding());
+            fields.put(_format.getContentEncoding());
             _crc.reset();
 
             // Adjust headers
@@ -210,7 +244,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
             if (etag != null)
                 fields.put(HttpHeader.ETAG, etagGzip(etag));
 
-            LOG.debug("{} compressing {}", this, _deflaterEntry);
+            LOG.debug("{} compressing {}", this, _compression == null ? _deflaterEntry : _encoderEntry);
             _state.set(GZState.COMPRESSING);
 
             if (BufferUtil.isEmpty(content))
@@ -229,7 +263,7 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
 
     private String etagGzip(String etag)
     {
-        return GZIP.etag(etag);
+        return _format.etag(etag);
     }
 
     public void noCompression()
@@ -357,4 +391,85 @@ public class GzipHttpOutputInterceptor implements HttpOutput.Interceptor
                 _deflaterEntry != null && _deflaterEntry.get().finished() ? "(finished)" : "");
         }
     }
+
+    private class EncoderBufferCB extends IteratingNestedCallback
+    {
+        private final ByteBuffer _content;
+        private final boolean _last;
+
+        public EncoderBufferCB(ByteBuffer content, boolean complete, Callback callback)
+        {
+            super(callback);
+
+            _content = content;
+            _last = complete;
+
+            Compression.Encoder encoder = _encoderEntry.get();
+            encoder.setInput(_content);
+            if (_last)
+                encoder.finish();
+        }
+
+        @Override
+        protected void onCompleteFailure(Throwable x)
+        {
+            if (_encoderEntry != null)
+            {
+                _encoderEntry.release();
+                _encoderEntry = null;
+            }
+            super.onCompleteFailure(x);
+        }
+
+        @Override
+        protected Action process() throws IOException
+        {
+            // If the encoder has been released, the last write has completed.
+            if (_encoderEntry == null)
+            {
+                if (_buffer != null)
+                {
+                    _channel.getByteBufferPool().release(_buffer);
+                    _buffer = null;
+                }
+                return Action.SUCCEEDED;
+            }
+
+            if (_buffer == null)
+                _buffer = _channel.getByteBufferPool().acquire(_bufferSize, _channel.isUseOutputDirectByteBuffers());
+            else
+                BufferUtil.clear(_buffer);
+
+            Compression.Encoder encoder = _encoderEntry.get();
+            if (!encoder.finished())
+            {
+                if (encoder.needsInput() && !_last)
+                    return Action.SUCCEEDED;
+
+                int pos = BufferUtil.flipToFill(_buffer);
+                encoder.encode(_buffer, _syncFlush);
+                BufferUtil.flipToFlush(_buffer, pos);
+            }
+
+            if (encoder.finished())
+            {
+                _encoderEntry.release();
+                _encoderEntry = null;
+            }
+
+            _interceptor.write(_buffer, _encoderEntry == null, this);
+            return Action.SCHEDULED;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s[content=%s last=%b buffer=%s encoder=%s]",
+                super.toString(),
+                BufferUtil.toDetailString(_content),
+                _last,
+                BufferUtil.toDetailString(_buffer),
+                _encoderEntry);
+        }
+    }
 }
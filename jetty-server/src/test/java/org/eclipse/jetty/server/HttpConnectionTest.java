@@ -69,6 +69,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class HttpConnectionTest
@@ -1109,6 +1110,93 @@ public class HttpConnectionTest
         }
     }
 
+    @Test
+    public void testPipelinedResponsesAggregated() throws Exception
+    {
+        HttpConnectionFactory http = connector.getConnectionFactory(HttpConnectionFactory.class);
+        http.getHttpConfiguration().setPipelineDepth(8);
+
+        String requests =
+            "GET /R1 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /R2 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /R3 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n";
+
+        LocalEndPoint endp = connector.executeRequest(requests);
+        String response = endp.getResponse() + endp.getResponse() + endp.getResponse();
+
+        int offset = 0;
+        offset = checkContains(response, offset, "HTTP/1.1 200");
+        offset = checkContains(response, offset, "pathInfo=/R1");
+        offset = checkContains(response, offset, "HTTP/1.1 200");
+        offset = checkContains(response, offset, "pathInfo=/R2");
+        offset = checkContains(response, offset, "HTTP/1.1 200");
+        checkContains(response, offset, "pathInfo=/R3");
+
+        // The responses to R1 and R2 are written together with the response to R3.
+        assertEquals(2, http.getPipelinedRequests());
+        assertEquals(2, http.getPipelineWritesSaved());
+    }
+
+    @Test
+    public void testPipelinedResponsesWrittenBeforeWaitingForRequest() throws Exception
+    {
+        HttpConnectionFactory http = connector.getConnectionFactory(HttpConnectionFactory.class);
+        http.getHttpConfiguration().setPipelineDepth(8);
+
+        String requests =
+            "GET /R1 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /R2 HTTP/1.1\r\n" +
+                "Host: localhost\r\n";
+
+        // The response to R1 must be written even if R2 is incomplete.
+        LocalEndPoint endp = connector.executeRequest(requests);
+        String response = endp.getResponse();
+        checkContains(response, checkContains(response, 0, "HTTP/1.1 200"), "pathInfo=/R1");
+        assertEquals(1, http.getPipelinedRequests());
+        assertEquals(0, http.getPipelineWritesSaved());
+
+        endp.addInputAndExecute(BufferUtil.toBuffer("Connection: close\r\n\r\n"));
+        response = endp.getResponse();
+        checkContains(response, checkContains(response, 0, "HTTP/1.1 200"), "pathInfo=/R2");
+    }
+
+    @Test
+    public void testPipelinedResponsesWrittenBeforeWaitingForContent() throws Exception
+    {
+        HttpConnectionFactory http = connector.getConnectionFactory(HttpConnectionFactory.class);
+        http.getHttpConfiguration().setPipelineDepth(8);
+
+        String requests =
+            "GET /R1 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "POST /R2 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: text/plain\r\n" +
+                "Content-Length: 10\r\n" +
+                "Connection: close\r\n" +
+                "\r\n";
+
+        // The client waits for the response to R1 before sending the content of R2.
+        LocalEndPoint endp = connector.executeRequest(requests);
+        String response = endp.getResponse(false, 5, TimeUnit.SECONDS);
+        assertNotNull(response);
+        checkContains(response, checkContains(response, 0, "HTTP/1.1 200"), "pathInfo=/R1");
+
+        endp.addInputAndExecute(BufferUtil.toBuffer("0123456789"));
+        response = endp.getResponse();
+        checkContains(response, checkContains(response, 0, "HTTP/1.1 200"), "pathInfo=/R2");
+    }
+
     @Test
     public void testConnection() throws Exception
     {
@@ -0,0 +1,172 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class HttpConnectionVirtualThreadsTest
+{
+    private static final String VIRTUAL = "virtual-";
+
+    private final List<String> _threads = new CopyOnWriteArrayList<>();
+    private ExecutorService _virtualThreads;
+    private Server _server;
+    private ServerConnector _connector;
+
+    private void start(Handler handler) throws Exception
+    {
+        // Virtual threads may not be supported by the runtime,
+        // so they are emulated by platform threads with a known name.
+        AtomicInteger ids = new AtomicInteger();
+        _virtualThreads = Executors.newCachedThreadPool(task -> new Thread(task, VIRTUAL + ids.incrementAndGet()));
+        QueuedThreadPool threadPool = new QueuedThreadPool()
+        {
+            @Override
+            public Executor getVirtualThreadsExecutor()
+            {
+                return _virtualThreads;
+            }
+        };
+        _server = new Server(threadPool);
+        HttpConfiguration config = new HttpConfiguration();
+        config.setUseVirtualThreads(true);
+        _connector = new ServerConnector(_server, new HttpConnectionFactory(config));
+        _server.addConnector(_connector);
+        _server.setHandler(handler);
+        _server.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (_server != null)
+            _server.stop();
+        if (_virtualThreads != null)
+            _virtualThreads.shutdownNow();
+    }
+
+    @Test
+    public void testBlockingReadInVirtualThread() throws Exception
+    {
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                try
+                {
+                    _threads.add(Thread.currentThread().getName());
+                    String content = IO.toString(request.getInputStream());
+                    _threads.add(Thread.currentThread().getName());
+                    response.getWriter().print(content);
+                }
+                catch (Exception x)
+                {
+                    response.setStatus(500);
+                }
+            }
+        });
+
+        try (Socket client = new Socket("localhost", _connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            output.write((
+                "POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Length: 10\r\n" +
+                "\r\n" +
+                "01234").getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            Thread.sleep(500);
+            output.write("56789".getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            HttpTester.Response response = HttpTester.parseResponse(client.getInputStream());
+            assertNotNull(response);
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.getContent(), is("0123456789"));
+        }
+
+        assertThat(_threads, hasSize(2));
+        assertThat(_threads, everyItem(startsWith(VIRTUAL)));
+    }
+
+    @Test
+    public void testAsyncDispatchInVirtualThread() throws Exception
+    {
+        start(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                _threads.add(Thread.currentThread().getName());
+                if (request.getDispatcherType() == DispatcherType.REQUEST)
+                {
+                    AsyncContext asyncContext = request.startAsync();
+                    new Thread(asyncContext::dispatch).start();
+                }
+            }
+        });
+
+        try (Socket client = new Socket("localhost", _connector.getLocalPort()))
+        {
+            OutputStream output = client.getOutputStream();
+            for (int i = 0; i < 2; i++)
+            {
+                output.write((
+                    "GET / HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "\r\n").getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                InputStream input = client.getInputStream();
+                HttpTester.Response response = HttpTester.parseResponse(input);
+                assertNotNull(response);
+                assertThat(response.getStatus(), is(200));
+            }
+        }
+
+        assertThat(_threads, hasSize(4));
+        assertThat(_threads, everyItem(startsWith(VIRTUAL)));
+    }
+}
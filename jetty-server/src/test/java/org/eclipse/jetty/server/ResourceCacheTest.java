@@ -42,6 +42,8 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -342,6 +344,54 @@ public class ResourceCacheTest
         cache.flushCache();
     }
 
+    @Test
+    public void testTinyLfuKeepsFrequentContentOnScan() throws Exception
+    {
+        Path basePath = workDir.getEmptyPathDir();
+        for (int i = 0; i < 100; i++)
+        {
+            makeFile(basePath.resolve("R-" + i + ".txt"), "content " + i);
+        }
+
+        CachedContentFactory cache = new CachedContentFactory(null, new PathResource(basePath), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(10);
+        cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.TINY_LFU);
+
+        // Access a few hot files frequently.
+        for (int j = 0; j < 5; j++)
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                assertEquals("content " + i, getContent(cache, "R-" + i + ".txt"));
+            }
+        }
+        assertEquals(20, cache.getHits());
+        assertEquals(5, cache.getMisses());
+
+        // Scan all the other files once.
+        for (int i = 5; i < 100; i++)
+        {
+            assertEquals("content " + i, getContent(cache, "R-" + i + ".txt"));
+        }
+        assertThat(cache.getCachedFiles(), lessThanOrEqualTo(10));
+        assertThat(cache.getAdmissionRejections(), greaterThan(0L));
+        // The rejected content is served without being cached.
+        assertThat(cache.getCachedSize(), lessThanOrEqualTo(10 * "content NN".length()));
+
+        // The hot files are still cached.
+        cache.resetStats();
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals("content " + i, getContent(cache, "R-" + i + ".txt"));
+        }
+        assertEquals(5, cache.getHits());
+        assertEquals(1.0, cache.getHitRatio());
+
+        cache.flushCache();
+        assertEquals(0, cache.getCachedFiles());
+        assertEquals(0, cache.getCachedSize());
+    }
+
     @Test
     public void testNoextension() throws Exception
     {
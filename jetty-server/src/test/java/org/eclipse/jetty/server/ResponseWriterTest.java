@@ -0,0 +1,39 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResponseWriterTest
+{
+    @Test
+    public void testAllPrintWriterMethodsAreOverridden() throws Exception
+    {
+        // ResponseWriter uses its own lock, so it must not inherit
+        // the methods of PrintWriter that synchronize on PrintWriter.lock.
+        for (Method method : PrintWriter.class.getMethods())
+        {
+            if (method.isBridge() || Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class)
+                continue;
+            Method override = ResponseWriter.class.getMethod(method.getName(), method.getParameterTypes());
+            assertEquals(ResponseWriter.class, override.getDeclaringClass(), method.toString());
+        }
+    }
+}
@@ -23,6 +23,8 @@ import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.HttpTester;
@@ -268,6 +270,54 @@ public class ResourceHandlerTest
         }
     }
 
+    @Test
+    public void testBiggerFileChannelTransfer() throws Exception
+    {
+        HttpConnectionFactory factory = _connector.getConnectionFactory(HttpConnectionFactory.class);
+        factory.resetStats();
+        _config.setUseFileChannelTransfer(true);
+        List<Long> bytesWritten = new CopyOnWriteArrayList<>();
+        _server.setRequestLog((request, response) -> bytesWritten.add(request.getHttpChannel().getBytesWritten()));
+        try (Socket socket = new Socket("localhost", _connector.getLocalPort()))
+        {
+            long length = MavenTestingUtils.getTargetFile("test-classes/simple/bigger.txt").length();
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /resource/bigger.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "\r\n" +
+                "GET /resource/bigger.txt HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+
+            HttpTester.Input input = HttpTester.from(socket.getInputStream());
+            for (int i = 0; i < 2; i++)
+            {
+                HttpTester.Response response = HttpTester.parseResponse(input);
+                assertThat(response.getStatus(), equalTo(200));
+                assertThat(response.get(CONTENT_LENGTH), equalTo(Long.toString(length)));
+                assertThat(response.getContent(), startsWith("     1\tThis is a big file" + LN));
+                assertThat(response.getContent(), endsWith("   400\tThis is a big file" + LN));
+            }
+            assertEquals(-1, socket.getInputStream().read());
+
+            assertEquals(2, factory.getFileChannelTransfers());
+            assertEquals(2 * length, factory.getFileChannelTransferBytes());
+            // The transferred bytes are accounted like other response content.
+            assertEquals(2, bytesWritten.size());
+            for (long written : bytesWritten)
+            {
+                assertEquals(length, written);
+            }
+        }
+        finally
+        {
+            _server.setRequestLog(null);
+            _config.setUseFileChannelTransfer(false);
+        }
+    }
+
     @Test
     public void testWelcome() throws Exception
     {
@@ -16,6 +16,7 @@ package org.eclipse.jetty.servlet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.StringTokenizer;
 import javax.servlet.ServletContext;
@@ -102,6 +103,9 @@ import org.slf4j.LoggerFactory;
  *  maxCacheSize      The maximum total size of the cache or 0 for no cache.
  *  maxCachedFileSize The maximum size of a file to cache
  *  maxCachedFiles    The maximum number of files to cache
+ *  cacheEvictionPolicy
+ *                    The policy used to evict files from the cache, either LRU
+ *                    (the default) or TINY_LFU.
  *
  *  useFileMappedBuffer
  *                    If set to true, it will use mapped file buffer to serve static content
@@ -240,6 +244,7 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
         int maxCacheSize = getInitInt("maxCacheSize", -2);
         int maxCachedFileSize = getInitInt("maxCachedFileSize", -2);
         int maxCachedFiles = getInitInt("maxCachedFiles", -2);
+        String cacheEvictionPolicy = getInitParameter("cacheEvictionPolicy");
         if (resourceCache != null)
         {
             if (maxCacheSize != -1 || maxCachedFileSize != -2 || maxCachedFiles != -2)
@@ -260,6 +265,10 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
                     _cache.setMaxCachedFileSize(maxCachedFileSize);
                 if (maxCachedFiles >= -1)
                     _cache.setMaxCachedFiles(maxCachedFiles);
+                if (cacheEvictionPolicy != null)
+                    _cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.valueOf(cacheEvictionPolicy.trim().toUpperCase(Locale.ENGLISH)));
+                if (_contextHandler != null)
+                    _contextHandler.addBean(_cache);
                 _servletContext.setAttribute(resourceCache == null ? "resourceCache" : resourceCache, _cache);
             }
         }
@@ -486,7 +495,11 @@ public class DefaultServlet extends HttpServlet implements ResourceFactory, Welc
     public void destroy()
     {
         if (_cache != null)
+        {
             _cache.flushCache();
+            if (_contextHandler != null)
+                _contextHandler.removeBean(_cache);
+        }
         super.destroy();
     }
 
@@ -20,11 +20,14 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 import javax.servlet.AsyncContext;
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
@@ -46,9 +49,13 @@ import org.eclipse.jetty.http.HttpVersion;
 import org.eclipse.jetty.server.HttpOutput;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.CompressedContentCache;
 import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.compression.DeflateCompression;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -372,6 +379,140 @@ public class GzipHandlerTest
         assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
     }
 
+    @Test
+    public void testCompressionNegotiation() throws Exception
+    {
+        _server.stop();
+        gzipHandler.addCompression(new DeflateCompression());
+        _server.start();
+        String etagDeflate = new CompressedContentFormat("deflate", ".deflate").etag(__contentETag);
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/content");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+
+        // With equal quality, the added compression is preferred to gzip.
+        request.setHeader("accept-encoding", "gzip, deflate");
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), equalToIgnoringCase("deflate"));
+        assertThat(response.get("ETag"), is(etagDeflate));
+        assertThat(response.getCSV("Vary", false), contains("Accept-Encoding"));
+        ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        IO.copy(new InflaterInputStream(new ByteArrayInputStream(response.getContentBytes())), testOut);
+        assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
+
+        // The quality values are honored.
+        request.setHeader("accept-encoding", "deflate;q=0.5, gzip");
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), equalToIgnoringCase("gzip"));
+        testOut = new ByteArrayOutputStream();
+        IO.copy(new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes())), testOut);
+        assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
+
+        // The ETag suffix of the compression is stripped from conditional requests.
+        request.setHeader("accept-encoding", "deflate");
+        request.setHeader("If-None-Match", etagDeflate);
+        response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(304));
+        assertThat(response.get("ETag"), is(etagDeflate));
+    }
+
+    @Test
+    public void testCompressedContentCache() throws Exception
+    {
+        Path resourceBase = MavenTestingUtils.getTargetTestingPath(GzipHandlerTest.class.getSimpleName() + "-cache");
+        FS.ensureEmpty(resourceBase);
+        Files.write(resourceBase.resolve("file.txt"), __bytes);
+
+        _server.stop();
+        CompressedContentCache cache = new CompressedContentCache();
+        gzipHandler.setCompressedContentCache(cache);
+        context.setResourceBase(resourceBase.toString());
+        context.addServlet(DefaultServlet.class, "/").setInitParameter("etags", "true");
+        _server.start();
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/file.txt");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        for (int i = 0; i < 2; i++)
+        {
+            HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.get("Content-Encoding"), equalToIgnoringCase("gzip"));
+            assertThat(response.get("ETag"), containsString(CompressedContentFormat.GZIP.getEtagSuffix()));
+            assertThat(response.getCSV("Vary", false), contains("Accept-Encoding"));
+            assertThat(response.getLongField("Content-Length"), is((long)response.getContentBytes().length));
+
+            ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+            IO.copy(new GZIPInputStream(new ByteArrayInputStream(response.getContentBytes())), testOut);
+            assertEquals(__content, testOut.toString(StandardCharsets.UTF_8));
+        }
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getCachedFiles());
+
+        // Not compressed if the client does not accept gzip.
+        request.remove("accept-encoding");
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertEquals(__content, response.getContent());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testCompressedContentCacheVaryAndQuality() throws Exception
+    {
+        Path resourceBase = MavenTestingUtils.getTargetTestingPath(GzipHandlerTest.class.getSimpleName() + "-cache-vary");
+        FS.ensureEmpty(resourceBase);
+        Files.write(resourceBase.resolve("file.txt"), __bytes);
+
+        _server.stop();
+        CompressedContentCache cache = new CompressedContentCache();
+        gzipHandler.setCompressedContentCache(cache);
+        context.setResourceBase(resourceBase.toString());
+        context.addFilter(new FilterHolder((Filter)(req, res, chain) ->
+        {
+            ((HttpServletResponse)res).addHeader("Vary", "Origin");
+            chain.doFilter(req, res);
+        }), "/file.txt", EnumSet.of(DispatcherType.REQUEST));
+        context.addServlet(DefaultServlet.class, "/");
+        _server.start();
+
+        HttpTester.Request request = HttpTester.newRequest();
+        request.setMethod("GET");
+        request.setURI("/ctx/file.txt");
+        request.setVersion("HTTP/1.0");
+        request.setHeader("Host", "tester");
+        request.setHeader("accept-encoding", "gzip");
+
+        for (int i = 0; i < 2; i++)
+        {
+            HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.get("Content-Encoding"), equalToIgnoringCase("gzip"));
+            // Accept-Encoding is added to an existing Vary header.
+            assertThat(response.getCSV("Vary", false), contains("Origin", "Accept-Encoding"));
+        }
+        assertEquals(1, cache.getHits());
+
+        // Not compressed if the client refuses gzip.
+        request.setHeader("accept-encoding", "gzip;q=0, identity");
+        HttpTester.Response response = HttpTester.parseResponse(_connector.getResponse(request.generate()));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("Content-Encoding"), nullValue());
+        assertEquals(__content, response.getContent());
+        assertEquals(1, cache.getHits());
+    }
+
     @Test
     public void testGzipNotModifiedVaryHeader() throws Exception
     {
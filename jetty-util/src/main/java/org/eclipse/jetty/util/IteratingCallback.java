@@ -180,6 +180,18 @@ public abstract class IteratingCallback implements Callback
     {
     }
 
+    /**
+     * <p>Invoked when {@link #close()} is called while this callback is idle
+     * or has succeeded, so that neither {@link #onCompleteSuccess()} nor
+     * {@link #onCompleteFailure(Throwable)} will be invoked for the close.</p>
+     * <p>Subclasses may override this method to release resources that they
+     * retain across iterations. This method may be invoked concurrently with
+     * a {@link #onCompleteSuccess()} that has not yet returned.</p>
+     */
+    protected void onClosed()
+    {
+    }
+
     /**
      * This method must be invoked by applications to start the processing
      * of asynchronous sub-tasks.
@@ -430,12 +442,17 @@ public abstract class IteratingCallback implements Callback
     public void close()
     {
         String failure = null;
+        boolean closed = false;
         try (AutoLock ignored = _lock.lock())
         {
             switch (_state)
             {
                 case IDLE:
                 case SUCCEEDED:
+                    _state = State.CLOSED;
+                    closed = true;
+                    break;
+
                 case FAILED:
                     _state = State.CLOSED;
                     break;
@@ -457,6 +474,8 @@ public abstract class IteratingCallback implements Callback
 
         if (failure != null)
             onCompleteFailure(new IOException(failure));
+        else if (closed)
+            onClosed();
     }
 
     /**
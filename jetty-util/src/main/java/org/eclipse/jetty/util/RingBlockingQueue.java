@@ -0,0 +1,530 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A lock-free, multi-producer multi-consumer {@link BlockingQueue} backed by a circular array.</p>
+ * <p>Unlike {@link BlockingArrayQueue}, offering and polling do not take any lock: producers and consumers
+ * claim a slot of the array by advancing the tail or head index with a compare-and-set, and each slot has
+ * a sequence number that tells whether it is ready to be written or read (D. Vyukov's bounded MPMC queue).</p>
+ * <p>Consumers that find the queue empty spin for a configurable number of times, then park until an
+ * element is offered; a producer only pays for a wakeup when there are parked consumers.</p>
+ * <p>The circular array has a fixed capacity. When it is full, elements overflow into a
+ * {@link ConcurrentLinkedQueue} until the max capacity is reached, and further elements are offered
+ * to the overflow queue until it has been drained, to preserve the order. As for
+ * {@link BlockingArrayQueue}, {@link #offer(Object)} returns {@code false} only when the queue
+ * has reached its max capacity, which may be {@link Integer#MAX_VALUE} for an unbounded queue.</p>
+ * <p>Iteration is weakly consistent and {@link Iterator#remove()} is not supported; this queue is meant
+ * to be used as a job queue, for example by {@link org.eclipse.jetty.util.thread.QueuedThreadPool}.</p>
+ *
+ * @param <E> The element type
+ */
+public class RingBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    /**
+     * The head offset in the {@link #_indexes} array, displaced by a cache line to avoid false sharing with the array length.
+     */
+    private static final int HEAD_OFFSET = MemoryUtils.getLongsPerCacheLine() - 1;
+    /**
+     * The tail offset in the {@link #_indexes} array, displaced by a cache line from the head to avoid false sharing with it.
+     */
+    private static final int TAIL_OFFSET = HEAD_OFFSET + MemoryUtils.getLongsPerCacheLine();
+    /**
+     * Default number of spins before a consumer parks, 64, or 0 on single processor machines.
+     */
+    public static final int DEFAULT_SPINS = ProcessorUtils.availableProcessors() > 1 ? 64 : 0;
+
+    /**
+     * Array that holds the head and tail indexes, separated by a cache line to avoid false sharing
+     */
+    private final AtomicLongArray _indexes = new AtomicLongArray(TAIL_OFFSET + 1);
+    private final AtomicLongArray _sequences;
+    private final Object[] _elements;
+    private final int _capacity;
+    private final int _maxCapacity;
+    private final Queue<E> _overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _overflowSize = new AtomicInteger();
+    private final int _spins;
+    private final Queue<Thread> _waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger _waiting = new AtomicInteger();
+
+    /**
+     * Creates a bounded {@link RingBlockingQueue} with the given capacity and the default number of spins.
+     *
+     * @param maxCapacity the fixed capacity of the queue
+     * @see #DEFAULT_SPINS
+     */
+    public RingBlockingQueue(int maxCapacity)
+    {
+        this(maxCapacity, DEFAULT_SPINS);
+    }
+
+    /**
+     * Creates a bounded {@link RingBlockingQueue} with the given capacity and number of spins.
+     *
+     * @param maxCapacity the fixed capacity of the queue
+     * @param spins the number of times an empty queue is polled again before the consumer parks
+     */
+    public RingBlockingQueue(int maxCapacity, int spins)
+    {
+        this(maxCapacity, maxCapacity, spins);
+    }
+
+    /**
+     * Creates a {@link RingBlockingQueue} that overflows its circular array up to the given max capacity.
+     *
+     * @param capacity the capacity of the circular array
+     * @param maxCapacity the max capacity of the queue, or {@link Integer#MAX_VALUE} for an unbounded queue
+     * @param spins the number of times an empty queue is polled again before the consumer parks
+     */
+    public RingBlockingQueue(int capacity, int maxCapacity, int spins)
+    {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        if (maxCapacity < capacity)
+            throw new IllegalArgumentException("Invalid max capacity: " + maxCapacity);
+        if (spins < 0)
+            throw new IllegalArgumentException("Invalid spins: " + spins);
+        _capacity = capacity;
+        _maxCapacity = maxCapacity;
+        _spins = spins;
+        _elements = new Object[capacity];
+        _sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i)
+        {
+            _sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return the capacity of the circular array
+     */
+    public int getCapacity()
+    {
+        return _capacity;
+    }
+
+    /**
+     * @return the max capacity of the queue
+     */
+    public int getMaxCapacity()
+    {
+        return _maxCapacity;
+    }
+
+    /**
+     * @return the number of times an empty queue is polled again before the consumer parks
+     */
+    public int getSpins()
+    {
+        return _spins;
+    }
+
+    /* Collection methods */
+
+    @Override
+    public int size()
+    {
+        return ringSize() + _overflowSize.get();
+    }
+
+    private int ringSize()
+    {
+        // The indexes are read at different times, so the difference may
+        // be transiently out of range when elements are concurrently polled.
+        long head = _indexes.get(HEAD_OFFSET);
+        long tail = _indexes.get(TAIL_OFFSET);
+        return (int)Math.max(0, Math.min(_capacity, tail - head));
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear()
+    {
+        while (true)
+        {
+            if (poll() == null)
+                break;
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        return Collections.unmodifiableList(snapshot()).iterator();
+    }
+
+    @Override
+    public Object[] toArray()
+    {
+        return snapshot().toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a)
+    {
+        return snapshot().toArray(a);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<E> snapshot()
+    {
+        long head = _indexes.get(HEAD_OFFSET);
+        long tail = _indexes.get(TAIL_OFFSET);
+        List<E> result = new ArrayList<>((int)Math.max(0, Math.min(_capacity, tail - head)));
+        for (long position = head; position < tail && position < head + _capacity; ++position)
+        {
+            int index = index(position);
+            // Only read the slots that are still published for the position.
+            if (_sequences.get(index) != position + 1)
+                continue;
+            E e = (E)_elements[index];
+            if (e != null)
+                result.add(e);
+        }
+        result.addAll(_overflow);
+        return result;
+    }
+
+    /* Queue methods */
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+
+        // While elements have overflowed, do not overtake them.
+        if (_overflowSize.get() == 0 && offerRing(e))
+            return true;
+
+        if ((long)_overflowSize.incrementAndGet() + ringSize() > _maxCapacity)
+        {
+            _overflowSize.decrementAndGet();
+            return false;
+        }
+        _overflow.offer(e);
+        if (_waiting.get() > 0)
+            signal();
+        return true;
+    }
+
+    private boolean offerRing(E e)
+    {
+        long tail = _indexes.get(TAIL_OFFSET);
+        while (true)
+        {
+            int index = index(tail);
+            long diff = _sequences.get(index) - tail;
+            if (diff == 0)
+            {
+                if (_indexes.compareAndSet(TAIL_OFFSET, tail, tail + 1))
+                {
+                    _elements[index] = e;
+                    // Publish the element to consumers.
+                    _sequences.set(index, tail + 1);
+                    // Only signal when the element is at the head: otherwise, the
+                    // consumer of the previous elements passes the signal on.
+                    if (_waiting.get() > 0 && _indexes.get(HEAD_OFFSET) == tail)
+                        signal();
+                    return true;
+                }
+                tail = _indexes.get(TAIL_OFFSET);
+            }
+            else if (diff < 0)
+            {
+                // The slot still holds the element of the previous lap: the queue is full.
+                return false;
+            }
+            else
+            {
+                // Another producer claimed this slot.
+                tail = _indexes.get(TAIL_OFFSET);
+            }
+        }
+    }
+
+    @Override
+    public E poll()
+    {
+        E e = pollRing();
+        if (e != null || _overflowSize.get() == 0)
+            return e;
+
+        // The overflowed elements are newer than the elements of the circular array.
+        e = _overflow.poll();
+        if (e != null)
+        {
+            _overflowSize.decrementAndGet();
+            if (_waiting.get() > 0 && !isEmpty())
+                signal();
+        }
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E pollRing()
+    {
+        long head = _indexes.get(HEAD_OFFSET);
+        while (true)
+        {
+            int index = index(head);
+            long diff = _sequences.get(index) - (head + 1);
+            if (diff == 0)
+            {
+                if (_indexes.compareAndSet(HEAD_OFFSET, head, head + 1))
+                {
+                    E e = (E)_elements[index];
+                    _elements[index] = null;
+                    // Release the slot to producers of the next lap.
+                    _sequences.set(index, head + _capacity);
+                    // Pass the signal on to another consumer for the next elements.
+                    if (_waiting.get() > 0 && !isEmpty())
+                        signal();
+                    return e;
+                }
+                head = _indexes.get(HEAD_OFFSET);
+            }
+            else if (diff < 0)
+            {
+                // The slot has not been written yet: the queue is empty.
+                return null;
+            }
+            else
+            {
+                // Another consumer claimed this slot.
+                head = _indexes.get(HEAD_OFFSET);
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        while (true)
+        {
+            long head = _indexes.get(HEAD_OFFSET);
+            int index = index(head);
+            long diff = _sequences.get(index) - (head + 1);
+            if (diff < 0)
+                return _overflow.peek();
+            E e = (E)_elements[index];
+            // Retry if the element has been polled while reading it.
+            if (e != null && _indexes.get(HEAD_OFFSET) == head)
+                return e;
+        }
+    }
+
+    /* BlockingQueue methods */
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long nanos = unit.toNanos(timeout);
+        long start = NanoTime.now();
+        while (!offer(e))
+        {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (NanoTime.since(start) >= nanos)
+                return false;
+            // Consumers do not signal producers, so back off briefly.
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException
+    {
+        while (!offer(e))
+        {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            // Consumers do not signal producers, so back off briefly.
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return awaitPoll(-1);
+    }
+
+    @Override
+    public E poll(long time, TimeUnit unit) throws InterruptedException
+    {
+        return awaitPoll(Math.max(0, unit.toNanos(time)));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return Math.max(0, _maxCapacity - size());
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        if (c == this)
+            throw new IllegalArgumentException();
+        int drained = 0;
+        while (drained < maxElements)
+        {
+            E e = poll();
+            if (e == null)
+                break;
+            c.add(e);
+            ++drained;
+        }
+        return drained;
+    }
+
+    /**
+     * @param nanos the time to wait, or a negative value to wait forever
+     * @return an element, or null if the time elapsed
+     * @throws InterruptedException if the current thread is interrupted
+     */
+    private E awaitPoll(long nanos) throws InterruptedException
+    {
+        E e = poll();
+        if (e != null)
+            return e;
+
+        for (int i = 0; i < _spins; ++i)
+        {
+            Thread.onSpinWait();
+            e = poll();
+            if (e != null)
+                return e;
+        }
+
+        Thread thread = Thread.currentThread();
+        long start = NanoTime.now();
+        while (true)
+        {
+            // Register as a waiter before polling again, so that
+            // either the poll sees an element offered concurrently,
+            // or the producer of that element sees this waiter.
+            _waiters.offer(thread);
+            _waiting.incrementAndGet();
+
+            e = poll();
+            if (e != null)
+            {
+                // This consumer may have taken an element other than
+                // the one it has been concurrently signalled for.
+                if (!unregister(thread))
+                    signalIfNotEmpty();
+                return e;
+            }
+
+            if (nanos < 0)
+            {
+                LockSupport.park(this);
+            }
+            else
+            {
+                long remaining = nanos - NanoTime.since(start);
+                if (remaining > 0)
+                    LockSupport.parkNanos(this, remaining);
+            }
+
+            boolean signalled = !unregister(thread);
+            if (Thread.interrupted())
+            {
+                // Do not lose the signal for the elements of other consumers.
+                if (signalled)
+                    signalIfNotEmpty();
+                throw new InterruptedException();
+            }
+
+            e = poll();
+            if (e != null)
+                return e;
+
+            // The element for the signal, if any, has been taken by another consumer.
+            if (nanos >= 0 && NanoTime.since(start) >= nanos)
+                return null;
+        }
+    }
+
+    /**
+     * @param thread the waiter to remove
+     * @return whether the waiter was removed, or false if it has already been removed by a producer to signal it
+     */
+    private boolean unregister(Thread thread)
+    {
+        if (_waiters.remove(thread))
+        {
+            _waiting.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void signalIfNotEmpty()
+    {
+        if (_waiting.get() > 0 && !isEmpty())
+            signal();
+    }
+
+    private void signal()
+    {
+        Thread waiter = _waiters.poll();
+        if (waiter != null)
+        {
+            _waiting.decrementAndGet();
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    private int index(long position)
+    {
+        return (int)(position % _capacity);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,capacity=%d,maxCapacity=%d,waiting=%d}", getClass().getSimpleName(), hashCode(), size(), _capacity, _maxCapacity, _waiting.get());
+    }
+}
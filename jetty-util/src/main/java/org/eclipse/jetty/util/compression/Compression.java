@@ -0,0 +1,250 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.TypeUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+
+/**
+ * <p>A content coding, such as {@code zstd} or {@code br}, that can be used to
+ * compress response content and to decompress request and response content.</p>
+ * <p>Implementations provide {@link Encoder} and {@link Decoder} instances, which
+ * are pooled by this class in the same way as {@link DeflaterPool} and {@link InflaterPool}
+ * pool {@link java.util.zip.Deflater}s and {@link java.util.zip.Inflater}s.</p>
+ * <p>Implementations may be discovered with the {@link ServiceLoader} via {@link #discover()},
+ * so that codings backed by optional (possibly native) libraries are only used when
+ * they are present on the class-path or module-path.</p>
+ *
+ * @see DeflateCompression
+ */
+@ManagedObject
+public abstract class Compression extends ContainerLifeCycle
+{
+    private final String _encoding;
+    private final CompressionPool<Encoder> _encoderPool;
+    private final CompressionPool<Decoder> _decoderPool;
+
+    /**
+     * @param encoding the content coding token, as used in the {@code Accept-Encoding} and {@code Content-Encoding} headers
+     */
+    protected Compression(String encoding)
+    {
+        _encoding = StringUtil.asciiToLowerCase(encoding);
+        _encoderPool = new CompressionPool<>(CompressionPool.DEFAULT_CAPACITY)
+        {
+            @Override
+            protected Encoder newPooled()
+            {
+                return newEncoder();
+            }
+
+            @Override
+            protected void end(Encoder encoder)
+            {
+                encoder.end();
+            }
+
+            @Override
+            protected void reset(Encoder encoder)
+            {
+                encoder.reset();
+            }
+        };
+        _decoderPool = new CompressionPool<>(CompressionPool.DEFAULT_CAPACITY)
+        {
+            @Override
+            protected Decoder newPooled()
+            {
+                return newDecoder();
+            }
+
+            @Override
+            protected void end(Decoder decoder)
+            {
+                decoder.end();
+            }
+
+            @Override
+            protected void reset(Decoder decoder)
+            {
+                decoder.reset();
+            }
+        };
+        addBean(_encoderPool);
+        addBean(_decoderPool);
+    }
+
+    /**
+     * @return the available implementations discovered via the {@link ServiceLoader}
+     */
+    public static List<Compression> discover()
+    {
+        return TypeUtil.serviceStream(ServiceLoader.load(Compression.class))
+            .filter(Compression::isAvailable)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the content coding token, always in lower case
+     */
+    @ManagedAttribute("The content coding")
+    public String getEncoding()
+    {
+        return _encoding;
+    }
+
+    /**
+     * @return whether this coding can be used in this JVM, for example whether its native library could be loaded
+     */
+    public boolean isAvailable()
+    {
+        return true;
+    }
+
+    @ManagedAttribute("The max number of pooled encoders and decoders")
+    public int getPoolCapacity()
+    {
+        return _encoderPool.getCapacity();
+    }
+
+    /**
+     * @param capacity the max number of pooled encoders and decoders, 0 for no pooling or -1 for no limit
+     */
+    public void setPoolCapacity(int capacity)
+    {
+        _encoderPool.setCapacity(capacity);
+        _decoderPool.setCapacity(capacity);
+    }
+
+    /**
+     * @return an {@link Encoder} taken from the pool, that must be released after use
+     */
+    public CompressionPool<Encoder>.Entry acquireEncoder()
+    {
+        return _encoderPool.acquire();
+    }
+
+    /**
+     * @return a {@link Decoder} taken from the pool, that must be released after use
+     */
+    public CompressionPool<Decoder>.Entry acquireDecoder()
+    {
+        return _decoderPool.acquire();
+    }
+
+    /**
+     * @return a new {@link Encoder}
+     */
+    protected abstract Encoder newEncoder();
+
+    /**
+     * @return a new {@link Decoder}
+     */
+    protected abstract Decoder newDecoder();
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,%s}", getClass().getSimpleName(), hashCode(), getState(), _encoding);
+    }
+
+    /**
+     * <p>A stateful compressor, with semantics similar to those of {@link java.util.zip.Deflater}.</p>
+     */
+    public interface Encoder
+    {
+        /**
+         * <p>Sets the bytes to compress, which are consumed by subsequent calls to {@link #encode(ByteBuffer, boolean)}.</p>
+         *
+         * @param input the bytes to compress
+         */
+        void setInput(ByteBuffer input);
+
+        /**
+         * <p>Indicates that the current input is the last.</p>
+         */
+        void finish();
+
+        /**
+         * @return whether the current input has been consumed and no compressed bytes are pending
+         */
+        boolean needsInput();
+
+        /**
+         * @return whether the end of the compressed stream has been produced
+         */
+        boolean finished();
+
+        /**
+         * <p>Compresses input bytes into the space of the given buffer.</p>
+         *
+         * @param output the buffer, in fill mode, to write compressed bytes to
+         * @param flush whether all the input consumed so far must be flushed into the output
+         * @return the number of compressed bytes written
+         * @throws IOException if the compression fails
+         */
+        int encode(ByteBuffer output, boolean flush) throws IOException;
+
+        /**
+         * <p>Resets this encoder so that it can be reused for a new stream.</p>
+         */
+        void reset();
+
+        /**
+         * <p>Releases the resources of this encoder.</p>
+         */
+        void end();
+    }
+
+    /**
+     * <p>A stateful decompressor, with semantics similar to those of {@link java.util.zip.Inflater}.</p>
+     */
+    public interface Decoder
+    {
+        /**
+         * <p>Decompresses bytes from the given input into the space of the given output.</p>
+         * <p>Input bytes are consumed as long as there is space in the output.</p>
+         *
+         * @param input the compressed bytes
+         * @param output the buffer, in fill mode, to write decompressed bytes to
+         * @return the number of decompressed bytes written
+         * @throws IOException if the input is not valid compressed content
+         */
+        int decode(ByteBuffer input, ByteBuffer output) throws IOException;
+
+        /**
+         * @return whether the end of the compressed stream has been reached
+         */
+        boolean finished();
+
+        /**
+         * <p>Resets this decoder so that it can be reused for a new stream.</p>
+         */
+        void reset();
+
+        /**
+         * <p>Releases the resources of this decoder.</p>
+         */
+        void end();
+    }
+}
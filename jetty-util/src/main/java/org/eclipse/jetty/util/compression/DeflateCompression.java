@@ -0,0 +1,165 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+
+/**
+ * <p>The {@code deflate} content coding (the zlib format of RFC 1950),
+ * implemented with {@link Deflater} and {@link Inflater}.</p>
+ * <p>This implementation is always available, and it is not registered with the
+ * {@link java.util.ServiceLoader} so that it is only used when explicitly configured.</p>
+ */
+@ManagedObject
+public class DeflateCompression extends Compression
+{
+    private int _compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    public DeflateCompression()
+    {
+        super("deflate");
+    }
+
+    @ManagedAttribute("The compression level")
+    public int getCompressionLevel()
+    {
+        return _compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _compressionLevel = compressionLevel;
+    }
+
+    @Override
+    protected Encoder newEncoder()
+    {
+        return new DeflateEncoder(new Deflater(_compressionLevel));
+    }
+
+    @Override
+    protected Decoder newDecoder()
+    {
+        return new DeflateDecoder(new Inflater());
+    }
+
+    private static class DeflateEncoder implements Encoder
+    {
+        private final Deflater _deflater;
+
+        private DeflateEncoder(Deflater deflater)
+        {
+            _deflater = deflater;
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _deflater.setInput(input);
+        }
+
+        @Override
+        public void finish()
+        {
+            _deflater.finish();
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return _deflater.needsInput();
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _deflater.finished();
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush)
+        {
+            return _deflater.deflate(output, flush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+        }
+
+        @Override
+        public void reset()
+        {
+            _deflater.reset();
+        }
+
+        @Override
+        public void end()
+        {
+            _deflater.end();
+        }
+    }
+
+    private static class DeflateDecoder implements Decoder
+    {
+        private final Inflater _inflater;
+
+        private DeflateDecoder(Inflater inflater)
+        {
+            _inflater = inflater;
+        }
+
+        @Override
+        public int decode(ByteBuffer input, ByteBuffer output) throws IOException
+        {
+            try
+            {
+                // The Inflater advances the position of the input
+                // buffer as it consumes it, so it can be set again.
+                _inflater.setInput(input);
+                int decoded = _inflater.inflate(output);
+                if (_inflater.needsDictionary())
+                    throw new ZipException("Unsupported preset dictionary");
+                return decoded;
+            }
+            catch (DataFormatException x)
+            {
+                throw new ZipException(x.getMessage());
+            }
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _inflater.finished();
+        }
+
+        @Override
+        public void reset()
+        {
+            _inflater.reset();
+        }
+
+        @Override
+        public void end()
+        {
+            _inflater.end();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Statistics on the distribution of a sampled value.</p>
+ * <p>Samples are counted in buckets whose bounds are powers of 2, so that recording a sample is
+ * a few contention free additions, at the cost of percentiles that are only accurate to a factor of 2.
+ * Bucket {@code 0} counts the samples less than or equal to {@code 0}, and bucket {@code n} counts
+ * the samples between {@code 2^(n-1)} and {@code 2^n - 1}.</p>
+ * <p>Negative samples are recorded as {@code 0}.</p>
+ */
+public class HistogramStatistic
+{
+    private final LongAdder[] _buckets = new LongAdder[Long.SIZE];
+    private final LongAccumulator _max = new LongAccumulator(Math::max, 0L);
+    private final LongAdder _total = new LongAdder();
+
+    public HistogramStatistic()
+    {
+        for (int i = 0; i < _buckets.length; ++i)
+        {
+            _buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset()
+    {
+        for (LongAdder bucket : _buckets)
+        {
+            bucket.reset();
+        }
+        _max.reset();
+        _total.reset();
+    }
+
+    /**
+     * Records a sample value.
+     *
+     * @param sample the value to record.
+     */
+    public void record(long sample)
+    {
+        sample = Math.max(0, sample);
+        _buckets[Long.SIZE - Long.numberOfLeadingZeros(sample)].increment();
+        _total.add(sample);
+        _max.accumulate(sample);
+    }
+
+    /**
+     * @return the max value of the recorded samples
+     */
+    public long getMax()
+    {
+        return _max.get();
+    }
+
+    /**
+     * @return the sum of all the recorded samples
+     */
+    public long getTotal()
+    {
+        return _total.sum();
+    }
+
+    /**
+     * @return the number of samples recorded
+     */
+    public long getCount()
+    {
+        long count = 0;
+        for (LongAdder bucket : _buckets)
+        {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the average value of the samples recorded, or zero if there are no samples
+     */
+    public double getMean()
+    {
+        long count = getCount();
+        return count > 0 ? (double)getTotal() / count : 0.0D;
+    }
+
+    /**
+     * @return the number of samples recorded in each bucket, indexed by bucket
+     */
+    public long[] getBuckets()
+    {
+        long[] result = new long[_buckets.length];
+        for (int i = 0; i < result.length; ++i)
+        {
+            result[i] = _buckets[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * <p>Returns an upper bound of the given percentile of the recorded samples,
+     * that is the upper bound of the bucket that contains the percentile, capped to the max.</p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return an upper bound of the percentile, or zero if there are no samples
+     */
+    public long getPercentile(double percentile)
+    {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        long[] buckets = getBuckets();
+        long count = 0;
+        for (long bucket : buckets)
+        {
+            count += bucket;
+        }
+        if (count == 0)
+            return 0;
+
+        long rank = (long)Math.ceil(count * percentile / 100.0D);
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; ++i)
+        {
+            cumulative += buckets[i];
+            if (cumulative >= rank && cumulative > 0)
+                return Math.min(getMax(), upperBound(i));
+        }
+        return getMax();
+    }
+
+    private static long upperBound(int bucket)
+    {
+        if (bucket == 0)
+            return 0;
+        if (bucket == Long.SIZE - 1)
+            return Long.MAX_VALUE;
+        return (1L << bucket) - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{count=%d,max=%d,mean=%f,p50=%d,p99=%d}", getClass().getSimpleName(), hashCode(), getCount(), getMax(), getMean(), getPercentile(50), getPercentile(99));
+    }
+}
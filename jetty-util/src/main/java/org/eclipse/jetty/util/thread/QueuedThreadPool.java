@@ -29,6 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.jetty.util.AtomicBiInteger;
 import org.eclipse.jetty.util.BlockingArrayQueue;
 import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.RingBlockingQueue;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
@@ -75,6 +76,10 @@ import org.slf4j.LoggerFactory;
  *   <li>{@link #getBusyThreads() busyThreads} = utilizedThreads + leasedThreads</li>
  *   <li>{@link #getIdleThreads() idleThreads} = readyThreads - availableReservedThreads</li>
  * </ul>
+ * <p>The job queue is by default a {@link BlockingArrayQueue}, which guards its head and tail
+ * with locks, and grows without limit. Under heavy load from many producers, such as selector threads,
+ * the lock-free {@link RingBlockingQueue} returned by {@link #newJobQueue(int, boolean)}, which overflows
+ * without limit as well, may be passed to the constructor instead.</p>
  */
 @ManagedObject("A thread pool")
 public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactory, SizedThreadPool, Dumpable, TryExecutor, VirtualThreads.Configurable
@@ -170,16 +175,29 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         setStopTimeout(5000);
         setReservedThreads(reservedThreads);
         if (queue == null)
-        {
-            int capacity = Math.max(_minThreads, 8) * 1024;
-            queue = new BlockingArrayQueue<>(capacity, capacity);
-        }
+            queue = newJobQueue(_minThreads, false);
         _jobs = queue;
         _threadGroup = threadGroup;
         setThreadPoolBudget(new ThreadPoolBudget(this));
         _threadFactory = threadFactory == null ? this : threadFactory;
     }
 
+    /**
+     * <p>Creates an unbounded job queue sized for the given number of min threads.</p>
+     *
+     * @param minThreads the min threads of the thread pool
+     * @param lockFree whether to create a lock-free {@link RingBlockingQueue}
+     * rather than the default {@link BlockingArrayQueue}
+     * @return a new job queue
+     */
+    public static BlockingQueue<Runnable> newJobQueue(int minThreads, boolean lockFree)
+    {
+        int capacity = Math.max(minThreads, 8) * 1024;
+        if (lockFree)
+            return new RingBlockingQueue<>(capacity, Integer.MAX_VALUE, RingBlockingQueue.DEFAULT_SPINS);
+        return new BlockingArrayQueue<>(capacity, capacity);
+    }
+
     @Override
     public ThreadPoolBudget getThreadPoolBudget()
     {
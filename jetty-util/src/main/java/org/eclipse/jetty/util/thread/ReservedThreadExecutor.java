@@ -22,6 +22,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.AtomicBiInteger;
@@ -30,6 +31,7 @@ import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
@@ -76,6 +78,8 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     private final SynchronousQueue<Runnable> _queue = new SynchronousQueue<>(false);
     private final AtomicBiInteger _count = new AtomicBiInteger(); // hi=pending; lo=size;
     private final AtomicLong _lastEmptyNanoTime = new AtomicLong(NanoTime.now());
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
     private ThreadPoolBudget.Lease _lease;
     private long _idleTimeNanos = DEFAULT_IDLE_TIMEOUT;
 
@@ -145,6 +149,31 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         return _count.getHi();
     }
 
+    /**
+     * @return the number of calls to {@link #tryExecute(Runnable)} that were assigned a reserved thread
+     */
+    @ManagedAttribute(value = "number of tasks assigned to a reserved thread", readonly = true)
+    public long getHits()
+    {
+        return _hits.longValue();
+    }
+
+    /**
+     * @return the number of calls to {@link #tryExecute(Runnable)} that found no reserved thread
+     */
+    @ManagedAttribute(value = "number of tasks that found no reserved thread", readonly = true)
+    public long getMisses()
+    {
+        return _misses.longValue();
+    }
+
+    @ManagedOperation(value = "resets the hit and miss counts", impact = "ACTION")
+    public void resetStats()
+    {
+        _hits.reset();
+        _misses.reset();
+    }
+
     @ManagedAttribute(value = "idle timeout in ms", readonly = true)
     public long getIdleTimeoutMs()
     {
@@ -225,6 +254,13 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
 
         // Offer will only succeed if there is a reserved thread waiting
         boolean offered = _queue.offer(task);
+        if (task != STOP)
+        {
+            if (offered)
+                _hits.increment();
+            else
+                _misses.increment();
+        }
 
         // If the offer succeeded we need to reduce the size, unless it is set to -1 in the meantime
         int size = _count.getLo();
@@ -283,12 +319,14 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     @Override
     public String toString()
     {
-        return String.format("%s@%x{reserved=%d/%d,pending=%d}",
+        return String.format("%s@%x{reserved=%d/%d,pending=%d,hits=%d,misses=%d}",
             getClass().getSimpleName(),
             hashCode(),
             _count.getLo(),
             _capacity,
-            _count.getHi());
+            _count.getHi(),
+            getHits(),
+            getMisses());
     }
 
     private enum State
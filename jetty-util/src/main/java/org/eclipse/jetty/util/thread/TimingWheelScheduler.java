@@ -0,0 +1,391 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Implementation of {@link Scheduler} based on a hashed timing wheel.</p>
+ * <p>Time is divided in ticks of {@link #getTickMillis() a fixed duration}, and the wheel has
+ * {@link #getWheelSize() a number of buckets}, one per tick, that hold the tasks that expire during
+ * that tick; tasks that expire after a full turn of the wheel are kept in their bucket with a count
+ * of the turns remaining.</p>
+ * <p>Unlike {@link ScheduledExecutorScheduler}, whose heap based queue costs {@code O(log n)}
+ * to schedule and cancel a task, scheduling and cancelling a task cost {@code O(1)}: submitters only
+ * queue the new and cancelled tasks, and the scheduler thread moves them in and out of the buckets
+ * once per tick. This suits the many timeouts that are scheduled and cancelled before they expire,
+ * such as the idle timeouts of connections and streams, at the cost of a coarser precision:
+ * tasks never run early, but may run up to one tick late.</p>
+ * <p>Tasks are run by the scheduler thread, so they must not block.</p>
+ */
+@ManagedObject
+public class TimingWheelScheduler extends AbstractLifeCycle implements Scheduler, Dumpable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+    private static final int DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final Queue<WheelTask> _scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTask> _cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong _pending = new AtomicLong();
+    private final AtomicInteger _count = new AtomicInteger();
+    private final String _name;
+    private final boolean _daemon;
+    private final ClassLoader _classLoader;
+    private final ThreadGroup _threadGroup;
+    private final long _tickNanos;
+    private final Bucket[] _wheel;
+    private final int _mask;
+    private volatile long _startNanos;
+    private volatile Thread _thread;
+    private long _tick;
+
+    public TimingWheelScheduler()
+    {
+        this(null, false);
+    }
+
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon)
+    {
+        this(name, daemon, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon, @Name("tickMillis") long tickMillis, @Name("wheelSize") int wheelSize)
+    {
+        this(name, daemon, null, null, tickMillis, wheelSize);
+    }
+
+    /**
+     * @param name The name of the scheduler thread or null for automatic name
+     * @param daemon True if the scheduler thread should be daemon
+     * @param classLoader The classloader to run the thread with or null to use the current thread context classloader
+     * @param threadGroup The threadgroup to use or null for no thread group
+     * @param tickMillis The duration of a tick in ms, which is the precision of the scheduler
+     * @param wheelSize The number of buckets of the wheel, rounded up to a power of 2
+     */
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon, @Name("classLoader") ClassLoader classLoader, @Name("threadGroup") ThreadGroup threadGroup, @Name("tickMillis") long tickMillis, @Name("wheelSize") int wheelSize)
+    {
+        if (tickMillis <= 0)
+            throw new IllegalArgumentException("Invalid tick: " + tickMillis);
+        if (wheelSize <= 0 || wheelSize > 1 << 30)
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        _name = StringUtil.isBlank(name) ? "Scheduler-" + hashCode() : name;
+        _daemon = daemon;
+        _classLoader = classLoader == null ? Thread.currentThread().getContextClassLoader() : classLoader;
+        _threadGroup = threadGroup;
+        _tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize)
+            size <<= 1;
+        _wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i)
+        {
+            _wheel[i] = new Bucket();
+        }
+        _mask = size - 1;
+    }
+
+    @ManagedAttribute("The name of the scheduler")
+    public String getName()
+    {
+        return _name;
+    }
+
+    @ManagedAttribute("Whether the scheduler uses daemon threads")
+    public boolean isDaemon()
+    {
+        return _daemon;
+    }
+
+    @ManagedAttribute("The duration of a tick in ms")
+    public long getTickMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_tickNanos);
+    }
+
+    @ManagedAttribute("The number of buckets of the wheel")
+    public int getWheelSize()
+    {
+        return _wheel.length;
+    }
+
+    @ManagedAttribute("The number of tasks scheduled and not yet run or cancelled")
+    public long getPendingTasks()
+    {
+        return _pending.get();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _tick = 0;
+        _startNanos = NanoTime.now();
+        Thread thread = new Thread(_threadGroup, this::tick, _name + "-" + _count.incrementAndGet());
+        thread.setDaemon(_daemon);
+        thread.setContextClassLoader(_classLoader);
+        _thread = thread;
+        super.doStart();
+        thread.start();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Thread thread = _thread;
+        _thread = null;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread())
+                thread.join();
+        }
+        for (Bucket bucket : _wheel)
+        {
+            bucket.clear();
+        }
+        _scheduled.clear();
+        _cancelled.clear();
+        _pending.set(0);
+        super.doStop();
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit units)
+    {
+        if (_thread == null)
+            return () -> false;
+        // The deadline is relative to the start of the wheel, and saturates
+        // rather than overflowing for huge delays, that then never expire.
+        long elapsed = NanoTime.since(_startNanos);
+        long delayNanos = Math.max(0, units.toNanos(delay));
+        long deadline = delayNanos > Long.MAX_VALUE - elapsed ? Long.MAX_VALUE : elapsed + delayNanos;
+        WheelTask wheelTask = new WheelTask(task, deadline);
+        _pending.incrementAndGet();
+        _scheduled.offer(wheelTask);
+        return wheelTask;
+    }
+
+    private void tick()
+    {
+        Thread thread = Thread.currentThread();
+        while (_thread == thread)
+        {
+            // Wait until the end of the current tick.
+            long tickEnd = (_tick + 1) * _tickNanos;
+            long wait = tickEnd - NanoTime.since(_startNanos);
+            if (wait > 0)
+            {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+
+            removeCancelled();
+            addScheduled();
+            _wheel[(int)(_tick & _mask)].expire();
+            ++_tick;
+        }
+    }
+
+    private void removeCancelled()
+    {
+        while (true)
+        {
+            WheelTask task = _cancelled.poll();
+            if (task == null)
+                break;
+            // The task may have been cancelled before being added to a bucket.
+            if (task._bucket != null)
+                task._bucket.remove(task);
+        }
+    }
+
+    private void addScheduled()
+    {
+        while (true)
+        {
+            WheelTask task = _scheduled.poll();
+            if (task == null)
+                break;
+            if (task._state.get() != WheelTask.SCHEDULED)
+                continue;
+            // The tick at which the task expires, not earlier than the current tick.
+            long tick = Math.max(_tick, task._deadline / _tickNanos);
+            task._rounds = (tick - _tick) / _wheel.length;
+            _wheel[(int)(tick & _mask)].add(task);
+        }
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Thread thread = _thread;
+        if (thread == null)
+            Dumpable.dumpObject(out, this);
+        else
+            Dumpable.dumpObjects(out, indent, this, (Object[])thread.getStackTrace());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,tick=%dms,wheel=%d,pending=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            getTickMillis(),
+            getWheelSize(),
+            getPendingTasks());
+    }
+
+    /**
+     * <p>A doubly linked list of tasks, only accessed by the scheduler thread.</p>
+     */
+    private class Bucket
+    {
+        private WheelTask _head;
+        private WheelTask _tail;
+
+        private void add(WheelTask task)
+        {
+            task._bucket = this;
+            if (_tail == null)
+            {
+                _head = _tail = task;
+            }
+            else
+            {
+                _tail._next = task;
+                task._prev = _tail;
+                _tail = task;
+            }
+        }
+
+        private void remove(WheelTask task)
+        {
+            if (task._prev == null)
+                _head = task._next;
+            else
+                task._prev._next = task._next;
+            if (task._next == null)
+                _tail = task._prev;
+            else
+                task._next._prev = task._prev;
+            task._prev = null;
+            task._next = null;
+            task._bucket = null;
+        }
+
+        private void expire()
+        {
+            WheelTask task = _head;
+            while (task != null)
+            {
+                WheelTask next = task._next;
+                if (task._rounds > 0)
+                {
+                    --task._rounds;
+                }
+                else
+                {
+                    remove(task);
+                    task.expire();
+                }
+                task = next;
+            }
+        }
+
+        private void clear()
+        {
+            while (_head != null)
+            {
+                remove(_head);
+            }
+        }
+    }
+
+    private class WheelTask implements Task
+    {
+        private static final int SCHEDULED = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger _state = new AtomicInteger(SCHEDULED);
+        private final Runnable _task;
+        private final long _deadline;
+        // The fields below are only accessed by the scheduler thread.
+        private long _rounds;
+        private Bucket _bucket;
+        private WheelTask _prev;
+        private WheelTask _next;
+
+        private WheelTask(Runnable task, long deadline)
+        {
+            _task = task;
+            _deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            if (!_state.compareAndSet(SCHEDULED, CANCELLED))
+                return false;
+            _pending.decrementAndGet();
+            _cancelled.offer(this);
+            return true;
+        }
+
+        private void expire()
+        {
+            if (!_state.compareAndSet(SCHEDULED, EXPIRED))
+                return;
+            _pending.decrementAndGet();
+            try
+            {
+                _task.run();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Task run failed {}", _task, x);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x[%s]", getClass().getSimpleName(), hashCode(), _task);
+        }
+    }
+}
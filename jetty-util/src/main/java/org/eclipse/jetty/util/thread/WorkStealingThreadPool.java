@@ -0,0 +1,1061 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.eclipse.jetty.util.ProcessorUtils;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.component.DumpableCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link ThreadPool.SizedThreadPool} where each thread has its own queue of jobs,
+ * and steals the jobs queued by the other threads when its own queue is empty.</p>
+ * <p>Unlike {@link QueuedThreadPool}, there is no single job queue shared by all the
+ * threads and all the submitters:</p>
+ * <ul>
+ * <li>jobs submitted by threads that are not pool threads are queued in one of several
+ * submission queues, chosen by the submitting thread;</li>
+ * <li>when {@link #isSubmitterAffinity() submitter affinity} is enabled, jobs submitted by a
+ * pool thread, for example by the pool thread that runs a {@code ManagedSelector}, are queued
+ * in the queue of that thread, so that the jobs of a selector are kept together and are
+ * taken by the selector thread itself whenever it polls for jobs, or stolen by idle threads;</li>
+ * <li>all the queues are non-blocking, and idle threads are parked and woken individually.</li>
+ * </ul>
+ * <p>Jobs are taken in submission order from each queue, like in {@link java.util.concurrent.ForkJoinPool}
+ * asynchronous mode, since they are event handlers rather than forked sub-tasks, but there is
+ * no ordering guarantee between different queues.</p>
+ * <p>The reserved threads, the {@link ThreadPoolBudget} and the thread lifecycle (minimum and
+ * maximum number of threads, idle timeout, stop timeout) are the same as {@link QueuedThreadPool}.</p>
+ */
+@ManagedObject("A work stealing thread pool")
+public class WorkStealingThreadPool extends ContainerLifeCycle implements ThreadPool.SizedThreadPool, TryExecutor, VirtualThreads.Configurable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(WorkStealingThreadPool.class);
+    private static final Worker[] NO_WORKERS = new Worker[0];
+
+    private final ThreadLocal<Worker> _currentWorker = new ThreadLocal<>();
+    private final AutoLock.WithCondition _lock = new AutoLock.WithCondition();
+    private final AtomicInteger _threads = new AtomicInteger();
+    private final AtomicInteger _idleThreads = new AtomicInteger();
+    private final ConcurrentLinkedDeque<Worker> _idle = new ConcurrentLinkedDeque<>();
+    private final Queue<Runnable>[] _submissions;
+    private final LongAdder _submittedQueued = new LongAdder();
+    private final LongAdder _localQueued = new LongAdder();
+    private final LongAdder _localJobs = new LongAdder();
+    private final LongAdder _submittedJobs = new LongAdder();
+    private final LongAdder _stolenJobs = new LongAdder();
+    private final ThreadGroup _threadGroup;
+    private volatile Worker[] _workers = NO_WORKERS;
+    private volatile boolean _accepting;
+    private String _name = "wstp" + hashCode();
+    private int _minThreads;
+    private int _maxThreads;
+    private int _idleTimeout;
+    private int _reservedThreads = -1;
+    private long _stopTimeout = 5000;
+    private boolean _submitterAffinity = true;
+    private TryExecutor _tryExecutor = TryExecutor.NO_TRY;
+    private int _priority = Thread.NORM_PRIORITY;
+    private boolean _daemon;
+    private boolean _detailedDump;
+    private int _lowThreadsThreshold = 1;
+    private ThreadPoolBudget _budget;
+    private Executor _virtualThreadsExecutor;
+
+    public WorkStealingThreadPool()
+    {
+        this(200);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads)
+    {
+        this(maxThreads, Math.min(8, maxThreads));
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads)
+    {
+        this(maxThreads, minThreads, 60000);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads, @Name("idleTimeout") int idleTimeout)
+    {
+        this(maxThreads, minThreads, idleTimeout, -1, null);
+    }
+
+    public WorkStealingThreadPool(@Name("maxThreads") int maxThreads, @Name("minThreads") int minThreads,
+                                  @Name("idleTimeout") int idleTimeout, @Name("reservedThreads") int reservedThreads,
+                                  @Name("threadGroup") ThreadGroup threadGroup)
+    {
+        if (maxThreads < minThreads)
+            throw new IllegalArgumentException("max threads (" + maxThreads + ") less than min threads (" + minThreads + ")");
+        setMinThreads(minThreads);
+        setMaxThreads(maxThreads);
+        setIdleTimeout(idleTimeout);
+        setReservedThreads(reservedThreads);
+        _threadGroup = threadGroup;
+        // A power of 2 number of submission queues, so that
+        // submitters are spread over the queues with a mask.
+        int submissions = Integer.highestOneBit(Math.max(1, ProcessorUtils.availableProcessors() - 1)) << 1;
+        @SuppressWarnings("unchecked")
+        Queue<Runnable>[] queues = new Queue[submissions];
+        for (int i = 0; i < submissions; ++i)
+        {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        _submissions = queues;
+        setThreadPoolBudget(new ThreadPoolBudget(this));
+    }
+
+    @Override
+    public ThreadPoolBudget getThreadPoolBudget()
+    {
+        return _budget;
+    }
+
+    public void setThreadPoolBudget(ThreadPoolBudget budget)
+    {
+        if (budget != null && budget.getSizedThreadPool() != this)
+            throw new IllegalArgumentException();
+        updateBean(_budget, budget);
+        _budget = budget;
+    }
+
+    /**
+     * @return the name of the this thread pool
+     */
+    @ManagedAttribute("name of the thread pool")
+    public String getName()
+    {
+        return _name;
+    }
+
+    /**
+     * <p>Sets the name of this thread pool, used as a prefix for the thread names.</p>
+     *
+     * @param name the name of the this thread pool
+     */
+    public void setName(String name)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _name = name;
+    }
+
+    @Override
+    @ManagedAttribute("minimum number of threads in the pool")
+    public int getMinThreads()
+    {
+        return _minThreads;
+    }
+
+    @Override
+    public void setMinThreads(int minThreads)
+    {
+        _minThreads = minThreads;
+        if (_minThreads > _maxThreads)
+            _maxThreads = _minThreads;
+        if (isStarted())
+            ensureThreads();
+    }
+
+    @Override
+    @ManagedAttribute("maximum number of threads in the pool")
+    public int getMaxThreads()
+    {
+        return _maxThreads;
+    }
+
+    @Override
+    public void setMaxThreads(int maxThreads)
+    {
+        if (_budget != null)
+            _budget.check(maxThreads);
+        _maxThreads = maxThreads;
+        if (_minThreads > _maxThreads)
+            _minThreads = _maxThreads;
+    }
+
+    /**
+     * @return the maximum thread idle time in ms
+     */
+    @ManagedAttribute("maximum time a thread may be idle in ms")
+    public int getIdleTimeout()
+    {
+        return _idleTimeout;
+    }
+
+    /**
+     * <p>Set the maximum thread idle time in ms.</p>
+     * <p>Threads that are idle for longer than this period may be stopped.</p>
+     *
+     * @param idleTimeout the maximum thread idle time in ms
+     */
+    public void setIdleTimeout(int idleTimeout)
+    {
+        _idleTimeout = idleTimeout;
+        ReservedThreadExecutor reserved = getBean(ReservedThreadExecutor.class);
+        if (reserved != null)
+            reserved.setIdleTimeout(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return number of reserved threads or -1 for heuristically determined
+     */
+    @ManagedAttribute("number of configured reserved threads or -1 for heuristic")
+    public int getReservedThreads()
+    {
+        return _reservedThreads;
+    }
+
+    /**
+     * @param reservedThreads number of reserved threads or -1 for heuristically determined
+     */
+    public void setReservedThreads(int reservedThreads)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _reservedThreads = reservedThreads;
+    }
+
+    public long getStopTimeout()
+    {
+        return _stopTimeout;
+    }
+
+    public void setStopTimeout(long stopTimeout)
+    {
+        _stopTimeout = stopTimeout;
+    }
+
+    /**
+     * @return whether the jobs submitted by a pool thread are queued in the queue of that thread
+     */
+    @ManagedAttribute("whether the jobs submitted by a pool thread are queued in the queue of that thread")
+    public boolean isSubmitterAffinity()
+    {
+        return _submitterAffinity;
+    }
+
+    /**
+     * <p>Sets whether the jobs submitted by a pool thread are queued in the queue of that thread,
+     * rather than in a submission queue shared with other submitters.</p>
+     * <p>With affinity, the jobs produced by a long-running pool thread, such as the thread that
+     * runs a {@code ManagedSelector}, are kept together and are either taken by that thread or
+     * stolen, from the oldest, by idle threads.</p>
+     *
+     * @param submitterAffinity whether the jobs submitted by a pool thread are queued in the queue of that thread
+     */
+    public void setSubmitterAffinity(boolean submitterAffinity)
+    {
+        _submitterAffinity = submitterAffinity;
+    }
+
+    /**
+     * @return the priority of the pool threads
+     */
+    @ManagedAttribute("priority of threads in the pool")
+    public int getThreadsPriority()
+    {
+        return _priority;
+    }
+
+    /**
+     * @param priority the priority of the pool threads
+     */
+    public void setThreadsPriority(int priority)
+    {
+        _priority = priority;
+    }
+
+    /**
+     * @return whether to use daemon threads
+     * @see Thread#isDaemon()
+     */
+    @ManagedAttribute("thread pool uses daemon threads")
+    public boolean isDaemon()
+    {
+        return _daemon;
+    }
+
+    /**
+     * @param daemon whether to use daemon threads
+     * @see Thread#setDaemon(boolean)
+     */
+    public void setDaemon(boolean daemon)
+    {
+        _daemon = daemon;
+    }
+
+    @ManagedAttribute("reports additional details in the dump")
+    public boolean isDetailedDump()
+    {
+        return _detailedDump;
+    }
+
+    public void setDetailedDump(boolean detailedDump)
+    {
+        _detailedDump = detailedDump;
+    }
+
+    @ManagedAttribute("threshold at which the pool is low on threads")
+    public int getLowThreadsThreshold()
+    {
+        return _lowThreadsThreshold;
+    }
+
+    public void setLowThreadsThreshold(int lowThreadsThreshold)
+    {
+        _lowThreadsThreshold = lowThreadsThreshold;
+    }
+
+    @Override
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _virtualThreadsExecutor;
+    }
+
+    @Override
+    public void setVirtualThreadsExecutor(Executor executor)
+    {
+        try
+        {
+            VirtualThreads.Configurable.super.setVirtualThreadsExecutor(executor);
+            _virtualThreadsExecutor = executor;
+        }
+        catch (UnsupportedOperationException ignored)
+        {
+        }
+    }
+
+    @Override
+    @ManagedAttribute("number of threads in the pool")
+    public int getThreads()
+    {
+        return _threads.get();
+    }
+
+    @Override
+    @ManagedAttribute("number of idle threads in the pool")
+    public int getIdleThreads()
+    {
+        return Math.max(0, _idleThreads.get());
+    }
+
+    /**
+     * @return the number of jobs waiting for a thread, in all the queues
+     */
+    @ManagedAttribute("number of jobs waiting for a thread")
+    public int getQueueSize()
+    {
+        return Math.max(0, _submittedQueued.intValue() + _localQueued.intValue());
+    }
+
+    @ManagedAttribute("number of jobs queued in the queue of the submitting pool thread")
+    public long getLocalJobs()
+    {
+        return _localJobs.longValue();
+    }
+
+    @ManagedAttribute("number of jobs queued in the submission queues")
+    public long getSubmittedJobs()
+    {
+        return _submittedJobs.longValue();
+    }
+
+    @ManagedAttribute("number of jobs stolen from the queue of another pool thread")
+    public long getStolenJobs()
+    {
+        return _stolenJobs.longValue();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStats()
+    {
+        _localJobs.reset();
+        _submittedJobs.reset();
+        _stolenJobs.reset();
+    }
+
+    /**
+     * @return the number of available reserved threads
+     * @see ReservedThreadExecutor#getAvailable()
+     */
+    @ManagedAttribute("number of available reserved threads")
+    public int getAvailableReservedThreads()
+    {
+        TryExecutor tryExecutor = _tryExecutor;
+        if (tryExecutor instanceof ReservedThreadExecutor)
+            return ((ReservedThreadExecutor)tryExecutor).getAvailable();
+        return 0;
+    }
+
+    /**
+     * <p>Returns whether this thread pool is low on threads, with the same formula as
+     * {@link QueuedThreadPool#isLowOnThreads()}.</p>
+     *
+     * @return whether the pool is low on threads
+     */
+    @Override
+    @ManagedAttribute(value = "thread pool is low on threads", readonly = true)
+    public boolean isLowOnThreads()
+    {
+        int ready = getIdleThreads() + getAvailableReservedThreads();
+        return getMaxThreads() - getThreads() + ready - getQueueSize() <= getLowThreadsThreshold();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_reservedThreads == 0)
+        {
+            _tryExecutor = NO_TRY;
+        }
+        else
+        {
+            ReservedThreadExecutor reserved = new ReservedThreadExecutor(this, _reservedThreads);
+            reserved.setIdleTimeout(_idleTimeout, TimeUnit.MILLISECONDS);
+            _tryExecutor = reserved;
+        }
+        addBean(_tryExecutor);
+
+        _accepting = true;
+        super.doStart();
+        ensureThreads();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("Stopping {}", this);
+
+        super.doStop();
+
+        removeBean(_tryExecutor);
+        _tryExecutor = TryExecutor.NO_TRY;
+
+        // Signal the workers that we are stopping, and wake up the idle ones.
+        _accepting = false;
+        for (Worker worker : _workers)
+        {
+            LockSupport.unpark(worker._thread);
+        }
+
+        long timeout = getStopTimeout();
+        if (timeout > 0)
+        {
+            // Let the jobs complete naturally for half the stop time.
+            joinThreads(NanoTime.now() + TimeUnit.MILLISECONDS.toNanos(timeout) / 2);
+
+            for (Worker worker : _workers)
+            {
+                if (worker._thread == Thread.currentThread())
+                    continue;
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Interrupting {}", worker._thread);
+                worker._thread.interrupt();
+            }
+
+            joinThreads(NanoTime.now() + TimeUnit.MILLISECONDS.toNanos(timeout) / 2);
+
+            for (Worker worker : _workers)
+            {
+                if (worker._thread != Thread.currentThread())
+                    LOG.warn("Couldn't stop {}", worker._thread);
+            }
+        }
+
+        // Close any un-executed jobs.
+        List<Queue<Runnable>> queues = new ArrayList<>(Arrays.asList(_submissions));
+        for (Worker worker : _workers)
+        {
+            queues.add(worker._jobs);
+        }
+        for (Queue<Runnable> queue : queues)
+        {
+            while (true)
+            {
+                Runnable job = queue.poll();
+                if (job == null)
+                    break;
+                if (job instanceof Closeable)
+                {
+                    try
+                    {
+                        ((Closeable)job).close();
+                    }
+                    catch (Throwable t)
+                    {
+                        LOG.warn("Unable to close job: {}", job, t);
+                    }
+                }
+                else
+                {
+                    LOG.warn("Stopped without executing or closing {}", job);
+                }
+            }
+        }
+
+        _submittedQueued.reset();
+        _localQueued.reset();
+
+        if (_budget != null)
+            _budget.reset();
+
+        try (AutoLock.WithCondition l = _lock.lock())
+        {
+            l.signalAll();
+        }
+    }
+
+    private void joinThreads(long stopByNanos)
+    {
+        loop : while (true)
+        {
+            for (Worker worker : _workers)
+            {
+                Thread thread = worker._thread;
+                if (thread == Thread.currentThread())
+                    continue;
+
+                long canWait = NanoTime.millisUntil(stopByNanos);
+                if (canWait <= 0)
+                    return;
+
+                try
+                {
+                    thread.join(canWait);
+                }
+                catch (InterruptedException e)
+                {
+                    continue loop;
+                }
+            }
+            return;
+        }
+    }
+
+    @Override
+    public void join() throws InterruptedException
+    {
+        try (AutoLock.WithCondition l = _lock.lock())
+        {
+            while (isRunning())
+            {
+                l.await();
+            }
+        }
+
+        while (isStopping())
+        {
+            Thread.sleep(1);
+        }
+    }
+
+    @Override
+    public void execute(Runnable job)
+    {
+        if (!_accepting)
+            throw new RejectedExecutionException(job.toString());
+
+        Worker worker = _submitterAffinity ? _currentWorker.get() : null;
+        if (worker != null)
+        {
+            worker._jobs.offer(job);
+            _localQueued.increment();
+            _localJobs.increment();
+        }
+        else
+        {
+            int index = Long.hashCode(Thread.currentThread().getId()) & (_submissions.length - 1);
+            _submissions[index].offer(job);
+            _submittedQueued.increment();
+            _submittedJobs.increment();
+        }
+
+        if (LOG.isDebugEnabled())
+            LOG.debug("queue {} local={}", job, worker != null);
+
+        signalWork();
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task)
+    {
+        TryExecutor tryExecutor = _tryExecutor;
+        return tryExecutor != null && tryExecutor.tryExecute(task);
+    }
+
+    /**
+     * <p>Wakes up an idle thread, or starts a new thread if there are no idle threads.</p>
+     */
+    private void signalWork()
+    {
+        while (true)
+        {
+            Worker idle = _idle.pollFirst();
+            if (idle == null)
+                break;
+            // Discard the stale entries of the workers that are no longer idle.
+            if (idle.signal())
+                return;
+        }
+        tryStartThread();
+    }
+
+    private void ensureThreads()
+    {
+        while (_accepting)
+        {
+            int threads = _threads.get();
+            if (threads < _minThreads || (threads < _maxThreads && _idleThreads.get() <= 0 && hasJobs()))
+            {
+                if (_threads.compareAndSet(threads, threads + 1))
+                    startThread();
+                continue;
+            }
+            break;
+        }
+    }
+
+    private void tryStartThread()
+    {
+        while (_accepting)
+        {
+            int threads = _threads.get();
+            if (threads >= _maxThreads)
+                return;
+            if (_threads.compareAndSet(threads, threads + 1))
+            {
+                startThread();
+                return;
+            }
+        }
+    }
+
+    private void startThread()
+    {
+        boolean started = false;
+        Worker worker = new Worker();
+        try
+        {
+            Thread thread = newThread(worker);
+            worker._thread = thread;
+            if (LOG.isDebugEnabled())
+                LOG.debug("Starting {}", thread);
+            addWorker(worker);
+            thread.start();
+            started = true;
+        }
+        finally
+        {
+            if (!started)
+            {
+                removeWorker(worker);
+                _threads.decrementAndGet();
+            }
+        }
+    }
+
+    protected Thread newThread(Runnable runnable)
+    {
+        return PrivilegedThreadFactory.newThread(() ->
+        {
+            Thread thread = new Thread(_threadGroup, runnable);
+            thread.setDaemon(isDaemon());
+            thread.setPriority(getThreadsPriority());
+            thread.setName(_name + "-" + thread.getId());
+            thread.setContextClassLoader(getClass().getClassLoader());
+            return thread;
+        });
+    }
+
+    private void addWorker(Worker worker)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Worker[] workers = Arrays.copyOf(_workers, _workers.length + 1);
+            workers[workers.length - 1] = worker;
+            _workers = workers;
+        }
+    }
+
+    private void removeWorker(Worker worker)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Worker[] workers = _workers;
+            for (int i = 0; i < workers.length; ++i)
+            {
+                if (workers[i] == worker)
+                {
+                    Worker[] result = new Worker[workers.length - 1];
+                    System.arraycopy(workers, 0, result, 0, i);
+                    System.arraycopy(workers, i + 1, result, i, result.length - i);
+                    _workers = result;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the threads of the workers in the idle queue, including the stale entries
+     */
+    Set<Thread> getIdleQueueThreads()
+    {
+        Set<Thread> threads = new HashSet<>();
+        for (Worker worker : _idle)
+        {
+            threads.add(worker._thread);
+        }
+        return threads;
+    }
+
+    private boolean hasJobs()
+    {
+        for (Queue<Runnable> submissions : _submissions)
+        {
+            if (!submissions.isEmpty())
+                return true;
+        }
+        for (Worker worker : _workers)
+        {
+            if (!worker._jobs.isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * <p>Runs the given job in the {@link Thread#currentThread() current thread}.</p>
+     * <p>Subclasses may override to perform pre/post actions before/after the job is run.</p>
+     *
+     * @param job the job to run
+     */
+    protected void runJob(Runnable job)
+    {
+        job.run();
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Object> threads = new ArrayList<>();
+        for (Worker worker : _workers)
+        {
+            Thread thread = worker._thread;
+            StackTraceElement[] trace = thread.getStackTrace();
+            String known = getCompressedStackTag(trace);
+            String info = String.format("%s %s tid=%d prio=%d q=%d", thread.getName(), thread.getState(), thread.getId(), thread.getPriority(), worker._jobs.size());
+            if (!known.isEmpty())
+                threads.add(info + " " + known);
+            else if (isDetailedDump())
+                threads.add((Dumpable)(o, i) -> Dumpable.dumpObjects(o, i, info, (Object[])trace));
+            else
+                threads.add(info + " @ " + (trace.length > 0 ? trace[0].toString() : "???"));
+        }
+        dumpObjects(out, indent, new DumpableCollection("threads", threads));
+    }
+
+    private String getCompressedStackTag(StackTraceElement[] trace)
+    {
+        for (StackTraceElement t : trace)
+        {
+            if ("idle".equals(t.getMethodName()) && t.getClassName().equals(Worker.class.getName()))
+                return "IDLE";
+            if ("reservedWait".equals(t.getMethodName()) && t.getClassName().endsWith("ReservedThread"))
+                return "RESERVED";
+            if ("select".equals(t.getMethodName()) && t.getClassName().endsWith("SelectorProducer"))
+                return "SELECTING";
+            if ("accept".equals(t.getMethodName()) && t.getClassName().contains("ServerConnector"))
+                return "ACCEPTING";
+        }
+        return "";
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s[%s]@%x{%s,%d<=%d<=%d,i=%d,r=%d,q=%d}[%s]",
+            getClass().getSimpleName(),
+            _name,
+            hashCode(),
+            getState(),
+            getMinThreads(),
+            getThreads(),
+            getMaxThreads(),
+            getIdleThreads(),
+            getReservedThreads(),
+            getQueueSize(),
+            _tryExecutor);
+    }
+
+    private class Worker implements Runnable
+    {
+        private final ConcurrentLinkedDeque<Runnable> _jobs = new ConcurrentLinkedDeque<>();
+        private Thread _thread;
+        private final AtomicBoolean _parked = new AtomicBoolean();
+        private boolean _evicted;
+
+        /**
+         * @return a job from, in order, the queue of this worker,
+         * the submission queues or the queue of another worker
+         */
+        private Runnable take()
+        {
+            Runnable job = _jobs.poll();
+            if (job != null)
+            {
+                _localQueued.decrement();
+                return job;
+            }
+
+            // Avoid scanning all the queues when they are likely empty: the counts
+            // may miss the jobs being queued, but their submitters signal a worker.
+            if (_submittedQueued.sum() > 0)
+            {
+                Queue<Runnable>[] submissions = _submissions;
+                int start = ThreadLocalRandom.current().nextInt(submissions.length);
+                for (int i = 0; i < submissions.length; ++i)
+                {
+                    job = submissions[(start + i) & (submissions.length - 1)].poll();
+                    if (job != null)
+                    {
+                        _submittedQueued.decrement();
+                        return job;
+                    }
+                }
+            }
+
+            if (_localQueued.sum() > 0)
+            {
+                job = steal();
+                if (job != null)
+                    _localQueued.decrement();
+            }
+            return job;
+        }
+
+        private Runnable steal()
+        {
+            Worker[] workers = _workers;
+            int length = workers.length;
+            if (length < 2)
+                return null;
+            int start = ThreadLocalRandom.current().nextInt(length);
+            for (int i = 0; i < length; ++i)
+            {
+                Worker victim = workers[(start + i) % length];
+                if (victim == this)
+                    continue;
+                Runnable job = victim._jobs.poll();
+                if (job != null)
+                {
+                    _stolenJobs.increment();
+                    return job;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * <p>Parks this worker until it is signalled or its idle timeout expires.</p>
+         *
+         * @return a job to run, or null if this worker should look for a job again
+         */
+        private Runnable idle()
+        {
+            _parked.set(true);
+            _idleThreads.incrementAndGet();
+            _idle.offerFirst(this);
+
+            // Look again after becoming idle, as a job may have been
+            // queued when there were no idle workers to signal.
+            Runnable job = take();
+            if (job != null)
+            {
+                if (unpark())
+                {
+                    // Leave a stale entry in the idle queue, that is discarded when polled.
+                    return job;
+                }
+                // This worker has been signalled while it took this job,
+                // so pass the signal on for the job that was submitted.
+                signalWork();
+                return job;
+            }
+
+            long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(getIdleTimeout());
+            long idleStart = NanoTime.now();
+            while (_parked.get())
+            {
+                if (idleTimeoutNanos > 0)
+                    LockSupport.parkNanos(this, idleTimeoutNanos);
+                else
+                    LockSupport.park(this);
+
+                if (!_accepting)
+                {
+                    unpark();
+                    break;
+                }
+
+                if (idleTimeoutNanos > 0 && NanoTime.since(idleStart) >= idleTimeoutNanos)
+                {
+                    // Stay in the idle queue, rather than leaving a stale entry,
+                    // if this worker cannot be evicted.
+                    if (_threads.get() > _minThreads && unpark())
+                        _evicted = evict();
+                    idleStart = NanoTime.now();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return whether this worker was idle and has been signalled
+         */
+        private boolean signal()
+        {
+            if (_parked.compareAndSet(true, false))
+            {
+                _idleThreads.decrementAndGet();
+                LockSupport.unpark(_thread);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return whether this worker was idle and has not been signalled
+         */
+        private boolean unpark()
+        {
+            if (_parked.compareAndSet(true, false))
+            {
+                _idleThreads.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private boolean evict()
+        {
+            while (true)
+            {
+                int threads = _threads.get();
+                if (threads <= _minThreads)
+                    return false;
+                if (_threads.compareAndSet(threads, threads - 1))
+                    return true;
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Worker started for {}", WorkStealingThreadPool.this);
+
+            _currentWorker.set(this);
+            try
+            {
+                while (_accepting && !_evicted)
+                {
+                    Runnable job = take();
+                    if (job == null)
+                        job = idle();
+                    if (job != null)
+                        runJob(job);
+                }
+            }
+            finally
+            {
+                _currentWorker.remove();
+                removeWorker(this);
+                if (!_evicted)
+                    _threads.decrementAndGet();
+
+                // An exited worker is no longer idle: remove its entries from the idle
+                // queue, rather than leaving them to be discarded when polled, so that
+                // they do not pile up when the pool repeatedly grows and shrinks.
+                unpark();
+                _idle.removeIf(worker -> worker == this);
+
+                // Only this worker queues jobs in its own queue, so it can only have
+                // jobs left when the pool is stopping, and they must not be lost.
+                while (true)
+                {
+                    Runnable job = _jobs.poll();
+                    if (job == null)
+                        break;
+                    _localQueued.decrement();
+                    _submissions[0].offer(job);
+                    _submittedQueued.increment();
+                }
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} exited for {}", _thread, WorkStealingThreadPool.this);
+
+                // Jobs may have been queued, with no idle worker to signal,
+                // just before this worker exited, so check the demand again.
+                ensureThreads();
+            }
+        }
+
+        private void runJob(Runnable job)
+        {
+            try
+            {
+                WorkStealingThreadPool.this.runJob(job);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Job failed", x);
+            }
+            finally
+            {
+                // Clear any thread interrupted status.
+                Thread.interrupted();
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package org.eclipse.jetty.util.thread.strategy;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.Executor;
@@ -21,11 +22,13 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.NanoTime;
 import org.eclipse.jetty.util.VirtualThreads;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.HistogramStatistic;
 import org.eclipse.jetty.util.thread.AutoLock;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
@@ -133,12 +136,18 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
     private final LongAdder _picMode = new LongAdder();
     private final LongAdder _pecMode = new LongAdder();
     private final LongAdder _epcMode = new LongAdder();
+    private final LongAdder _pendingProducerHits = new LongAdder();
+    private final LongAdder _reservedThreadHits = new LongAdder();
+    private final LongAdder _reservedThreadMisses = new LongAdder();
+    private final HistogramStatistic _taskTimes = new HistogramStatistic();
+    private final HistogramStatistic _produceTimes = new HistogramStatistic();
     private final Producer _producer;
     private final Executor _executor;
     private final TryExecutor _tryExecutor;
     private final Executor _virtualExecutor;
     private State _state = State.IDLE;
     private boolean _pending;
+    private volatile boolean _recordTimes;
 
     /**
      * @param producer The producer of tasks to be consumed.
@@ -309,18 +318,12 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
                 if (nonBlocking)
                     return SubStrategy.PRODUCE_CONSUME;
 
-                // Take the lock to atomically check if a pending producer is available.
-                try (AutoLock l = _lock.lock())
+                // If a pending producer is available or one can be started
+                if (tryPendingProducer())
                 {
-                    // If a pending producer is available or one can be started
-                    if (_pending || _tryExecutor.tryExecute(this))
-                    {
-                        // Use EPC: the producer directly consumes the task, which may block
-                        // and then races with the pending producer to resume production.
-                        _pending = true;
-                        _state = State.IDLE;
-                        return SubStrategy.EXECUTE_PRODUCE_CONSUME;
-                    }
+                    // Use EPC: the producer directly consumes the task, which may block
+                    // and then races with the pending producer to resume production.
+                    return SubStrategy.EXECUTE_PRODUCE_CONSUME;
                 }
 
                 // Otherwise use PIC: the producer consumes the task
@@ -331,21 +334,12 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
                 // The produced task may block.
 
                 // If the calling producing thread may also block
-                if (!nonBlocking)
+                // and if a pending producer is available or one can be started
+                if (!nonBlocking && tryPendingProducer())
                 {
-                    // Take the lock to atomically check if a pending producer is available.
-                    try (AutoLock l = _lock.lock())
-                    {
-                        // If a pending producer is available or one can be started
-                        if (_pending || _tryExecutor.tryExecute(this))
-                        {
-                            // use EPC: The producer directly consumes the task, which may block
-                            // and then races with the pending producer to resume production.
-                            _pending = true;
-                            _state = State.IDLE;
-                            return SubStrategy.EXECUTE_PRODUCE_CONSUME;
-                        }
-                    }
+                    // use EPC: The producer directly consumes the task, which may block
+                    // and then races with the pending producer to resume production.
+                    return SubStrategy.EXECUTE_PRODUCE_CONSUME;
                 }
 
                 // Otherwise use PEC: the task is consumed by the executor and the producer continues to produce.
@@ -356,6 +350,36 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
         }
     }
 
+    /**
+     * Atomically checks whether a pending producer is available, or tries to start one
+     * with a reserved thread, and if so gives up production to the pending producer.
+     *
+     * @return True if a pending producer is available and the calling thread may consume a task with EPC.
+     */
+    private boolean tryPendingProducer()
+    {
+        // Take the lock to atomically check if a pending producer is available.
+        try (AutoLock l = _lock.lock())
+        {
+            if (_pending)
+            {
+                _pendingProducerHits.increment();
+            }
+            else if (_tryExecutor.tryExecute(this))
+            {
+                _reservedThreadHits.increment();
+            }
+            else
+            {
+                _reservedThreadMisses.increment();
+                return false;
+            }
+            _pending = true;
+            _state = State.IDLE;
+            return true;
+        }
+    }
+
     /**
      * Consumes a task with a sub-strategy.
      *
@@ -416,6 +440,8 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
      */
     private void runTask(Runnable task)
     {
+        boolean timed = _recordTimes;
+        long start = timed ? NanoTime.now() : 0;
         try
         {
             task.run();
@@ -424,6 +450,11 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
         {
             LOG.warn("Task run failed", x);
         }
+        finally
+        {
+            if (timed)
+                _taskTimes.record(NanoTime.since(start));
+        }
     }
 
     /**
@@ -433,6 +464,8 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
      */
     private void invokeAsNonBlocking(Runnable task)
     {
+        boolean timed = _recordTimes;
+        long start = timed ? NanoTime.now() : 0;
         try
         {
             Invocable.invokeNonBlocking(task);
@@ -441,6 +474,11 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
         {
             LOG.warn("Task invoke failed", x);
         }
+        finally
+        {
+            if (timed)
+                _taskTimes.record(NanoTime.since(start));
+        }
     }
 
     /**
@@ -450,6 +488,8 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
      */
     private Runnable produceTask()
     {
+        boolean timed = _recordTimes;
+        long start = timed ? NanoTime.now() : 0;
         try
         {
             return _producer.produce();
@@ -459,6 +499,11 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
             LOG.warn("Task produce failed", e);
             return null;
         }
+        finally
+        {
+            if (timed)
+                _produceTimes.record(NanoTime.since(start));
+        }
     }
 
     /**
@@ -518,6 +563,102 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
         return _epcMode.longValue();
     }
 
+    @ManagedAttribute(value = "number of tasks consumed with EPC mode using an already pending producer", readonly = true)
+    public long getPendingProducerHits()
+    {
+        return _pendingProducerHits.longValue();
+    }
+
+    @ManagedAttribute(value = "number of tasks consumed with EPC mode after starting a pending producer with a reserved thread", readonly = true)
+    public long getReservedThreadHits()
+    {
+        return _reservedThreadHits.longValue();
+    }
+
+    @ManagedAttribute(value = "number of tasks that could not be consumed with EPC mode for lack of a reserved thread", readonly = true)
+    public long getReservedThreadMisses()
+    {
+        return _reservedThreadMisses.longValue();
+    }
+
+    /**
+     * @return whether the times spent running tasks and producing tasks are recorded
+     */
+    @ManagedAttribute("whether the times spent running tasks and producing tasks are recorded")
+    public boolean isRecordTimes()
+    {
+        return _recordTimes;
+    }
+
+    /**
+     * <p>Sets whether the times spent running tasks and producing tasks are recorded.</p>
+     * <p>Recording times costs two reads of the clock per task and per production,
+     * so it is disabled by default, but may be enabled at runtime, for example via JMX.</p>
+     * <p>Only the tasks run by the producing thread, in PC, PIC and EPC modes, are timed;
+     * the time spent producing includes the time the producer may block, for example
+     * when a selector waits for I/O events.</p>
+     *
+     * @param recordTimes whether the times spent running tasks and producing tasks are recorded
+     */
+    public void setRecordTimes(boolean recordTimes)
+    {
+        _recordTimes = recordTimes;
+    }
+
+    /**
+     * @return the distribution of the times, in nanoseconds, spent running tasks in the producing thread
+     * @see #setRecordTimes(boolean)
+     */
+    public HistogramStatistic getTaskTimes()
+    {
+        return _taskTimes;
+    }
+
+    /**
+     * @return the distribution of the times, in nanoseconds, spent producing tasks
+     * @see #setRecordTimes(boolean)
+     */
+    public HistogramStatistic getProduceTimes()
+    {
+        return _produceTimes;
+    }
+
+    @ManagedAttribute(value = "mean time in ns spent running a task in the producing thread", readonly = true)
+    public double getTaskTimeMean()
+    {
+        return _taskTimes.getMean();
+    }
+
+    @ManagedAttribute(value = "99th percentile upper bound of the time in ns spent running a task in the producing thread", readonly = true)
+    public long getTaskTime99thPercentile()
+    {
+        return _taskTimes.getPercentile(99);
+    }
+
+    @ManagedAttribute(value = "max time in ns spent running a task in the producing thread", readonly = true)
+    public long getTaskTimeMax()
+    {
+        return _taskTimes.getMax();
+    }
+
+    @ManagedAttribute(value = "mean time in ns spent producing a task", readonly = true)
+    public double getProduceTimeMean()
+    {
+        return _produceTimes.getMean();
+    }
+
+    @ManagedAttribute(value = "99th percentile upper bound of the time in ns spent producing a task", readonly = true)
+    public long getProduceTime99thPercentile()
+    {
+        return _produceTimes.getPercentile(99);
+    }
+
+    @ManagedAttribute(value = "max time in ns spent producing a task", readonly = true)
+    public long getProduceTimeMax()
+    {
+        return _produceTimes.getMax();
+    }
+
     @ManagedAttribute(value = "whether this execution strategy is idle", readonly = true)
     public boolean isIdle()
     {
@@ -527,13 +668,27 @@ public class AdaptiveExecutionStrategy extends ContainerLifeCycle implements Exe
         }
     }
 
-    @ManagedOperation(value = "resets the task counts", impact = "ACTION")
+    @ManagedOperation(value = "resets the task counts and times", impact = "ACTION")
     public void reset()
     {
         _pcMode.reset();
         _epcMode.reset();
         _pecMode.reset();
         _picMode.reset();
+        _pendingProducerHits.reset();
+        _reservedThreadHits.reset();
+        _reservedThreadMisses.reset();
+        _taskTimes.reset();
+        _produceTimes.reset();
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        dumpObjects(out, indent,
+            String.format("epc[pending=%d,reserved=%d,missed=%d]", getPendingProducerHits(), getReservedThreadHits(), getReservedThreadMisses()),
+            "taskTimes=" + _taskTimes,
+            "produceTimes=" + _produceTimes);
     }
 
     @Override
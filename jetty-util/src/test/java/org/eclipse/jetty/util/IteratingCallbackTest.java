@@ -363,4 +363,72 @@ public class IteratingCallbackTest
         assertEquals(1, process.get());
         assertEquals(1, failure.get());
     }
+
+    @Test
+    public void testCloseWhenIdleInvokesOnClosed() throws Exception
+    {
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger failure = new AtomicInteger();
+        IteratingCallback icb = new IteratingCallback()
+        {
+            @Override
+            protected Action process()
+            {
+                return Action.IDLE;
+            }
+
+            @Override
+            protected void onCompleteFailure(Throwable cause)
+            {
+                failure.incrementAndGet();
+            }
+
+            @Override
+            protected void onClosed()
+            {
+                closed.incrementAndGet();
+            }
+        };
+
+        icb.iterate();
+        icb.close();
+        assertTrue(icb.isClosed());
+        assertEquals(1, closed.get());
+        assertEquals(0, failure.get());
+
+        icb.close();
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testClosePendingDoesNotInvokeOnClosed() throws Exception
+    {
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger failure = new AtomicInteger();
+        IteratingCallback icb = new IteratingCallback()
+        {
+            @Override
+            protected Action process()
+            {
+                return Action.SCHEDULED;
+            }
+
+            @Override
+            protected void onCompleteFailure(Throwable cause)
+            {
+                failure.incrementAndGet();
+            }
+
+            @Override
+            protected void onClosed()
+            {
+                closed.incrementAndGet();
+            }
+        };
+
+        icb.iterate();
+        icb.close();
+        assertEquals(0, closed.get());
+        assertEquals(1, failure.get());
+    }
 }
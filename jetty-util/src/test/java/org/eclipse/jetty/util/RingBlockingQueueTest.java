@@ -0,0 +1,293 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBlockingQueueTest
+{
+    @Test
+    public void testWrap()
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(3);
+
+        assertEquals(0, queue.size());
+
+        for (int i = 0; i < 10; i++)
+        {
+            queue.offer("one");
+            queue.offer("two");
+            queue.offer("three");
+            assertEquals(3, queue.size());
+            assertEquals("one", queue.peek());
+            assertThat(queue, contains("one", "two", "three"));
+
+            assertEquals("one", queue.poll());
+            assertEquals("two", queue.poll());
+            assertEquals(1, queue.size());
+
+            queue.offer("xxx");
+            assertEquals("three", queue.poll());
+            assertEquals("xxx", queue.poll());
+            assertEquals(0, queue.size());
+            assertNull(queue.poll());
+            assertNull(queue.peek());
+        }
+    }
+
+    @Test
+    public void testLimit()
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(3);
+        assertEquals(3, queue.getMaxCapacity());
+
+        assertTrue(queue.offer("0"));
+        assertTrue(queue.offer("1"));
+        assertTrue(queue.offer("2"));
+        assertFalse(queue.offer("3"));
+        assertEquals(0, queue.remainingCapacity());
+        assertThrows(IllegalStateException.class, () -> queue.add("3"));
+
+        assertEquals("0", queue.poll());
+        assertEquals(1, queue.remainingCapacity());
+        assertTrue(queue.offer("3"));
+        assertThat(queue, contains("1", "2", "3"));
+    }
+
+    @Test
+    public void testOverflow()
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(2, 4, 0);
+        assertEquals(2, queue.getCapacity());
+        assertEquals(4, queue.getMaxCapacity());
+
+        assertTrue(queue.offer("0"));
+        assertTrue(queue.offer("1"));
+        assertTrue(queue.offer("2"));
+        assertTrue(queue.offer("3"));
+        assertFalse(queue.offer("4"));
+        assertEquals(4, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertThat(queue, contains("0", "1", "2", "3"));
+
+        // Elements offered while others have overflowed do not overtake them.
+        assertEquals("0", queue.poll());
+        assertTrue(queue.offer("4"));
+        assertEquals("1", queue.poll());
+        assertEquals("2", queue.peek());
+        assertEquals("2", queue.poll());
+        assertEquals("3", queue.poll());
+        assertEquals("4", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testUnbounded()
+    {
+        RingBlockingQueue<Integer> queue = new RingBlockingQueue<>(4, Integer.MAX_VALUE, 0);
+        for (int i = 0; i < 1000; i++)
+        {
+            assertTrue(queue.offer(i));
+        }
+        assertEquals(1000, queue.size());
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testIteratorIsReadOnly()
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(4);
+        queue.offer("one");
+
+        Iterator<String> iterator = queue.iterator();
+        assertEquals("one", iterator.next());
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(4);
+
+        long start = NanoTime.now();
+        assertNull(queue.poll(200, TimeUnit.MILLISECONDS));
+        assertThat(NanoTime.millisSince(start), greaterThanOrEqualTo(200L));
+    }
+
+    @Test
+    public void testTake() throws Exception
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(4, 0);
+        CountDownLatch taken = new CountDownLatch(1);
+        List<String> results = new ArrayList<>();
+
+        Thread consumer = new Thread(() ->
+        {
+            try
+            {
+                results.add(queue.take());
+                taken.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                throw new RuntimeException(x);
+            }
+        });
+        consumer.start();
+
+        // Let the consumer park.
+        Thread.sleep(100);
+        assertTrue(queue.offer("one"));
+
+        assertTrue(taken.await(5, TimeUnit.SECONDS));
+        assertThat(results, contains("one"));
+    }
+
+    @Test
+    public void testTakeInterrupted() throws Exception
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(4);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Thread consumer = new Thread(() ->
+        {
+            try
+            {
+                queue.take();
+            }
+            catch (InterruptedException x)
+            {
+                interrupted.countDown();
+            }
+        });
+        consumer.start();
+
+        Thread.sleep(100);
+        consumer.interrupt();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDrainTo()
+    {
+        RingBlockingQueue<String> queue = new RingBlockingQueue<>(4);
+        queue.offer("one");
+        queue.offer("two");
+        queue.offer("three");
+
+        List<String> list = new ArrayList<>();
+        assertEquals(2, queue.drainTo(list, 2));
+        assertThat(list, contains("one", "two"));
+        assertEquals(1, queue.drainTo(list));
+        assertThat(list, contains("one", "two", "three"));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        testConcurrentAccess(new RingBlockingQueue<>(64, 0));
+    }
+
+    @Test
+    public void testConcurrentAccessOverflowing() throws Exception
+    {
+        testConcurrentAccess(new RingBlockingQueue<>(4, Integer.MAX_VALUE, 0));
+    }
+
+    private void testConcurrentAccess(RingBlockingQueue<Integer> queue) throws Exception
+    {
+        int producers = 4;
+        int consumers = 4;
+        int count = 100_000;
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        AtomicInteger remaining = new AtomicInteger(producers * count);
+        CountDownLatch latch = new CountDownLatch(consumers);
+
+        for (int c = 0; c < consumers; c++)
+        {
+            new Thread(() ->
+            {
+                try
+                {
+                    while (remaining.get() > 0)
+                    {
+                        Integer element = queue.poll(10, TimeUnit.MILLISECONDS);
+                        if (element != null)
+                        {
+                            assertTrue(consumed.add(element));
+                            remaining.decrementAndGet();
+                        }
+                    }
+                }
+                catch (InterruptedException x)
+                {
+                    throw new RuntimeException(x);
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        for (int p = 0; p < producers; p++)
+        {
+            int base = p * count;
+            new Thread(() ->
+            {
+                try
+                {
+                    for (int i = 0; i < count; i++)
+                    {
+                        queue.put(base + i);
+                    }
+                }
+                catch (InterruptedException x)
+                {
+                    throw new RuntimeException(x);
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(producers * count, consumed.size());
+        assertTrue(queue.isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.statistic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HistogramStatisticTest
+{
+    @Test
+    public void testBuckets()
+    {
+        HistogramStatistic stats = new HistogramStatistic();
+        stats.record(-1);
+        stats.record(0);
+        stats.record(1);
+        stats.record(2);
+        stats.record(3);
+        stats.record(4);
+        stats.record(Long.MAX_VALUE);
+
+        long[] buckets = stats.getBuckets();
+        assertEquals(2, buckets[0]);
+        assertEquals(1, buckets[1]);
+        assertEquals(2, buckets[2]);
+        assertEquals(1, buckets[3]);
+        assertEquals(1, buckets[63]);
+        assertEquals(7, stats.getCount());
+        assertEquals(Long.MAX_VALUE, stats.getMax());
+    }
+
+    @Test
+    public void testPercentiles()
+    {
+        HistogramStatistic stats = new HistogramStatistic();
+        assertEquals(0, stats.getPercentile(50));
+
+        for (int i = 0; i < 99; i++)
+        {
+            stats.record(100);
+        }
+        stats.record(10_000);
+
+        assertEquals(100, stats.getCount());
+        assertEquals(199, stats.getMean(), 0.1D);
+        // 100 is in the bucket [64, 127].
+        assertEquals(127, stats.getPercentile(50));
+        assertEquals(127, stats.getPercentile(99));
+        // The upper bound of the last bucket is capped to the max.
+        assertEquals(10_000, stats.getPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> stats.getPercentile(101));
+
+        stats.reset();
+        assertEquals(0, stats.getCount());
+        assertEquals(0, stats.getMax());
+        assertEquals(0, stats.getTotal());
+    }
+}
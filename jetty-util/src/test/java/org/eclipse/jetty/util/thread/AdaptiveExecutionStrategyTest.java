@@ -17,6 +17,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.jetty.logging.StacklessLogging;
@@ -24,6 +25,10 @@ import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class AdaptiveExecutionStrategyTest
@@ -53,6 +58,46 @@ public class AdaptiveExecutionStrategyTest
             aes.stop();
     }
 
+    @Test
+    public void testTelemetry() throws Exception
+    {
+        int count = 10;
+        AtomicInteger produced = new AtomicInteger();
+        startAES(() -> produced.incrementAndGet() <= count ? new Invocable.ReadyTask(Invocable.InvocationType.NON_BLOCKING, () ->
+        {
+        }) : null);
+        aes.setRecordTimes(true);
+
+        aes.produce();
+
+        assertThat(aes.getPCTasksConsumed(), is((long)count));
+        assertThat(aes.getTaskTimes().getCount(), is((long)count));
+        // The last production returned no task.
+        assertThat(aes.getProduceTimes().getCount(), is(count + 1L));
+        assertThat(aes.getProduceTimeMax(), greaterThan(0L));
+        assertThat(aes.dump(), containsString("taskTimes="));
+
+        aes.reset();
+        assertThat(aes.getPCTasksConsumed(), is(0L));
+        assertThat(aes.getTaskTimes().getCount(), is(0L));
+        assertThat(aes.getProduceTimes().getCount(), is(0L));
+    }
+
+    @Test
+    public void testReservedThreadHit() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger produced = new AtomicInteger();
+        startAES(() -> produced.incrementAndGet() == 1 ? new Invocable.ReadyTask(Invocable.InvocationType.BLOCKING, latch::countDown) : null);
+
+        aes.produce();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(aes.getEPCTasksConsumed(), is(1L));
+        assertThat(aes.getReservedThreadHits(), is(1L));
+        assertThat(aes.getReservedThreadMisses(), is(0L));
+    }
+
     @Test
     public void testExceptionThrownByTask() throws Exception
     {
@@ -110,6 +110,34 @@ public class ReservedThreadExecutorTest
         assertThat(_reservedExecutor.getAvailable(), is(0));
     }
 
+    @Test
+    public void testHitsAndMisses() throws Exception
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertThat(_reservedExecutor.tryExecute(NOOP), is(false));
+        }
+        assertThat(_reservedExecutor.getHits(), is(0L));
+        assertThat(_reservedExecutor.getMisses(), is((long)SIZE));
+
+        for (int i = 0; i < SIZE; i++)
+        {
+            _executor.startThread();
+        }
+        waitForAllAvailable();
+
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertThat(_reservedExecutor.tryExecute(NOOP), is(true));
+        }
+        assertThat(_reservedExecutor.getHits(), is((long)SIZE));
+        assertThat(_reservedExecutor.getMisses(), is((long)SIZE));
+
+        _reservedExecutor.resetStats();
+        assertThat(_reservedExecutor.getHits(), is(0L));
+        assertThat(_reservedExecutor.getMisses(), is(0L));
+    }
+
     @Test
     public void testExecuted() throws Exception
     {
@@ -38,7 +38,8 @@ public class SchedulerTest
     {
         return Stream.of(
             TimerScheduler.class,
-            ScheduledExecutorScheduler.class
+            ScheduledExecutorScheduler.class,
+            TimingWheelScheduler.class
         );
     }
 
@@ -171,13 +172,33 @@ public class SchedulerTest
         Thread.sleep(2500);
         assertEquals(0, executed.get());
     }
+    @ParameterizedTest
+    @MethodSource("schedulerProvider")
+    public void testHugeDelay(Class<? extends Scheduler> impl) throws Exception
+    {
+        Scheduler scheduler = start(impl);
+        final AtomicLong executed = new AtomicLong();
+        // A delay that overflows when converted to nanoseconds.
+        Scheduler.Task task = scheduler.schedule(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                executed.set(System.currentTimeMillis());
+            }
+        }, 365L * 10_000, TimeUnit.DAYS);
+
+        Thread.sleep(500);
+        assertEquals(0, executed.get());
+        assertTrue(task.cancel());
+    }
 
     @ParameterizedTest
     @MethodSource("schedulerProvider")
     public void testTaskThrowsException(Class<? extends Scheduler> impl) throws Exception
     {
         Scheduler scheduler = start(impl);
-        try (StacklessLogging ignore = new StacklessLogging(TimerScheduler.class))
+        try (StacklessLogging ignore = new StacklessLogging(TimerScheduler.class, TimingWheelScheduler.class))
         {
             long delay = 500;
             scheduler.schedule(new Runnable()
@@ -0,0 +1,110 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.util.NanoTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelSchedulerTest
+{
+    private TimingWheelScheduler scheduler;
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (scheduler != null)
+            scheduler.stop();
+    }
+
+    @Test
+    public void testWheelSizeIsPowerOfTwo()
+    {
+        scheduler = new TimingWheelScheduler("test", true, 10, 100);
+        assertEquals(128, scheduler.getWheelSize());
+    }
+
+    @Test
+    public void testDelayLongerThanWheelTurn() throws Exception
+    {
+        // A turn of the wheel lasts 8 * 10 ms.
+        scheduler = new TimingWheelScheduler("test", true, 10, 8);
+        scheduler.start();
+
+        AtomicLong executed = new AtomicLong();
+        CountDownLatch latch = new CountDownLatch(1);
+        long begin = NanoTime.now();
+        scheduler.schedule(() ->
+        {
+            executed.set(NanoTime.millisSince(begin));
+            latch.countDown();
+        }, 250, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(executed.get(), greaterThanOrEqualTo(250L));
+        assertThat(scheduler.getPendingTasks(), is(0L));
+    }
+
+    @Test
+    public void testManyTasksCancelled() throws Exception
+    {
+        scheduler = new TimingWheelScheduler("test", true, 10, 64);
+        scheduler.start();
+
+        int count = 10_000;
+        AtomicInteger executed = new AtomicInteger();
+        List<Scheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            tasks.add(scheduler.schedule(executed::incrementAndGet, 200 + i % 500, TimeUnit.MILLISECONDS));
+        }
+        assertThat(scheduler.getPendingTasks(), is((long)count));
+
+        // Cancel half of the tasks.
+        for (int i = 0; i < count; i += 2)
+        {
+            assertTrue(tasks.get(i).cancel());
+            assertFalse(tasks.get(i).cancel());
+        }
+        assertThat(scheduler.getPendingTasks(), is((long)count / 2));
+
+        await().atMost(5, TimeUnit.SECONDS).until(executed::get, is(count / 2));
+        assertThat(scheduler.getPendingTasks(), is(0L));
+    }
+
+    @Test
+    public void testScheduleWhenStopped()
+    {
+        scheduler = new TimingWheelScheduler();
+        Scheduler.Task task = scheduler.schedule(() ->
+        {
+        }, 1, TimeUnit.MILLISECONDS);
+        assertFalse(task.cancel());
+    }
+}
@@ -0,0 +1,227 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkStealingThreadPoolTest extends AbstractThreadPoolTest
+{
+    private WorkStealingThreadPool _pool;
+
+    @Override
+    protected SizedThreadPool newPool(int max)
+    {
+        return new WorkStealingThreadPool(max);
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (_pool != null)
+            _pool.stop();
+    }
+
+    @Test
+    public void testManySubmitters() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(8, 2);
+        _pool.start();
+
+        int submitters = 16;
+        int jobs = 1000;
+        CountDownLatch latch = new CountDownLatch(submitters * jobs);
+        for (int i = 0; i < submitters; ++i)
+        {
+            new Thread(() ->
+            {
+                for (int j = 0; j < jobs; ++j)
+                {
+                    _pool.execute(latch::countDown);
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(_pool.getSubmittedJobs(), is((long)submitters * jobs));
+        assertThat(_pool.getThreads(), is(8));
+        await().atMost(5, TimeUnit.SECONDS).until(_pool::getQueueSize, is(0));
+    }
+
+    @Test
+    public void testLocalJobsAreStolen() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(4, 4);
+        _pool.setReservedThreads(0);
+        _pool.start();
+
+        // A job that blocks after submitting jobs, like a selector,
+        // so its local jobs can only be run by other threads.
+        int jobs = 10;
+        CountDownLatch latch = new CountDownLatch(jobs);
+        CountDownLatch blocked = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            for (int i = 0; i < jobs; ++i)
+            {
+                _pool.execute(latch::countDown);
+            }
+            try
+            {
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+                blocked.countDown();
+            }
+            catch (InterruptedException x)
+            {
+                throw new RuntimeException(x);
+            }
+        });
+
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        assertThat(_pool.getLocalJobs(), is((long)jobs));
+        assertThat(_pool.getStolenJobs(), is((long)jobs));
+    }
+
+    @Test
+    public void testNoSubmitterAffinity() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(4, 4);
+        _pool.setSubmitterAffinity(false);
+        _pool.start();
+
+        CountDownLatch latch = new CountDownLatch(1);
+        _pool.execute(() -> _pool.execute(latch::countDown));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertThat(_pool.getLocalJobs(), is(0L));
+        assertThat(_pool.getSubmittedJobs(), is(2L));
+    }
+
+    @Test
+    public void testIdleTimeoutShrinksToMinThreads() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(8, 2, 500);
+        _pool.setReservedThreads(0);
+        _pool.start();
+        assertThat(_pool.getThreads(), is(2));
+
+        CountDownLatch started = new CountDownLatch(8);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 8; ++i)
+        {
+            _pool.execute(() ->
+            {
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException x)
+                {
+                    throw new RuntimeException(x);
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertThat(_pool.getThreads(), is(8));
+        assertThat(_pool.getIdleThreads(), is(0));
+        assertTrue(_pool.isLowOnThreads());
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(_pool::getThreads, is(2));
+        await().atMost(5, TimeUnit.SECONDS).until(_pool::getIdleThreads, is(2));
+        // The exited workers are not left in the idle queue.
+        await().atMost(5, TimeUnit.SECONDS).until(() -> _pool.getIdleQueueThreads().size(), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    public void testTryExecuteWithReservedThreads() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(8, 2);
+        _pool.setReservedThreads(2);
+        _pool.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> _pool.tryExecute(() -> {}));
+        assertThat(_pool.getThreads(), greaterThan(0));
+    }
+
+    @Test
+    public void testStopClosesJobs() throws Exception
+    {
+        _pool = new WorkStealingThreadPool(1, 1);
+        _pool.setReservedThreads(0);
+        _pool.setStopTimeout(1000);
+        _pool.start();
+
+        CountDownLatch started = new CountDownLatch(1);
+        _pool.execute(() ->
+        {
+            started.countDown();
+            try
+            {
+                Thread.sleep(Long.MAX_VALUE);
+            }
+            catch (InterruptedException x)
+            {
+                // Stopped.
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean closed = new AtomicBoolean();
+        _pool.execute(new CloseableJob(closed));
+
+        _pool.stop();
+
+        assertTrue(closed.get());
+        assertThat(_pool.getThreads(), is(0));
+        assertThrows(RejectedExecutionException.class, () -> _pool.execute(() -> {}));
+    }
+
+    private static class CloseableJob implements Runnable, Closeable
+    {
+        private final AtomicBoolean _closed;
+
+        private CloseableJob(AtomicBoolean closed)
+        {
+            _closed = closed;
+        }
+
+        @Override
+        public void run()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            _closed.set(true);
+        }
+    }
+}
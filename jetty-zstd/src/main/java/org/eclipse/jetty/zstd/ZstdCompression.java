@@ -0,0 +1,307 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.zstd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import com.github.luben.zstd.util.Native;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.compression.Compression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>The {@code zstd} content coding of RFC 8878, implemented with the
+ * native library of <a href="https://github.com/luben/zstd-jni">zstd-jni</a>.</p>
+ * <p>This implementation is registered with the {@link java.util.ServiceLoader},
+ * so that it is discovered when this module and zstd-jni are present,
+ * and it is {@link #isAvailable() available} if the native library can be loaded.</p>
+ */
+@ManagedObject
+public class ZstdCompression extends Compression
+{
+    public static final int DEFAULT_COMPRESSION_LEVEL = 3;
+    private static final Logger LOG = LoggerFactory.getLogger(ZstdCompression.class);
+
+    private int _compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private int _bufferSize = 32 * 1024;
+
+    public ZstdCompression()
+    {
+        super("zstd");
+    }
+
+    @Override
+    public boolean isAvailable()
+    {
+        try
+        {
+            Native.load();
+            return true;
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("zstd native library not available", x);
+            return false;
+        }
+    }
+
+    @ManagedAttribute("The compression level")
+    public int getCompressionLevel()
+    {
+        return _compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _compressionLevel = compressionLevel;
+    }
+
+    @ManagedAttribute("The size of the direct buffers of each encoder and decoder")
+    public int getBufferSize()
+    {
+        return _bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize)
+    {
+        if (isStarted())
+            throw new IllegalStateException(getState());
+        _bufferSize = bufferSize;
+    }
+
+    @Override
+    protected Encoder newEncoder()
+    {
+        return new ZstdEncoder(_compressionLevel, _bufferSize);
+    }
+
+    @Override
+    protected Decoder newDecoder()
+    {
+        return new ZstdDecoder(_bufferSize);
+    }
+
+    /**
+     * <p>The native library only works with direct buffers, so the input
+     * is staged into a direct buffer, and the output is compressed into
+     * a direct buffer before being copied to the given output buffer.</p>
+     */
+    private static class ZstdEncoder implements Encoder
+    {
+        private final ZstdCompressCtx _context = new ZstdCompressCtx();
+        private final int _compressionLevel;
+        private final ByteBuffer _staged;
+        private final ByteBuffer _compressed;
+        private ByteBuffer _input;
+        private boolean _finish;
+        private boolean _flushing;
+        private boolean _ended;
+
+        private ZstdEncoder(int compressionLevel, int bufferSize)
+        {
+            _compressionLevel = compressionLevel;
+            _context.setLevel(compressionLevel);
+            _staged = BufferUtil.allocateDirect(bufferSize);
+            _compressed = BufferUtil.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public void setInput(ByteBuffer input)
+        {
+            _input = input;
+        }
+
+        @Override
+        public void finish()
+        {
+            _finish = true;
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return !_ended && !_flushing && isInputConsumed() && !_compressed.hasRemaining();
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _ended && !_compressed.hasRemaining();
+        }
+
+        private boolean isInputConsumed()
+        {
+            return !_staged.hasRemaining() && (_input == null || !_input.hasRemaining());
+        }
+
+        @Override
+        public int encode(ByteBuffer output, boolean flush) throws IOException
+        {
+            int start = output.position();
+            try
+            {
+                while (output.hasRemaining())
+                {
+                    if (_compressed.hasRemaining())
+                    {
+                        BufferUtil.put(_compressed, output);
+                        continue;
+                    }
+                    if (_ended)
+                        break;
+
+                    if (_input != null)
+                        BufferUtil.append(_staged, _input);
+
+                    EndDirective directive;
+                    if (isInputConsumed())
+                    {
+                        if (_finish)
+                            directive = EndDirective.END;
+                        else if (flush || _flushing)
+                            directive = EndDirective.FLUSH;
+                        else
+                            break;
+                    }
+                    else
+                    {
+                        directive = EndDirective.CONTINUE;
+                    }
+
+                    BufferUtil.clearToFill(_compressed);
+                    boolean done = _context.compressDirectByteBufferStream(_compressed, _staged, directive);
+                    BufferUtil.flipToFlush(_compressed, 0);
+
+                    if (directive == EndDirective.END)
+                    {
+                        _ended = done;
+                    }
+                    else if (directive == EndDirective.FLUSH)
+                    {
+                        _flushing = !done;
+                        if (done && !_compressed.hasRemaining())
+                            break;
+                    }
+                }
+            }
+            catch (ZstdException x)
+            {
+                throw new IOException(x);
+            }
+            return output.position() - start;
+        }
+
+        @Override
+        public void reset()
+        {
+            _context.reset();
+            _context.setLevel(_compressionLevel);
+            BufferUtil.clear(_staged);
+            BufferUtil.clear(_compressed);
+            _input = null;
+            _finish = false;
+            _flushing = false;
+            _ended = false;
+        }
+
+        @Override
+        public void end()
+        {
+            _context.close();
+        }
+    }
+
+    /**
+     * <p>The native library only works with direct buffers, so the input
+     * is staged into a direct buffer, and the output is decompressed into
+     * a direct buffer before being copied to the given output buffer.</p>
+     */
+    private static class ZstdDecoder implements Decoder
+    {
+        private final ZstdDecompressCtx _context = new ZstdDecompressCtx();
+        private final ByteBuffer _staged;
+        private final ByteBuffer _decompressed;
+        private boolean _ended;
+
+        private ZstdDecoder(int bufferSize)
+        {
+            _staged = BufferUtil.allocateDirect(bufferSize);
+            _decompressed = BufferUtil.allocateDirect(bufferSize);
+        }
+
+        @Override
+        public int decode(ByteBuffer input, ByteBuffer output) throws IOException
+        {
+            int start = output.position();
+            try
+            {
+                while (output.hasRemaining())
+                {
+                    if (_decompressed.hasRemaining())
+                    {
+                        BufferUtil.put(_decompressed, output);
+                        continue;
+                    }
+                    if (_ended)
+                        break;
+
+                    BufferUtil.append(_staged, input);
+                    if (!_staged.hasRemaining())
+                        break;
+
+                    BufferUtil.clearToFill(_decompressed);
+                    _ended = _context.decompressDirectByteBufferStream(_decompressed, _staged);
+                    BufferUtil.flipToFlush(_decompressed, 0);
+                }
+            }
+            catch (ZstdException x)
+            {
+                throw new IOException(x);
+            }
+            return output.position() - start;
+        }
+
+        @Override
+        public boolean finished()
+        {
+            return _ended && !_decompressed.hasRemaining();
+        }
+
+        @Override
+        public void reset()
+        {
+            _context.reset();
+            BufferUtil.clear(_staged);
+            BufferUtil.clear(_decompressed);
+            _ended = false;
+        }
+
+        @Override
+        public void end()
+        {
+            _context.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.zstd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.luben.zstd.Zstd;
+import org.eclipse.jetty.client.CompressionContentDecoder;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.compression.Compression;
+import org.eclipse.jetty.util.compression.CompressionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ZstdCompressionTest
+{
+    private ZstdCompression compression;
+    private Server server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        compression = new ZstdCompression();
+        assumeTrue(compression.isAvailable());
+        compression.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (client != null)
+            client.stop();
+        if (server != null)
+            server.stop();
+        compression.stop();
+    }
+
+    private static byte[] content(int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < bytes.length; ++i)
+        {
+            bytes[i] = (byte)('a' + (i * 31 + i / 1024) % 26);
+        }
+        return bytes;
+    }
+
+    private static byte[] encode(Compression compression, byte[] content, int chunk, boolean flush) throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        CompressionPool<Compression.Encoder>.Entry entry = compression.acquireEncoder();
+        try
+        {
+            Compression.Encoder encoder = entry.get();
+            ByteBuffer output = BufferUtil.allocate(64);
+            for (int offset = 0; offset < content.length; offset += chunk)
+            {
+                boolean last = offset + chunk >= content.length;
+                encoder.setInput(ByteBuffer.wrap(content, offset, Math.min(chunk, content.length - offset)));
+                if (last)
+                    encoder.finish();
+                while (!encoder.finished() && (last || !encoder.needsInput()))
+                {
+                    BufferUtil.clearToFill(output);
+                    encoder.encode(output, flush);
+                    BufferUtil.flipToFlush(output, 0);
+                    compressed.write(BufferUtil.toArray(output));
+                }
+            }
+            return compressed.toByteArray();
+        }
+        finally
+        {
+            entry.release();
+        }
+    }
+
+    @Test
+    public void testDiscovered()
+    {
+        assertThat(Compression.discover(), hasItem(instanceOf(ZstdCompression.class)));
+    }
+
+    @Test
+    public void testEncodeDecode() throws Exception
+    {
+        byte[] content = content(100_000);
+        for (boolean flush : new boolean[]{false, true})
+        {
+            byte[] compressed = encode(compression, content, 7000, flush);
+            assertTrue(compressed.length < content.length);
+            // The compressed bytes are a standard zstd frame.
+            assertArrayEquals(content, Zstd.decompress(compressed, content.length));
+
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            CompressionPool<Compression.Decoder>.Entry entry = compression.acquireDecoder();
+            Compression.Decoder decoder = entry.get();
+            ByteBuffer output = BufferUtil.allocate(100);
+            for (int offset = 0; offset < compressed.length; offset += 100)
+            {
+                ByteBuffer input = ByteBuffer.wrap(compressed, offset, Math.min(100, compressed.length - offset));
+                while (input.hasRemaining() || !decoder.finished())
+                {
+                    BufferUtil.clearToFill(output);
+                    int decoded = decoder.decode(input, output);
+                    BufferUtil.flipToFlush(output, 0);
+                    if (decoded == 0 && !input.hasRemaining())
+                        break;
+                    decompressed.write(BufferUtil.toArray(output));
+                }
+            }
+            assertTrue(decoder.finished());
+            entry.release();
+            assertArrayEquals(content, decompressed.toByteArray());
+        }
+    }
+
+    @Test
+    public void testGzipHandlerAndHttpClient() throws Exception
+    {
+        byte[] content = content(50_000);
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        server.addConnector(connector);
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                jettyRequest.setHandled(true);
+                response.setContentType("text/plain");
+                // Write in chunks to compress across multiple writes.
+                for (int offset = 0; offset < content.length; offset += 10_000)
+                {
+                    response.getOutputStream().write(content, offset, 10_000);
+                }
+            }
+        });
+        AtomicReference<String> contentEncoding = new AtomicReference<>();
+        server.setHandler(new HandlerWrapper()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException
+            {
+                super.handle(target, jettyRequest, request, response);
+                contentEncoding.set(response.getHeader("Content-Encoding"));
+            }
+        });
+        ((HandlerWrapper)server.getHandler()).setHandler(gzipHandler);
+        server.start();
+        // The zstd compression is discovered by the GzipHandler.
+        assertThat(gzipHandler.getBeans(Compression.class), hasItem(instanceOf(ZstdCompression.class)));
+
+        client = new HttpClient();
+        client.start();
+        // Only accept zstd, so that the response can only be decoded by the zstd decoder.
+        client.getContentDecoderFactories().clear();
+        client.getContentDecoderFactories().add(new CompressionContentDecoder.Factory(compression, client.getByteBufferPool()));
+
+        ContentResponse response = client.newRequest("localhost", connector.getLocalPort())
+            .timeout(5, TimeUnit.SECONDS)
+            .send();
+
+        assertEquals(HttpStatus.OK_200, response.getStatus());
+        assertEquals("zstd", contentEncoding.get());
+        assertNull(response.getHeaders().get(HttpHeader.CONTENT_ENCODING));
+        assertArrayEquals(content, response.getContent());
+    }
+}
@@ -0,0 +1,120 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpGenerator;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http.PreEncodedHttpField;
+import org.eclipse.jetty.http.PreEncodedHttpFields;
+import org.eclipse.jetty.util.BufferUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpGeneratorBenchmark
+{
+    private static final HttpField[] CONSTANT_FIELDS =
+        {
+            new HttpField(HttpHeader.SERVER, "Jetty"),
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate"),
+            new HttpField(HttpHeader.STRICT_TRANSPORT_SECURITY, "max-age=31536000; includeSubDomains"),
+            new HttpField("X-Frame-Options", "DENY"),
+            new HttpField("X-Content-Type-Options", "nosniff"),
+            new HttpField("Content-Security-Policy", "default-src 'self'; img-src 'self' data:; frame-ancestors 'none'"),
+            new HttpField("Referrer-Policy", "strict-origin-when-cross-origin"),
+        };
+
+    @Param({"FIELDS", "PRE_ENCODED", "TEMPLATE"})
+    public String fieldsType;
+
+    private HttpGenerator generator;
+    private MetaData.Response info;
+    private ByteBuffer header;
+
+    @Setup
+    public void setUp()
+    {
+        HttpFields.Mutable fields = HttpFields.build();
+        switch (fieldsType)
+        {
+            case "FIELDS":
+                for (HttpField field : CONSTANT_FIELDS)
+                {
+                    fields.add(field);
+                }
+                break;
+            case "PRE_ENCODED":
+                for (HttpField field : CONSTANT_FIELDS)
+                {
+                    fields.add(new PreEncodedHttpField(field.getHeader(), field.getName(), field.getValue()));
+                }
+                break;
+            case "TEMPLATE":
+                new PreEncodedHttpFields(CONSTANT_FIELDS).addTo(fields);
+                break;
+            default:
+                throw new IllegalStateException(fieldsType);
+        }
+        fields.add("X-Request-Id", "5f2b8c4e-7a1d-4e3b-9c6f-2d8a0b1e3f47");
+        info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, fields, 1024);
+        generator = new HttpGenerator();
+        header = BufferUtil.allocate(4096);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public ByteBuffer testGenerateResponse() throws Exception
+    {
+        generator.reset();
+        BufferUtil.clear(header);
+        generator.generateResponse(info, false, header, null, null, false);
+        return header;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpGeneratorBenchmark.class.getSimpleName())
+            .warmupIterations(5)
+            .measurementIterations(5)
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .threads(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,129 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.compression.EncodingException;
+import org.eclipse.jetty.http.compression.HuffmanDecoder;
+import org.eclipse.jetty.http.compression.HuffmanEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the Huffman encoding and decoding, shared by HPACK and QPACK,
+ * of header values typical of browser requests and API responses.</p>
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HuffmanBenchmark
+{
+    private static final String[] REQUEST_VALUES =
+        {
+            "www.example.com",
+            "/api/v2/users/12345/orders?page=2&limit=50&sort=-created_at",
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8",
+            "gzip, deflate, br",
+            "en-US,en;q=0.9,fr;q=0.8",
+            "https://www.example.com/account/settings",
+            "_ga=GA1.2.1234567890.1700000000; _gid=GA1.2.987654321.1700000000; session=f3b2c1d0e9a8",
+            "\"Not_A Brand\";v=\"8\", \"Chromium\";v=\"120\", \"Google Chrome\";v=\"120\"",
+            "same-origin"
+        };
+    private static final String[] RESPONSE_VALUES =
+        {
+            "application/json; charset=utf-8",
+            "no-cache, no-store, must-revalidate",
+            "Mon, 21 Oct 2013 20:13:21 GMT",
+            "\"33a64df551425fcc55e4d42a148795d9f25f89d4\"",
+            "max-age=31536000; includeSubDomains; preload",
+            "Accept-Encoding, Origin",
+            "nosniff",
+            "default-src 'self'; img-src 'self' https://cdn.example.com; script-src 'self'",
+            "1; mode=block",
+            "id=a3fWa; Expires=Thu, 31 Oct 2024 07:28:00 GMT; Secure; HttpOnly"
+        };
+
+    @Param({"request", "response"})
+    public String corpus;
+
+    private String[] values;
+    private byte[][] encodedValues;
+    private ByteBuffer buffer;
+    private HuffmanDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        values = "request".equals(corpus) ? REQUEST_VALUES : RESPONSE_VALUES;
+        encodedValues = new byte[values.length][];
+        for (int i = 0; i < values.length; ++i)
+        {
+            ByteBuffer encoded = ByteBuffer.allocate(HuffmanEncoder.octetsNeeded(values[i]));
+            HuffmanEncoder.encode(encoded, values[i]);
+            encodedValues[i] = encoded.array();
+        }
+        buffer = ByteBuffer.allocate(1024);
+        decoder = new HuffmanDecoder();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testEncode(Blackhole blackhole)
+    {
+        for (String value : values)
+        {
+            buffer.clear();
+            HuffmanEncoder.encode(buffer, value);
+            blackhole.consume(buffer.position());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testDecode(Blackhole blackhole) throws EncodingException
+    {
+        for (byte[] encodedValue : encodedValues)
+        {
+            decoder.setLength(encodedValue.length);
+            blackhole.consume(decoder.decode(ByteBuffer.wrap(encodedValue)));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HuffmanBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,147 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http2.HTTP2Flusher;
+import org.eclipse.jetty.http2.HTTP2Session;
+import org.eclipse.jetty.http2.SimpleFlowControlStrategy;
+import org.eclipse.jetty.http2.api.Session;
+import org.eclipse.jetty.http2.frames.HeadersFrame;
+import org.eclipse.jetty.http2.frames.PingFrame;
+import org.eclipse.jetty.http2.frames.PushPromiseFrame;
+import org.eclipse.jetty.http2.generator.Generator;
+import org.eclipse.jetty.http2.parser.Parser;
+import org.eclipse.jetty.io.ByteArrayEndPoint;
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.io.MappedByteBufferPool;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.FutureCallback;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the throughput of the frames queued concurrently to the
+ * {@link HTTP2Flusher} of a single session, where each benchmark thread
+ * is a producer stream that, like HTTP/2 streams, waits for the write of
+ * a frame to complete before writing the next one; run with {@code -t N}
+ * for N producer streams.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HTTP2FlusherBenchmark
+{
+    private static final byte[] FRAME_BYTES = new byte[64];
+
+    private HTTP2Flusher flusher;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        ByteBufferPool byteBufferPool = new MappedByteBufferPool();
+        // An EndPoint that discards the bytes, completing the writes immediately.
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint()
+        {
+            @Override
+            public boolean flush(ByteBuffer... buffers)
+            {
+                for (ByteBuffer buffer : buffers)
+                {
+                    buffer.position(buffer.limit());
+                }
+                return true;
+            }
+        };
+        Parser parser = new Parser(byteBufferPool, 8192);
+        Generator generator = new Generator(byteBufferPool);
+        HTTP2Session session = new HTTP2Session(new ScheduledExecutorScheduler(), endPoint, parser, generator, new Session.Listener.Adapter(), new SimpleFlowControlStrategy(), 1)
+        {
+            @Override
+            public void onHeaders(HeadersFrame frame)
+            {
+            }
+
+            @Override
+            public void onPushPromise(PushPromiseFrame frame)
+            {
+            }
+        };
+        flusher = new HTTP2Flusher(session);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testAppend() throws Exception
+    {
+        FutureCallback callback = new FutureCallback();
+        if (flusher.append(new BenchmarkEntry(callback)))
+            flusher.iterate();
+        callback.get();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HTTP2FlusherBenchmark.class.getSimpleName())
+            .forks(1)
+            .threads(64)
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class BenchmarkEntry extends HTTP2Flusher.Entry
+    {
+        private BenchmarkEntry(Callback callback)
+        {
+            super(new PingFrame(false), null, callback);
+        }
+
+        @Override
+        public int getFrameBytesGenerated()
+        {
+            return FRAME_BYTES.length;
+        }
+
+        @Override
+        protected boolean generate(ByteBufferPool.Lease lease)
+        {
+            lease.append(ByteBuffer.wrap(FRAME_BYTES), false);
+            return true;
+        }
+
+        @Override
+        public long onFlushed(long bytes)
+        {
+            return Math.max(0, bytes - FRAME_BYTES.length);
+        }
+    }
+}
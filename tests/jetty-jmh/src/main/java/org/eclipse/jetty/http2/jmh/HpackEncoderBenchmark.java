@@ -0,0 +1,109 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http2.jmh;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MetaData;
+import org.eclipse.jetty.http2.hpack.HpackEncoder;
+import org.eclipse.jetty.http2.hpack.HpackException;
+import org.eclipse.jetty.http2.hpack.HpackFieldCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures the encoding of the same response headers on many connections,
+ * each connection sending a few responses, with and without a
+ * {@link HpackFieldCache} shared by the connections.</p>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HpackEncoderBenchmark
+{
+    private static final MetaData.Response RESPONSE = new MetaData.Response(HttpVersion.HTTP_2, 200, HttpFields.build()
+        .put(HttpHeader.CONTENT_TYPE, "application/json;charset=utf-8")
+        .put(HttpHeader.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
+        .put(HttpHeader.VARY, "Accept-Encoding")
+        .put(HttpHeader.ETAG, "\"5f2b9c3a-1d4e\"")
+        .put(HttpHeader.LAST_MODIFIED, "Mon, 05 Oct 2026 10:00:00 GMT")
+        .put(HttpHeader.SERVER, "api")
+        .put("x-content-type-options", "nosniff")
+        .put("x-frame-options", "DENY")
+        .put("x-api-version", "2.14.1")
+        .put("strict-transport-security", "max-age=31536000; includeSubDomains"));
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"1", "10"})
+    public int responsesPerConnection;
+
+    private HpackFieldCache fieldCache;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        fieldCache = cache ? new HpackFieldCache() : null;
+    }
+
+    @State(Scope.Thread)
+    public static class Buffer
+    {
+        private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    public void testEncodeConnection(Buffer state, Blackhole blackhole) throws HpackException
+    {
+        // A new connection, with a new encoder.
+        HpackEncoder encoder = new HpackEncoder();
+        encoder.setFieldCache(fieldCache);
+        ByteBuffer buffer = state.buffer;
+        for (int i = 0; i < responsesPerConnection; ++i)
+        {
+            buffer.clear();
+            encoder.encode(buffer, RESPONSE);
+            blackhole.consume(buffer.position());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HpackEncoderBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,173 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io.jmh;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Measures request round trips on active connections while a number of
+ * idle keep-alive connections are registered with the selectors.</p>
+ * <p>The {@code provider} parameter is either {@code default} for the JVM
+ * default {@link SelectorProvider}, or the class name of an alternative
+ * provider to compare against; the SelectorManager falls back to the
+ * default provider if the alternative is not available.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class SelectorManagerBenchmark
+{
+    private static final byte[] REQUEST = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"default"})
+    public String provider;
+
+    @Param({"1000", "10000"})
+    public int idleConnections;
+
+    private Server server;
+    private ServerConnector connector;
+    private final List<SocketChannel> idle = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        server = new Server();
+        connector = new ServerConnector(server);
+        connector.setIdleTimeout(TimeUnit.MINUTES.toMillis(5));
+        connector.setAcceptQueueSize(1024);
+        if (!"default".equals(provider))
+            connector.getSelectorManager().setSelectorProvider((SelectorProvider)Class.forName(provider).getConstructor().newInstance());
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request jettyRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                jettyRequest.setHandled(true);
+                response.setContentLength(0);
+            }
+        });
+        server.start();
+
+        for (int i = 0; i < idleConnections; ++i)
+        {
+            idle.add(connect());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        idle.forEach(IO::close);
+        idle.clear();
+        server.stop();
+    }
+
+    private SocketChannel connect() throws IOException
+    {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", connector.getLocalPort()));
+        channel.socket().setTcpNoDelay(true);
+        return channel;
+    }
+
+    @State(Scope.Thread)
+    public static class ActiveConnection
+    {
+        private SocketChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+        @Setup
+        public void setUp(SelectorManagerBenchmark benchmark) throws IOException
+        {
+            channel = benchmark.connect();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            IO.close(channel);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testRoundTrip(ActiveConnection active) throws IOException
+    {
+        SocketChannel channel = active.channel;
+        ByteBuffer request = ByteBuffer.wrap(REQUEST);
+        while (request.hasRemaining())
+        {
+            channel.write(request);
+        }
+
+        // The response has no content, so it ends with the empty line.
+        ByteBuffer buffer = active.buffer;
+        buffer.clear();
+        while (true)
+        {
+            if (channel.read(buffer) < 0)
+                throw new IOException("unexpected EOF");
+            int position = buffer.position();
+            if (position >= 4 &&
+                buffer.get(position - 4) == '\r' && buffer.get(position - 3) == '\n' &&
+                buffer.get(position - 2) == '\r' && buffer.get(position - 1) == '\n')
+                return position;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(SelectorManagerBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,227 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jetty.http.CompressedContentFormat;
+import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.CachedContentFactory;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.resource.PathResource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Replays an access trace against a {@link CachedContentFactory}
+ * and reports the hit ratios of the eviction policy.</p>
+ * <p>The {@code trace} parameter is the path of a text file with one access per line,
+ * in the form {@code <path> [<size>]}, for example extracted from an access log.
+ * If the parameter is empty, a synthetic trace is used, where a set of popular
+ * files is accessed with a skewed distribution, interleaved with scans of
+ * files that are accessed only once.</p>
+ * <p>The statistics of the cache are reported as secondary results by {@link CacheStatistics}.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class CachedContentFactoryBenchmark
+{
+    private static final int DEFAULT_SIZE = 1024;
+
+    @Param({"LRU", "TINY_LFU"})
+    public String policy;
+
+    @Param({""})
+    public String trace;
+
+    @Param({"256"})
+    public int maxCachedFiles;
+
+    private Path directory;
+    private String[] accesses;
+    private CachedContentFactory cache;
+    private final AtomicInteger index = new AtomicInteger();
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory("jmh-cache-");
+        Map<String, Integer> sizes = new HashMap<>();
+        List<String> list = trace.isEmpty() ? syntheticTrace(sizes) : readTrace(Paths.get(trace), sizes);
+        accesses = list.toArray(new String[0]);
+
+        byte[] bytes = new byte[sizes.values().stream().mapToInt(Integer::intValue).max().orElse(DEFAULT_SIZE)];
+        for (Map.Entry<String, Integer> entry : sizes.entrySet())
+        {
+            Path file = directory.resolve(entry.getKey());
+            Files.createDirectories(file.getParent());
+            Files.write(file, Arrays.copyOf(bytes, entry.getValue()));
+        }
+
+        cache = new CachedContentFactory(null, new PathResource(directory), new MimeTypes(), false, false, CompressedContentFormat.NONE);
+        cache.setMaxCachedFiles(maxCachedFiles);
+        cache.setEvictionPolicy(CachedContentFactory.EvictionPolicy.valueOf(policy));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration()
+    {
+        cache.resetStats();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        cache.flushCache();
+        IO.delete(directory.toFile());
+    }
+
+    private static List<String> syntheticTrace(Map<String, Integer> sizes)
+    {
+        Random random = new Random(0);
+        List<String> list = new ArrayList<>();
+        int scanned = 0;
+        for (int i = 0; i < 100_000; ++i)
+        {
+            String path;
+            if (i % 5 == 0)
+            {
+                // One in five accesses is part of a scan.
+                path = "scan/" + (scanned++ % 5000) + ".txt";
+            }
+            else
+            {
+                // Skewed accesses to the popular files.
+                double r = random.nextDouble();
+                path = "hot/" + (int)(r * r * r * 1000) + ".txt";
+            }
+            sizes.putIfAbsent(path, DEFAULT_SIZE);
+            list.add(path);
+        }
+        return list;
+    }
+
+    private static List<String> readTrace(Path file, Map<String, Integer> sizes) throws IOException
+    {
+        List<String> list = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] parts = line.split("\\s+");
+            String path = parts[0].replaceAll("^/+", "").replace("..", "_");
+            int size = parts.length > 1 ? Integer.parseInt(parts[1]) : DEFAULT_SIZE;
+            sizes.putIfAbsent(path, size);
+            list.add(path);
+        }
+        return list;
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HttpContent testReplay(CacheStatistics statistics) throws IOException
+    {
+        String path = accesses[Math.floorMod(index.getAndIncrement(), accesses.length)];
+        HttpContent content = cache.getContent(path, 4096);
+        content.getIndirectBuffer();
+        return content;
+    }
+
+    /**
+     * <p>Reports the statistics of the cache for each iteration.</p>
+     * <p>JMH sums the counters of all threads and iterations, so the statistics are
+     * only reported by the first thread, and the ratios are divided by the number of
+     * measurement iterations, so that their sum is the average ratio.</p>
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheStatistics
+    {
+        private CachedContentFactory cache;
+        private int iterations;
+
+        @Setup
+        public void setUp(CachedContentFactoryBenchmark benchmark, BenchmarkParams benchmarkParams, ThreadParams threadParams)
+        {
+            if (threadParams.getThreadIndex() == 0)
+                cache = benchmark.cache;
+            iterations = benchmarkParams.getMeasurement().getCount();
+        }
+
+        public double hitRatio()
+        {
+            return cache == null ? 0 : cache.getHitRatio() / iterations;
+        }
+
+        public double byteHitRatio()
+        {
+            return cache == null ? 0 : cache.getByteHitRatio() / iterations;
+        }
+
+        public long evictions()
+        {
+            return cache == null ? 0 : cache.getEvictions();
+        }
+
+        public long rejections()
+        {
+            return cache == null ? 0 : cache.getAdmissionRejections();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(CachedContentFactoryBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,191 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpTester;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Compares the handling of blocking requests by the threads of a bounded
+ * {@link QueuedThreadPool} with the handling in virtual threads, when there
+ * are many more concurrent clients than pooled threads.</p>
+ * <p>The {@code VIRTUAL} mode requires a runtime that supports virtual threads.</p>
+ */
+@State(Scope.Benchmark)
+@Threads(400)
+@Warmup(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 2000, timeUnit = TimeUnit.MILLISECONDS)
+public class VirtualThreadsBenchmark
+{
+    @Param({"QTP", "VIRTUAL"})
+    public String mode;
+
+    @Param({"50"})
+    public int poolSize;
+
+    @Param({"5"})
+    public long blockMs;
+
+    private Server server;
+    private ServerConnector connector;
+
+    @Setup
+    public void startServer() throws Exception
+    {
+        QueuedThreadPool threadPool = new QueuedThreadPool(poolSize, poolSize);
+        HttpConfiguration config = new HttpConfiguration();
+        switch (mode)
+        {
+            case "QTP":
+                break;
+            case "VIRTUAL":
+                Executor virtualThreads = VirtualThreads.getDefaultVirtualThreadsExecutor();
+                if (virtualThreads == null)
+                    throw new IllegalStateException("Virtual threads are not supported by the runtime");
+                threadPool.setVirtualThreadsExecutor(virtualThreads);
+                config.setUseVirtualThreads(true);
+                break;
+            default:
+                throw new IllegalStateException(mode);
+        }
+
+        server = new Server(threadPool);
+        connector = new ServerConnector(server, new HttpConnectionFactory(config));
+        connector.setAcceptQueueSize(1024);
+        server.addConnector(connector);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                try
+                {
+                    // Emulate a blocking call to a remote service.
+                    Thread.sleep(blockMs);
+                }
+                catch (InterruptedException x)
+                {
+                    throw new IOException(x);
+                }
+                response.setContentType("text/plain");
+                response.getOutputStream().write("OK".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+    }
+
+    @TearDown
+    public void stopServer() throws Exception
+    {
+        server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Client
+    {
+        private static final byte[] REQUEST = (
+            "GET / HTTP/1.1\r\n" +
+            "Host: localhost\r\n" +
+            "\r\n").getBytes(StandardCharsets.UTF_8);
+
+        private Socket socket;
+        private OutputStream output;
+        private InputStream input;
+
+        @Setup(Level.Trial)
+        public void connect(VirtualThreadsBenchmark benchmark) throws IOException
+        {
+            socket = new Socket("localhost", benchmark.connector.getLocalPort());
+            output = socket.getOutputStream();
+            input = socket.getInputStream();
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException
+        {
+            socket.close();
+        }
+
+        private int request() throws IOException
+        {
+            output.write(REQUEST);
+            output.flush();
+            HttpTester.Response response = HttpTester.parseResponse(input);
+            if (response == null)
+                throw new IOException("EOF");
+            return response.getStatus();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput})
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int testThroughput(Client client) throws IOException
+    {
+        return client.request();
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testLatency(Client client) throws IOException
+    {
+        return client.request();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(VirtualThreadsBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
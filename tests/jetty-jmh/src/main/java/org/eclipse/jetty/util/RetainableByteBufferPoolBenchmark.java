@@ -0,0 +1,91 @@
+//
+// ========================================================================
+// Copyright (c) 1995 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under the
+// terms of the Eclipse Public License v. 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+// which is available at https://www.apache.org/licenses/LICENSE-2.0.
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import org.eclipse.jetty.io.ArrayRetainableByteBufferPool;
+import org.eclipse.jetty.io.CachingRetainableByteBufferPool;
+import org.eclipse.jetty.io.RetainableByteBuffer;
+import org.eclipse.jetty.io.RetainableByteBufferPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+public class RetainableByteBufferPoolBenchmark
+{
+    @Param({"array", "caching"})
+    public static String POOL_TYPE;
+
+    private RetainableByteBufferPool pool;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        switch (POOL_TYPE)
+        {
+            case "array":
+                pool = new ArrayRetainableByteBufferPool();
+                break;
+            case "caching":
+                pool = new CachingRetainableByteBufferPool(new ArrayRetainableByteBufferPool());
+                break;
+            default:
+                throw new IllegalStateException("Unknown pool type: " + POOL_TYPE);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.clear();
+        pool = null;
+    }
+
+    @Benchmark
+    public void testAcquireRelease()
+    {
+        RetainableByteBuffer buffer = pool.acquire(2048, true);
+        buffer.release();
+    }
+
+    @Benchmark
+    public void testAcquireReleaseTwoSizes()
+    {
+        RetainableByteBuffer header = pool.acquire(1024, true);
+        RetainableByteBuffer body = pool.acquire(16384, true);
+        body.release();
+        header.release();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(RetainableByteBufferPoolBenchmark.class.getSimpleName())
+            .warmupIterations(3)
+            .measurementIterations(3)
+            .forks(1)
+            .threads(64)
+            // .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
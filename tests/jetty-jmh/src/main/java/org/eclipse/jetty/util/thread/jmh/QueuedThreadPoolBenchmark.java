@@ -18,10 +18,13 @@ import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.WorkStealingThreadPool;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -38,14 +41,34 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @Measurement(iterations = 10, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
 public class QueuedThreadPoolBenchmark
 {
-    QueuedThreadPool pool;
+    @Param({"QTP", "WSTP"})
+    String type;
+
+    ThreadPool pool;
     private CountDownLatch[] latches;
 
     @Setup // (Level.Iteration)
     public void buildPool()
     {
-        pool = new QueuedThreadPool(200, 200);
-        pool.setReservedThreads(0);
+        switch (type)
+        {
+            case "QTP":
+            {
+                QueuedThreadPool qtp = new QueuedThreadPool(200, 200);
+                qtp.setReservedThreads(0);
+                pool = qtp;
+                break;
+            }
+            case "WSTP":
+            {
+                WorkStealingThreadPool wstp = new WorkStealingThreadPool(200, 200);
+                wstp.setReservedThreads(0);
+                pool = wstp;
+                break;
+            }
+            default:
+                throw new IllegalStateException(type);
+        }
         LifeCycle.start(pool);
         latches = new CountDownLatch[50];
         for (int i = 0; i < latches.length; i++)
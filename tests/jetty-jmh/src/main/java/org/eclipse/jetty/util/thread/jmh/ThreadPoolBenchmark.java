@@ -19,10 +19,12 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.RingBlockingQueue;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutorThreadPool;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.WorkStealingThreadPool;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Measurement;
@@ -46,10 +48,10 @@ public class ThreadPoolBenchmark
 {
     public enum Type
     {
-        QTP, ETP, LQTP, LETP, AQTP, AETP;
+        QTP, ETP, WSTP, RQTP, LQTP, LETP, AQTP, AETP;
     }
 
-    @Param({"QTP", "ETP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
+    @Param({"QTP", "ETP", "WSTP", "RQTP" /*, "LQTP", "LETP", "AQTP", "AETP" */})
     Type type;
 
     @Param({"200"})
@@ -74,6 +76,22 @@ public class ThreadPoolBenchmark
                 pool = new ExecutorThreadPool(size, size, new BlockingArrayQueue<>(32768, 32768));
                 break;
 
+            case WSTP:
+            {
+                WorkStealingThreadPool wstp = new WorkStealingThreadPool(size, size);
+                wstp.setReservedThreads(0);
+                pool = wstp;
+                break;
+            }
+
+            case RQTP:
+            {
+                QueuedThreadPool qtp = new QueuedThreadPool(size, size, new RingBlockingQueue<>(32768, Integer.MAX_VALUE, RingBlockingQueue.DEFAULT_SPINS));
+                qtp.setReservedThreads(0);
+                pool = qtp;
+                break;
+            }
+
             case LQTP:
             {
                 QueuedThreadPool qtp = new QueuedThreadPool(size, size, new LinkedBlockingQueue<>());
@@ -128,6 +146,15 @@ public class ThreadPoolBenchmark
         doJob();
     }
 
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(4)
+    public void testSelectors() throws Exception
+    {
+        // Like a selector, produce a batch of jobs for each wakeup.
+        doJobs(32);
+    }
+
     @TearDown // (Level.Iteration)
     public void shutdownPool()
     {
@@ -142,6 +169,16 @@ public class ThreadPoolBenchmark
         latch.await();
     }
 
+    void doJobs(int jobs) throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; ++i)
+        {
+            pool.execute(latch::countDown);
+        }
+        latch.await();
+    }
+
     public static void main(String[] args) throws RunnerException
     {
         Options opt = new OptionsBuilder()